@@ -8,11 +8,7 @@ import android.support.v7.widget.Toolbar;
 import android.widget.FrameLayout;
 
 import com.vinaysshenoy.routz.screens.EmptyScreen;
-import com.vinaysshenoy.routz.screens.Screen1;
-import com.vinaysshenoy.routz.screens.Screen2;
-import com.vinaysshenoy.routz.screens.Screen3;
-import com.vinaysshenoy.routz.screens.Screen4;
-import com.vinaysshenoy.routz.screens.Screen5;
+import com.vinaysshenoy.routz.screens.RoutzRouteCreator;
 
 public class MainActivity extends AppCompatActivity {
 
@@ -26,37 +22,15 @@ public class MainActivity extends AppCompatActivity {
         setSupportActionBar(toolbar);
 
         final FrameLayout frameLayout = (FrameLayout) findViewById(R.id.frame_content);
+        /* The creator for the @Route screens is generated by routz-compiler. Unknown routes get an EmptyScreen */
+        final RouteCreator routeCreator = new RoutzRouteCreator();
         mRouter = Router.create(
                 frameLayout,
                 new RouteCreator() {
                     @Override
                     public Screen instantiateScreenForRoute(@NonNull String route, @Nullable Bundle params) {
-
-                        switch (route) {
-                            case Routes.SCREEN_1: {
-                                return new Screen1(params);
-                            }
-
-                            case Routes.SCREEN_2: {
-                                return new Screen2(params);
-                            }
-
-                            case Routes.SCREEN_3: {
-                                return new Screen3(params);
-                            }
-
-                            case Routes.SCREEN_4: {
-                                return new Screen4(params);
-                            }
-
-                            case Routes.SCREEN_5: {
-                                return new Screen5(params);
-                            }
-
-                            default: {
-                                return new EmptyScreen(params);
-                            }
-                        }
+                        final Screen screen = routeCreator.instantiateScreenForRoute(route, params);
+                        return screen != null ? screen : new EmptyScreen(params);
                     }
                 },
                 savedInstanceState);
@@ -80,6 +54,18 @@ public class MainActivity extends AppCompatActivity {
         mRouter.onStart();
     }
 
+    @Override
+    protected void onResume() {
+        super.onResume();
+        mRouter.onResume();
+    }
+
+    @Override
+    protected void onPause() {
+        super.onPause();
+        mRouter.onPause();
+    }
+
     @Override
     protected void onStop() {
         super.onStop();
@@ -89,14 +75,12 @@ public class MainActivity extends AppCompatActivity {
     @Override
     protected void onDestroy() {
         super.onDestroy();
-        mRouter.onDestroy();
+        mRouter.onDestroy(isFinishing());
     }
 
     @Override
     public void onBackPressed() {
-        if(mRouter.getBackstackCount() > 1) {
-            mRouter.goBack();
-        } else {
+        if(!mRouter.handleBack()) {
             super.onBackPressed();
         }
     }
@@ -9,6 +9,7 @@ import android.view.ViewGroup;
 import android.widget.Toast;
 
 import com.vinaysshenoy.routz.R;
+import com.vinaysshenoy.routz.Route;
 import com.vinaysshenoy.routz.Routes;
 import com.vinaysshenoy.routz.Screen;
 import com.vinaysshenoy.routz.Utils;
@@ -16,6 +17,7 @@ import com.vinaysshenoy.routz.Utils;
 /**
  * Created by vinaysshenoy on 21/12/15.
  */
+@Route(Routes.SCREEN_4)
 public class Screen4 extends Screen {
 
     private static final String TAG = "Screen3";
@@ -9,6 +9,7 @@ import android.view.ViewGroup;
 import android.widget.Toast;
 
 import com.vinaysshenoy.routz.R;
+import com.vinaysshenoy.routz.Route;
 import com.vinaysshenoy.routz.Router;
 import com.vinaysshenoy.routz.Routes;
 import com.vinaysshenoy.routz.Screen;
@@ -17,6 +18,7 @@ import com.vinaysshenoy.routz.Utils;
 /**
  * Created by vinaysshenoy on 21/12/15.
  */
+@Route(Routes.SCREEN_5)
 public class Screen5 extends Screen {
 
     private static final String TAG = "Screen3";
@@ -0,0 +1,24 @@
+package com.vinaysshenoy.routz.benchmarks;
+
+import android.os.Bundle;
+import android.support.annotation.Nullable;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+
+import com.vinaysshenoy.routz.Screen;
+
+/**
+ * A screen with a single empty view, so that benchmarks measure the router and not the screens
+ */
+public class BenchmarkScreen extends Screen {
+
+    public BenchmarkScreen(@Nullable Bundle params) {
+        super(params);
+    }
+
+    @Override
+    public View createView(LayoutInflater layoutInflater, ViewGroup container) {
+        return new View(container.getContext());
+    }
+}
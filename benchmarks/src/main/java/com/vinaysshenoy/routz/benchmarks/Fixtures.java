@@ -0,0 +1,148 @@
+package com.vinaysshenoy.routz.benchmarks;
+
+import android.content.Context;
+import android.os.Bundle;
+import android.os.Looper;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.widget.FrameLayout;
+
+import com.vinaysshenoy.routz.NavigationTransaction;
+import com.vinaysshenoy.routz.RouteParams;
+import com.vinaysshenoy.routz.RouteRegistry;
+import com.vinaysshenoy.routz.Router;
+import com.vinaysshenoy.routz.Screen;
+import com.vinaysshenoy.routz.StateStore;
+
+import java.util.HashMap;
+
+/**
+ * Routers, routes and screens shared by the benchmarks
+ */
+/* package */ final class Fixtures {
+
+    /**
+     * How pushed screens are given their params
+     */
+    /* package */ static final String PARAMS_NONE = "none";
+
+    /* package */ static final String PARAMS_BUNDLE = "bundle";
+
+    /* package */ static final String PARAMS_ARGS = "args";
+
+    /**
+     * A route that is never part of a prefilled stack
+     */
+    /* package */ static final String LEAF_ROUTE = "screens/leaf";
+
+    private static final String DEPTH_ROUTE_PREFIX = "screens/depth/";
+
+    /* package */ static final RouteRegistry.ScreenFactory SCREEN_FACTORY = new RouteRegistry.ScreenFactory() {
+        @Override
+        public Screen create(@Nullable Bundle params, @NonNull RouteParams routeParams) {
+            return new BenchmarkScreen(params);
+        }
+    };
+
+    private Fixtures() {
+    }
+
+    /**
+     * Make the calling thread the main thread, so that the router applies navigations synchronously
+     *
+     * @throws IllegalStateException If another thread is already the main thread
+     */
+    /* package */ static void prepareMainThread() {
+
+        if (Looper.myLooper() == null) {
+            Looper.prepareMainLooper();
+        } else if (Looper.myLooper() != Looper.getMainLooper()) {
+            throw new IllegalStateException("Benchmarks must run on the thread that prepared the main looper");
+        }
+    }
+
+    @NonNull
+    /* package */ static RouteRegistry newRouteRegistry() {
+
+        return new RouteRegistry()
+                .register(LEAF_ROUTE, SCREEN_FACTORY)
+                .register(DEPTH_ROUTE_PREFIX + "{position}", SCREEN_FACTORY);
+    }
+
+    @NonNull
+    /* package */ static FrameLayout newContainer() {
+        return new FrameLayout(new Context());
+    }
+
+    /**
+     * The routes for a stack of the given depth, from the bottom to the top, all of which are distinct
+     */
+    @NonNull
+    /* package */ static String[] depthRoutes(int depth) {
+
+        final String[] routes = new String[depth];
+        for (int i = 0; i < depth; i++) {
+            routes[i] = DEPTH_ROUTE_PREFIX + i;
+        }
+        return routes;
+    }
+
+    /**
+     * Push screens for a range of routes, in a single transaction that is applied immediately
+     *
+     * @return The ids of the screens that were pushed
+     */
+    @NonNull
+    /* package */ static int[] push(@NonNull Router router, @NonNull String[] routes, int from, int to) {
+        return push(router, routes, from, to, PARAMS_NONE);
+    }
+
+    /**
+     * Push screens for a range of routes, each given a {@link ProductArgs}, as params or as args
+     *
+     * @param params One of {@link #PARAMS_NONE}, {@link #PARAMS_BUNDLE} or {@link #PARAMS_ARGS}
+     */
+    @NonNull
+    /* package */ static int[] push(@NonNull Router router, @NonNull String[] routes, int from, int to, @NonNull String params) {
+
+        final NavigationTransaction transaction = router.beginTransaction();
+        ProductArgs args;
+        for (int i = from; i < to; i++) {
+            args = new ProductArgs(1000000L + i, "Product " + i, i, i % 2 == 0);
+            if (PARAMS_BUNDLE.equals(params)) {
+                transaction.push(routes[i], args.toBundle());
+            } else if (PARAMS_ARGS.equals(params)) {
+                transaction.pushWithArgs(routes[i], args);
+            } else {
+                transaction.push(routes[i]);
+            }
+        }
+        final int[] screenIds = transaction.commit();
+        router.executePendingNavigations();
+        return screenIds;
+    }
+
+    /**
+     * A store that keeps states in memory, to measure marshalling without disk access
+     */
+    /* package */ static final class InMemoryStateStore implements StateStore {
+
+        private final HashMap<String, byte[]> mStates = new HashMap<>();
+
+        @Override
+        public void write(@NonNull String key, @NonNull byte[] state) {
+            mStates.put(key, state);
+        }
+
+        @Nullable
+        @Override
+        public byte[] read(@NonNull String key) {
+            return mStates.get(key);
+        }
+
+        @Override
+        public void delete(@NonNull String key) {
+            mStates.remove(key);
+        }
+    }
+}
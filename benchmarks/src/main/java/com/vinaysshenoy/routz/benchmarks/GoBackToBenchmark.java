@@ -0,0 +1,94 @@
+package com.vinaysshenoy.routz.benchmarks;
+
+import com.vinaysshenoy.routz.Router;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link Router#goBackTo(String)} and {@link Router#goBackTo(int)} at different stack depths.
+ * <p/>
+ * The {@code Top} benchmarks pop a single screen, so they measure finding the target in a deep stack. The
+ * {@code Bottom} benchmarks refill the stack in a transaction and then pop all but the bottom screen, so they
+ * also include the cost of pushing and popping {@code depth - 1} screens.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class GoBackToBenchmark {
+
+    @Param({"1", "10", "100", "1000"})
+    public int depth;
+
+    private Router mRouter;
+
+    private String[] mRoutes;
+
+    private int mBottomScreenId;
+
+    private int mTopScreenId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+
+        Fixtures.prepareMainThread();
+        mRouter = Router.create(Fixtures.newContainer(), Fixtures.newRouteRegistry(), null);
+        mRoutes = Fixtures.depthRoutes(depth);
+        final int[] screenIds = Fixtures.push(mRouter, mRoutes, 0, depth);
+        mBottomScreenId = screenIds[0];
+        mTopScreenId = screenIds[depth - 1];
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        mRouter.onDestroy();
+    }
+
+    @Benchmark
+    public int goBackToTopRoute() {
+
+        mRouter.load(Fixtures.LEAF_ROUTE);
+        mRouter.executePendingNavigations();
+        mRouter.goBackTo(mRoutes[depth - 1]);
+        mRouter.executePendingNavigations();
+        return mRouter.getBackstackCount();
+    }
+
+    @Benchmark
+    public int goBackToTopId() {
+
+        mRouter.load(Fixtures.LEAF_ROUTE);
+        mRouter.executePendingNavigations();
+        mRouter.goBackTo(mTopScreenId);
+        mRouter.executePendingNavigations();
+        return mRouter.getBackstackCount();
+    }
+
+    @Benchmark
+    public int goBackToBottomRoute() {
+
+        Fixtures.push(mRouter, mRoutes, 1, depth);
+        mRouter.goBackTo(mRoutes[0]);
+        mRouter.executePendingNavigations();
+        return mRouter.getBackstackCount();
+    }
+
+    @Benchmark
+    public int goBackToBottomId() {
+
+        Fixtures.push(mRouter, mRoutes, 1, depth);
+        mRouter.goBackTo(mBottomScreenId);
+        mRouter.executePendingNavigations();
+        return mRouter.getBackstackCount();
+    }
+}
@@ -0,0 +1,102 @@
+package com.vinaysshenoy.routz.benchmarks;
+
+import com.vinaysshenoy.routz.Router;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link Router#load(String, android.os.Bundle, int)} in each load mode, on top of a stack of distinct routes.
+ * <p/>
+ * Every operation leaves the stack at the same depth, so that the results do not drift across iterations. Navigations
+ * are applied as they are made, instead of on the next frame, unless noted otherwise.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class LoadBenchmark {
+
+    @Param({"1", "10", "100", "1000"})
+    public int depth;
+
+    private Router mRouter;
+
+    private String[] mRoutes;
+
+    private int mNextReorder;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+
+        Fixtures.prepareMainThread();
+        mRouter = Router.create(Fixtures.newContainer(), Fixtures.newRouteRegistry(), null);
+        mRoutes = Fixtures.depthRoutes(depth);
+        Fixtures.push(mRouter, mRoutes, 0, depth);
+        mNextReorder = 0;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        mRouter.onDestroy();
+    }
+
+    /**
+     * Push a new screen and pop it again, applying each navigation on its own
+     */
+    @Benchmark
+    public int loadCreate() {
+
+        final int screenId = mRouter.load(Fixtures.LEAF_ROUTE, Router.LOAD_MODE_CREATE);
+        mRouter.executePendingNavigations();
+        mRouter.goBack();
+        mRouter.executePendingNavigations();
+        return screenId;
+    }
+
+    /**
+     * Push a new screen and pop it again within the same frame, which cancel out when the queue is drained
+     */
+    @Benchmark
+    public int loadCreateCoalesced() {
+
+        final int screenId = mRouter.load(Fixtures.LEAF_ROUTE, Router.LOAD_MODE_CREATE);
+        mRouter.goBack();
+        mRouter.executePendingNavigations();
+        return screenId;
+    }
+
+    /**
+     * Push a new screen, then clear back to the screen below it by its route
+     */
+    @Benchmark
+    public int loadClear() {
+
+        mRouter.load(Fixtures.LEAF_ROUTE, Router.LOAD_MODE_CREATE);
+        mRouter.executePendingNavigations();
+        final int screenId = mRouter.load(mRoutes[depth - 1], Router.LOAD_MODE_CLEAR);
+        mRouter.executePendingNavigations();
+        return screenId;
+    }
+
+    /**
+     * Move the screen at the bottom of the stack to the top, which is the worst case for reordering
+     */
+    @Benchmark
+    public int loadReorderBottom() {
+
+        final int screenId = mRouter.load(mRoutes[mNextReorder], Router.LOAD_MODE_REORDER);
+        mRouter.executePendingNavigations();
+        mNextReorder = (mNextReorder + 1) % depth;
+        return screenId;
+    }
+}
@@ -0,0 +1,171 @@
+package com.vinaysshenoy.routz.benchmarks;
+
+import android.os.Bundle;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+
+import com.vinaysshenoy.routz.BackstackSnapshot;
+import com.vinaysshenoy.routz.LatencyHistogram;
+import com.vinaysshenoy.routz.NavigationRecording;
+import com.vinaysshenoy.routz.RouteCreator;
+import com.vinaysshenoy.routz.Router;
+import com.vinaysshenoy.routz.Screen;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.util.HashMap;
+import java.util.Locale;
+
+/**
+ * Replays a {@link NavigationRecording} against a {@link Router} on a desktop JVM, and reports how long each type of
+ * navigation took to apply, how many views were inflated and the most screens that were live at once.
+ * <p/>
+ * Every route is resolved to a screen with an empty view, and each load is given params of the recorded size. The
+ * navigations are applied one at a time, as fast as possible, so that the latency of each is measured on its own.
+ * <pre>
+ * NavigationReplay &lt;recording&gt; [--max-live-screens &lt;count&gt;]
+ * </pre>
+ */
+public final class NavigationReplay {
+
+    private static final String[] TYPE_NAMES = {"load", "goBack", "goBackTo(route)", "goBackTo(id)"};
+
+    private static final String KEY_PARAMS = "replay:params";
+
+    @NonNull
+    private final Router mRouter;
+
+    @NonNull
+    private final LatencyHistogram[] mLatencies;
+
+    /**
+     * The id each screen loaded in the recording has in the replay
+     */
+    @NonNull
+    private final HashMap<Integer, Integer> mScreenIds;
+
+    private int mInflationCount;
+
+    private int mPeakLiveScreenCount;
+
+    private NavigationReplay(int maxLiveScreens) {
+        mRouter = Router.create(Fixtures.newContainer(), new RouteCreator() {
+            @Override
+            public Screen instantiateScreenForRoute(@NonNull String route, @Nullable Bundle params) {
+                return new ReplayScreen(params);
+            }
+        }, null);
+        mRouter.setMaxLiveScreens(maxLiveScreens);
+        mLatencies = new LatencyHistogram[TYPE_NAMES.length];
+        for (int i = 0; i < mLatencies.length; i++) {
+            mLatencies[i] = new LatencyHistogram();
+        }
+        mScreenIds = new HashMap<>();
+    }
+
+    public static void main(String[] args) throws IOException {
+
+        if (args.length != 1 && !(args.length == 3 && "--max-live-screens".equals(args[1]))) {
+            System.err.println("Usage: NavigationReplay <recording> [--max-live-screens <count>]");
+            System.exit(1);
+        }
+
+        final NavigationRecording recording;
+        final InputStream inputStream = new FileInputStream(args[0]);
+        try {
+            recording = NavigationRecording.read(inputStream);
+        } finally {
+            inputStream.close();
+        }
+
+        Fixtures.prepareMainThread();
+        final NavigationReplay replay = new NavigationReplay(args.length == 3 ? Integer.parseInt(args[2]) : Router.UNLIMITED_LIVE_SCREENS);
+        replay.replay(recording);
+        replay.printReport(System.out);
+    }
+
+    private void replay(@NonNull NavigationRecording recording) {
+
+        long startNanos;
+        for (int i = 0; i < recording.size(); i++) {
+            startNanos = System.nanoTime();
+            navigate(recording, i);
+            mRouter.executePendingNavigations();
+            mLatencies[recording.getType(i)].recordNanos(System.nanoTime() - startNanos);
+            mPeakLiveScreenCount = Math.max(mPeakLiveScreenCount, mRouter.getLiveScreenCount());
+        }
+    }
+
+    private void navigate(@NonNull NavigationRecording recording, int index) {
+
+        switch (recording.getType(index)) {
+
+            case NavigationRecording.TYPE_LOAD: {
+                final int paramsSize = recording.getParamsSize(index);
+                Bundle params = null;
+                if (paramsSize > 0) {
+                    params = new Bundle(1);
+                    params.putByteArray(KEY_PARAMS, new byte[paramsSize]);
+                }
+                final int screenId = mRouter.load(recording.getRoute(index), params, recording.getLoadMode(index));
+                mScreenIds.put(recording.getScreenId(index), screenId);
+                break;
+            }
+
+            case NavigationRecording.TYPE_GO_BACK: {
+                mRouter.goBack();
+                break;
+            }
+
+            case NavigationRecording.TYPE_GO_BACK_TO_ROUTE: {
+                mRouter.goBackTo(recording.getRoute(index));
+                break;
+            }
+
+            case NavigationRecording.TYPE_GO_BACK_TO_ID: {
+                /* A screen loaded before the recording started is not in the replay, so every screen is popped */
+                final Integer screenId = mScreenIds.get(recording.getScreenId(index));
+                mRouter.goBackTo(screenId == null ? BackstackSnapshot.NO_SCREEN : screenId);
+                break;
+            }
+        }
+    }
+
+    private void printReport(@NonNull PrintStream out) {
+
+        out.println(String.format(Locale.US, "%-16s %8s %10s %10s %10s", "navigation", "count", "p50 (us)", "p99 (us)", "max (us)"));
+        LatencyHistogram latencies;
+        for (int i = 0; i < mLatencies.length; i++) {
+            latencies = mLatencies[i];
+            if (latencies.getTotalCount() > 0) {
+                out.println(String.format(Locale.US, "%-16s %8d %10d %10d %10d", TYPE_NAMES[i], latencies.getTotalCount(),
+                        latencies.getNanosAtPercentile(50) / 1000L, latencies.getNanosAtPercentile(99) / 1000L,
+                        latencies.getMaxNanos() / 1000L));
+            }
+        }
+        out.println("Views inflated: " + mInflationCount);
+        out.println("Peak live screens: " + mPeakLiveScreenCount);
+        out.println("Final depth: " + mRouter.getBackstackCount());
+    }
+
+    /**
+     * A screen with a single empty view, that counts the views inflated during the replay
+     */
+    private final class ReplayScreen extends Screen {
+
+        private ReplayScreen(@Nullable Bundle params) {
+            super(params);
+        }
+
+        @Override
+        public View createView(LayoutInflater layoutInflater, ViewGroup container) {
+            mInflationCount++;
+            return new View(container.getContext());
+        }
+    }
+}
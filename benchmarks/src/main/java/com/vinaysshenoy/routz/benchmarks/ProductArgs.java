@@ -0,0 +1,56 @@
+package com.vinaysshenoy.routz.benchmarks;
+
+import android.os.Bundle;
+import android.support.annotation.NonNull;
+
+import com.vinaysshenoy.routz.ArgsReader;
+import com.vinaysshenoy.routz.ArgsWriter;
+import com.vinaysshenoy.routz.ScreenArgs;
+
+/**
+ * Typical args of a detail screen, to compare {@link ScreenArgs} with the same values in {@link Bundle} params
+ */
+/* package */ final class ProductArgs implements ScreenArgs {
+
+    /* package */ static final Decoder<ProductArgs> DECODER = new Decoder<ProductArgs>() {
+        @NonNull
+        @Override
+        public ProductArgs readFrom(@NonNull ArgsReader reader) {
+            return new ProductArgs(reader.readLong(), reader.readString(), reader.readInt(), reader.readBoolean());
+        }
+    };
+
+    /* package */ final long productId;
+
+    /* package */ final String title;
+
+    /* package */ final int position;
+
+    /* package */ final boolean fromSearch;
+
+    /* package */ ProductArgs(long productId, String title, int position, boolean fromSearch) {
+        this.productId = productId;
+        this.title = title;
+        this.position = position;
+        this.fromSearch = fromSearch;
+    }
+
+    @Override
+    public void writeTo(@NonNull ArgsWriter writer) {
+        writer.writeLong(productId);
+        writer.writeString(title);
+        writer.writeInt(position);
+        writer.writeBoolean(fromSearch);
+    }
+
+    @NonNull
+    /* package */ Bundle toBundle() {
+
+        final Bundle params = new Bundle(4);
+        params.putLong("productId", productId);
+        params.putString("title", title);
+        params.putInt("position", position);
+        params.putBoolean("fromSearch", fromSearch);
+        return params;
+    }
+}
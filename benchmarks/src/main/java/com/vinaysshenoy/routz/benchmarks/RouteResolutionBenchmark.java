@@ -0,0 +1,81 @@
+package com.vinaysshenoy.routz.benchmarks;
+
+import com.vinaysshenoy.routz.RouteRegistry;
+import com.vinaysshenoy.routz.Screen;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resolving routes with a {@link RouteRegistry} of different sizes
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RouteResolutionBenchmark {
+
+    private static final String UNKNOWN_ROUTE = "section/unknown";
+
+    @Param({"10", "100", "1000"})
+    public int routeCount;
+
+    private RouteRegistry mRouteRegistry;
+
+    private String[] mLiteralRoutes;
+
+    private String[] mParamRoutes;
+
+    private int mNext;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+
+        mRouteRegistry = new RouteRegistry().setFallback(Fixtures.SCREEN_FACTORY);
+        mLiteralRoutes = new String[routeCount];
+        mParamRoutes = new String[routeCount];
+        for (int i = 0; i < routeCount; i++) {
+            mRouteRegistry.register("section" + i + "/about", Fixtures.SCREEN_FACTORY);
+            mRouteRegistry.register("section" + i + "/items/{itemId}/reviews/{reviewId}", Fixtures.SCREEN_FACTORY);
+            mLiteralRoutes[i] = "section" + i + "/about";
+            mParamRoutes[i] = "section" + i + "/items/" + (i * 31) + "/reviews/" + (i * 17);
+        }
+        mNext = 0;
+    }
+
+    private int next() {
+        mNext = (mNext + 1) % routeCount;
+        return mNext;
+    }
+
+    @Benchmark
+    public Screen resolveLiteral() {
+        return mRouteRegistry.instantiateScreenForRoute(mLiteralRoutes[next()], null);
+    }
+
+    @Benchmark
+    public Screen resolveWithParams() {
+        return mRouteRegistry.instantiateScreenForRoute(mParamRoutes[next()], null);
+    }
+
+    /**
+     * A route that matches no pattern, and falls back
+     */
+    @Benchmark
+    public Screen resolveFallback() {
+        return mRouteRegistry.instantiateScreenForRoute(UNKNOWN_ROUTE, null);
+    }
+
+    @Benchmark
+    public boolean canResolveWithParams() {
+        return mRouteRegistry.canResolve(mParamRoutes[next()]);
+    }
+}
@@ -0,0 +1,116 @@
+package com.vinaysshenoy.routz.benchmarks;
+
+import android.os.Bundle;
+import android.os.Parcel;
+
+import com.vinaysshenoy.routz.Router;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Saving the state of a router, parcelling it the way the system does across process death, and restoring a
+ * router from it
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SavedStateBenchmark {
+
+    @Param({"1", "10", "100", "1000"})
+    public int depth;
+
+    /**
+     * How each screen is given its params: with none, in a Bundle, or as ScreenArgs
+     */
+    @Param({Fixtures.PARAMS_NONE, Fixtures.PARAMS_BUNDLE, Fixtures.PARAMS_ARGS})
+    public String params;
+
+    private Router mRouter;
+
+    private Router mStoreRouter;
+
+    private Bundle mParcelledState;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+
+        Fixtures.prepareMainThread();
+        final String[] routes = Fixtures.depthRoutes(depth);
+
+        mRouter = Router.create(Fixtures.newContainer(), Fixtures.newRouteRegistry(), null);
+        Fixtures.push(mRouter, routes, 0, depth, params);
+
+        mStoreRouter = Router.create(Fixtures.newContainer(), Fixtures.newRouteRegistry(),
+                new Fixtures.InMemoryStateStore(), null);
+        Fixtures.push(mStoreRouter, routes, 0, depth, params);
+
+        mParcelledState = saveAndParcel();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        mRouter.onDestroy();
+        mStoreRouter.onDestroy();
+    }
+
+    @Benchmark
+    public Bundle save() {
+
+        final Bundle savedInstanceState = new Bundle();
+        mRouter.saveState(savedInstanceState);
+        return savedInstanceState;
+    }
+
+    /**
+     * Save to a {@link com.vinaysshenoy.routz.StateStore}, which marshalls the state up front
+     */
+    @Benchmark
+    public Bundle saveToStateStore() {
+
+        final Bundle savedInstanceState = new Bundle();
+        mStoreRouter.saveState(savedInstanceState);
+        return savedInstanceState;
+    }
+
+    /**
+     * Save, then write the state to a parcel and read it back
+     */
+    @Benchmark
+    public Bundle saveAndParcel() {
+
+        final Bundle savedInstanceState = new Bundle();
+        mRouter.saveState(savedInstanceState);
+
+        final Parcel parcel = Parcel.obtain();
+        try {
+            parcel.writeBundle(savedInstanceState);
+            final byte[] bytes = parcel.marshall();
+            parcel.unmarshall(bytes, 0, bytes.length);
+            parcel.setDataPosition(0);
+            return parcel.readBundle(getClass().getClassLoader());
+        } finally {
+            parcel.recycle();
+        }
+    }
+
+    /**
+     * Create a router from a state that has been through a parcel, which only materializes the top screen
+     */
+    @Benchmark
+    public int restore() {
+
+        final Router router = Router.create(Fixtures.newContainer(), Fixtures.newRouteRegistry(), mParcelledState);
+        return router.getBackstackCount();
+    }
+}
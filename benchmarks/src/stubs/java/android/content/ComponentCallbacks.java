@@ -0,0 +1,13 @@
+package android.content;
+
+import android.content.res.Configuration;
+
+/**
+ * Stand-in for the Android interface of the same name
+ */
+public interface ComponentCallbacks {
+
+    void onConfigurationChanged(Configuration newConfig);
+
+    void onLowMemory();
+}
@@ -0,0 +1,35 @@
+package android.content;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Stand-in for the Android class of the same name. Registered component callbacks are kept, and can be invoked
+ * with {@link #dispatchTrimMemory(int)}
+ */
+public class Context {
+
+    private final CopyOnWriteArrayList<ComponentCallbacks> mComponentCallbacks = new CopyOnWriteArrayList<>();
+
+    public Context getApplicationContext() {
+        return this;
+    }
+
+    public void registerComponentCallbacks(ComponentCallbacks callback) {
+        mComponentCallbacks.add(callback);
+    }
+
+    public void unregisterComponentCallbacks(ComponentCallbacks callback) {
+        mComponentCallbacks.remove(callback);
+    }
+
+    /**
+     * Send a trim level to the registered callbacks. Not part of the Android API
+     */
+    public void dispatchTrimMemory(int level) {
+        for (ComponentCallbacks callback : mComponentCallbacks) {
+            if (callback instanceof ComponentCallbacks2) {
+                ((ComponentCallbacks2) callback).onTrimMemory(level);
+            }
+        }
+    }
+}
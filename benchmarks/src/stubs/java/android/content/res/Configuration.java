@@ -0,0 +1,7 @@
+package android.content.res;
+
+/**
+ * Stand-in for the Android class of the same name
+ */
+public final class Configuration {
+}
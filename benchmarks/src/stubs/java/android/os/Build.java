@@ -0,0 +1,34 @@
+package android.os;
+
+/**
+ * Stand-in for the Android class of the same name. The reported API level can be set with the
+ * {@code routz.sdkInt} system property
+ */
+public class Build {
+
+    public static class VERSION {
+
+        public static final int SDK_INT = Integer.getInteger("routz.sdkInt", VERSION_CODES.M);
+    }
+
+    public static class VERSION_CODES {
+
+        public static final int GINGERBREAD_MR1 = 10;
+
+        public static final int HONEYCOMB = 11;
+
+        public static final int ICE_CREAM_SANDWICH = 14;
+
+        public static final int JELLY_BEAN = 16;
+
+        public static final int JELLY_BEAN_MR1 = 17;
+
+        public static final int JELLY_BEAN_MR2 = 18;
+
+        public static final int KITKAT = 19;
+
+        public static final int LOLLIPOP = 21;
+
+        public static final int M = 23;
+    }
+}
@@ -0,0 +1,179 @@
+package android.os;
+
+import java.util.HashMap;
+import java.util.Set;
+
+/**
+ * Stand-in for the Android class of the same name, backed by a map
+ */
+public final class Bundle implements Parcelable {
+
+    private final HashMap<String, Object> mMap;
+
+    public Bundle() {
+        mMap = new HashMap<>();
+    }
+
+    public Bundle(int capacity) {
+        mMap = new HashMap<>(capacity);
+    }
+
+    public Bundle(Bundle bundle) {
+        mMap = new HashMap<>(bundle.mMap);
+    }
+
+    public int size() {
+        return mMap.size();
+    }
+
+    public boolean isEmpty() {
+        return mMap.isEmpty();
+    }
+
+    public Set<String> keySet() {
+        return mMap.keySet();
+    }
+
+    public boolean containsKey(String key) {
+        return mMap.containsKey(key);
+    }
+
+    public Object get(String key) {
+        return mMap.get(key);
+    }
+
+    public void remove(String key) {
+        mMap.remove(key);
+    }
+
+    public void clear() {
+        mMap.clear();
+    }
+
+    public void putAll(Bundle bundle) {
+        mMap.putAll(bundle.mMap);
+    }
+
+    public void setClassLoader(ClassLoader loader) {
+    }
+
+    /* package */ void putObject(String key, Object value) {
+        mMap.put(key, value);
+    }
+
+    public void putBoolean(String key, boolean value) {
+        mMap.put(key, value);
+    }
+
+    public boolean getBoolean(String key) {
+        return getBoolean(key, false);
+    }
+
+    public boolean getBoolean(String key, boolean defaultValue) {
+        final Object value = mMap.get(key);
+        return value instanceof Boolean ? (Boolean) value : defaultValue;
+    }
+
+    public void putInt(String key, int value) {
+        mMap.put(key, value);
+    }
+
+    public int getInt(String key) {
+        return getInt(key, 0);
+    }
+
+    public int getInt(String key, int defaultValue) {
+        final Object value = mMap.get(key);
+        return value instanceof Integer ? (Integer) value : defaultValue;
+    }
+
+    public void putLong(String key, long value) {
+        mMap.put(key, value);
+    }
+
+    public long getLong(String key) {
+        return getLong(key, 0L);
+    }
+
+    public long getLong(String key, long defaultValue) {
+        final Object value = mMap.get(key);
+        return value instanceof Long ? (Long) value : defaultValue;
+    }
+
+    public void putFloat(String key, float value) {
+        mMap.put(key, value);
+    }
+
+    public float getFloat(String key) {
+        final Object value = mMap.get(key);
+        return value instanceof Float ? (Float) value : 0f;
+    }
+
+    public void putDouble(String key, double value) {
+        mMap.put(key, value);
+    }
+
+    public double getDouble(String key) {
+        final Object value = mMap.get(key);
+        return value instanceof Double ? (Double) value : 0.0;
+    }
+
+    public void putString(String key, String value) {
+        mMap.put(key, value);
+    }
+
+    public String getString(String key) {
+        final Object value = mMap.get(key);
+        return value instanceof String ? (String) value : null;
+    }
+
+    public void putByteArray(String key, byte[] value) {
+        mMap.put(key, value);
+    }
+
+    public byte[] getByteArray(String key) {
+        final Object value = mMap.get(key);
+        return value instanceof byte[] ? (byte[]) value : null;
+    }
+
+    public void putBundle(String key, Bundle value) {
+        mMap.put(key, value);
+    }
+
+    public Bundle getBundle(String key) {
+        final Object value = mMap.get(key);
+        return value instanceof Bundle ? (Bundle) value : null;
+    }
+
+    public void putParcelable(String key, Parcelable value) {
+        mMap.put(key, value);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T extends Parcelable> T getParcelable(String key) {
+        final Object value = mMap.get(key);
+        return value instanceof Parcelable ? (T) value : null;
+    }
+
+    @Override
+    public int describeContents() {
+        return 0;
+    }
+
+    @Override
+    public void writeToParcel(Parcel dest, int flags) {
+        dest.writeBundle(this);
+    }
+
+    public static final Creator<Bundle> CREATOR = new Creator<Bundle>() {
+        @Override
+        public Bundle createFromParcel(Parcel source) {
+            return source.readBundle();
+        }
+
+        @Override
+        public Bundle[] newArray(int size) {
+            return new Bundle[size];
+        }
+    };
+}
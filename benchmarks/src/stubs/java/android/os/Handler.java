@@ -0,0 +1,97 @@
+package android.os;
+
+/**
+ * Stand-in for the Android class of the same name
+ */
+public class Handler {
+
+    public interface Callback {
+
+        boolean handleMessage(Message msg);
+    }
+
+    private final Looper mLooper;
+
+    private final Callback mCallback;
+
+    public Handler() {
+        this(Looper.myLooper(), null);
+    }
+
+    public Handler(Looper looper) {
+        this(looper, null);
+    }
+
+    public Handler(Looper looper, Callback callback) {
+        if (looper == null) {
+            throw new RuntimeException("Can't create handler inside thread that has not called Looper.prepare()");
+        }
+        mLooper = looper;
+        mCallback = callback;
+    }
+
+    public void handleMessage(Message msg) {
+    }
+
+    public void dispatchMessage(Message msg) {
+        if (msg.callback != null) {
+            msg.callback.run();
+        } else if (mCallback == null || !mCallback.handleMessage(msg)) {
+            handleMessage(msg);
+        }
+    }
+
+    public final Looper getLooper() {
+        return mLooper;
+    }
+
+    public final Message obtainMessage(int what, Object obj) {
+        final Message message = new Message();
+        message.what = what;
+        message.obj = obj;
+        message.target = this;
+        return message;
+    }
+
+    public final boolean post(Runnable r) {
+        return postDelayed(r, 0L);
+    }
+
+    public final boolean postDelayed(Runnable r, long delayMillis) {
+        final Message message = new Message();
+        message.callback = r;
+        return sendMessageAtTime(message, SystemClock.uptimeMillis() + Math.max(0L, delayMillis));
+    }
+
+    public final boolean postAtFrontOfQueue(Runnable r) {
+        final Message message = new Message();
+        message.callback = r;
+        return sendMessageAtTime(message, 0L);
+    }
+
+    public final boolean sendMessage(Message msg) {
+        return sendMessageAtTime(msg, SystemClock.uptimeMillis());
+    }
+
+    public final boolean sendEmptyMessage(int what) {
+        return sendMessage(obtainMessage(what, null));
+    }
+
+    public boolean sendMessageAtTime(Message msg, long uptimeMillis) {
+        msg.target = this;
+        msg.when = uptimeMillis;
+        return mLooper.mQueue.enqueue(msg);
+    }
+
+    public final void removeCallbacks(Runnable r) {
+        mLooper.mQueue.remove(this, r, null, 0, false);
+    }
+
+    public final void removeMessages(int what) {
+        mLooper.mQueue.remove(this, null, null, what, true);
+    }
+
+    public final void removeCallbacksAndMessages(Object token) {
+        mLooper.mQueue.remove(this, null, token, 0, false);
+    }
+}
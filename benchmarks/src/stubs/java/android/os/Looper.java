@@ -0,0 +1,80 @@
+package android.os;
+
+/**
+ * Stand-in for the Android class of the same name.
+ * <p/>
+ * The thread that calls {@link #prepareMainLooper()} becomes the main thread. Messages posted to the main looper
+ * are only run when that thread calls {@link #loop()} or {@link #drainMainLooper()}.
+ */
+public final class Looper {
+
+    private static final ThreadLocal<Looper> sThreadLocal = new ThreadLocal<>();
+
+    private static Looper sMainLooper;
+
+    /* package */ final MessageQueue mQueue;
+
+    private final Thread mThread;
+
+    private Looper() {
+        mQueue = new MessageQueue();
+        mThread = Thread.currentThread();
+    }
+
+    public static void prepare() {
+        if (sThreadLocal.get() != null) {
+            throw new RuntimeException("Only one Looper may be created per thread");
+        }
+        sThreadLocal.set(new Looper());
+    }
+
+    public static void prepareMainLooper() {
+        prepare();
+        synchronized (Looper.class) {
+            sMainLooper = myLooper();
+        }
+    }
+
+    public static Looper getMainLooper() {
+        synchronized (Looper.class) {
+            return sMainLooper;
+        }
+    }
+
+    public static Looper myLooper() {
+        return sThreadLocal.get();
+    }
+
+    public static MessageQueue myQueue() {
+        return myLooper().mQueue;
+    }
+
+    public static void loop() {
+        final Looper looper = myLooper();
+        Message message;
+        while ((message = looper.mQueue.next()) != null) {
+            message.target.dispatchMessage(message);
+        }
+    }
+
+    /**
+     * Run all the messages on the main looper that are due, and then its idle handlers, on the calling thread. Not
+     * part of the Android API
+     */
+    public static void drainMainLooper() {
+        final Looper looper = getMainLooper();
+        Message message;
+        while ((message = looper.mQueue.poll()) != null) {
+            message.target.dispatchMessage(message);
+        }
+        looper.mQueue.runIdleHandlers();
+    }
+
+    public Thread getThread() {
+        return mThread;
+    }
+
+    public void quit() {
+        mQueue.quit();
+    }
+}
@@ -0,0 +1,22 @@
+package android.os;
+
+/**
+ * Stand-in for the Android class of the same name
+ */
+public final class Message {
+
+    public int what;
+
+    public Object obj;
+
+    /* package */ Runnable callback;
+
+    /* package */ Handler target;
+
+    /* package */ long when;
+
+    /* package */ Message next;
+
+    public Message() {
+    }
+}
@@ -0,0 +1,132 @@
+package android.os;
+
+import java.util.ArrayList;
+
+/**
+ * Stand-in for the Android class of the same name, a queue of messages ordered by due time
+ */
+public final class MessageQueue {
+
+    public interface IdleHandler {
+        boolean queueIdle();
+    }
+
+    private final ArrayList<IdleHandler> mIdleHandlers = new ArrayList<>();
+
+    private Message mMessages;
+
+    private boolean mQuitting;
+
+    /* package */ MessageQueue() {
+    }
+
+    /* package */ synchronized boolean enqueue(Message message) {
+        if (mQuitting) {
+            return false;
+        }
+        if (mMessages == null || message.when < mMessages.when) {
+            message.next = mMessages;
+            mMessages = message;
+        } else {
+            Message previous = mMessages;
+            while (previous.next != null && previous.next.when <= message.when) {
+                previous = previous.next;
+            }
+            message.next = previous.next;
+            previous.next = message;
+        }
+        notifyAll();
+        return true;
+    }
+
+    /**
+     * Block until the next message is due, or return {@code null} if the queue has quit
+     */
+    /* package */ synchronized Message next() {
+        while (true) {
+            if (mQuitting) {
+                return null;
+            }
+            final long now = SystemClock.uptimeMillis();
+            if (mMessages != null && mMessages.when <= now) {
+                final Message message = mMessages;
+                mMessages = message.next;
+                message.next = null;
+                return message;
+            }
+            try {
+                if (mMessages == null) {
+                    wait();
+                } else {
+                    wait(mMessages.when - now);
+                }
+            } catch (InterruptedException e) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Remove the next message if it is due, without blocking
+     */
+    /* package */ synchronized Message poll() {
+        if (mMessages != null && mMessages.when <= SystemClock.uptimeMillis()) {
+            final Message message = mMessages;
+            mMessages = message.next;
+            message.next = null;
+            return message;
+        }
+        return null;
+    }
+
+    /* package */ synchronized void remove(Handler handler, Runnable callback, Object token, int what,
+                                          boolean matchWhat) {
+        Message previous = null;
+        Message message = mMessages;
+        while (message != null) {
+            final boolean matches = message.target == handler
+                    && (callback == null || message.callback == callback)
+                    && (token == null || message.obj == token)
+                    && (!matchWhat || (message.callback == null && message.what == what));
+            if (matches) {
+                if (previous == null) {
+                    mMessages = message.next;
+                } else {
+                    previous.next = message.next;
+                }
+            } else {
+                previous = message;
+            }
+            message = message.next;
+        }
+    }
+
+    public synchronized void addIdleHandler(IdleHandler handler) {
+        mIdleHandlers.add(handler);
+    }
+
+    public synchronized void removeIdleHandler(IdleHandler handler) {
+        mIdleHandlers.remove(handler);
+    }
+
+    /**
+     * Run the idle handlers once, keeping the ones that ask to be kept
+     */
+    /* package */ void runIdleHandlers() {
+        final IdleHandler[] idleHandlers;
+        synchronized (this) {
+            idleHandlers = mIdleHandlers.toArray(new IdleHandler[mIdleHandlers.size()]);
+        }
+        for (IdleHandler idleHandler : idleHandlers) {
+            if (!idleHandler.queueIdle()) {
+                removeIdleHandler(idleHandler);
+            }
+        }
+    }
+
+    /* package */ synchronized void quit() {
+        mQuitting = true;
+        mMessages = null;
+        notifyAll();
+    }
+}
@@ -0,0 +1,393 @@
+package android.os;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Set;
+
+/**
+ * Stand-in for the Android class of the same name.
+ * <p/>
+ * Values are written to a growable byte array, so that marshalling costs and sizes are comparable to the real
+ * implementation. Parcels are pooled like they are on Android.
+ */
+public final class Parcel {
+
+    private static final int POOL_SIZE = 6;
+
+    private static final Parcel[] sPool = new Parcel[POOL_SIZE];
+
+    private static final int VAL_NULL = -1;
+
+    private static final int VAL_STRING = 0;
+
+    private static final int VAL_INTEGER = 1;
+
+    private static final int VAL_BUNDLE = 3;
+
+    private static final int VAL_PARCELABLE = 4;
+
+    private static final int VAL_LONG = 6;
+
+    private static final int VAL_FLOAT = 7;
+
+    private static final int VAL_DOUBLE = 8;
+
+    private static final int VAL_BOOLEAN = 9;
+
+    private static final int VAL_BYTEARRAY = 13;
+
+    private byte[] mData;
+
+    private int mSize;
+
+    private int mPosition;
+
+    private Parcel() {
+        mData = new byte[64];
+    }
+
+    public static Parcel obtain() {
+        synchronized (sPool) {
+            for (int i = 0; i < POOL_SIZE; i++) {
+                final Parcel parcel = sPool[i];
+                if (parcel != null) {
+                    sPool[i] = null;
+                    return parcel;
+                }
+            }
+        }
+        return new Parcel();
+    }
+
+    public void recycle() {
+        mSize = 0;
+        mPosition = 0;
+        synchronized (sPool) {
+            for (int i = 0; i < POOL_SIZE; i++) {
+                if (sPool[i] == null) {
+                    sPool[i] = this;
+                    return;
+                }
+            }
+        }
+    }
+
+    public int dataSize() {
+        return mSize;
+    }
+
+    public int dataPosition() {
+        return mPosition;
+    }
+
+    public void setDataPosition(int position) {
+        mPosition = position;
+    }
+
+    public byte[] marshall() {
+        final byte[] bytes = new byte[mSize];
+        System.arraycopy(mData, 0, bytes, 0, mSize);
+        return bytes;
+    }
+
+    public void unmarshall(byte[] data, int offset, int length) {
+        ensureCapacity(length);
+        System.arraycopy(data, offset, mData, 0, length);
+        mSize = length;
+        mPosition = length;
+    }
+
+    public void writeByte(byte value) {
+        ensureCapacity(mPosition + 1);
+        mData[mPosition++] = value;
+        grewTo(mPosition);
+    }
+
+    public byte readByte() {
+        return mData[mPosition++];
+    }
+
+    public void writeInt(int value) {
+        ensureCapacity(mPosition + 4);
+        mData[mPosition++] = (byte) value;
+        mData[mPosition++] = (byte) (value >>> 8);
+        mData[mPosition++] = (byte) (value >>> 16);
+        mData[mPosition++] = (byte) (value >>> 24);
+        grewTo(mPosition);
+    }
+
+    public int readInt() {
+        return (mData[mPosition++] & 0xFF)
+                | (mData[mPosition++] & 0xFF) << 8
+                | (mData[mPosition++] & 0xFF) << 16
+                | (mData[mPosition++] & 0xFF) << 24;
+    }
+
+    public void writeLong(long value) {
+        writeInt((int) value);
+        writeInt((int) (value >>> 32));
+    }
+
+    public long readLong() {
+        final long low = readInt() & 0xFFFFFFFFL;
+        return low | ((long) readInt()) << 32;
+    }
+
+    public void writeFloat(float value) {
+        writeInt(Float.floatToRawIntBits(value));
+    }
+
+    public float readFloat() {
+        return Float.intBitsToFloat(readInt());
+    }
+
+    public void writeDouble(double value) {
+        writeLong(Double.doubleToRawLongBits(value));
+    }
+
+    public double readDouble() {
+        return Double.longBitsToDouble(readLong());
+    }
+
+    public void writeString(String value) {
+        if (value == null) {
+            writeInt(-1);
+            return;
+        }
+        final int length = value.length();
+        writeInt(length);
+        ensureCapacity(mPosition + length * 2);
+        for (int i = 0; i < length; i++) {
+            final char c = value.charAt(i);
+            mData[mPosition++] = (byte) c;
+            mData[mPosition++] = (byte) (c >>> 8);
+        }
+        grewTo(mPosition);
+    }
+
+    public String readString() {
+        final int length = readInt();
+        if (length < 0) {
+            return null;
+        }
+        final char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = (char) ((mData[mPosition++] & 0xFF) | (mData[mPosition++] & 0xFF) << 8);
+        }
+        return new String(chars);
+    }
+
+    public void writeByteArray(byte[] value) {
+        if (value == null) {
+            writeInt(-1);
+            return;
+        }
+        writeInt(value.length);
+        ensureCapacity(mPosition + value.length);
+        System.arraycopy(value, 0, mData, mPosition, value.length);
+        mPosition += value.length;
+        grewTo(mPosition);
+    }
+
+    public byte[] createByteArray() {
+        final int length = readInt();
+        if (length < 0) {
+            return null;
+        }
+        final byte[] value = new byte[length];
+        System.arraycopy(mData, mPosition, value, 0, length);
+        mPosition += length;
+        return value;
+    }
+
+    public void writeBundle(Bundle bundle) {
+        if (bundle == null) {
+            writeInt(-1);
+            return;
+        }
+        final Set<String> keys = bundle.keySet();
+        writeInt(keys.size());
+        for (String key : keys) {
+            writeString(key);
+            writeValue(bundle.get(key));
+        }
+    }
+
+    public Bundle readBundle() {
+        return readBundle(null);
+    }
+
+    public Bundle readBundle(ClassLoader loader) {
+        final int size = readInt();
+        if (size < 0) {
+            return null;
+        }
+        final Bundle bundle = new Bundle(size);
+        for (int i = 0; i < size; i++) {
+            final String key = readString();
+            bundle.putObject(key, readValue(loader));
+        }
+        return bundle;
+    }
+
+    public void writeParcelable(Parcelable parcelable, int flags) {
+        if (parcelable == null) {
+            writeString(null);
+            return;
+        }
+        writeString(parcelable.getClass().getName());
+        parcelable.writeToParcel(this, flags);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T extends Parcelable> T readParcelable(ClassLoader loader) {
+        final String className = readString();
+        if (className == null) {
+            return null;
+        }
+        try {
+            final Class<?> parcelableClass = Class.forName(className, true,
+                    loader == null ? Parcel.class.getClassLoader() : loader);
+            final Field creatorField = parcelableClass.getField("CREATOR");
+            creatorField.setAccessible(true);
+            return (T) ((Parcelable.Creator<?>) creatorField.get(null)).createFromParcel(this);
+        } catch (ReflectiveOperationException e) {
+            throw new RuntimeException("Unable to unmarshall " + className, e);
+        }
+    }
+
+    public <T extends Parcelable> void writeTypedArray(T[] values, int flags) {
+        if (values == null) {
+            writeInt(-1);
+            return;
+        }
+        writeInt(values.length);
+        for (T value : values) {
+            if (value == null) {
+                writeInt(0);
+            } else {
+                writeInt(1);
+                value.writeToParcel(this, flags);
+            }
+        }
+    }
+
+    public <T> T[] createTypedArray(Parcelable.Creator<T> creator) {
+        final int length = readInt();
+        if (length < 0) {
+            return null;
+        }
+        final T[] values = creator.newArray(length);
+        for (int i = 0; i < length; i++) {
+            if (readInt() != 0) {
+                values[i] = creator.createFromParcel(this);
+            }
+        }
+        return values;
+    }
+
+    public <T extends Parcelable> void writeTypedList(java.util.List<T> values) {
+        if (values == null) {
+            writeInt(-1);
+            return;
+        }
+        writeInt(values.size());
+        for (T value : values) {
+            if (value == null) {
+                writeInt(0);
+            } else {
+                writeInt(1);
+                value.writeToParcel(this, 0);
+            }
+        }
+    }
+
+    public <T> ArrayList<T> createTypedArrayList(Parcelable.Creator<T> creator) {
+        final int size = readInt();
+        if (size < 0) {
+            return null;
+        }
+        final ArrayList<T> values = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            values.add(readInt() != 0 ? creator.createFromParcel(this) : null);
+        }
+        return values;
+    }
+
+    public void writeValue(Object value) {
+        if (value == null) {
+            writeInt(VAL_NULL);
+        } else if (value instanceof String) {
+            writeInt(VAL_STRING);
+            writeString((String) value);
+        } else if (value instanceof Integer) {
+            writeInt(VAL_INTEGER);
+            writeInt((Integer) value);
+        } else if (value instanceof Bundle) {
+            writeInt(VAL_BUNDLE);
+            writeBundle((Bundle) value);
+        } else if (value instanceof Parcelable) {
+            writeInt(VAL_PARCELABLE);
+            writeParcelable((Parcelable) value, 0);
+        } else if (value instanceof Long) {
+            writeInt(VAL_LONG);
+            writeLong((Long) value);
+        } else if (value instanceof Float) {
+            writeInt(VAL_FLOAT);
+            writeFloat((Float) value);
+        } else if (value instanceof Double) {
+            writeInt(VAL_DOUBLE);
+            writeDouble((Double) value);
+        } else if (value instanceof Boolean) {
+            writeInt(VAL_BOOLEAN);
+            writeInt((Boolean) value ? 1 : 0);
+        } else if (value instanceof byte[]) {
+            writeInt(VAL_BYTEARRAY);
+            writeByteArray((byte[]) value);
+        } else {
+            throw new RuntimeException("Parcel: unable to marshal value " + value);
+        }
+    }
+
+    public Object readValue(ClassLoader loader) {
+        final int type = readInt();
+        switch (type) {
+            case VAL_NULL:
+                return null;
+            case VAL_STRING:
+                return readString();
+            case VAL_INTEGER:
+                return readInt();
+            case VAL_BUNDLE:
+                return readBundle(loader);
+            case VAL_PARCELABLE:
+                return readParcelable(loader);
+            case VAL_LONG:
+                return readLong();
+            case VAL_FLOAT:
+                return readFloat();
+            case VAL_DOUBLE:
+                return readDouble();
+            case VAL_BOOLEAN:
+                return readInt() != 0;
+            case VAL_BYTEARRAY:
+                return createByteArray();
+            default:
+                throw new RuntimeException("Parcel: unmarshalling unknown type code " + type);
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > mData.length) {
+            final byte[] data = new byte[Math.max(capacity, mData.length * 2)];
+            System.arraycopy(mData, 0, data, 0, mSize);
+            mData = data;
+        }
+    }
+
+    private void grewTo(int position) {
+        if (position > mSize) {
+            mSize = position;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package android.os;
+
+/**
+ * Stand-in for the Android class of the same name
+ */
+public class Process {
+
+    public static final int THREAD_PRIORITY_DEFAULT = 0;
+
+    public static final int THREAD_PRIORITY_BACKGROUND = 10;
+
+    public static void setThreadPriority(int priority) {
+    }
+}
@@ -0,0 +1,16 @@
+package android.os;
+
+/**
+ * Stand-in for the Android class of the same name. Sections are not recorded
+ */
+public final class Trace {
+
+    private Trace() {
+    }
+
+    public static void beginSection(String sectionName) {
+    }
+
+    public static void endSection() {
+    }
+}
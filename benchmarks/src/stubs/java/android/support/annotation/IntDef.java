@@ -0,0 +1,15 @@
+package android.support.annotation;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+/**
+ * Stand-in for the support annotation of the same name
+ */
+@Retention(RetentionPolicy.SOURCE)
+public @interface IntDef {
+
+    long[] value() default {};
+
+    boolean flag() default false;
+}
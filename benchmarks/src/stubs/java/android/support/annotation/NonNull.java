@@ -0,0 +1,11 @@
+package android.support.annotation;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+/**
+ * Stand-in for the support annotation of the same name
+ */
+@Retention(RetentionPolicy.CLASS)
+public @interface NonNull {
+}
@@ -0,0 +1,84 @@
+package android.support.v4.util;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Stand-in for the support library LruCache, with the same eviction behaviour
+ */
+public class LruCache<K, V> {
+
+    private final LinkedHashMap<K, V> mMap;
+
+    private int mMaxSize;
+
+    private int mSize;
+
+    public LruCache(int maxSize) {
+        mMaxSize = maxSize;
+        mMap = new LinkedHashMap<>(0, 0.75f, true);
+    }
+
+    protected int sizeOf(K key, V value) {
+        return 1;
+    }
+
+    protected void entryRemoved(boolean evicted, K key, V oldValue, V newValue) {
+    }
+
+    public final V get(K key) {
+        return mMap.get(key);
+    }
+
+    public final V put(K key, V value) {
+        mSize += sizeOf(key, value);
+        final V previous = mMap.put(key, value);
+        if (previous != null) {
+            mSize -= sizeOf(key, previous);
+            entryRemoved(false, key, previous, value);
+        }
+        trimToSize(mMaxSize);
+        return previous;
+    }
+
+    public final V remove(K key) {
+        final V previous = mMap.remove(key);
+        if (previous != null) {
+            mSize -= sizeOf(key, previous);
+            entryRemoved(false, key, previous, null);
+        }
+        return previous;
+    }
+
+    public void trimToSize(int maxSize) {
+        final Iterator<Map.Entry<K, V>> iterator = mMap.entrySet().iterator();
+        while (mSize > maxSize && iterator.hasNext()) {
+            final Map.Entry<K, V> entry = iterator.next();
+            iterator.remove();
+            mSize -= sizeOf(entry.getKey(), entry.getValue());
+            entryRemoved(true, entry.getKey(), entry.getValue(), null);
+        }
+    }
+
+    public void resize(int maxSize) {
+        mMaxSize = maxSize;
+        trimToSize(maxSize);
+    }
+
+    public final void evictAll() {
+        trimToSize(-1);
+    }
+
+    public final int size() {
+        return mSize;
+    }
+
+    public final int maxSize() {
+        return mMaxSize;
+    }
+
+    public final Map<K, V> snapshot() {
+        return new LinkedHashMap<>(mMap);
+    }
+}
@@ -0,0 +1,25 @@
+package android.support.v4.view;
+
+import android.view.View;
+
+/**
+ * Stand-in for the support library class of the same name
+ */
+public class ViewCompat {
+
+    public static ViewPropertyAnimatorCompat animate(View view) {
+        return new ViewPropertyAnimatorCompat(view);
+    }
+
+    public static void setAlpha(View view, float value) {
+        view.setAlpha(value);
+    }
+
+    public static void setTranslationX(View view, float value) {
+        view.setTranslationX(value);
+    }
+
+    public static void setTranslationY(View view, float value) {
+        view.setTranslationY(value);
+    }
+}
@@ -0,0 +1,84 @@
+package android.support.v4.view;
+
+import android.view.View;
+
+/**
+ * Stand-in for the support library class of the same name. Nothing is drawn, so an animation jumps to its end values
+ * as soon as it is started
+ */
+public final class ViewPropertyAnimatorCompat {
+
+    private final View mView;
+
+    private ViewPropertyAnimatorListener mListener;
+
+    private long mDuration;
+
+    private Float mAlpha;
+
+    private Float mTranslationX;
+
+    private Float mTranslationY;
+
+    /* package */ ViewPropertyAnimatorCompat(View view) {
+        mView = view;
+    }
+
+    public ViewPropertyAnimatorCompat setDuration(long duration) {
+        mDuration = duration;
+        return this;
+    }
+
+    public long getDuration() {
+        return mDuration;
+    }
+
+    public ViewPropertyAnimatorCompat alpha(float value) {
+        mAlpha = value;
+        return this;
+    }
+
+    public ViewPropertyAnimatorCompat translationX(float value) {
+        mTranslationX = value;
+        return this;
+    }
+
+    public ViewPropertyAnimatorCompat translationY(float value) {
+        mTranslationY = value;
+        return this;
+    }
+
+    public ViewPropertyAnimatorCompat withLayer() {
+        return this;
+    }
+
+    public ViewPropertyAnimatorCompat setListener(ViewPropertyAnimatorListener listener) {
+        mListener = listener;
+        return this;
+    }
+
+    public void start() {
+        final ViewPropertyAnimatorListener listener = mListener;
+        if (listener != null) {
+            listener.onAnimationStart(mView);
+        }
+        if (mAlpha != null) {
+            mView.setAlpha(mAlpha);
+        }
+        if (mTranslationX != null) {
+            mView.setTranslationX(mTranslationX);
+        }
+        if (mTranslationY != null) {
+            mView.setTranslationY(mTranslationY);
+        }
+        if (listener != null) {
+            listener.onAnimationEnd(mView);
+        }
+    }
+
+    public void cancel() {
+        if (mListener != null) {
+            mListener.onAnimationCancel(mView);
+        }
+    }
+}
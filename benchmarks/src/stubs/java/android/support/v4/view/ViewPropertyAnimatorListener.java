@@ -0,0 +1,15 @@
+package android.support.v4.view;
+
+import android.view.View;
+
+/**
+ * Stand-in for the support library interface of the same name
+ */
+public interface ViewPropertyAnimatorListener {
+
+    void onAnimationStart(View view);
+
+    void onAnimationEnd(View view);
+
+    void onAnimationCancel(View view);
+}
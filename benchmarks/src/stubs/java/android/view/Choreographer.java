@@ -0,0 +1,60 @@
+package android.view;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.HashMap;
+
+/**
+ * Stand-in for the Android class of the same name. Frame callbacks are posted to the looper of the thread that
+ * owns the choreographer, and run as soon as it processes them
+ */
+public final class Choreographer {
+
+    private static final ThreadLocal<Choreographer> sThreadInstance = new ThreadLocal<Choreographer>() {
+        @Override
+        protected Choreographer initialValue() {
+            return new Choreographer(Looper.myLooper());
+        }
+    };
+
+    public interface FrameCallback {
+
+        void doFrame(long frameTimeNanos);
+    }
+
+    private final Handler mHandler;
+
+    private final HashMap<FrameCallback, Runnable> mCallbacks;
+
+    private Choreographer(Looper looper) {
+        if (looper == null) {
+            throw new IllegalStateException("The current thread must have a looper!");
+        }
+        mHandler = new Handler(looper);
+        mCallbacks = new HashMap<>();
+    }
+
+    public static Choreographer getInstance() {
+        return sThreadInstance.get();
+    }
+
+    public void postFrameCallback(final FrameCallback callback) {
+        final Runnable runnable = new Runnable() {
+            @Override
+            public void run() {
+                mCallbacks.remove(callback);
+                callback.doFrame(System.nanoTime());
+            }
+        };
+        mCallbacks.put(callback, runnable);
+        mHandler.post(runnable);
+    }
+
+    public void removeFrameCallback(FrameCallback callback) {
+        final Runnable runnable = mCallbacks.remove(callback);
+        if (runnable != null) {
+            mHandler.removeCallbacks(runnable);
+        }
+    }
+}
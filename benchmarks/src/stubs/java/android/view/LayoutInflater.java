@@ -0,0 +1,35 @@
+package android.view;
+
+import android.content.Context;
+
+/**
+ * Stand-in for the Android class of the same name. There are no layout resources to inflate, so screens used
+ * on the JVM must build their views in code
+ */
+public abstract class LayoutInflater {
+
+    private final Context mContext;
+
+    protected LayoutInflater(Context context) {
+        mContext = context;
+    }
+
+    public static LayoutInflater from(Context context) {
+        return new LayoutInflater(context) {
+            @Override
+            public LayoutInflater cloneInContext(Context newContext) {
+                return from(newContext);
+            }
+        };
+    }
+
+    public Context getContext() {
+        return mContext;
+    }
+
+    public View inflate(int resource, ViewGroup root, boolean attachToRoot) {
+        throw new UnsupportedOperationException("Layout resources are not available on the JVM");
+    }
+
+    public abstract LayoutInflater cloneInContext(Context newContext);
+}
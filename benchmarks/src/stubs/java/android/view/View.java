@@ -0,0 +1,115 @@
+package android.view;
+
+import android.content.Context;
+
+/**
+ * Stand-in for the Android class of the same name. Views are not measured or drawn, but can be given a size
+ * with {@link #layout(int, int, int, int)}
+ */
+public class View {
+
+    public static final int NO_ID = -1;
+
+    public static final int VISIBLE = 0;
+
+    public static final int INVISIBLE = 4;
+
+    public static final int GONE = 8;
+
+    private final Context mContext;
+
+    /* package */ ViewParent mParent;
+
+    private int mId = NO_ID;
+
+    private int mLeft;
+
+    private int mTop;
+
+    private int mRight;
+
+    private int mBottom;
+
+    private int mVisibility;
+
+    private float mAlpha = 1f;
+
+    private float mTranslationX;
+
+    private float mTranslationY;
+
+    public View(Context context) {
+        mContext = context;
+    }
+
+    public Context getContext() {
+        return mContext;
+    }
+
+    public final ViewParent getParent() {
+        return mParent;
+    }
+
+    public int getId() {
+        return mId;
+    }
+
+    public void setId(int id) {
+        mId = id;
+    }
+
+    public final View findViewById(int id) {
+        return id == NO_ID ? null : findViewTraversal(id);
+    }
+
+    /* package */ View findViewTraversal(int id) {
+        return id == mId ? this : null;
+    }
+
+    public int getVisibility() {
+        return mVisibility;
+    }
+
+    public void setVisibility(int visibility) {
+        mVisibility = visibility;
+    }
+
+    public float getAlpha() {
+        return mAlpha;
+    }
+
+    public void setAlpha(float alpha) {
+        mAlpha = alpha;
+    }
+
+    public float getTranslationX() {
+        return mTranslationX;
+    }
+
+    public void setTranslationX(float translationX) {
+        mTranslationX = translationX;
+    }
+
+    public float getTranslationY() {
+        return mTranslationY;
+    }
+
+    public void setTranslationY(float translationY) {
+        mTranslationY = translationY;
+    }
+
+    public final int getWidth() {
+        return mRight - mLeft;
+    }
+
+    public final int getHeight() {
+        return mBottom - mTop;
+    }
+
+    public void layout(int l, int t, int r, int b) {
+        mLeft = l;
+        mTop = t;
+        mRight = r;
+        mBottom = b;
+    }
+}
@@ -0,0 +1,96 @@
+package android.view;
+
+import android.content.Context;
+
+import java.util.ArrayList;
+
+/**
+ * Stand-in for the Android class of the same name, keeping track of its children
+ */
+public abstract class ViewGroup extends View implements ViewParent {
+
+    private final ArrayList<View> mChildren;
+
+    public ViewGroup(Context context) {
+        super(context);
+        mChildren = new ArrayList<>();
+    }
+
+    public void addView(View child) {
+        addView(child, -1);
+    }
+
+    public void addView(View child, int index) {
+        if (child.mParent != null) {
+            throw new IllegalStateException("The specified child already has a parent.");
+        }
+        child.mParent = this;
+        if (index < 0) {
+            mChildren.add(child);
+        } else {
+            mChildren.add(index, child);
+        }
+    }
+
+    public void removeView(View view) {
+        if (mChildren.remove(view)) {
+            view.mParent = null;
+        }
+    }
+
+    public void removeAllViews() {
+        for (View child : mChildren) {
+            child.mParent = null;
+        }
+        mChildren.clear();
+    }
+
+    public void bringChildToFront(View child) {
+        if (mChildren.remove(child)) {
+            mChildren.add(child);
+        }
+    }
+
+    @Override
+    /* package */ View findViewTraversal(int id) {
+        if (id == getId()) {
+            return this;
+        }
+        View view;
+        for (int i = 0; i < mChildren.size(); i++) {
+            view = mChildren.get(i).findViewTraversal(id);
+            if (view != null) {
+                return view;
+            }
+        }
+        return null;
+    }
+
+    public int getChildCount() {
+        return mChildren.size();
+    }
+
+    public View getChildAt(int index) {
+        return index < 0 || index >= mChildren.size() ? null : mChildren.get(index);
+    }
+
+    public int indexOfChild(View child) {
+        return mChildren.indexOf(child);
+    }
+
+    public static class LayoutParams {
+
+        public static final int MATCH_PARENT = -1;
+
+        public static final int WRAP_CONTENT = -2;
+
+        public int width;
+
+        public int height;
+
+        public LayoutParams(int width, int height) {
+            this.width = width;
+            this.height = height;
+        }
+    }
+}
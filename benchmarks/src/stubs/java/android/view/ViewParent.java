@@ -0,0 +1,9 @@
+package android.view;
+
+/**
+ * Stand-in for the Android interface of the same name
+ */
+public interface ViewParent {
+
+    ViewParent getParent();
+}
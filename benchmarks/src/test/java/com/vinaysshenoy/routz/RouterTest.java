@@ -0,0 +1,367 @@
+package com.vinaysshenoy.routz;
+
+import android.content.Context;
+import android.os.Bundle;
+import android.os.Looper;
+import android.os.Parcel;
+import android.os.Parcelable;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class RouterTest {
+
+    private static final class TestScreen extends Screen {
+
+        @Nullable
+        private Parcelable mState;
+
+        private int mReleasedCount;
+
+        private TestScreen(@Nullable Bundle params) {
+            super(params);
+        }
+
+        @Override
+        public void onSaveState(@NonNull Bundle savedInstanceState) {
+            if (mState != null) {
+                savedInstanceState.putParcelable("state", mState);
+            }
+        }
+
+        @Override
+        public void restoreState(@NonNull Bundle savedInstanceState) {
+            mState = savedInstanceState.getParcelable("state");
+        }
+
+        @Override
+        public void onReleased() {
+            assertEquals(STATE_STOPPED, getState());
+            mReleasedCount++;
+        }
+
+        @Override
+        public View createView(LayoutInflater layoutInflater, ViewGroup container) {
+            return new View(container.getContext());
+        }
+    }
+
+    private static final class InMemoryStateStore implements StateStore {
+
+        private final HashMap<String, byte[]> mStates = new HashMap<>();
+
+        @Override
+        public void write(@NonNull String key, @NonNull byte[] state) {
+            mStates.put(key, state);
+        }
+
+        @Nullable
+        @Override
+        public byte[] read(@NonNull String key) {
+            return mStates.get(key);
+        }
+
+        @Override
+        public void delete(@NonNull String key) {
+            mStates.remove(key);
+        }
+    }
+
+    /**
+     * Stands in for state holding a binder, which cannot be marshalled
+     */
+    private static final class BinderState implements Parcelable {
+
+        @Override
+        public int describeContents() {
+            return 0;
+        }
+
+        @Override
+        public void writeToParcel(Parcel dest, int flags) {
+            throw new RuntimeException("Tried to marshall a Parcel that contained Binder objects.");
+        }
+    }
+
+    /**
+     * The screens created by the routers, in the order they were created
+     */
+    private final ArrayList<TestScreen> mScreens = new ArrayList<>();
+
+    private final RouteRegistry.ScreenFactory mScreenFactory = new RouteRegistry.ScreenFactory() {
+        @Override
+        public Screen create(@Nullable Bundle params, @NonNull RouteParams routeParams) {
+            final TestScreen screen = new TestScreen(params);
+            mScreens.add(screen);
+            return screen;
+        }
+    };
+
+    private Router newRouter(@Nullable StateStore stateStore) {
+        return newRouter(stateStore, null);
+    }
+
+    private Router newRouter(@Nullable StateStore stateStore, @Nullable Bundle savedInstanceState) {
+
+        final RouteRegistry registry = new RouteRegistry()
+                .register("a", mScreenFactory)
+                .register("b", mScreenFactory)
+                .register("c", mScreenFactory)
+                .register("d", mScreenFactory)
+                .register("e", mScreenFactory);
+        final FrameLayout container = new FrameLayout(new Context());
+        return stateStore == null
+                ? Router.create(container, registry, savedInstanceState)
+                : Router.create(container, registry, stateStore, savedInstanceState);
+    }
+
+    @Before
+    public void prepareMainThread() {
+
+        // Navigations are only applied synchronously on the main thread
+        if (Looper.myLooper() == null) {
+            Looper.prepareMainLooper();
+        }
+    }
+
+    @Test
+    public void onDestroy_whenFinishing_deletesTheStoredState() throws Exception {
+
+        final InMemoryStateStore stateStore = new InMemoryStateStore();
+        final Router router = newRouter(stateStore);
+        router.load("a");
+        router.executePendingNavigations();
+        router.saveState(new Bundle());
+        assertFalse(stateStore.mStates.isEmpty());
+
+        router.onDestroy(true);
+        assertTrue(stateStore.mStates.isEmpty());
+    }
+
+    @Test
+    public void onDestroy_whenNotFinishing_keepsTheStoredState() throws Exception {
+
+        final InMemoryStateStore stateStore = new InMemoryStateStore();
+        final Router router = newRouter(stateStore);
+        router.load("a");
+        router.executePendingNavigations();
+        router.saveState(new Bundle());
+
+        router.onDestroy();
+        assertFalse(stateStore.mStates.isEmpty());
+    }
+
+    @Test
+    public void screenStateThatCannotBeMarshalled_isKeptInTheBundle() throws Exception {
+
+        final InMemoryStateStore stateStore = new InMemoryStateStore();
+        final Router router = newRouter(stateStore);
+        router.load("a");
+        router.executePendingNavigations();
+        final BinderState state = new BinderState();
+        mScreens.get(0).mState = state;
+
+        final Bundle savedInstanceState = new Bundle();
+        router.saveState(savedInstanceState);
+        router.onDestroy();
+        assertTrue(stateStore.mStates.isEmpty());
+
+        final Router restoredRouter = newRouter(stateStore, savedInstanceState);
+        restoredRouter.executePendingNavigations();
+        assertEquals(2, mScreens.size());
+        assertSame(state, mScreens.get(1).mState);
+        restoredRouter.onDestroy();
+    }
+
+    @Test
+    public void reorderingLoad_findsTheScreenLoadedInTheSameFrame() throws Exception {
+
+        final Router router = newRouter(null);
+        final int screenId = router.load("a");
+        assertEquals(screenId, router.load("a", Router.LOAD_MODE_REORDER));
+        router.executePendingNavigations();
+
+        assertEquals(Arrays.asList("a"), router.getBackstackSnapshot().getRoutes());
+        assertEquals(screenId, router.getBackstackSnapshot().getTopScreenId());
+        router.onDestroy();
+    }
+
+    @Test
+    public void clearingLoad_findsTheScreenLoadedInTheSameFrame() throws Exception {
+
+        final Router router = newRouter(null);
+        final int screenId = router.load("a");
+        router.load("b");
+        assertEquals(screenId, router.load("a", Router.LOAD_MODE_CLEAR));
+        /* The screen for b was popped, so reordering it creates it again */
+        final int secondScreenId = router.load("b", Router.LOAD_MODE_REORDER);
+        router.executePendingNavigations();
+
+        assertEquals(Arrays.asList("a", "b"), router.getBackstackSnapshot().getRoutes());
+        assertEquals(secondScreenId, router.getBackstackSnapshot().getTopScreenId());
+        assertEquals(secondScreenId, router.load("b", Router.LOAD_MODE_REORDER));
+        router.onDestroy();
+    }
+
+    @Test
+    public void clearingLoad_afterAPopInTheSameFrame_findsTheScreenLoadedBeforeIt() throws Exception {
+
+        final Router router = newRouter(null);
+        router.load("a");
+        router.executePendingNavigations();
+
+        final int screenId = router.load("b");
+        router.load("a");
+        router.goBack();
+        assertEquals(screenId, router.load("b", Router.LOAD_MODE_CLEAR));
+        router.executePendingNavigations();
+
+        assertEquals(Arrays.asList("a", "b"), router.getBackstackSnapshot().getRoutes());
+        assertEquals(screenId, router.getBackstackSnapshot().getTopScreenId());
+        router.onDestroy();
+    }
+
+    @Test
+    public void loadsAfterAPopInTheSameFrame_createTheScreenAgain() throws Exception {
+
+        final Router router = newRouter(null);
+        router.load("a");
+        router.load("b");
+        router.executePendingNavigations();
+
+        router.goBack();
+        final int clearedScreenId = router.load("b", Router.LOAD_MODE_CLEAR);
+        router.executePendingNavigations();
+        assertEquals(Arrays.asList("a", "b"), router.getBackstackSnapshot().getRoutes());
+        assertEquals(clearedScreenId, router.getBackstackSnapshot().getTopScreenId());
+        assertEquals(3, mScreens.size());
+
+        router.goBack();
+        final int reorderedScreenId = router.load("b", Router.LOAD_MODE_REORDER);
+        router.executePendingNavigations();
+        assertEquals(Arrays.asList("a", "b"), router.getBackstackSnapshot().getRoutes());
+        assertEquals(reorderedScreenId, router.getBackstackSnapshot().getTopScreenId());
+        assertEquals(4, mScreens.size());
+        router.onDestroy();
+    }
+
+    @Test
+    public void loadsAfterSetStackInTheSameFrame_findTheScreensOfTheNewStack() throws Exception {
+
+        final Router router = newRouter(null);
+        router.setStack(Arrays.asList(RouteEntry.create("a"), RouteEntry.create("d"), RouteEntry.create("e")));
+        final int reorderedScreenId = router.load("d", Router.LOAD_MODE_REORDER);
+        router.executePendingNavigations();
+        assertEquals(Arrays.asList("a", "e", "d"), router.getBackstackSnapshot().getRoutes());
+        assertEquals(reorderedScreenId, router.getBackstackSnapshot().getTopScreenId());
+
+        router.setStack(Arrays.asList(RouteEntry.create("a"), RouteEntry.create("c")));
+        final int clearedScreenId = router.load("b", Router.LOAD_MODE_CLEAR);
+        router.executePendingNavigations();
+        assertEquals(Arrays.asList("a", "c", "b"), router.getBackstackSnapshot().getRoutes());
+        assertEquals(clearedScreenId, router.getBackstackSnapshot().getTopScreenId());
+        router.onDestroy();
+    }
+
+    @Test
+    public void screenCreatedForSetStack_usesAPrefetchedScreen() throws Exception {
+
+        final Router router = newRouter(null);
+        router.prefetch("b", null);
+        final long deadline = System.currentTimeMillis() + 5000L;
+        while (mScreens.isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5L);
+        }
+        /* Leave time for the view to be inflated and the screen kept */
+        Thread.sleep(100L);
+
+        router.setStack(Arrays.asList(RouteEntry.create("a"), RouteEntry.create("b")));
+        router.executePendingNavigations();
+        assertEquals(Arrays.asList("a", "b"), router.getBackstackSnapshot().getRoutes());
+        assertEquals(1, mScreens.size());
+        assertEquals(router.getBackstackSnapshot().getTopScreenId(), mScreens.get(0).getId());
+        router.onDestroy();
+    }
+
+    @Test
+    public void loadsInTheSameFrame_countTransitionsFromTheRouteOnTopBeforeEach() throws Exception {
+
+        final Router router = newRouter(null);
+        final NavigationPredictor navigationPredictor = new NavigationPredictor();
+        router.setNavigationPredictor(navigationPredictor);
+        router.load("a");
+        router.executePendingNavigations();
+
+        router.load("b");
+        router.load("c");
+        router.goBack();
+        router.load("d", Router.LOAD_MODE_CLEAR);
+        router.executePendingNavigations();
+
+        assertEquals(Arrays.asList("b"), navigationPredictor.predictNext("a"));
+        assertEquals(Arrays.asList("c", "d"), navigationPredictor.predictNext("b"));
+        assertTrue(navigationPredictor.predictNext("c").isEmpty());
+        router.onDestroy();
+    }
+
+    @Test
+    public void queuedLoad_isPlannedOnThePlannerThreadBeforeTheFrame() throws Exception {
+
+        final Router router = newRouter(null);
+        final NavigationPredictor navigationPredictor = new NavigationPredictor();
+        router.setNavigationPredictor(navigationPredictor);
+        router.load("a");
+        router.executePendingNavigations();
+
+        router.load("b");
+        // The transition is counted when the load is planned
+        final long deadline = System.currentTimeMillis() + 5000L;
+        while (navigationPredictor.predictNext("a").isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5L);
+        }
+        assertEquals(Arrays.asList("b"), navigationPredictor.predictNext("a"));
+        assertEquals(Arrays.asList("a"), router.getBackstackSnapshot().getRoutes());
+
+        router.executePendingNavigations();
+        assertEquals(Arrays.asList("a", "b"), router.getBackstackSnapshot().getRoutes());
+        router.onDestroy();
+    }
+
+    @Test
+    public void hibernatedScreen_isReleasedAndDestroyed() throws Exception {
+
+        final Router router = newRouter(null);
+        router.setMaxLiveScreens(1);
+        router.load("a");
+        router.executePendingNavigations();
+        router.load("b");
+        router.executePendingNavigations();
+
+        final TestScreen released = mScreens.get(0);
+        assertEquals(1, released.mReleasedCount);
+        assertEquals(Screen.STATE_DESTROYED, released.getState());
+        assertEquals(0, mScreens.get(1).mReleasedCount);
+
+        /* Going back creates a new screen in its place */
+        router.goBack();
+        router.executePendingNavigations();
+        assertEquals(3, mScreens.size());
+        assertEquals(1, released.mReleasedCount);
+        router.onDestroy();
+    }
+}
@@ -0,0 +1,125 @@
+package com.vinaysshenoy.routz;
+
+import android.content.Context;
+import android.os.Bundle;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ScreenPrefetcherTest {
+
+    private static final class TestScreen extends Screen {
+
+        private TestScreen(@Nullable Bundle params) {
+            super(params);
+        }
+
+        @Override
+        public View createView(LayoutInflater layoutInflater, ViewGroup container) {
+            return new View(container.getContext());
+        }
+    }
+
+    /**
+     * Creates screens, holding back the ones for route "slow" until it is released
+     */
+    private static final class BlockingRouteCreator implements RouteCreator {
+
+        private final CountDownLatch mEntered = new CountDownLatch(1);
+
+        private final CountDownLatch mReleased = new CountDownLatch(1);
+
+        @Override
+        public Screen instantiateScreenForRoute(@NonNull String route, @Nullable Bundle params) {
+            if ("slow".equals(route)) {
+                mEntered.countDown();
+                try {
+                    mReleased.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+            return new TestScreen(params);
+        }
+    }
+
+    private static void awaitPrefetchedCount(ScreenPrefetcher prefetcher, int count) throws InterruptedException {
+
+        final long deadline = System.currentTimeMillis() + 5000L;
+        while (prefetcher.getPrefetchedCount() != count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5L);
+        }
+        assertEquals(count, prefetcher.getPrefetchedCount());
+    }
+
+    @Test
+    public void take_withArrayParams_comparesTheArrayContents() throws Exception {
+
+        final ScreenPrefetcher prefetcher = new ScreenPrefetcher(new BlockingRouteCreator(), new FrameLayout(new Context()));
+        try {
+            final Bundle params = new Bundle();
+            params.putByteArray("ids", new byte[]{1, 2});
+            prefetcher.prefetch("a", params);
+            awaitPrefetchedCount(prefetcher, 1);
+
+            final Bundle otherParams = new Bundle();
+            otherParams.putByteArray("ids", new byte[]{1, 3});
+            assertNull(prefetcher.take("a", otherParams));
+
+            final Bundle sameParams = new Bundle();
+            sameParams.putByteArray("ids", new byte[]{1, 2});
+            assertNotNull(prefetcher.take("a", sameParams));
+        } finally {
+            prefetcher.quit();
+        }
+    }
+
+    @Test
+    public void clear_whilePrefetching_dropsTheScreenBeingPrefetched() throws Exception {
+
+        final BlockingRouteCreator routeCreator = new BlockingRouteCreator();
+        final ScreenPrefetcher prefetcher = new ScreenPrefetcher(routeCreator, new FrameLayout(new Context()));
+        try {
+            prefetcher.prefetch("slow", null);
+            assertTrue(routeCreator.mEntered.await(5, TimeUnit.SECONDS));
+            prefetcher.clear();
+            // Runs after the slow prefetch on the inflater thread
+            prefetcher.prefetch("a", null);
+            routeCreator.mReleased.countDown();
+
+            awaitPrefetchedCount(prefetcher, 1);
+            assertNull(prefetcher.take("slow", null));
+            assertNotNull(prefetcher.take("a", null));
+        } finally {
+            prefetcher.quit();
+        }
+    }
+
+    @Test
+    public void quit_whilePrefetching_dropsTheScreenBeingPrefetched() throws Exception {
+
+        final BlockingRouteCreator routeCreator = new BlockingRouteCreator();
+        final ScreenPrefetcher prefetcher = new ScreenPrefetcher(routeCreator, new FrameLayout(new Context()));
+        prefetcher.prefetch("slow", null);
+        assertTrue(routeCreator.mEntered.await(5, TimeUnit.SECONDS));
+        prefetcher.quit();
+        routeCreator.mReleased.countDown();
+
+        Thread.sleep(50L);
+        assertEquals(0, prefetcher.getPrefetchedCount());
+        assertTrue(prefetcher.getPrefetchedRoutes().isEmpty());
+    }
+}
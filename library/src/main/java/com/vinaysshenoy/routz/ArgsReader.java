@@ -0,0 +1,136 @@
+package com.vinaysshenoy.routz;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+/**
+ * Reads {@link ScreenArgs} back from the bytes written by an {@link ArgsWriter}
+ */
+public final class ArgsReader {
+
+    @NonNull
+    private final byte[] mBuffer;
+
+    private int mPosition;
+
+    private ArgsReader(@NonNull byte[] buffer) {
+        mBuffer = buffer;
+        mPosition = 0;
+    }
+
+    /**
+     * Decode args from their flat binary form
+     *
+     * @throws IllegalArgumentException If the bytes end before the decoder has read all of its fields
+     */
+    @NonNull
+    public static <T extends ScreenArgs> T decode(@NonNull byte[] encoded, @NonNull ScreenArgs.Decoder<T> decoder) {
+
+        if (encoded == null || decoder == null) {
+            throw new IllegalArgumentException("Cannot be null!");
+        }
+        return decoder.readFrom(new ArgsReader(encoded));
+    }
+
+    public boolean readBoolean() {
+        require(1);
+        return mBuffer[mPosition++] != 0;
+    }
+
+    public int readInt() {
+        final int value = (int) readVarLong();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    public long readLong() {
+        final long value = readVarLong();
+        return (value >>> 1) ^ -(value & 1L);
+    }
+
+    public float readFloat() {
+        return Float.intBitsToFloat((int) readFixed(4));
+    }
+
+    public double readDouble() {
+        return Double.longBitsToDouble(readFixed(8));
+    }
+
+    @Nullable
+    public String readString() {
+
+        final int length = readLength();
+        if (length < 0) {
+            return null;
+        }
+        final String value = new String(mBuffer, mPosition, length, ArgsWriter.UTF_8);
+        mPosition += length;
+        return value;
+    }
+
+    @Nullable
+    public byte[] readByteArray() {
+
+        final int length = readLength();
+        if (length < 0) {
+            return null;
+        }
+        final byte[] value = new byte[length];
+        System.arraycopy(mBuffer, mPosition, value, 0, length);
+        mPosition += length;
+        return value;
+    }
+
+    /**
+     * Read args written with {@link ArgsWriter#writeArgs(ScreenArgs)}
+     */
+    @NonNull
+    public <T extends ScreenArgs> T readArgs(@NonNull ScreenArgs.Decoder<T> decoder) {
+        return decoder.readFrom(this);
+    }
+
+    /**
+     * @return The length of the array that follows, or {@code -1} if it is {@code null}
+     */
+    private int readLength() {
+
+        final long lengthPlusOne = readVarLong();
+        if (lengthPlusOne < 0L || lengthPlusOne - 1L > mBuffer.length - mPosition) {
+            throw new IllegalArgumentException("Args are truncated!");
+        }
+        return (int) (lengthPlusOne - 1L);
+    }
+
+    private long readVarLong() {
+
+        long value = 0L;
+        int shift = 0;
+        byte b;
+        do {
+            if (shift >= 64) {
+                throw new IllegalArgumentException("Args are malformed!");
+            }
+            require(1);
+            b = mBuffer[mPosition++];
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    private long readFixed(int byteCount) {
+
+        require(byteCount);
+        long value = 0L;
+        for (int i = 0; i < byteCount; i++) {
+            value |= (long) (mBuffer[mPosition++] & 0xFF) << (i * 8);
+        }
+        return value;
+    }
+
+    private void require(int byteCount) {
+
+        if (mPosition + byteCount > mBuffer.length) {
+            throw new IllegalArgumentException("Args are truncated!");
+        }
+    }
+}
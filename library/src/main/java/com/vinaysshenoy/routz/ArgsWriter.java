@@ -0,0 +1,121 @@
+package com.vinaysshenoy.routz;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * Writes {@link ScreenArgs} to a flat binary form, read back by an {@link ArgsReader}.
+ * <p/>
+ * Integers are written as variable length, zig-zag encoded numbers, so that small values take a single byte.
+ * Floating point numbers are written as their raw bits, and strings as UTF-8. Nothing but the values themselves is
+ * written, so args must be read with the same sequence of calls that wrote them.
+ */
+public final class ArgsWriter {
+
+    /* package */ static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private byte[] mBuffer;
+
+    private int mSize;
+
+    private ArgsWriter() {
+        mBuffer = new byte[32];
+        mSize = 0;
+    }
+
+    /**
+     * Encode args to their flat binary form
+     */
+    @NonNull
+    public static byte[] encode(@NonNull ScreenArgs args) {
+
+        if (args == null) {
+            throw new IllegalArgumentException("Cannot be null!");
+        }
+        final ArgsWriter writer = new ArgsWriter();
+        args.writeTo(writer);
+        return Arrays.copyOf(writer.mBuffer, writer.mSize);
+    }
+
+    public void writeBoolean(boolean value) {
+        ensureCapacity(1);
+        mBuffer[mSize++] = (byte) (value ? 1 : 0);
+    }
+
+    public void writeInt(int value) {
+        writeVarLong(((value << 1) ^ (value >> 31)) & 0xFFFFFFFFL);
+    }
+
+    public void writeLong(long value) {
+        writeVarLong((value << 1) ^ (value >> 63));
+    }
+
+    public void writeFloat(float value) {
+        writeFixed(Float.floatToIntBits(value), 4);
+    }
+
+    public void writeDouble(double value) {
+        writeFixed(Double.doubleToLongBits(value), 8);
+    }
+
+    /**
+     * Write a string, which may be {@code null}
+     */
+    public void writeString(@Nullable String value) {
+        writeByteArray(value == null ? null : value.getBytes(UTF_8));
+    }
+
+    /**
+     * Write a byte array, which may be {@code null}
+     */
+    public void writeByteArray(@Nullable byte[] value) {
+
+        /* The length is written plus one, leaving zero for null */
+        if (value == null) {
+            writeVarLong(0L);
+            return;
+        }
+        writeVarLong(value.length + 1L);
+        ensureCapacity(value.length);
+        System.arraycopy(value, 0, mBuffer, mSize, value.length);
+        mSize += value.length;
+    }
+
+    /**
+     * Write args nested in these ones, read back with {@link ArgsReader#readArgs(ScreenArgs.Decoder)}
+     */
+    public void writeArgs(@NonNull ScreenArgs args) {
+        args.writeTo(this);
+    }
+
+    /**
+     * Writes the low 7 bits of the value in each byte, with the high bit set on all but the last byte
+     */
+    private void writeVarLong(long value) {
+
+        ensureCapacity(10);
+        while ((value & ~0x7FL) != 0L) {
+            mBuffer[mSize++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        mBuffer[mSize++] = (byte) value;
+    }
+
+    private void writeFixed(long value, int byteCount) {
+
+        ensureCapacity(byteCount);
+        for (int i = 0; i < byteCount; i++) {
+            mBuffer[mSize++] = (byte) (value >>> (i * 8));
+        }
+    }
+
+    private void ensureCapacity(int byteCount) {
+
+        if (mSize + byteCount > mBuffer.length) {
+            mBuffer = Arrays.copyOf(mBuffer, Math.max(mBuffer.length * 2, mSize + byteCount));
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package com.vinaysshenoy.routz;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable view of the backstack of a {@link Router} at some point in time, obtained from
+ * {@link Router#getBackstackSnapshot()}. It can be read from any thread.
+ * <p/>
+ * A snapshot is a persistent list, from the screen on top of the stack down to the bottom, where each snapshot is
+ * its top screen plus the snapshot of the stack below it. Snapshots taken one after the other share the screens
+ * below the ones that changed, so taking one does not copy the stack.
+ * <p/>
+ * Positions are counted from the bottom of the stack, which is at position {@code 0}. Snapshots published by a
+ * {@link Router} also index the topmost screen of each route, to find it in constant time.
+ */
+public final class BackstackSnapshot {
+
+    /**
+     * Returned as a screen id or position when there is no matching screen
+     */
+    public static final int NO_SCREEN = -1;
+
+    /* package */ static final BackstackSnapshot EMPTY = new BackstackSnapshot();
+
+    private final int mScreenId;
+
+    @Nullable
+    private final String mRoute;
+
+    private final int mDepth;
+
+    @Nullable
+    private final BackstackSnapshot mBelow;
+
+    /**
+     * The snapshot from the topmost screen of each route down, or {@code null} if the snapshot is not indexed
+     */
+    @Nullable
+    private volatile Map<String, BackstackSnapshot> mTopByRoute;
+
+    private BackstackSnapshot() {
+        mScreenId = NO_SCREEN;
+        mRoute = null;
+        mDepth = 0;
+        mBelow = null;
+    }
+
+    /* package */ BackstackSnapshot(int screenId, @NonNull String route, @NonNull BackstackSnapshot below) {
+        mScreenId = screenId;
+        mRoute = route;
+        mDepth = below.mDepth + 1;
+        mBelow = below;
+    }
+
+    /* package */ boolean isIndexed() {
+        return mTopByRoute != null;
+    }
+
+    /**
+     * Index the topmost screen of each route. The map must not be changed afterwards
+     */
+    /* package */ void setTopByRoute(@NonNull Map<String, BackstackSnapshot> topByRoute) {
+        mTopByRoute = topByRoute;
+    }
+
+    /**
+     * Get the number of screens in the stack
+     */
+    public int getDepth() {
+        return mDepth;
+    }
+
+    public boolean isEmpty() {
+        return mDepth == 0;
+    }
+
+    /**
+     * Get the id of the screen on top of the stack, or {@link #NO_SCREEN} if the stack is empty
+     */
+    public int getTopScreenId() {
+        return mScreenId;
+    }
+
+    /**
+     * Get the route of the screen on top of the stack, or {@code null} if the stack is empty
+     */
+    @Nullable
+    public String getTopRoute() {
+        return mRoute;
+    }
+
+    /**
+     * Get the snapshot of the stack below the screen on top, as it would be after going back
+     */
+    @NonNull
+    public BackstackSnapshot below() {
+        return mBelow == null ? this : mBelow;
+    }
+
+    /**
+     * Get the id of the screen at a position
+     */
+    public int getScreenId(int position) {
+        return at(position).mScreenId;
+    }
+
+    /**
+     * Get the route of the screen at a position
+     */
+    @NonNull
+    public String getRoute(int position) {
+        return at(position).mRoute;
+    }
+
+    /**
+     * Get the position of the screen with the given id, or {@link #NO_SCREEN} if it is not in the stack
+     */
+    public int positionOf(int screenId) {
+
+        for (BackstackSnapshot snapshot = this; snapshot.mDepth > 0; snapshot = snapshot.mBelow) {
+            if (snapshot.mScreenId == screenId) {
+                return snapshot.mDepth - 1;
+            }
+        }
+        return NO_SCREEN;
+    }
+
+    /**
+     * Get the position of the topmost screen with the given route, or {@link #NO_SCREEN} if there is none
+     */
+    public int topPositionOf(@NonNull String route) {
+
+        final Map<String, BackstackSnapshot> topByRoute = mTopByRoute;
+        if (topByRoute != null) {
+            final BackstackSnapshot top = topByRoute.get(route);
+            return top == null ? NO_SCREEN : top.mDepth - 1;
+        }
+        for (BackstackSnapshot snapshot = this; snapshot.mDepth > 0; snapshot = snapshot.mBelow) {
+            if (route.equals(snapshot.mRoute)) {
+                return snapshot.mDepth - 1;
+            }
+        }
+        return NO_SCREEN;
+    }
+
+    /**
+     * Get the id of the topmost screen with the given route, or {@link #NO_SCREEN} if there is none
+     */
+    public int topScreenIdOf(@NonNull String route) {
+
+        final Map<String, BackstackSnapshot> topByRoute = mTopByRoute;
+        if (topByRoute != null) {
+            final BackstackSnapshot top = topByRoute.get(route);
+            return top == null ? NO_SCREEN : top.mScreenId;
+        }
+        for (BackstackSnapshot snapshot = this; snapshot.mDepth > 0; snapshot = snapshot.mBelow) {
+            if (route.equals(snapshot.mRoute)) {
+                return snapshot.mScreenId;
+            }
+        }
+        return NO_SCREEN;
+    }
+
+    /**
+     * Get the ids of all the screens, from the bottom of the stack to the top
+     */
+    @NonNull
+    public int[] getScreenIds() {
+
+        final int[] screenIds = new int[mDepth];
+        for (BackstackSnapshot snapshot = this; snapshot.mDepth > 0; snapshot = snapshot.mBelow) {
+            screenIds[snapshot.mDepth - 1] = snapshot.mScreenId;
+        }
+        return screenIds;
+    }
+
+    /**
+     * Get the routes of all the screens, from the bottom of the stack to the top
+     */
+    @NonNull
+    public List<String> getRoutes() {
+
+        final String[] routes = new String[mDepth];
+        for (BackstackSnapshot snapshot = this; snapshot.mDepth > 0; snapshot = snapshot.mBelow) {
+            routes[snapshot.mDepth - 1] = snapshot.mRoute;
+        }
+        return new ArrayList<>(Arrays.asList(routes));
+    }
+
+    @NonNull
+    private BackstackSnapshot at(int position) {
+
+        if (position < 0 || position >= mDepth) {
+            throw new IndexOutOfBoundsException("Position: " + position + ", Depth: " + mDepth);
+        }
+        BackstackSnapshot snapshot = this;
+        while (snapshot.mDepth - 1 > position) {
+            snapshot = snapshot.mBelow;
+        }
+        return snapshot;
+    }
+
+    @Override
+    public String toString() {
+        return "BackstackSnapshot" + getRoutes();
+    }
+}
@@ -0,0 +1,131 @@
+package com.vinaysshenoy.routz;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Locale;
+
+/**
+ * A {@link StateStore} that keeps each state in its own file in a directory, usually an app private one like
+ * {@link android.content.Context#getFilesDir()}.
+ * <p/>
+ * States are first written to a temporary file and then renamed over the previous one, so a state is never
+ * read half written.
+ */
+public final class FileStateStore implements StateStore {
+
+    private static final String STATE_FILE_SUFFIX = ".state";
+
+    private static final String TEMP_FILE_SUFFIX = ".tmp";
+
+    @NonNull
+    private final File mDirectory;
+
+    /**
+     * @param directory The directory to keep the states in. It will be created if it does not exist
+     */
+    public FileStateStore(@NonNull File directory) {
+        if (directory == null) {
+            throw new IllegalArgumentException("Cannot be null!");
+        }
+        mDirectory = directory;
+    }
+
+    @Override
+    public void write(@NonNull String key, @NonNull byte[] state) throws IOException {
+
+        if (!mDirectory.isDirectory() && !mDirectory.mkdirs()) {
+            throw new IOException("Could not create directory: " + mDirectory);
+        }
+
+        final File tempFile = new File(mDirectory, fileNameFor(key) + TEMP_FILE_SUFFIX);
+        final FileOutputStream outputStream = new FileOutputStream(tempFile);
+        try {
+            outputStream.write(state);
+        } finally {
+            outputStream.close();
+        }
+
+        if (!tempFile.renameTo(stateFileFor(key))) {
+            tempFile.delete();
+            throw new IOException("Could not write state for key: " + key);
+        }
+    }
+
+    @Nullable
+    @Override
+    public byte[] read(@NonNull String key) throws IOException {
+
+        final File stateFile = stateFileFor(key);
+        if (!stateFile.isFile()) {
+            return null;
+        }
+
+        final RandomAccessFile file = new RandomAccessFile(stateFile, "r");
+        try {
+            final long length = file.length();
+            if (length > Integer.MAX_VALUE) {
+                throw new IOException("State too large for key: " + key);
+            }
+            final byte[] state = new byte[(int) length];
+            file.readFully(state);
+            return state;
+        } finally {
+            file.close();
+        }
+    }
+
+    @Override
+    public void delete(@NonNull String key) {
+        stateFileFor(key).delete();
+    }
+
+    /**
+     * Delete all the states that were last written before a point in time. Use this to clean up the states of
+     * routers that were never restored
+     *
+     * @param timeMillis The time, in milliseconds since the epoch, before which states are deleted
+     * @return The number of states deleted
+     */
+    public int deleteOlderThan(long timeMillis) {
+
+        final File[] files = mDirectory.listFiles();
+        if (files == null) {
+            return 0;
+        }
+
+        int deleted = 0;
+        for (File file : files) {
+            if (file.getName().endsWith(STATE_FILE_SUFFIX) && file.lastModified() < timeMillis && file.delete()) {
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    @NonNull
+    private File stateFileFor(@NonNull String key) {
+        return new File(mDirectory, fileNameFor(key) + STATE_FILE_SUFFIX);
+    }
+
+    @NonNull
+    private static String fileNameFor(@NonNull String key) {
+
+        if (key == null || key.isEmpty()) {
+            throw new IllegalArgumentException("Key cannot be empty!");
+        }
+
+        char c;
+        for (int i = 0; i < key.length(); i++) {
+            c = key.charAt(i);
+            if (!((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '-' || c == '_')) {
+                throw new IllegalArgumentException(String.format(Locale.US, "Invalid character in key: {%s}", key));
+            }
+        }
+        return key;
+    }
+}
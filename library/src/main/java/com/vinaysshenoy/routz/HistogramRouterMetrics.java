@@ -0,0 +1,146 @@
+package com.vinaysshenoy.routz;
+
+import android.support.annotation.MainThread;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * A {@link RouterMetrics} that keeps a {@link LatencyHistogram} of the total time and of each phase of navigations,
+ * per route.
+ * <p/>
+ * Once a route has been seen, recording a navigation to it does not allocate. To bound memory use with routes that
+ * contain path parameters, routes seen after {@link #getMaxRoutes()} distinct routes are all recorded under
+ * {@link #OTHER_ROUTES}.
+ */
+public final class HistogramRouterMetrics implements RouterMetrics {
+
+    /**
+     * The route under which navigations that end with an empty backstack are recorded
+     */
+    public static final String NO_ROUTE = "";
+
+    /**
+     * The route under which navigations to routes beyond the maximum number of routes are recorded
+     */
+    public static final String OTHER_ROUTES = "*";
+
+    private static final int DEFAULT_MAX_ROUTES = 256;
+
+    private final int mMaxRoutes;
+
+    @NonNull
+    private final HashMap<String, RouteHistograms> mRouteHistograms;
+
+    public HistogramRouterMetrics() {
+        this(DEFAULT_MAX_ROUTES);
+    }
+
+    /**
+     * @param maxRoutes The maximum number of distinct routes to keep histograms for
+     */
+    public HistogramRouterMetrics(int maxRoutes) {
+        if (maxRoutes <= 0) {
+            throw new IllegalArgumentException("Must be greater than 0!");
+        }
+        mMaxRoutes = maxRoutes;
+        mRouteHistograms = new HashMap<>();
+    }
+
+    public int getMaxRoutes() {
+        return mMaxRoutes;
+    }
+
+    @Override
+    public void onNavigationTimed(@NonNull NavigationTiming timing) {
+
+        final RouteHistograms routeHistograms = getOrCreateRouteHistograms(timing.getRoute() == null ? NO_ROUTE : timing.getRoute());
+        routeHistograms.total.recordNanos(timing.getTotalNanos());
+        long phaseNanos;
+        for (int phase = 0; phase < NavigationTiming.PHASE_COUNT; phase++) {
+            phaseNanos = timing.getPhaseNanos(phase);
+            if (phaseNanos > 0) {
+                routeHistograms.phases[phase].recordNanos(phaseNanos);
+            }
+        }
+    }
+
+    @NonNull
+    private RouteHistograms getOrCreateRouteHistograms(@NonNull String route) {
+
+        RouteHistograms routeHistograms = mRouteHistograms.get(route);
+        if (routeHistograms == null) {
+            if (mRouteHistograms.size() >= mMaxRoutes) {
+                routeHistograms = mRouteHistograms.get(OTHER_ROUTES);
+                if (routeHistograms != null) {
+                    return routeHistograms;
+                }
+                route = OTHER_ROUTES;
+            }
+            routeHistograms = new RouteHistograms();
+            mRouteHistograms.put(route, routeHistograms);
+        }
+        return routeHistograms;
+    }
+
+    /**
+     * Get the routes that navigations have been recorded for
+     */
+    @MainThread
+    @NonNull
+    public List<String> getRoutes() {
+        return new ArrayList<>(mRouteHistograms.keySet());
+    }
+
+    /**
+     * Get the histogram of the total time of navigations that ended on a route
+     *
+     * @return The histogram, or {@code null} if no navigation to the route has been recorded
+     */
+    @MainThread
+    @Nullable
+    public LatencyHistogram getTotalHistogram(@NonNull String route) {
+
+        final RouteHistograms routeHistograms = mRouteHistograms.get(route);
+        return routeHistograms == null ? null : routeHistograms.total;
+    }
+
+    /**
+     * Get the histogram of the time spent in a phase by navigations that ended on a route. Navigations that
+     * skipped the phase are not recorded in it
+     *
+     * @return The histogram, or {@code null} if no navigation to the route has been recorded
+     */
+    @MainThread
+    @Nullable
+    public LatencyHistogram getPhaseHistogram(@NonNull String route, @NavigationTiming.Phase int phase) {
+
+        final RouteHistograms routeHistograms = mRouteHistograms.get(route);
+        return routeHistograms == null ? null : routeHistograms.phases[phase];
+    }
+
+    @MainThread
+    public void reset() {
+        mRouteHistograms.clear();
+    }
+
+    private static final class RouteHistograms {
+
+        @NonNull
+        public final LatencyHistogram total;
+
+        @NonNull
+        public final LatencyHistogram[] phases;
+
+        private RouteHistograms() {
+            total = new LatencyHistogram();
+            phases = new LatencyHistogram[NavigationTiming.PHASE_COUNT];
+            for (int i = 0; i < phases.length; i++) {
+                phases[i] = new LatencyHistogram();
+            }
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.vinaysshenoy.routz;
+
+/**
+ * A map of {@code int} keys to {@code int} values, using open addressing with linear probing.
+ * <p/>
+ * Unlike a {@link java.util.HashMap}, it does not box keys or values, and unlike a
+ * {@link android.util.SparseIntArray}, lookups are constant time.
+ */
+/* package */ final class IntIntMap {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private int[] mKeys;
+
+    private int[] mValues;
+
+    private boolean[] mUsed;
+
+    private int mSize;
+
+    /* package */ IntIntMap() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    private void allocate(int capacity) {
+        mKeys = new int[capacity];
+        mValues = new int[capacity];
+        mUsed = new boolean[capacity];
+    }
+
+    /**
+     * Get the value for a key
+     *
+     * @param missingValue The value to return if the key is not present
+     */
+    /* package */ int get(int key, int missingValue) {
+
+        final int mask = mKeys.length - 1;
+        for (int slot = slotFor(key, mask); mUsed[slot]; slot = (slot + 1) & mask) {
+            if (mKeys[slot] == key) {
+                return mValues[slot];
+            }
+        }
+        return missingValue;
+    }
+
+    /* package */ void put(int key, int value) {
+
+        int mask = mKeys.length - 1;
+        for (int slot = slotFor(key, mask); mUsed[slot]; slot = (slot + 1) & mask) {
+            if (mKeys[slot] == key) {
+                mValues[slot] = value;
+                return;
+            }
+        }
+
+        if ((mSize + 1) * 2 > mKeys.length) {
+            resize(mKeys.length * 2);
+            mask = mKeys.length - 1;
+        }
+        insert(key, value, mask);
+        mSize++;
+    }
+
+    /* package */ void remove(int key) {
+
+        final int mask = mKeys.length - 1;
+        int slot = slotFor(key, mask);
+        while (mUsed[slot] && mKeys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        if (!mUsed[slot]) {
+            return;
+        }
+
+        /* Shift back the entries that follow in the same run, so that lookups never hit a gap before their key */
+        int gap = slot;
+        int next = (gap + 1) & mask;
+        int home;
+        while (mUsed[next]) {
+            home = slotFor(mKeys[next], mask);
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                mKeys[gap] = mKeys[next];
+                mValues[gap] = mValues[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        mUsed[gap] = false;
+        mSize--;
+    }
+
+    /* package */ void clear() {
+
+        if (mSize > 0) {
+            for (int i = 0; i < mUsed.length; i++) {
+                mUsed[i] = false;
+            }
+            mSize = 0;
+        }
+    }
+
+    private void resize(int capacity) {
+
+        final int[] oldKeys = mKeys;
+        final int[] oldValues = mValues;
+        final boolean[] oldUsed = mUsed;
+        allocate(capacity);
+        final int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldUsed[i]) {
+                insert(oldKeys[i], oldValues[i], mask);
+            }
+        }
+    }
+
+    private void insert(int key, int value, int mask) {
+
+        int slot = slotFor(key, mask);
+        while (mUsed[slot]) {
+            slot = (slot + 1) & mask;
+        }
+        mKeys[slot] = key;
+        mValues[slot] = value;
+        mUsed[slot] = true;
+    }
+
+    private static int slotFor(int key, int mask) {
+
+        /* Spread sequential keys, like screen ids, across the table */
+        final int hash = key * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+}
@@ -0,0 +1,119 @@
+package com.vinaysshenoy.routz;
+
+/**
+ * A histogram of latencies, with buckets that grow exponentially in size, so that it can cover latencies from
+ * microseconds up to minutes in a small, fixed amount of memory while keeping a bounded relative error.
+ * <p/>
+ * Values are recorded at microsecond resolution. Every power of two range is split into {@link #SUB_BUCKET_HALF_COUNT}
+ * linear sub buckets, which keeps the error of any reported value under about 6%. Recording a value does not allocate.
+ * <p/>
+ * This is not thread safe. Values are expected to be recorded and read on the main thread.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    private static final int SUB_BUCKET_HALF_COUNT = SUB_BUCKET_COUNT / 2;
+
+    /**
+     * The highest bit of the largest trackable value, in microseconds. Larger values are clamped
+     */
+    private static final int MAX_VALUE_BITS = 27;
+
+    private static final long MAX_TRACKABLE_MICROS = (1L << MAX_VALUE_BITS) - 1;
+
+    private static final int BUCKET_COUNT = SUB_BUCKET_COUNT + (MAX_VALUE_BITS - SUB_BUCKET_BITS) * SUB_BUCKET_HALF_COUNT;
+
+    private static final long NANOS_PER_MICRO = 1000L;
+
+    private final int[] mCounts;
+
+    private long mTotalCount;
+
+    private long mSumMicros;
+
+    private long mMaxMicros;
+
+    public LatencyHistogram() {
+        mCounts = new int[BUCKET_COUNT];
+    }
+
+    public void recordNanos(long nanos) {
+
+        final long micros = Math.min(Math.max(nanos / NANOS_PER_MICRO, 0), MAX_TRACKABLE_MICROS);
+        mCounts[indexFor(micros)]++;
+        mTotalCount++;
+        mSumMicros += micros;
+        mMaxMicros = Math.max(mMaxMicros, micros);
+    }
+
+    public long getTotalCount() {
+        return mTotalCount;
+    }
+
+    public long getMaxNanos() {
+        return mMaxMicros * NANOS_PER_MICRO;
+    }
+
+    public long getMeanNanos() {
+        return mTotalCount == 0 ? 0 : (mSumMicros / mTotalCount) * NANOS_PER_MICRO;
+    }
+
+    /**
+     * Get the latency below which a percentage of the recorded values fall
+     *
+     * @param percentile The percentile, between {@code 0} and {@code 100}
+     * @return The upper bound of the bucket the percentile falls in, or {@code 0} if nothing was recorded
+     */
+    public long getNanosAtPercentile(double percentile) {
+
+        if (mTotalCount == 0) {
+            return 0;
+        }
+
+        final double clampedPercentile = Math.min(Math.max(percentile, 0.0), 100.0);
+        final long countAtPercentile = Math.max(1, (long) Math.ceil(clampedPercentile / 100.0 * mTotalCount));
+        long count = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            count += mCounts[i];
+            if (count >= countAtPercentile) {
+                return Math.min(highestValueAt(i), mMaxMicros) * NANOS_PER_MICRO;
+            }
+        }
+        return getMaxNanos();
+    }
+
+    public void reset() {
+
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            mCounts[i] = 0;
+        }
+        mTotalCount = 0;
+        mSumMicros = 0;
+        mMaxMicros = 0;
+    }
+
+    private static int indexFor(long value) {
+
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+
+        /* Shift the value so that it lands in the upper half of the sub buckets */
+        final int shift = (63 - Long.numberOfLeadingZeros(value)) - (SUB_BUCKET_BITS - 1);
+        return SUB_BUCKET_COUNT + (shift - 1) * SUB_BUCKET_HALF_COUNT + (int) ((value >>> shift) - SUB_BUCKET_HALF_COUNT);
+    }
+
+    private static long highestValueAt(int index) {
+
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+
+        final int shift = (index - SUB_BUCKET_COUNT) / SUB_BUCKET_HALF_COUNT + 1;
+        final long subBucket = (index - SUB_BUCKET_COUNT) % SUB_BUCKET_HALF_COUNT + SUB_BUCKET_HALF_COUNT;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
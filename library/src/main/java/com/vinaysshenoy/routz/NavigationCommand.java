@@ -0,0 +1,189 @@
+package com.vinaysshenoy.routz;
+
+import android.os.Bundle;
+import android.support.annotation.IntDef;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+/**
+ * A single change to the backstack of a {@link Router}, applied on the main thread as part of a batch.
+ * <p/>
+ * Commands are reused, so they are obtained from and returned to the {@link NavigationQueue} of the router.
+ */
+/* package */ final class NavigationCommand {
+
+    @Retention(RetentionPolicy.SOURCE)
+    @IntDef({TYPE_PUSH, TYPE_POP, TYPE_POP_TO_ID, TYPE_POP_TO_ROUTE, TYPE_MOVE_TO_TOP_ID, TYPE_MOVE_TO_TOP_ROUTE, TYPE_SET_STACK})
+    /* package */ @interface Type {
+    }
+
+    /**
+     * Push {@link #screen} on the stack
+     */
+    /* package */ static final int TYPE_PUSH = 0;
+
+    /**
+     * Pop {@link #count} screens off the stack
+     */
+    /* package */ static final int TYPE_POP = 1;
+
+    /**
+     * Pop screens until the screen with {@link #screenId} is on top. Pops all screens if it is not in the stack
+     */
+    /* package */ static final int TYPE_POP_TO_ID = 2;
+
+    /**
+     * Pop screens until the topmost screen with {@link #route} is on top. If there is none, pushes a screen for the
+     * route with {@link #screenId}, or pops all screens if it is {@link BackstackSnapshot#NO_SCREEN}
+     */
+    /* package */ static final int TYPE_POP_TO_ROUTE = 3;
+
+    /**
+     * Move the screen with {@link #screenId} to the top of the stack, if it is in the stack
+     */
+    /* package */ static final int TYPE_MOVE_TO_TOP_ID = 4;
+
+    /**
+     * Move the topmost screen with {@link #route} to the top of the stack. If there is none, pushes a screen for the
+     * route with {@link #screenId}, unless it is {@link BackstackSnapshot#NO_SCREEN}
+     */
+    /* package */ static final int TYPE_MOVE_TO_TOP_ROUTE = 5;
+
+    /**
+     * Replace the stack with {@link #routeEntries}, keeping the screens that match. The screen created for an entry
+     * that matches none has the id {@link #screenId} plus the index of the entry
+     */
+    /* package */ static final int TYPE_SET_STACK = 6;
+
+    @Type
+    /* package */ int type;
+
+    @Nullable
+    /* package */ Screen screen;
+
+    /* package */ int screenId;
+
+    @Nullable
+    /* package */ String route;
+
+    /* package */ int count;
+
+    @Nullable
+    /* package */ RouteEntry[] routeEntries;
+
+    /**
+     * Whether to give the screen that is the target of this command {@link #params}
+     */
+    /* package */ boolean replacesParams;
+
+    @Nullable
+    /* package */ Bundle params;
+
+    /**
+     * Whether this command is a load of {@link #route}, whose transition from the route on top is counted by the
+     * {@link NavigationPredictor}
+     */
+    /* package */ boolean isLoad;
+
+    /**
+     * The timing of the navigation this command is part of, if it is the last command of that navigation
+     */
+    @Nullable
+    /* package */ NavigationTiming timing;
+
+    /**
+     * The next command in the {@link NavigationQueue}
+     */
+    @Nullable
+    /* package */ NavigationCommand next;
+
+    /* package */ NavigationCommand() {
+    }
+
+    private NavigationCommand set(@Type int type, @Nullable Screen screen, int screenId, @Nullable String route, int count) {
+        this.type = type;
+        this.screen = screen;
+        this.screenId = screenId;
+        this.route = route;
+        this.count = count;
+        this.replacesParams = false;
+        this.isLoad = false;
+        return this;
+    }
+
+    /**
+     * Also replace the params of the screen that is the target of this command
+     */
+    /* package */ NavigationCommand withParams(@Nullable Bundle params) {
+        this.replacesParams = true;
+        this.params = params;
+        return this;
+    }
+
+    /**
+     * Mark this command as a load of its route, which leaves a screen with the route on top
+     */
+    /* package */ NavigationCommand asLoad() {
+        this.isLoad = true;
+        return this;
+    }
+
+    /* package */ NavigationCommand setPush(@NonNull Screen screen) {
+        return set(TYPE_PUSH, screen, screen.getId(), screen.getRoute(), 1);
+    }
+
+    /* package */ NavigationCommand setPop(int count) {
+        return set(TYPE_POP, null, 0, null, count);
+    }
+
+    /* package */ NavigationCommand setPopTo(int screenId) {
+        return set(TYPE_POP_TO_ID, null, screenId, null, 0);
+    }
+
+    /* package */ NavigationCommand setPopTo(@NonNull String route) {
+        return set(TYPE_POP_TO_ROUTE, null, BackstackSnapshot.NO_SCREEN, route, 0);
+    }
+
+    /**
+     * Pop to the topmost screen with a route, or push a screen for it with an id if there is none
+     */
+    /* package */ NavigationCommand setPopToOrPush(@NonNull String route, int screenId) {
+        return set(TYPE_POP_TO_ROUTE, null, screenId, route, 0);
+    }
+
+    /* package */ NavigationCommand setMoveToTop(int screenId) {
+        return set(TYPE_MOVE_TO_TOP_ID, null, screenId, null, 0);
+    }
+
+    /* package */ NavigationCommand setMoveToTop(@NonNull String route) {
+        return set(TYPE_MOVE_TO_TOP_ROUTE, null, BackstackSnapshot.NO_SCREEN, route, 0);
+    }
+
+    /**
+     * Move the topmost screen with a route to the top, or push a screen for it with an id if there is none
+     */
+    /* package */ NavigationCommand setMoveToTopOrPush(@NonNull String route, int screenId) {
+        return set(TYPE_MOVE_TO_TOP_ROUTE, null, screenId, route, 0);
+    }
+
+    /* package */ NavigationCommand setStack(@NonNull RouteEntry[] routeEntries, int firstScreenId) {
+        set(TYPE_SET_STACK, null, firstScreenId, null, 0);
+        this.routeEntries = routeEntries;
+        return this;
+    }
+
+    /**
+     * Drop the references held by this command, before it is returned to the pool
+     */
+    /* package */ void clear() {
+        screen = null;
+        route = null;
+        routeEntries = null;
+        params = null;
+        timing = null;
+        next = null;
+    }
+}
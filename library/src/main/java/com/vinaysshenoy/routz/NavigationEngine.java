@@ -0,0 +1,547 @@
+package com.vinaysshenoy.routz;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * Plans how a batch of navigations changes a backstack, without changing it.
+ * <p/>
+ * The engine only knows the ids and routes of screens, and has no dependency on the Android framework, so it can be
+ * tested and benchmarked on a plain JVM. The {@link Router} applies the plan to its {@link ScreenStack}, runs the
+ * lifecycle callbacks of the screens that were pushed and popped, and swaps the views once for the whole batch.
+ * <p/>
+ * The router plans the queued commands on a background planner thread as they are queued, or on the thread of a load
+ * that has to find a screen in the stack they lead to, and plans whatever is left when it drains them on the main
+ * thread. A plan grows with each command planned, until it is applied, and then the next plan begins against the stack
+ * as it is now.
+ * <p/>
+ * A plan is made of two parts. The screens at the bottom of the backstack, below the {@link #getFloor() floor}, are
+ * left as they are. Above the floor, the plan lists the {@link #getSource(int) source} of each screen in the planned
+ * stack: either a position in the backstack, for a screen that is kept, or a pushed screen. Screens above the floor
+ * that are not in the plan are popped. Screens that are pushed and popped in the same batch never appear in it.
+ * <p/>
+ * Commands targeting screens below the floor use the indexes of the backstack, so a plan costs time in proportion to
+ * the number of screens that change, and not to the depth of the stack.
+ */
+/* package */ final class NavigationEngine {
+
+    /**
+     * Returned when a navigation does not find its target screen
+     */
+    /* package */ static final int NOT_FOUND = Integer.MIN_VALUE;
+
+    private static final int INITIAL_CAPACITY = 8;
+
+    /**
+     * The largest table a stack is diffed with, beyond which the screens that changed between the common prefix and
+     * suffix are all replaced
+     */
+    private static final int MAX_DIFF_CELLS = 1 << 18;
+
+    /**
+     * The backstack a plan is made against. It must not change while the plan is being made
+     */
+    /* package */ interface Backstack {
+
+        int size();
+
+        int getScreenId(int position);
+
+        @NonNull
+        String getRoute(int position);
+
+        /**
+         * Get the position of the screen with the given id, or {@code -1} if it is not in the stack
+         */
+        int positionOf(int screenId);
+
+        /**
+         * Get the position of the topmost screen with the given route, or {@code -1} if there is none
+         */
+        int topPositionOf(@NonNull String route);
+
+        /**
+         * Get the position of the next screen below a position with the same route, or {@code -1} if there is none
+         */
+        int positionBelowWithSameRoute(int position);
+    }
+
+    private Backstack mBackstack;
+
+    /**
+     * The screens of the backstack below this position are unchanged by the plan
+     */
+    private int mFloor;
+
+    /**
+     * The screens planned above the floor, from the bottom up. A source that is not negative is a position in the
+     * backstack, and a negative source is the complement of the index of a push
+     */
+    @NonNull
+    private int[] mSources;
+
+    @NonNull
+    private int[] mScreenIds;
+
+    @NonNull
+    private String[] mRoutes;
+
+    /**
+     * Whether each planned screen was moved to the top, rather than kept in its order
+     */
+    @NonNull
+    private boolean[] mMoved;
+
+    private int mSize;
+
+    /**
+     * For each position in the backstack from the floor up, whether the screen there is kept by the plan
+     */
+    @NonNull
+    private boolean[] mKept;
+
+    /* package */ NavigationEngine() {
+        mSources = new int[INITIAL_CAPACITY];
+        mScreenIds = new int[INITIAL_CAPACITY];
+        mRoutes = new String[INITIAL_CAPACITY];
+        mMoved = new boolean[INITIAL_CAPACITY];
+        mKept = new boolean[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Start a new plan against a backstack, in which nothing changes
+     */
+    /* package */ void begin(@NonNull Backstack backstack) {
+        Arrays.fill(mRoutes, 0, mSize, null);
+        mBackstack = backstack;
+        mFloor = backstack.size();
+        mSize = 0;
+    }
+
+    /**
+     * Plan to push a screen
+     *
+     * @param pushIndex An index for the push, which is returned as the complement of its {@link #getSource(int) source}
+     */
+    /* package */ void push(int pushIndex, int screenId, @NonNull String route) {
+
+        if (pushIndex < 0) {
+            throw new IllegalArgumentException("Push index cannot be negative!");
+        }
+        add(~pushIndex, screenId, route);
+    }
+
+    /**
+     * Plan to pop a number of screens off the top
+     */
+    /* package */ void pop(int count) {
+
+        for (int i = 0; i < count; i++) {
+            if (mSize > 0) {
+                mRoutes[--mSize] = null;
+            } else if (mFloor > 0) {
+                mFloor--;
+            } else {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Plan to pop screens until the screen with an id is on top, or every screen if it is not in the planned stack
+     *
+     * @return The source of the screen, or {@link #NOT_FOUND}
+     */
+    /* package */ int popTo(int screenId) {
+        return popAbove(plannedPositionOf(screenId));
+    }
+
+    /**
+     * Plan to pop screens until the topmost screen with a route is on top, or every screen if there is none
+     *
+     * @return The source of the screen, or {@link #NOT_FOUND}
+     */
+    /* package */ int popTo(@NonNull String route) {
+        return popAbove(plannedTopPositionOf(route));
+    }
+
+    /**
+     * Plan to pop screens until the topmost screen with a route is on top, or to push a screen for the route if there
+     * is none, without popping any
+     *
+     * @param pushIndex An index for the push, if there is one
+     * @param screenId  The id of the screen to push, if there is one
+     * @return The source of the screen on top
+     */
+    /* package */ int popToOrPush(@NonNull String route, int pushIndex, int screenId) {
+
+        final int position = plannedTopPositionOf(route);
+        if (position < 0) {
+            push(pushIndex, screenId, route);
+            return ~pushIndex;
+        }
+        return popAbove(position);
+    }
+
+    /**
+     * Plan to move the screen with an id to the top, if it is in the planned stack
+     *
+     * @return The source of the screen, or {@link #NOT_FOUND}
+     */
+    /* package */ int moveToTop(int screenId) {
+        return moveToTopFrom(plannedPositionOf(screenId));
+    }
+
+    /**
+     * Plan to move the topmost screen with a route to the top, if there is one
+     *
+     * @return The source of the screen, or {@link #NOT_FOUND}
+     */
+    /* package */ int moveToTop(@NonNull String route) {
+        return moveToTopFrom(plannedTopPositionOf(route));
+    }
+
+    /**
+     * Plan to move the topmost screen with a route to the top, or to push a screen for the route if there is none
+     *
+     * @param pushIndex An index for the push, if there is one
+     * @param screenId  The id of the screen to push, if there is one
+     * @return The source of the screen on top
+     */
+    /* package */ int moveToTopOrPush(@NonNull String route, int pushIndex, int screenId) {
+
+        final int position = plannedTopPositionOf(route);
+        if (position < 0) {
+            push(pushIndex, screenId, route);
+            return ~pushIndex;
+        }
+        return moveToTopFrom(position);
+    }
+
+    /**
+     * Plan to replace the stack with another one, keeping the screens the two have in common.
+     * <p/>
+     * A target with a screen id matches the screen with that id and route, and a target with an id of
+     * {@link BackstackSnapshot#NO_SCREEN} matches any screen with its route. The common prefix and suffix of the two
+     * stacks are kept as they are, and the longest common subsequence of the screens between them is kept in its order.
+     * Every other target is pushed, and every other screen is popped. Once planned, the position of each target in the
+     * planned stack is its index.
+     *
+     * @param firstPushIndex The index for the push of the first target, which is followed by one index for each target
+     * @param firstScreenId  The id of the screen pushed for the first target, which is followed by one id for each
+     *                       target
+     */
+    /* package */ void setStack(int firstPushIndex, @NonNull int[] screenIds, @NonNull String[] routes, int firstScreenId) {
+
+        if (firstPushIndex < 0) {
+            throw new IllegalArgumentException("Push index cannot be negative!");
+        }
+        final int size = getPlannedSize();
+        final int targetCount = screenIds.length;
+        int prefix = 0;
+        while (prefix < size && prefix < targetCount && matches(prefix, screenIds[prefix], routes[prefix])) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < size - prefix && suffix < targetCount - prefix
+                && matches(size - 1 - suffix, screenIds[targetCount - 1 - suffix], routes[targetCount - 1 - suffix])) {
+            suffix++;
+        }
+
+        /* For each target between the prefix and the suffix, the planned position it matches, or -1 */
+        final int[] matches = diff(prefix, size - suffix, screenIds, routes, prefix, targetCount - suffix);
+
+        final int floor = Math.min(mFloor, prefix);
+        final int newSize = targetCount - floor;
+        final int[] sources = new int[Math.max(newSize, mSources.length)];
+        final int[] newScreenIds = new int[sources.length];
+        final String[] newRoutes = new String[sources.length];
+        int position;
+        for (int i = 0; i < newSize; i++) {
+            final int target = floor + i;
+            if (target < prefix) {
+                position = target;
+            } else if (target >= targetCount - suffix) {
+                position = size - (targetCount - target);
+            } else {
+                position = matches[target - prefix];
+            }
+            if (position >= 0) {
+                sources[i] = plannedSourceAt(position);
+                newScreenIds[i] = plannedScreenIdAt(position);
+                newRoutes[i] = plannedRouteAt(position);
+            } else {
+                sources[i] = ~(firstPushIndex + target);
+                newScreenIds[i] = firstScreenId + target;
+                newRoutes[i] = routes[target];
+            }
+        }
+
+        mSources = sources;
+        mScreenIds = newScreenIds;
+        mRoutes = newRoutes;
+        mMoved = new boolean[sources.length];
+        mFloor = floor;
+        mSize = newSize;
+    }
+
+    /**
+     * Get whether the screen at a position in the planned stack, from the floor up, was moved to the top. A kept
+     * screen that was not moved keeps its order with the other kept screens
+     */
+    /* package */ boolean isMoved(int position) {
+
+        if (position < mFloor || position >= mFloor + mSize) {
+            throw new IndexOutOfBoundsException("Position: " + position + ", Floor: " + mFloor + ", Size: " + getPlannedSize());
+        }
+        return mMoved[position - mFloor];
+    }
+
+    /**
+     * Get the id of the topmost screen with a route in the planned stack, or {@link BackstackSnapshot#NO_SCREEN} if
+     * there is none
+     */
+    /* package */ int getPlannedTopScreenId(@NonNull String route) {
+
+        final int position = plannedTopPositionOf(route);
+        return position < 0 ? BackstackSnapshot.NO_SCREEN : plannedScreenIdAt(position);
+    }
+
+    /**
+     * Get the route of the screen on top of the planned stack, or {@code null} if it is empty
+     */
+    @Nullable
+    /* package */ String getPlannedTopRoute() {
+        return getPlannedSize() == 0 ? null : plannedRouteAt(getPlannedSize() - 1);
+    }
+
+    /**
+     * Get the number of screens in the planned stack
+     */
+    /* package */ int getPlannedSize() {
+        return mFloor + mSize;
+    }
+
+    /**
+     * Get the position below which the screens of the backstack are unchanged
+     */
+    /* package */ int getFloor() {
+        return mFloor;
+    }
+
+    /**
+     * Get the source of the screen at a position in the planned stack, from the floor up
+     *
+     * @return A position in the backstack, or the complement of the index of a push
+     */
+    /* package */ int getSource(int position) {
+
+        if (position < mFloor || position >= mFloor + mSize) {
+            throw new IndexOutOfBoundsException("Position: " + position + ", Floor: " + mFloor + ", Size: " + getPlannedSize());
+        }
+        return mSources[position - mFloor];
+    }
+
+    /**
+     * Find which screens of the backstack from the floor up are kept by the plan. Call this once the plan is complete
+     *
+     * @return For each position from the floor up, whether the screen there is kept. Only valid until the next plan
+     */
+    @NonNull
+    /* package */ boolean[] findKept() {
+
+        final int count = mBackstack.size() - mFloor;
+        if (mKept.length < count) {
+            mKept = new boolean[Math.max(count, mKept.length * 2)];
+        } else {
+            Arrays.fill(mKept, 0, count, false);
+        }
+        int source;
+        for (int i = 0; i < mSize; i++) {
+            source = mSources[i];
+            if (source >= 0) {
+                mKept[source - mFloor] = true;
+            }
+        }
+        return mKept;
+    }
+
+    /**
+     * Pops every screen above a position in the planned stack, or every screen if it is {@code -1}
+     */
+    private int popAbove(int position) {
+
+        if (position < 0) {
+            mFloor = 0;
+            clearAbove(0);
+            return NOT_FOUND;
+        }
+        if (position >= mFloor) {
+            clearAbove(position - mFloor + 1);
+            return mSources[position - mFloor];
+        }
+        mFloor = position + 1;
+        clearAbove(0);
+        return position;
+    }
+
+    private int moveToTopFrom(int position) {
+
+        if (position < 0) {
+            return NOT_FOUND;
+        }
+        if (position >= mFloor) {
+            final int index = position - mFloor;
+            final int source = mSources[index];
+            final int screenId = mScreenIds[index];
+            final String route = mRoutes[index];
+            System.arraycopy(mSources, index + 1, mSources, index, mSize - index - 1);
+            System.arraycopy(mScreenIds, index + 1, mScreenIds, index, mSize - index - 1);
+            System.arraycopy(mRoutes, index + 1, mRoutes, index, mSize - index - 1);
+            System.arraycopy(mMoved, index + 1, mMoved, index, mSize - index - 1);
+            mSources[mSize - 1] = source;
+            mScreenIds[mSize - 1] = screenId;
+            mRoutes[mSize - 1] = route;
+            mMoved[mSize - 1] = true;
+            return source;
+        }
+
+        /* The screens between it and the floor are lifted above the floor, under the ones already planned there */
+        if (position == mFloor - 1 && mSize == 0) {
+            return position;
+        }
+        final int lifted = mFloor - position - 1;
+        ensureCapacity(mSize + lifted + 1);
+        System.arraycopy(mSources, 0, mSources, lifted, mSize);
+        System.arraycopy(mScreenIds, 0, mScreenIds, lifted, mSize);
+        System.arraycopy(mRoutes, 0, mRoutes, lifted, mSize);
+        System.arraycopy(mMoved, 0, mMoved, lifted, mSize);
+        for (int i = 0; i < lifted; i++) {
+            mSources[i] = position + 1 + i;
+            mScreenIds[i] = mBackstack.getScreenId(position + 1 + i);
+            mRoutes[i] = mBackstack.getRoute(position + 1 + i);
+            mMoved[i] = false;
+        }
+        mSize += lifted;
+        mFloor = position;
+        add(position, mBackstack.getScreenId(position), mBackstack.getRoute(position));
+        mMoved[mSize - 1] = true;
+        return position;
+    }
+
+    private int plannedPositionOf(int screenId) {
+
+        for (int i = mSize - 1; i >= 0; i--) {
+            if (mScreenIds[i] == screenId) {
+                return mFloor + i;
+            }
+        }
+        final int position = mBackstack.positionOf(screenId);
+        return position < mFloor ? position : -1;
+    }
+
+    private int plannedTopPositionOf(@NonNull String route) {
+
+        for (int i = mSize - 1; i >= 0; i--) {
+            if (route.equals(mRoutes[i])) {
+                return mFloor + i;
+            }
+        }
+        /* Screens of the backstack from the floor up are either popped, or were found above */
+        int position = mBackstack.topPositionOf(route);
+        while (position >= mFloor) {
+            position = mBackstack.positionBelowWithSameRoute(position);
+        }
+        return position;
+    }
+
+    private void add(int source, int screenId, @NonNull String route) {
+
+        ensureCapacity(mSize + 1);
+        mSources[mSize] = source;
+        mScreenIds[mSize] = screenId;
+        mRoutes[mSize] = route;
+        mMoved[mSize] = false;
+        mSize++;
+    }
+
+    /**
+     * Finds the longest common subsequence of a range of the planned stack and a range of targets
+     *
+     * @return For each target in the range, the planned position of the screen it matches, or {@code -1}
+     */
+    @NonNull
+    private int[] diff(int start, int end, @NonNull int[] screenIds, @NonNull String[] routes, int targetStart, int targetEnd) {
+
+        final int count = end - start;
+        final int targetCount = targetEnd - targetStart;
+        final int[] matches = new int[targetCount];
+        Arrays.fill(matches, -1);
+        if (count == 0 || targetCount == 0 || (long) (count + 1) * (targetCount + 1) > MAX_DIFF_CELLS) {
+            return matches;
+        }
+
+        /* lengths[i][j] is the length of the common subsequence of the screens from i and the targets from j */
+        final int columns = targetCount + 1;
+        final int[] lengths = new int[(count + 1) * columns];
+        for (int i = count - 1; i >= 0; i--) {
+            for (int j = targetCount - 1; j >= 0; j--) {
+                if (matches(start + i, screenIds[targetStart + j], routes[targetStart + j])) {
+                    lengths[i * columns + j] = lengths[(i + 1) * columns + j + 1] + 1;
+                } else {
+                    lengths[i * columns + j] = Math.max(lengths[(i + 1) * columns + j], lengths[i * columns + j + 1]);
+                }
+            }
+        }
+
+        int i = 0;
+        int j = 0;
+        while (i < count && j < targetCount) {
+            if (matches(start + i, screenIds[targetStart + j], routes[targetStart + j])) {
+                matches[j] = start + i;
+                i++;
+                j++;
+            } else if (lengths[(i + 1) * columns + j] >= lengths[i * columns + j + 1]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return matches;
+    }
+
+    private boolean matches(int position, int screenId, @NonNull String route) {
+        return (screenId == BackstackSnapshot.NO_SCREEN || screenId == plannedScreenIdAt(position)) && route.equals(plannedRouteAt(position));
+    }
+
+    private int plannedSourceAt(int position) {
+        return position < mFloor ? position : mSources[position - mFloor];
+    }
+
+    private int plannedScreenIdAt(int position) {
+        return position < mFloor ? mBackstack.getScreenId(position) : mScreenIds[position - mFloor];
+    }
+
+    @NonNull
+    private String plannedRouteAt(int position) {
+        return position < mFloor ? mBackstack.getRoute(position) : mRoutes[position - mFloor];
+    }
+
+    private void clearAbove(int size) {
+        Arrays.fill(mRoutes, size, mSize, null);
+        mSize = size;
+    }
+
+    private void ensureCapacity(int capacity) {
+
+        if (capacity > mSources.length) {
+            final int newCapacity = Math.max(capacity, mSources.length * 2);
+            mSources = Arrays.copyOf(mSources, newCapacity);
+            mScreenIds = Arrays.copyOf(mScreenIds, newCapacity);
+            mRoutes = Arrays.copyOf(mRoutes, newCapacity);
+            mMoved = Arrays.copyOf(mMoved, newCapacity);
+        }
+    }
+}
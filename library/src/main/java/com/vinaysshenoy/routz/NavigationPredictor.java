@@ -0,0 +1,413 @@
+package com.vinaysshenoy.routz;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Learns which route usually follows which, from the loads made through a {@link Router}, so that the router can warm
+ * the screens most likely to be loaded next. Set it with {@link Router#setNavigationPredictor(NavigationPredictor)}.
+ * <p/>
+ * The predictor keeps a first order table of how many times each route was loaded from each other route. Whenever
+ * the main thread is idle after a screen is shown, the router prefetches the most likely next routes, up to a number
+ * of screens and an estimated size of their views. The size of a view is learned from the last time a screen of its
+ * route was hidden, and is taken to fill the container until then. The table can be {@link #marshall() marshalled} to a few bytes per
+ * transition, to be kept between sessions.
+ * <p/>
+ * A load that creates a screen after warming counts as a hit if it used a warmed screen, and as a miss otherwise, so
+ * {@link #getHitCount()} and {@link #getMissCount()} tell whether warming pays for itself.
+ */
+public final class NavigationPredictor {
+
+    public static final int DEFAULT_MAX_WARM_SCREENS = 2;
+
+    public static final long DEFAULT_MAX_WARM_BYTES = 4L * 1024L * 1024L;
+
+    /**
+     * Routes loaded less often than this, out of all the loads from a route, are never warmed
+     */
+    private static final float MIN_PROBABILITY = 0.1f;
+
+    /**
+     * Once the loads from a route add up to this, their counts are halved, so that the table follows changes in how
+     * the app is used
+     */
+    private static final int MAX_TOTAL_COUNT = 1 << 14;
+
+    private static final byte[] MAGIC = {'R', 'T', 'Z', 'P'};
+
+    private static final int VERSION = 1;
+
+    private final int mMaxWarmScreens;
+
+    private final long mMaxWarmBytes;
+
+    /**
+     * The routes loaded from each route
+     */
+    @NonNull
+    private final HashMap<String, Successors> mTransitions;
+
+    /**
+     * The routes warmed since the last screen was created
+     */
+    @NonNull
+    private final HashSet<String> mWarmedRoutes;
+
+    /**
+     * The estimated size of the view of each route, as of the last time one was hidden
+     */
+    @NonNull
+    private final HashMap<String, Integer> mViewSizes;
+
+    private long mHitCount;
+
+    private long mMissCount;
+
+    public NavigationPredictor() {
+        this(DEFAULT_MAX_WARM_SCREENS, DEFAULT_MAX_WARM_BYTES);
+    }
+
+    /**
+     * @param maxWarmScreens The most screens to warm after each screen is shown
+     * @param maxWarmBytes   The estimated size of the warmed views, which warming stays within
+     */
+    public NavigationPredictor(int maxWarmScreens, long maxWarmBytes) {
+        if (maxWarmScreens < 1 || maxWarmBytes < 1L) {
+            throw new IllegalArgumentException("The budget must allow at least one screen!");
+        }
+        mMaxWarmScreens = maxWarmScreens;
+        mMaxWarmBytes = maxWarmBytes;
+        mTransitions = new HashMap<>();
+        mWarmedRoutes = new HashSet<>();
+        mViewSizes = new HashMap<>();
+    }
+
+    public int getMaxWarmScreens() {
+        return mMaxWarmScreens;
+    }
+
+    public long getMaxWarmBytes() {
+        return mMaxWarmBytes;
+    }
+
+    /**
+     * Get the routes most likely to be loaded after a route, the likeliest first
+     *
+     * @return Up to {@link #getMaxWarmScreens()} routes
+     */
+    @NonNull
+    public synchronized List<String> predictNext(@NonNull String route) {
+
+        final Successors successors = mTransitions.get(route);
+        if (successors == null) {
+            return new ArrayList<>(0);
+        }
+
+        final int count = Math.min(mMaxWarmScreens, successors.size);
+        final ArrayList<String> routes = new ArrayList<>(count);
+        final int minCount = (int) Math.ceil(successors.totalCount * MIN_PROBABILITY);
+        for (int i = 0; i < count && successors.counts[i] >= minCount; i++) {
+            routes.add(successors.routes[i]);
+        }
+        return routes;
+    }
+
+    /**
+     * Get the number of screens created from a warmed screen
+     */
+    public synchronized long getHitCount() {
+        return mHitCount;
+    }
+
+    /**
+     * Get the number of screens created without a warmed screen, after other screens were warmed
+     */
+    public synchronized long getMissCount() {
+        return mMissCount;
+    }
+
+    /**
+     * Count a load of a route, while another route is on top of the stack
+     */
+    /* package */ synchronized void recordTransition(@Nullable String fromRoute, @NonNull String toRoute) {
+
+        if (fromRoute == null) {
+            return;
+        }
+        Successors successors = mTransitions.get(fromRoute);
+        if (successors == null) {
+            successors = new Successors();
+            mTransitions.put(fromRoute, successors);
+        }
+        successors.add(toRoute, 1);
+        if (successors.totalCount >= MAX_TOTAL_COUNT) {
+            successors.halve();
+        }
+    }
+
+    /**
+     * Choose the routes to warm after a route, the likeliest first, for as long as their views fit in the budget
+     *
+     * @param usedBytes        The estimated size of the views already warmed, including the ones still being created
+     * @param defaultViewBytes The size to assume for the view of a route that was never hidden
+     * @param warmRoutes       The routes already warmed, or being warmed, which are chosen again without counting
+     *                         their size again
+     */
+    @NonNull
+    /* package */ synchronized List<String> selectWarmRoutes(@NonNull String route, long usedBytes, long defaultViewBytes,
+                                                           @NonNull Set<String> warmRoutes) {
+
+        final List<String> routes = predictNext(route);
+        final ArrayList<String> selectedRoutes = new ArrayList<>(routes.size());
+        String nextRoute;
+        Integer viewBytes;
+        for (int i = 0; i < routes.size(); i++) {
+            nextRoute = routes.get(i);
+            if (!warmRoutes.contains(nextRoute)) {
+                viewBytes = mViewSizes.get(nextRoute);
+                usedBytes += viewBytes != null ? viewBytes : defaultViewBytes;
+                if (usedBytes > mMaxWarmBytes) {
+                    break;
+                }
+            }
+            selectedRoutes.add(nextRoute);
+        }
+        return selectedRoutes;
+    }
+
+    /* package */ synchronized void recordViewSize(@NonNull String route, int viewBytes) {
+        mViewSizes.put(route, viewBytes);
+    }
+
+    /* package */ synchronized void recordWarmed(@NonNull String route) {
+        mWarmedRoutes.add(route);
+    }
+
+    /**
+     * Count a screen being created as a hit or a miss, if screens were warmed before it
+     *
+     * @param fromPrefetched Whether the screen was created ahead of time
+     */
+    /* package */ synchronized void recordCreated(@NonNull String route, boolean fromPrefetched) {
+
+        if (mWarmedRoutes.isEmpty()) {
+            return;
+        }
+        if (fromPrefetched && mWarmedRoutes.contains(route)) {
+            mHitCount++;
+        } else {
+            mMissCount++;
+        }
+        mWarmedRoutes.clear();
+    }
+
+    /**
+     * Write the table of transitions to bytes, to be restored in a later session with {@link #unmarshall(byte[])}
+     */
+    @NonNull
+    public synchronized byte[] marshall() {
+
+        final ArrayList<String> routes = new ArrayList<>();
+        final HashMap<String, Integer> routeIndices = new HashMap<>();
+        for (Map.Entry<String, Successors> entry : mTransitions.entrySet()) {
+            indexOf(entry.getKey(), routes, routeIndices);
+            for (int i = 0; i < entry.getValue().size; i++) {
+                indexOf(entry.getValue().routes[i], routes, routeIndices);
+            }
+        }
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(MAGIC, 0, MAGIC.length);
+        out.write(VERSION);
+        writeVarInt(out, routes.size());
+        byte[] bytes;
+        for (int i = 0; i < routes.size(); i++) {
+            bytes = routes.get(i).getBytes(ArgsWriter.UTF_8);
+            writeVarInt(out, bytes.length);
+            out.write(bytes, 0, bytes.length);
+        }
+        writeVarInt(out, mTransitions.size());
+        Successors successors;
+        for (Map.Entry<String, Successors> entry : mTransitions.entrySet()) {
+            successors = entry.getValue();
+            writeVarInt(out, routeIndices.get(entry.getKey()));
+            writeVarInt(out, successors.size);
+            for (int i = 0; i < successors.size; i++) {
+                writeVarInt(out, routeIndices.get(successors.routes[i]));
+                writeVarInt(out, successors.counts[i]);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Replace the table of transitions with one written by {@link #marshall()}
+     *
+     * @throws IllegalArgumentException If the bytes are not a table of transitions
+     */
+    public synchronized void unmarshall(@NonNull byte[] bytes) {
+
+        if (bytes == null) {
+            throw new IllegalArgumentException("Cannot be null!");
+        }
+        if (bytes.length <= MAGIC.length || !Arrays.equals(MAGIC, Arrays.copyOf(bytes, MAGIC.length)) || bytes[MAGIC.length] != VERSION) {
+            throw new IllegalArgumentException("Not a table of transitions!");
+        }
+
+        final int[] position = {MAGIC.length + 1};
+        final String[] routes = new String[readVarInt(bytes, position)];
+        int length;
+        for (int i = 0; i < routes.length; i++) {
+            length = readVarInt(bytes, position);
+            if (length > bytes.length - position[0]) {
+                throw new IllegalArgumentException("Transitions are truncated!");
+            }
+            routes[i] = new String(bytes, position[0], length, ArgsWriter.UTF_8);
+            position[0] += length;
+        }
+
+        final HashMap<String, Successors> transitions = new HashMap<>();
+        final int fromCount = readVarInt(bytes, position);
+        Successors successors;
+        int successorCount;
+        for (int i = 0; i < fromCount; i++) {
+            successors = new Successors();
+            transitions.put(routeAt(routes, readVarInt(bytes, position)), successors);
+            successorCount = readVarInt(bytes, position);
+            for (int j = 0; j < successorCount; j++) {
+                successors.add(routeAt(routes, readVarInt(bytes, position)), readVarInt(bytes, position));
+            }
+        }
+        mTransitions.clear();
+        mTransitions.putAll(transitions);
+    }
+
+    private static int indexOf(@NonNull String route, @NonNull ArrayList<String> routes, @NonNull HashMap<String, Integer> routeIndices) {
+
+        Integer index = routeIndices.get(route);
+        if (index == null) {
+            index = routes.size();
+            routes.add(route);
+            routeIndices.put(route, index);
+        }
+        return index;
+    }
+
+    @NonNull
+    private static String routeAt(@NonNull String[] routes, int index) {
+
+        if (index >= routes.length) {
+            throw new IllegalArgumentException("Transitions are malformed!");
+        }
+        return routes[index];
+    }
+
+    private static void writeVarInt(@NonNull ByteArrayOutputStream out, int value) {
+
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static int readVarInt(@NonNull byte[] bytes, @NonNull int[] position) {
+
+        int value = 0;
+        byte b;
+        for (int shift = 0; shift < 32; shift += 7) {
+            if (position[0] >= bytes.length) {
+                throw new IllegalArgumentException("Transitions are truncated!");
+            }
+            b = bytes[position[0]++];
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                if (value < 0) {
+                    throw new IllegalArgumentException("Transitions are malformed!");
+                }
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Transitions are malformed!");
+    }
+
+    /**
+     * The routes loaded from a route, kept sorted by how many times each was loaded, the most first
+     */
+    private static final class Successors {
+
+        @NonNull
+        private String[] routes = new String[4];
+
+        @NonNull
+        private int[] counts = new int[4];
+
+        private int size;
+
+        private int totalCount;
+
+        private void add(@NonNull String route, int count) {
+
+            int index = 0;
+            while (index < size && !route.equals(routes[index])) {
+                index++;
+            }
+            if (index == size) {
+                if (size == routes.length) {
+                    routes = Arrays.copyOf(routes, size * 2);
+                    counts = Arrays.copyOf(counts, size * 2);
+                }
+                routes[size] = route;
+                counts[size] = 0;
+                size++;
+            }
+            counts[index] += count;
+            totalCount += count;
+
+            /* Only the count that changed can be out of order, so it moves up until it is not */
+            while (index > 0 && counts[index - 1] < counts[index]) {
+                swap(index - 1, index);
+                index--;
+            }
+        }
+
+        /**
+         * Halve every count, dropping the routes that reach zero
+         */
+        private void halve() {
+
+            int newSize = 0;
+            totalCount = 0;
+            for (int i = 0; i < size; i++) {
+                counts[i] /= 2;
+                if (counts[i] > 0) {
+                    routes[newSize] = routes[i];
+                    counts[newSize] = counts[i];
+                    totalCount += counts[i];
+                    newSize++;
+                }
+            }
+            Arrays.fill(routes, newSize, size, null);
+            size = newSize;
+        }
+
+        private void swap(int first, int second) {
+
+            final String route = routes[first];
+            routes[first] = routes[second];
+            routes[second] = route;
+            final int count = counts[first];
+            counts[first] = counts[second];
+            counts[second] = count;
+        }
+    }
+}
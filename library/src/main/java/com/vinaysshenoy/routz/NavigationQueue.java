@@ -0,0 +1,280 @@
+package com.vinaysshenoy.routz;
+
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.MainThread;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.view.Choreographer;
+
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The navigation commands of a {@link Router} that are waiting to be applied on the main thread.
+ * <p/>
+ * Any thread can add commands without locking. They are linked into a stack with a compare-and-set on its head,
+ * and the thread planning them takes the whole stack at once and reverses it, to plan the commands in the order they
+ * were added. Only one thread plans the commands of a router at a time. Adding to an empty queue schedules a drain for the next frame, with a {@link Choreographer} from API 16
+ * and the main {@link Handler} below it, so that all the navigations within a frame swap the views only once.
+ * <p/>
+ * Commands are pooled, so that navigating does not allocate them once the pool is warm.
+ * <p/>
+ * The queues of child routers schedule their drains through the queue of the root router, so that the whole
+ * hierarchy of routers is drained with a single callback per frame.
+ */
+/* package */ final class NavigationQueue {
+
+    private static final int POOL_SIZE = 16;
+
+    /**
+     * The newest command, linked to the older ones
+     */
+    @NonNull
+    private final AtomicReference<NavigationCommand> mHead;
+
+    @NonNull
+    private final AtomicReferenceArray<NavigationCommand> mPool;
+
+    @NonNull
+    private final Handler mMainHandler;
+
+    /**
+     * Runs on the main thread to drain the queue
+     */
+    @NonNull
+    private final Runnable mDrainRunnable;
+
+    @NonNull
+    private final Runnable mScheduleDrainRunnable;
+
+    /**
+     * The queue that schedules the drains, which is this queue for a root router
+     */
+    @NonNull
+    private final NavigationQueue mScheduler;
+
+    @Nullable
+    private FrameDrainer mFrameDrainer;
+
+    /* package */ NavigationQueue(@NonNull Handler mainHandler, @NonNull Runnable drainRunnable) {
+        mHead = new AtomicReference<>();
+        mPool = new AtomicReferenceArray<>(POOL_SIZE);
+        mMainHandler = mainHandler;
+        mDrainRunnable = drainRunnable;
+        mScheduleDrainRunnable = new Runnable() {
+            @Override
+            public void run() {
+                scheduleDrainOnMainThread();
+            }
+        };
+        mScheduler = this;
+    }
+
+    /**
+     * Create the queue of a child router, whose drains are scheduled by the queue of the root router
+     */
+    /* package */ NavigationQueue(@NonNull NavigationQueue parent) {
+        mHead = new AtomicReference<>();
+        mPool = parent.mPool;
+        mMainHandler = parent.mMainHandler;
+        mDrainRunnable = parent.mDrainRunnable;
+        mScheduleDrainRunnable = parent.mScheduleDrainRunnable;
+        mScheduler = parent.mScheduler;
+    }
+
+    /**
+     * Get a command from the pool, or a new one if the pool is empty. Can be called from any thread
+     */
+    @NonNull
+    /* package */ NavigationCommand obtain() {
+
+        NavigationCommand command;
+        for (int i = 0; i < POOL_SIZE; i++) {
+            command = mPool.get(i);
+            if (command != null && mPool.compareAndSet(i, command, null)) {
+                return command;
+            }
+        }
+        return new NavigationCommand();
+    }
+
+    /**
+     * Return a command to the pool, once it has been planned. Can be called from any thread
+     */
+    /* package */ void recycle(@NonNull NavigationCommand command) {
+
+        command.clear();
+        for (int i = 0; i < POOL_SIZE; i++) {
+            if (mPool.get(i) == null && mPool.compareAndSet(i, null, command)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Add a single command. Can be called from any thread
+     */
+    /* package */ void enqueue(@NonNull NavigationCommand command) {
+        enqueue(command, command);
+    }
+
+    /**
+     * Add a chain of commands, so that no other command is applied in between them. Can be called from any thread
+     *
+     * @param newest The last command of the chain, linked through {@link NavigationCommand#next} to the earlier ones
+     * @param oldest The first command of the chain, whose {@link NavigationCommand#next} is overwritten
+     */
+    /* package */ void enqueue(@NonNull NavigationCommand newest, @NonNull NavigationCommand oldest) {
+
+        NavigationCommand head;
+        do {
+            head = mHead.get();
+            oldest.next = head;
+        } while (!mHead.compareAndSet(head, newest));
+
+        /* Only the command that makes the queue non-empty schedules a drain. The queue is emptied before it is drained,
+        * so a command added during a drain schedules the next one */
+        if (head == null) {
+            if (Looper.getMainLooper() == Looper.myLooper()) {
+                mScheduler.scheduleDrainOnMainThread();
+            } else {
+                mMainHandler.post(mScheduleDrainRunnable);
+            }
+        }
+    }
+
+    /**
+     * Take all the commands in the queue
+     *
+     * @return The oldest command, linked through {@link NavigationCommand#next} to the newer ones, or {@code null} if
+     * the queue is empty
+     */
+    @Nullable
+    /* package */ NavigationCommand takeAll() {
+
+        NavigationCommand command = mHead.getAndSet(null);
+        NavigationCommand reversed = null;
+        NavigationCommand next;
+        while (command != null) {
+            next = command.next;
+            command.next = reversed;
+            reversed = command;
+            command = next;
+        }
+        return reversed;
+    }
+
+    /**
+     * Append a command to a batch, merging it with the commands before it where they cancel out. A push followed by a
+     * pop drops both, and consecutive pops become one. Commands that are merged away are recycled
+     */
+    /* package */ void appendMerged(@NonNull ArrayList<NavigationCommand> commands, @NonNull NavigationCommand command) {
+
+        if (command.type == NavigationCommand.TYPE_POP) {
+            int count = command.count;
+            NavigationCommand last;
+            while (count > 0 && !commands.isEmpty()) {
+                last = commands.get(commands.size() - 1);
+                if (last.type == NavigationCommand.TYPE_PUSH) {
+                    count--;
+                } else if (last.type == NavigationCommand.TYPE_POP) {
+                    count = count > Integer.MAX_VALUE - last.count ? Integer.MAX_VALUE : count + last.count;
+                } else {
+                    break;
+                }
+                commands.remove(commands.size() - 1);
+                recycle(last);
+            }
+
+            if (count == 0) {
+                recycle(command);
+                return;
+            }
+            command.count = count;
+        }
+        commands.add(command);
+    }
+
+    /**
+     * Drop all the commands in the queue, and any scheduled drain. The drains of a child router's queue belong to
+     * the root router, and are left scheduled
+     */
+    @MainThread
+    /* package */ void clear() {
+
+        NavigationCommand command = takeAll();
+        NavigationCommand next;
+        while (command != null) {
+            next = command.next;
+            recycle(command);
+            command = next;
+        }
+        if (mScheduler != this) {
+            return;
+        }
+        mMainHandler.removeCallbacks(mScheduleDrainRunnable);
+        mMainHandler.removeCallbacks(mDrainRunnable);
+        if (mFrameDrainer != null) {
+            mFrameDrainer.cancel();
+        }
+    }
+
+    @MainThread
+    private void scheduleDrainOnMainThread() {
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            if (mFrameDrainer == null) {
+                mFrameDrainer = new FrameDrainer(mDrainRunnable);
+            }
+            mFrameDrainer.schedule();
+        } else {
+            mMainHandler.post(mDrainRunnable);
+        }
+    }
+
+    /**
+     * Drains the queue at the start of the next frame, before it is laid out and drawn
+     */
+    @SuppressWarnings("NewApi")
+    private static final class FrameDrainer implements Choreographer.FrameCallback {
+
+        @NonNull
+        private final Runnable mDrainRunnable;
+
+        @NonNull
+        private final Choreographer mChoreographer;
+
+        private boolean mScheduled;
+
+        private FrameDrainer(@NonNull Runnable drainRunnable) {
+            mDrainRunnable = drainRunnable;
+            mChoreographer = Choreographer.getInstance();
+            mScheduled = false;
+        }
+
+        private void schedule() {
+
+            if (!mScheduled) {
+                mScheduled = true;
+                mChoreographer.postFrameCallback(this);
+            }
+        }
+
+        private void cancel() {
+
+            if (mScheduled) {
+                mScheduled = false;
+                mChoreographer.removeFrameCallback(this);
+            }
+        }
+
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            mScheduled = false;
+            mDrainRunnable.run();
+        }
+    }
+}
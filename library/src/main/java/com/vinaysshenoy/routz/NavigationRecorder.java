@@ -0,0 +1,232 @@
+package com.vinaysshenoy.routz;
+
+import android.os.Bundle;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+
+/**
+ * Records the navigations made through a {@link Router} to a compact binary stream, to be read back as a
+ * {@link NavigationRecording} and replayed offline. Set it with {@link Router#setNavigationRecorder(NavigationRecorder)}.
+ * <p/>
+ * The stream starts with a header, followed by one record per navigation: its type, the microseconds since the
+ * previous navigation and the fields of that type. Numbers are written as variable length integers, and each route is
+ * written once, and then referred to by its index in the order routes were first seen. The params of a load are not
+ * recorded, only their size once parcelled.
+ * <p/>
+ * Records are buffered, and written to the stream on the thread that navigates whenever the buffer fills up. Writing
+ * never throws into the router: the first failure stops the recording, and is thrown from {@link #close()}.
+ */
+public final class NavigationRecorder implements Closeable {
+
+    private static final int BUFFER_SIZE = 4096;
+
+    @NonNull
+    private final OutputStream mOutputStream;
+
+    /**
+     * The index of each route written so far
+     */
+    @NonNull
+    private final HashMap<String, Integer> mRouteIndices;
+
+    @NonNull
+    private final byte[] mBuffer;
+
+    private int mBufferSize;
+
+    private long mLastTimeNanos;
+
+    private boolean mStarted;
+
+    @Nullable
+    private IOException mError;
+
+    private boolean mClosed;
+
+    /**
+     * @param outputStream The stream to write the recording to. It is closed along with the recorder
+     */
+    public NavigationRecorder(@NonNull OutputStream outputStream) {
+        if (outputStream == null) {
+            throw new IllegalArgumentException("Cannot be null!");
+        }
+        mOutputStream = outputStream;
+        mRouteIndices = new HashMap<>();
+        mBuffer = new byte[BUFFER_SIZE];
+        mBufferSize = 0;
+        mStarted = false;
+        mClosed = false;
+
+        writeBytes(NavigationRecording.MAGIC);
+        writeByte(NavigationRecording.VERSION);
+    }
+
+    /* package */ synchronized void recordLoad(@NonNull String route, @Nullable Bundle params, int loadMode, int screenId) {
+
+        if (beginRecord(NavigationRecording.TYPE_LOAD)) {
+            writeRoute(route);
+            writeByte(loadMode);
+            writeVarLong(paramsSizeOf(params));
+            writeVarLong(screenId);
+            endRecord();
+        }
+    }
+
+    /* package */ synchronized void recordGoBack() {
+
+        if (beginRecord(NavigationRecording.TYPE_GO_BACK)) {
+            endRecord();
+        }
+    }
+
+    /* package */ synchronized void recordGoBackTo(@NonNull String route) {
+
+        if (beginRecord(NavigationRecording.TYPE_GO_BACK_TO_ROUTE)) {
+            writeRoute(route);
+            endRecord();
+        }
+    }
+
+    /* package */ synchronized void recordGoBackTo(int screenId) {
+
+        if (beginRecord(NavigationRecording.TYPE_GO_BACK_TO_ID)) {
+            writeVarLong(screenId);
+            endRecord();
+        }
+    }
+
+    /**
+     * Write the records buffered so far to the stream
+     *
+     * @throws IOException If writing to the stream failed, now or while recording
+     */
+    public synchronized void flush() throws IOException {
+
+        flushBuffer();
+        if (mError != null) {
+            throw mError;
+        }
+        mOutputStream.flush();
+    }
+
+    /**
+     * Stop recording, and write the records buffered so far before closing the stream
+     *
+     * @throws IOException If writing to the stream failed, now or while recording
+     */
+    @Override
+    public synchronized void close() throws IOException {
+
+        if (mClosed) {
+            return;
+        }
+        mClosed = true;
+        flushBuffer();
+        try {
+            mOutputStream.close();
+        } catch (IOException e) {
+            if (mError == null) {
+                mError = e;
+            }
+        }
+        if (mError != null) {
+            throw mError;
+        }
+    }
+
+    /**
+     * Starts a record, unless recording has stopped
+     *
+     * @return {@code true} if the record should be written
+     */
+    private boolean beginRecord(int type) {
+
+        if (mClosed || mError != null) {
+            return false;
+        }
+        final long timeNanos = System.nanoTime();
+        long elapsedMicros = 0L;
+        if (mStarted) {
+            elapsedMicros = (timeNanos - mLastTimeNanos) / 1000L;
+            /* Only whole microseconds are counted, so that rounding errors do not add up over a long recording */
+            mLastTimeNanos += elapsedMicros * 1000L;
+        } else {
+            mStarted = true;
+            mLastTimeNanos = timeNanos;
+        }
+        writeByte(type);
+        writeVarLong(elapsedMicros);
+        return true;
+    }
+
+    private void endRecord() {
+
+        if (mBufferSize >= BUFFER_SIZE / 2) {
+            flushBuffer();
+        }
+    }
+
+    private void flushBuffer() {
+
+        if (mBufferSize > 0 && mError == null) {
+            try {
+                mOutputStream.write(mBuffer, 0, mBufferSize);
+            } catch (IOException e) {
+                mError = e;
+            }
+        }
+        mBufferSize = 0;
+    }
+
+    private static int paramsSizeOf(@Nullable Bundle params) {
+
+        if (params == null || params.isEmpty()) {
+            return 0;
+        }
+        final byte[] args = params.size() == 1 ? ScreenArgsBundles.unwrap(params) : null;
+        return args != null ? args.length : Parcels.marshall(params).length;
+    }
+
+    private void writeRoute(@NonNull String route) {
+
+        final Integer routeIndex = mRouteIndices.get(route);
+        if (routeIndex != null) {
+            writeVarLong(routeIndex);
+        } else {
+            writeVarLong(mRouteIndices.size());
+            mRouteIndices.put(route, mRouteIndices.size());
+            final byte[] bytes = route.getBytes(ArgsWriter.UTF_8);
+            writeVarLong(bytes.length);
+            writeBytes(bytes);
+        }
+    }
+
+    private void writeVarLong(long value) {
+
+        while ((value & ~0x7FL) != 0L) {
+            writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        writeByte((int) value);
+    }
+
+    private void writeBytes(@NonNull byte[] bytes) {
+
+        for (int i = 0; i < bytes.length; i++) {
+            writeByte(bytes[i]);
+        }
+    }
+
+    private void writeByte(int b) {
+
+        if (mBufferSize == mBuffer.length) {
+            flushBuffer();
+        }
+        mBuffer[mBufferSize++] = (byte) b;
+    }
+}
@@ -0,0 +1,274 @@
+package com.vinaysshenoy.routz;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * A sequence of navigations written by a {@link NavigationRecorder}, read back to be replayed.
+ * <p/>
+ * The navigations are kept in parallel arrays, and are read by their index in the recording.
+ */
+public final class NavigationRecording {
+
+    /**
+     * A {@link Router#load(String, android.os.Bundle, int)}, or one of the other load methods
+     */
+    public static final int TYPE_LOAD = 0;
+
+    /**
+     * A {@link Router#goBack()}
+     */
+    public static final int TYPE_GO_BACK = 1;
+
+    /**
+     * A {@link Router#goBackTo(String)}
+     */
+    public static final int TYPE_GO_BACK_TO_ROUTE = 2;
+
+    /**
+     * A {@link Router#goBackTo(int)}
+     */
+    public static final int TYPE_GO_BACK_TO_ID = 3;
+
+    /* package */ static final byte[] MAGIC = {'R', 'T', 'Z', 'R'};
+
+    /* package */ static final int VERSION = 1;
+
+    private final int mSize;
+
+    @NonNull
+    private final byte[] mTypes;
+
+    @NonNull
+    private final long[] mTimesMicros;
+
+    @NonNull
+    private final String[] mRoutes;
+
+    @NonNull
+    private final byte[] mLoadModes;
+
+    @NonNull
+    private final int[] mParamsSizes;
+
+    @NonNull
+    private final int[] mScreenIds;
+
+    private NavigationRecording(int size, @NonNull byte[] types, @NonNull long[] timesMicros, @NonNull String[] routes,
+                                @NonNull byte[] loadModes, @NonNull int[] paramsSizes, @NonNull int[] screenIds) {
+        mSize = size;
+        mTypes = types;
+        mTimesMicros = timesMicros;
+        mRoutes = routes;
+        mLoadModes = loadModes;
+        mParamsSizes = paramsSizes;
+        mScreenIds = screenIds;
+    }
+
+    /**
+     * Read a recording until the end of a stream. The stream is not closed
+     *
+     * @throws IOException If the stream is not a recording, or ends in the middle of a navigation
+     */
+    @NonNull
+    public static NavigationRecording read(@NonNull InputStream inputStream) throws IOException {
+
+        if (inputStream == null) {
+            throw new IllegalArgumentException("Cannot be null!");
+        }
+        final InputStream in = inputStream instanceof BufferedInputStream ? inputStream : new BufferedInputStream(inputStream);
+
+        final byte[] magic = new byte[MAGIC.length];
+        for (int i = 0; i < magic.length; i++) {
+            magic[i] = (byte) readByte(in);
+        }
+        if (!Arrays.equals(MAGIC, magic)) {
+            throw new IOException("Not a navigation recording!");
+        }
+        final int version = readByte(in);
+        if (version != VERSION) {
+            throw new IOException(String.format(Locale.US, "Unsupported recording version: {%d}", version));
+        }
+
+        final ArrayList<String> routeTable = new ArrayList<>();
+        int capacity = 64;
+        byte[] types = new byte[capacity];
+        long[] timesMicros = new long[capacity];
+        String[] routes = new String[capacity];
+        byte[] loadModes = new byte[capacity];
+        int[] paramsSizes = new int[capacity];
+        int[] screenIds = new int[capacity];
+
+        int size = 0;
+        long timeMicros = 0L;
+        int type;
+        while ((type = in.read()) != -1) {
+
+            if (size == capacity) {
+                capacity *= 2;
+                types = Arrays.copyOf(types, capacity);
+                timesMicros = Arrays.copyOf(timesMicros, capacity);
+                routes = Arrays.copyOf(routes, capacity);
+                loadModes = Arrays.copyOf(loadModes, capacity);
+                paramsSizes = Arrays.copyOf(paramsSizes, capacity);
+                screenIds = Arrays.copyOf(screenIds, capacity);
+            }
+
+            timeMicros += readVarLong(in);
+            types[size] = (byte) type;
+            timesMicros[size] = timeMicros;
+            switch (type) {
+
+                case TYPE_LOAD: {
+                    routes[size] = readRoute(in, routeTable);
+                    loadModes[size] = (byte) readByte(in);
+                    paramsSizes[size] = (int) readVarLong(in);
+                    screenIds[size] = (int) readVarLong(in);
+                    break;
+                }
+
+                case TYPE_GO_BACK: {
+                    break;
+                }
+
+                case TYPE_GO_BACK_TO_ROUTE: {
+                    routes[size] = readRoute(in, routeTable);
+                    break;
+                }
+
+                case TYPE_GO_BACK_TO_ID: {
+                    screenIds[size] = (int) readVarLong(in);
+                    break;
+                }
+
+                default: {
+                    throw new IOException(String.format(Locale.US, "Unknown navigation type: {%d}", type));
+                }
+            }
+            size++;
+        }
+        return new NavigationRecording(size, types, timesMicros, routes, loadModes, paramsSizes, screenIds);
+    }
+
+    /**
+     * Get the number of navigations in the recording
+     */
+    public int size() {
+        return mSize;
+    }
+
+    /**
+     * Get the type of a navigation. One of {@link #TYPE_LOAD}, {@link #TYPE_GO_BACK}, {@link #TYPE_GO_BACK_TO_ROUTE}
+     * or {@link #TYPE_GO_BACK_TO_ID}
+     */
+    public int getType(int index) {
+        checkIndex(index);
+        return mTypes[index];
+    }
+
+    /**
+     * Get the time a navigation was made at, in microseconds since the first navigation in the recording
+     */
+    public long getTimeMicros(int index) {
+        checkIndex(index);
+        return mTimesMicros[index];
+    }
+
+    /**
+     * Get the route of a load or of a go back to a route, or {@code null} for the other navigations
+     */
+    @Nullable
+    public String getRoute(int index) {
+        checkIndex(index);
+        return mRoutes[index];
+    }
+
+    /**
+     * Get the {@link Router.LoadMode load mode} of a load
+     */
+    @Router.LoadMode
+    public int getLoadMode(int index) {
+        checkIndex(index);
+        return mLoadModes[index];
+    }
+
+    /**
+     * Get the size, in bytes, of the params of a load once parcelled, or {@code 0} if it had none
+     */
+    public int getParamsSize(int index) {
+        checkIndex(index);
+        return mParamsSizes[index];
+    }
+
+    /**
+     * Get the id of the screen a load returned, or the id of the screen of a go back to an id
+     */
+    public int getScreenId(int index) {
+        checkIndex(index);
+        return mScreenIds[index];
+    }
+
+    private void checkIndex(int index) {
+
+        if (index < 0 || index >= mSize) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + mSize);
+        }
+    }
+
+    @NonNull
+    private static String readRoute(@NonNull InputStream in, @NonNull ArrayList<String> routeTable) throws IOException {
+
+        final int routeIndex = (int) readVarLong(in);
+        if (routeIndex < routeTable.size()) {
+            return routeTable.get(routeIndex);
+        }
+        if (routeIndex != routeTable.size()) {
+            throw new IOException("Recording is malformed!");
+        }
+
+        final byte[] bytes = new byte[(int) readVarLong(in)];
+        int read = 0;
+        int count;
+        while (read < bytes.length) {
+            count = in.read(bytes, read, bytes.length - read);
+            if (count == -1) {
+                throw new EOFException("Recording is truncated!");
+            }
+            read += count;
+        }
+        final String route = new String(bytes, ArgsWriter.UTF_8);
+        routeTable.add(route);
+        return route;
+    }
+
+    private static long readVarLong(@NonNull InputStream in) throws IOException {
+
+        long value = 0L;
+        int b;
+        for (int shift = 0; shift < 64; shift += 7) {
+            b = readByte(in);
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Recording is malformed!");
+    }
+
+    private static int readByte(@NonNull InputStream in) throws IOException {
+
+        final int b = in.read();
+        if (b == -1) {
+            throw new EOFException("Recording is truncated!");
+        }
+        return b;
+    }
+}
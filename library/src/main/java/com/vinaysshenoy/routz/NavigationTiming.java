@@ -0,0 +1,141 @@
+package com.vinaysshenoy.routz;
+
+import android.support.annotation.IntDef;
+import android.support.annotation.Nullable;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+/**
+ * The time taken by a single navigation of a {@link Router}, broken down into phases, reported to {@link RouterMetrics}.
+ * <p/>
+ * All times are in nanoseconds. Phases that did not happen during the navigation, like creating a view for a screen
+ * whose view was retained, are reported as {@code 0}.
+ */
+public final class NavigationTiming {
+
+    @Retention(RetentionPolicy.SOURCE)
+    @IntDef({NAVIGATION_LOAD, NAVIGATION_GO_BACK, NAVIGATION_GO_BACK_TO, NAVIGATION_TRANSACTION, NAVIGATION_SET_STACK})
+    public @interface NavigationType {
+    }
+
+    /**
+     * One of the {@link Router#load(String, android.os.Bundle, int)} methods
+     */
+    public static final int NAVIGATION_LOAD = 0;
+
+    /**
+     * {@link Router#goBack()}
+     */
+    public static final int NAVIGATION_GO_BACK = 1;
+
+    /**
+     * One of the {@link Router#goBackTo(String)} methods
+     */
+    public static final int NAVIGATION_GO_BACK_TO = 2;
+
+    /**
+     * A {@link NavigationTransaction} being committed
+     */
+    public static final int NAVIGATION_TRANSACTION = 3;
+
+    /**
+     * {@link Router#setStack(java.util.List)}
+     */
+    public static final int NAVIGATION_SET_STACK = 4;
+
+    @Retention(RetentionPolicy.SOURCE)
+    @IntDef({PHASE_CREATE_SCREEN, PHASE_CREATE_VIEW, PHASE_SETUP_VIEW, PHASE_ATTACH_VIEW})
+    public @interface Phase {
+    }
+
+    /**
+     * Instantiating screens through the {@link RouteCreator}
+     */
+    public static final int PHASE_CREATE_SCREEN = 0;
+
+    /**
+     * {@link Screen#createView(android.view.LayoutInflater, android.view.ViewGroup)}
+     */
+    public static final int PHASE_CREATE_VIEW = 1;
+
+    /**
+     * {@link Screen#setupView()}
+     */
+    public static final int PHASE_SETUP_VIEW = 2;
+
+    /**
+     * Attaching the view to the container of the router, and {@link Screen#onShown()}
+     */
+    public static final int PHASE_ATTACH_VIEW = 3;
+
+    /* package */ static final int PHASE_COUNT = 4;
+
+    /**
+     * The load mode reported for navigations that are not loads
+     */
+    public static final int NO_LOAD_MODE = -1;
+
+    @NavigationType
+    private final int mNavigationType;
+
+    private final int mLoadMode;
+
+    @Nullable
+    private String mRoute;
+
+    private final long mStartNanos;
+
+    private long mTotalNanos;
+
+    private final long[] mPhaseNanos;
+
+    /* package */ NavigationTiming(@NavigationType int navigationType, @Nullable String route, int loadMode, long startNanos) {
+        mNavigationType = navigationType;
+        mRoute = route;
+        mLoadMode = loadMode;
+        mStartNanos = startNanos;
+        mPhaseNanos = new long[PHASE_COUNT];
+    }
+
+    @NavigationType
+    public int getNavigationType() {
+        return mNavigationType;
+    }
+
+    /**
+     * Get the load mode, if this is a {@link #NAVIGATION_LOAD}, or {@link #NO_LOAD_MODE} otherwise
+     */
+    public int getLoadMode() {
+        return mLoadMode;
+    }
+
+    /**
+     * Get the route of the screen that was on top at the end of the navigation, or {@code null} if the backstack
+     * ended up empty
+     */
+    @Nullable
+    public String getRoute() {
+        return mRoute;
+    }
+
+    /**
+     * Get the time from the navigation method being called until the navigation was applied on the main thread
+     */
+    public long getTotalNanos() {
+        return mTotalNanos;
+    }
+
+    public long getPhaseNanos(@Phase int phase) {
+        return mPhaseNanos[phase];
+    }
+
+    /* package */ void addPhaseNanos(@Phase int phase, long nanos) {
+        mPhaseNanos[phase] += nanos;
+    }
+
+    /* package */ void finish(@Nullable String route, long endNanos) {
+        mRoute = route;
+        mTotalNanos = endNanos - mStartNanos;
+    }
+}
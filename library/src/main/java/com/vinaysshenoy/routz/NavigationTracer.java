@@ -0,0 +1,139 @@
+package com.vinaysshenoy.routz;
+
+import android.os.Build;
+import android.os.Trace;
+import android.support.annotation.MainThread;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.ArrayList;
+
+/**
+ * Times the navigations of a {@link Router} for its {@link RouterMetrics}, and emits {@link Trace} sections
+ * for each phase of a navigation when enabled.
+ * <p/>
+ * A navigation can start on any thread, but is applied on the main thread. While it is being applied, it is
+ * the current navigation, and phases that happen on the main thread are added to it.
+ */
+/* package */ final class NavigationTracer {
+
+    private static final String[] PHASE_SECTIONS = {
+            "Routz#createScreen",
+            "Routz#createView",
+            "Routz#setupView",
+            "Routz#attachView"
+    };
+
+    @Nullable
+    private volatile RouterMetrics mRouterMetrics;
+
+    private volatile boolean mTraceSectionsEnabled;
+
+    @Nullable
+    private NavigationTiming mCurrentTiming;
+
+    /**
+     * The navigations applied along with the current one, which are finished with it
+     */
+    @NonNull
+    private final ArrayList<NavigationTiming> mAppliedTimings = new ArrayList<>();
+
+    /* package */ void setRouterMetrics(@Nullable RouterMetrics routerMetrics) {
+        mRouterMetrics = routerMetrics;
+    }
+
+    /* package */ void setTraceSectionsEnabled(boolean traceSectionsEnabled) {
+        mTraceSectionsEnabled = traceSectionsEnabled && Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2;
+    }
+
+    /**
+     * Starts timing a navigation
+     *
+     * @return The timing for the navigation, or {@code null} if no metrics are set
+     */
+    @Nullable
+    /* package */ NavigationTiming begin(@NavigationTiming.NavigationType int navigationType, @Nullable String route, int loadMode) {
+        return mRouterMetrics == null ? null : new NavigationTiming(navigationType, route, loadMode, System.nanoTime());
+    }
+
+    /**
+     * Makes a navigation the current one, while it is applied on the main thread. When several navigations are applied
+     * together, phases are added to the last of them, and they all finish together
+     */
+    @MainThread
+    /* package */ void apply(@Nullable NavigationTiming timing) {
+
+        if (timing != null) {
+            if (mCurrentTiming != null) {
+                mAppliedTimings.add(mCurrentTiming);
+            }
+            mCurrentTiming = timing;
+        }
+    }
+
+    /**
+     * Get the navigation being applied, or {@code null} if it is not timed
+     */
+    @MainThread
+    @Nullable
+    /* package */ NavigationTiming getCurrentTiming() {
+        return mCurrentTiming;
+    }
+
+    /**
+     * Finishes the current navigation, and reports it to the metrics
+     *
+     * @param route The route on top of the stack once the navigation has been applied
+     */
+    @MainThread
+    /* package */ void finish(@Nullable String route) {
+
+        final NavigationTiming timing = mCurrentTiming;
+        mCurrentTiming = null;
+        final RouterMetrics routerMetrics = mRouterMetrics;
+        if (timing != null && routerMetrics != null) {
+            final long endNanos = System.nanoTime();
+            for (int i = 0; i < mAppliedTimings.size(); i++) {
+                mAppliedTimings.get(i).finish(route, endNanos);
+                routerMetrics.onNavigationTimed(mAppliedTimings.get(i));
+            }
+            timing.finish(route, endNanos);
+            routerMetrics.onNavigationTimed(timing);
+        }
+        mAppliedTimings.clear();
+    }
+
+    /**
+     * @return The time the phase started at, to be passed to {@link #endPhase(int, long)}
+     */
+    @SuppressWarnings("NewApi")
+    /* package */ long beginPhase(@NavigationTiming.Phase int phase) {
+
+        if (mTraceSectionsEnabled) {
+            Trace.beginSection(PHASE_SECTIONS[phase]);
+        }
+        return System.nanoTime();
+    }
+
+    /**
+     * Ends a phase of the current navigation
+     */
+    @MainThread
+    /* package */ void endPhase(@NavigationTiming.Phase int phase, long startNanos) {
+        endPhase(mCurrentTiming, phase, startNanos);
+    }
+
+    /**
+     * Ends a phase of a navigation that is not applied yet, for phases that happen before it reaches the main thread
+     */
+    @SuppressWarnings("NewApi")
+    /* package */ void endPhase(@Nullable NavigationTiming timing, @NavigationTiming.Phase int phase, long startNanos) {
+
+        if (mTraceSectionsEnabled) {
+            Trace.endSection();
+        }
+        if (timing != null) {
+            timing.addPhaseNanos(phase, System.nanoTime() - startNanos);
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.vinaysshenoy.routz;
+
+import android.os.Bundle;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.ArrayList;
+
+/**
+ * A batch of backstack operations that are applied together, obtained from {@link Router#beginTransaction()}.
+ * <p/>
+ * The operations are applied in order on the frame after commit, with no other navigation in between them, and
+ * the view hierarchy is only touched once, after the final stack is known. Only the screens that end up on display
+ * create their views. Screens that are pushed and then buried or popped within the same transaction never create a
+ * view.
+ * <p/>
+ * <pre>
+ * router.beginTransaction()
+ *         .popTo(rootScreenId)
+ *         .push("screens/A")
+ *         .push("screens/B")
+ *         .push("screens/C")
+ *         .commit();
+ * </pre>
+ */
+public final class NavigationTransaction {
+
+    @NonNull
+    private final Router mRouter;
+
+    @NonNull
+    private final ArrayList<NavigationCommand> mCommands;
+
+    @NonNull
+    private final ArrayList<Screen> mPushedScreens;
+
+    @Nullable
+    private final NavigationTiming mTiming;
+
+    private boolean mCommitted;
+
+    /* package */ NavigationTransaction(@NonNull Router router) {
+        mRouter = router;
+        mCommands = new ArrayList<>();
+        mPushedScreens = new ArrayList<>();
+        mTiming = router.beginTiming(NavigationTiming.NAVIGATION_TRANSACTION);
+        mCommitted = false;
+    }
+
+    /**
+     * Push a new screen for a route
+     *
+     * @param route  The route to push. Must not be {@code null}
+     * @param params An optional {@link Bundle} that can be provided to the screen
+     */
+    public NavigationTransaction push(@NonNull String route, @Nullable Bundle params) {
+
+        throwIfCommitted();
+        final Screen screen = mRouter.newScreen(route, params, mTiming);
+        mPushedScreens.add(screen);
+        mCommands.add(mRouter.obtainCommand().setPush(screen));
+        return this;
+    }
+
+    /**
+     * Push a new screen for a route
+     *
+     * @param route The route to push. Must not be {@code null}
+     */
+    public NavigationTransaction push(@NonNull String route) {
+        return push(route, null);
+    }
+
+    /**
+     * Push a new screen for a route, with typed args instead of params
+     *
+     * @param route The route to push. Must not be {@code null}
+     * @param args  The args to give the screen. Must not be {@code null}
+     * @see Router#loadWithArgs(String, ScreenArgs)
+     */
+    public NavigationTransaction pushWithArgs(@NonNull String route, @NonNull ScreenArgs args) {
+        return push(route, ScreenArgsBundles.toBundle(args));
+    }
+
+    /**
+     * Pop the screen on top of the stack
+     */
+    public NavigationTransaction pop() {
+
+        throwIfCommitted();
+        mCommands.add(mRouter.obtainCommand().setPop(1));
+        return this;
+    }
+
+    /**
+     * Pop the screen on top of the stack and push a new screen for a route in its place
+     *
+     * @param route  The route to push. Must not be {@code null}
+     * @param params An optional {@link Bundle} that can be provided to the screen
+     */
+    public NavigationTransaction replace(@NonNull String route, @Nullable Bundle params) {
+        return pop().push(route, params);
+    }
+
+    /**
+     * Pop screens until the first screen with the given route is on top
+     * <p/>
+     * <b>NOTE: </b> If the route is not present in the stack, all screens will be popped.
+     */
+    public NavigationTransaction popTo(@NonNull String route) {
+
+        throwIfCommitted();
+        if (route == null) {
+            throw new IllegalArgumentException("Cannot be null!");
+        }
+        mCommands.add(mRouter.obtainCommand().setPopTo(route));
+        return this;
+    }
+
+    /**
+     * Pop screens until the screen with the given id is on top
+     * <p/>
+     * <b>NOTE: </b> If the screen id is not present in the stack, all screens will be popped.
+     */
+    public NavigationTransaction popTo(int screenId) {
+
+        throwIfCommitted();
+        mCommands.add(mRouter.obtainCommand().setPopTo(screenId));
+        return this;
+    }
+
+    /**
+     * Pop all the screens in the stack
+     */
+    public NavigationTransaction clear() {
+
+        throwIfCommitted();
+        mCommands.add(mRouter.obtainCommand().setPop(Integer.MAX_VALUE));
+        return this;
+    }
+
+    /**
+     * Move the first screen with the given route to the top of the stack. Does nothing if there is none
+     */
+    public NavigationTransaction moveToTop(@NonNull String route) {
+
+        throwIfCommitted();
+        if (route == null) {
+            throw new IllegalArgumentException("Cannot be null!");
+        }
+        mCommands.add(mRouter.obtainCommand().setMoveToTop(route));
+        return this;
+    }
+
+    /**
+     * Move the screen with the given id to the top of the stack. Does nothing if it is not in the stack
+     */
+    public NavigationTransaction moveToTop(int screenId) {
+
+        throwIfCommitted();
+        mCommands.add(mRouter.obtainCommand().setMoveToTop(screenId));
+        return this;
+    }
+
+    /**
+     * Apply the operations of this transaction. A transaction can only be committed once
+     *
+     * @return The ids of the screens pushed by this transaction, in the order they were pushed
+     */
+    public int[] commit() {
+
+        throwIfCommitted();
+        mCommitted = true;
+        mRouter.commitTransaction(mCommands, mTiming);
+
+        final int[] screenIds = new int[mPushedScreens.size()];
+        for (int i = 0; i < screenIds.length; i++) {
+            screenIds[i] = mPushedScreens.get(i).getId();
+        }
+        return screenIds;
+    }
+
+    private void throwIfCommitted() {
+        if (mCommitted) {
+            throw new IllegalStateException("Transaction already committed!");
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.vinaysshenoy.routz;
+
+import android.os.Bundle;
+import android.os.Parcel;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+/**
+ * Helpers to flatten a {@link Bundle} into bytes and back, so it can be kept around or written out
+ * without being parcelled again
+ */
+/* package */ final class Parcels {
+
+    private Parcels() {
+
+    }
+
+    @NonNull
+    /* package */ static byte[] marshall(@NonNull Bundle bundle) {
+
+        final Parcel parcel = Parcel.obtain();
+        try {
+            parcel.writeBundle(bundle);
+            return parcel.marshall();
+        } finally {
+            parcel.recycle();
+        }
+    }
+
+    @Nullable
+    /* package */ static Bundle unmarshallBundle(@NonNull byte[] bytes, @Nullable ClassLoader classLoader) {
+
+        final Parcel parcel = Parcel.obtain();
+        try {
+            parcel.unmarshall(bytes, 0, bytes.length);
+            parcel.setDataPosition(0);
+            return parcel.readBundle(classLoader);
+        } finally {
+            parcel.recycle();
+        }
+    }
+}
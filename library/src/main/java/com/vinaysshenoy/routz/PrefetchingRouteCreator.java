@@ -0,0 +1,25 @@
+package com.vinaysshenoy.routz;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+/**
+ * A {@link RouteCreator} that can tell the {@link Router} which route is likely to be loaded next.
+ * <p/>
+ * Whenever a screen is shown, the router asks for the next likely route and prefetches it with no
+ * params, the same way as {@link Router#prefetch(String, android.os.Bundle)}.
+ * <p/>
+ * <b>NOTE: </b> Prefetched screens are instantiated on a background thread, so
+ * {@link #instantiateScreenForRoute(String, android.os.Bundle)} must be safe to call from any thread.
+ */
+public interface PrefetchingRouteCreator extends RouteCreator {
+
+    /**
+     * Get the route that is most likely to be loaded after the given one
+     *
+     * @param route The route of the screen that was just shown
+     * @return The route to prefetch, or {@code null} to not prefetch anything
+     */
+    @Nullable
+    String getRouteToPrefetchAfter(@NonNull String route);
+}
@@ -0,0 +1,100 @@
+package com.vinaysshenoy.routz;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.v4.util.LruCache;
+import android.view.View;
+
+/**
+ * A bounded cache of the views of screens that are hidden, but still present in the backstack.
+ * <p/>
+ * When a {@link Router} has one of these set, hiding a screen detaches its view and keeps it here
+ * instead of throwing it away. When the screen comes back on top, the view is reattached as is,
+ * skipping both {@link Screen#createView(android.view.LayoutInflater, android.view.ViewGroup)} and
+ * {@link Screen#setupView()}.
+ * <p/>
+ * Views are evicted in least-recently-hidden order once the budget is exceeded.
+ */
+public final class RetainedViewCache {
+
+    /**
+     * Bytes per pixel used when estimating the size of a view
+     */
+    private static final int BYTES_PER_PIXEL = 4;
+
+    @NonNull
+    private final LruCache<Integer, View> mViews;
+
+    private RetainedViewCache(int maxSize, final boolean sizeInBytes) {
+        mViews = new LruCache<Integer, View>(maxSize) {
+            @Override
+            protected int sizeOf(Integer screenId, View view) {
+                return sizeInBytes ? estimateSizeInBytes(view) : 1;
+            }
+        };
+    }
+
+    /**
+     * Create a cache that retains at most {@code maxViews} hidden views
+     *
+     * @param maxViews The maximum number of views to retain. Must be greater than 0
+     */
+    public static RetainedViewCache withMaxCount(int maxViews) {
+        throwIfNotPositive(maxViews);
+        return new RetainedViewCache(maxViews, false);
+    }
+
+    /**
+     * Create a cache that retains hidden views until their estimated size crosses {@code maxBytes}.
+     * <p/>
+     * The size of a view is estimated as the memory needed to draw it at its last laid out size.
+     *
+     * @param maxBytes The maximum estimated size of all retained views. Must be greater than 0
+     */
+    public static RetainedViewCache withMaxBytes(int maxBytes) {
+        throwIfNotPositive(maxBytes);
+        return new RetainedViewCache(maxBytes, true);
+    }
+
+    /* package */ void put(int screenId, @NonNull View view) {
+        mViews.put(screenId, view);
+    }
+
+    @Nullable
+    /* package */ View take(int screenId) {
+        return mViews.remove(screenId);
+    }
+
+    /* package */ void clear() {
+        mViews.evictAll();
+    }
+
+    /**
+     * Get the number of views currently retained
+     */
+    public int getRetainedViewCount() {
+        return mViews.snapshot().size();
+    }
+
+    /**
+     * Get the estimated size of all the views currently retained
+     */
+    /* package */ long getEstimatedSizeInBytes() {
+
+        long sizeInBytes = 0L;
+        for (View view : mViews.snapshot().values()) {
+            sizeInBytes += estimateSizeInBytes(view);
+        }
+        return sizeInBytes;
+    }
+
+    /* package */ static int estimateSizeInBytes(@NonNull View view) {
+        return Math.max(1, view.getWidth() * view.getHeight() * BYTES_PER_PIXEL);
+    }
+
+    private static void throwIfNotPositive(int value) {
+        if (value <= 0) {
+            throw new IllegalArgumentException("Must be greater than 0!");
+        }
+    }
+}
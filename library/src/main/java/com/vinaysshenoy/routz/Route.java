@@ -0,0 +1,26 @@
+package com.vinaysshenoy.routz;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a {@link Screen} as the screen for a route.
+ * <p/>
+ * With the {@code routz-compiler} annotation processor, the screens of a module are collected at compile time into
+ * a generated {@code RoutzRouteCreator}, which instantiates them without reflection, and a {@code RoutzRoutes} class
+ * with a constant for each route. The screen must have a constructor that takes the params {@link android.os.Bundle},
+ * or no arguments, visible from the generated classes.
+ * <p/>
+ * Only literal routes can be annotated. Use a {@link RouteRegistry} for routes with path parameters.
+ */
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface Route {
+
+    /**
+     * The route, for example {@code "screens/SCREEN_1"}
+     */
+    String value();
+}
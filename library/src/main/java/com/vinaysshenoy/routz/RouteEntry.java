@@ -0,0 +1,77 @@
+package com.vinaysshenoy.routz;
+
+import android.os.Bundle;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+/**
+ * A screen in the stack given to {@link Router#setStack(java.util.List)}.
+ * <p/>
+ * An entry made with {@link #create(String, Bundle)} matches any screen in the backstack with the same route, and an
+ * entry made with {@link #forScreen(int, String, Bundle)} only matches the screen with that id. Matching screens are
+ * kept, and a new screen is created for each entry that matches none.
+ */
+public final class RouteEntry {
+
+    @NonNull
+    private final String mRoute;
+
+    @Nullable
+    private final Bundle mParams;
+
+    private final int mScreenId;
+
+    private RouteEntry(@NonNull String route, @Nullable Bundle params, int screenId) {
+        if (route == null) {
+            throw new IllegalArgumentException("Cannot be null!");
+        }
+        mRoute = route;
+        mParams = params;
+        mScreenId = screenId;
+    }
+
+    @NonNull
+    public static RouteEntry create(@NonNull String route) {
+        return new RouteEntry(route, null, BackstackSnapshot.NO_SCREEN);
+    }
+
+    /**
+     * @param params The params of the screen if it is created, or to replace the params of the screen that is kept.
+     *               Pass {@code null} to keep the params of the screen
+     */
+    @NonNull
+    public static RouteEntry create(@NonNull String route, @Nullable Bundle params) {
+        return new RouteEntry(route, params, BackstackSnapshot.NO_SCREEN);
+    }
+
+    /**
+     * An entry for a screen already in the backstack, with an id returned from the {@link Router#load(String)} methods.
+     * The route is used to create a new screen if it is no longer in the backstack
+     */
+    @NonNull
+    public static RouteEntry forScreen(int screenId, @NonNull String route, @Nullable Bundle params) {
+        return new RouteEntry(route, params, screenId);
+    }
+
+    @NonNull
+    public String getRoute() {
+        return mRoute;
+    }
+
+    @Nullable
+    public Bundle getParams() {
+        return mParams;
+    }
+
+    /**
+     * Get the id of the screen this entry matches, or {@link BackstackSnapshot#NO_SCREEN} if it matches by route
+     */
+    public int getScreenId() {
+        return mScreenId;
+    }
+
+    @Override
+    public String toString() {
+        return mScreenId == BackstackSnapshot.NO_SCREEN ? mRoute : mRoute + "#" + mScreenId;
+    }
+}
@@ -0,0 +1,149 @@
+package com.vinaysshenoy.routz;
+
+import android.support.annotation.NonNull;
+
+import java.util.Locale;
+
+/**
+ * The path parameters extracted from a route matched by a {@link RouteRegistry}.
+ * <p/>
+ * The values are not copied out of the route when it is resolved. They are only read when asked for, and the
+ * numeric getters parse them in place.
+ */
+public final class RouteParams {
+
+    private static final String[] NO_NAMES = new String[0];
+
+    private static final int[] NO_OFFSETS = new int[0];
+
+    /* package */ static final RouteParams EMPTY = new RouteParams("", NO_NAMES, NO_OFFSETS);
+
+    @NonNull
+    private final String mRoute;
+
+    @NonNull
+    private final String[] mNames;
+
+    /**
+     * Start and end offsets of each parameter value in the route, in pairs
+     */
+    @NonNull
+    private final int[] mOffsets;
+
+    /* package */ RouteParams(@NonNull String route, @NonNull String[] names, @NonNull int[] offsets) {
+        mRoute = route;
+        mNames = names;
+        mOffsets = offsets;
+    }
+
+    /**
+     * Get the route these parameters were extracted from
+     */
+    @NonNull
+    public String getRoute() {
+        return mRoute;
+    }
+
+    /**
+     * Get the number of path parameters
+     */
+    public int getCount() {
+        return mNames.length;
+    }
+
+    /**
+     * Get the name of the path parameter at a position, in the order they appear in the route pattern
+     */
+    @NonNull
+    public String getName(int index) {
+        return mNames[index];
+    }
+
+    public boolean has(@NonNull String name) {
+        return indexOf(name) >= 0;
+    }
+
+    @NonNull
+    public String getString(@NonNull String name) {
+
+        final int index = indexOfOrThrow(name);
+        return mRoute.substring(mOffsets[index * 2], mOffsets[index * 2 + 1]);
+    }
+
+    public int getInt(@NonNull String name) {
+
+        final long value = getLong(name);
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw numberFormatException(name);
+        }
+        return (int) value;
+    }
+
+    public long getLong(@NonNull String name) {
+
+        final int index = indexOfOrThrow(name);
+        final int start = mOffsets[index * 2];
+        final int end = mOffsets[index * 2 + 1];
+
+        final boolean negative = mRoute.charAt(start) == '-';
+        int position = negative ? start + 1 : start;
+        if (position == end) {
+            throw numberFormatException(name);
+        }
+
+        /* Accumulate negatively so that Long.MIN_VALUE can be parsed without overflowing */
+        long value = 0;
+        int digit;
+        while (position < end) {
+            digit = mRoute.charAt(position++) - '0';
+            if (digit < 0 || digit > 9 || value < (Long.MIN_VALUE + digit) / 10) {
+                throw numberFormatException(name);
+            }
+            value = value * 10 - digit;
+        }
+
+        if (negative) {
+            return value;
+        } else if (value == Long.MIN_VALUE) {
+            throw numberFormatException(name);
+        } else {
+            return -value;
+        }
+    }
+
+    private int indexOf(@NonNull String name) {
+
+        for (int i = 0; i < mNames.length; i++) {
+            if (mNames[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int indexOfOrThrow(@NonNull String name) {
+
+        final int index = indexOf(name);
+        if (index < 0) {
+            throw new IllegalArgumentException(String.format(Locale.US, "No path parameter {%s} in route: {%s}", name, mRoute));
+        }
+        return index;
+    }
+
+    private NumberFormatException numberFormatException(@NonNull String name) {
+        return new NumberFormatException(String.format(Locale.US, "Path parameter {%s} of route {%s} is not a number", name, mRoute));
+    }
+
+    @Override
+    public String toString() {
+
+        final StringBuilder builder = new StringBuilder("RouteParams{");
+        for (int i = 0; i < mNames.length; i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            builder.append(mNames[i]).append('=').append(mRoute, mOffsets[i * 2], mOffsets[i * 2 + 1]);
+        }
+        return builder.append('}').toString();
+    }
+}
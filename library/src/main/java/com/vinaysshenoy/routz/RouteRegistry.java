@@ -0,0 +1,277 @@
+package com.vinaysshenoy.routz;
+
+import android.os.Bundle;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Locale;
+
+/**
+ * A {@link RouteCreator} that dispatches routes to registered {@link ScreenFactory} instances, instead of
+ * a hand written {@code switch} over every route.
+ * <p/>
+ * Route patterns are made up of segments separated by {@code /}. A segment of the form {@code {name}} is a
+ * path parameter, and matches any non-empty segment. For example, the pattern {@code screens/product/{id}}
+ * matches the route {@code screens/product/42}, and the factory receives {@code id} in its {@link RouteParams}.
+ * <p/>
+ * Patterns are compiled into a trie of segments, so resolving a route is a single pass over it, regardless of
+ * the number of registered routes. When a segment matches both a literal and a path parameter, the literal wins.
+ * <p/>
+ * Register all the routes before handing the registry to a {@link Router}. Resolving routes is safe from any thread.
+ */
+public final class RouteRegistry implements RouteCreator {
+
+    private static final char SEGMENT_SEPARATOR = '/';
+
+    /**
+     * Creates the screen for a matched route
+     */
+    public interface ScreenFactory {
+
+        /**
+         * @param params      The {@link Bundle} passed when loading the route
+         * @param routeParams The path parameters extracted from the route
+         */
+        Screen create(@Nullable Bundle params, @NonNull RouteParams routeParams);
+    }
+
+    @NonNull
+    private final Node mRoot;
+
+    @Nullable
+    private ScreenFactory mFallbackFactory;
+
+    /**
+     * The largest number of path parameters in any registered pattern
+     */
+    private int mMaxParamCount;
+
+    public RouteRegistry() {
+        mRoot = new Node();
+        mMaxParamCount = 0;
+    }
+
+    /**
+     * Register a factory for a route pattern
+     *
+     * @param pattern The route pattern, for example {@code screens/product/{id}}
+     * @param factory The factory that creates the screen for routes matching the pattern
+     * @return This registry, for chaining
+     * @throws IllegalArgumentException If the pattern is malformed, or is already registered
+     */
+    public RouteRegistry register(@NonNull String pattern, @NonNull ScreenFactory factory) {
+
+        if (pattern == null || factory == null) {
+            throw new IllegalArgumentException("Cannot be null!");
+        }
+
+        final ArrayList<String> paramNames = new ArrayList<>();
+        Node node = mRoot;
+        int start = 0;
+        int end;
+        while (start <= pattern.length()) {
+            end = segmentEnd(pattern, start);
+            if (isParamSegment(pattern, start, end)) {
+                final String paramName = pattern.substring(start + 1, end - 1);
+                if (paramName.isEmpty() || paramNames.contains(paramName)) {
+                    throw new IllegalArgumentException(String.format(Locale.US, "Invalid path parameter {%s} in pattern: {%s}", paramName, pattern));
+                }
+                paramNames.add(paramName);
+                node = node.getOrCreateParamChild();
+            } else {
+                node = node.getOrCreateLiteralChild(pattern.substring(start, end));
+            }
+            start = end + 1;
+        }
+
+        if (node.factory != null) {
+            throw new IllegalArgumentException(String.format(Locale.US, "Pattern already registered: {%s}", pattern));
+        }
+        node.factory = factory;
+        node.paramNames = paramNames.toArray(new String[paramNames.size()]);
+        mMaxParamCount = Math.max(mMaxParamCount, paramNames.size());
+        return this;
+    }
+
+    /**
+     * Set the factory used for routes that do not match any registered pattern. By default, such routes are
+     * not resolved, and the {@link Router} will throw an exception when they are loaded
+     */
+    public RouteRegistry setFallback(@Nullable ScreenFactory factory) {
+        mFallbackFactory = factory;
+        return this;
+    }
+
+    /**
+     * Check whether a route matches any registered pattern
+     */
+    public boolean canResolve(@NonNull String route) {
+        return match(mRoot, route, 0, new int[mMaxParamCount * 2], 0) != null;
+    }
+
+    @Override
+    public Screen instantiateScreenForRoute(@NonNull String route, @Nullable Bundle params) {
+
+        final int[] offsets = mMaxParamCount == 0 ? null : new int[mMaxParamCount * 2];
+        final Node node = match(mRoot, route, 0, offsets, 0);
+        if (node != null) {
+            final RouteParams routeParams = node.paramNames.length == 0
+                    ? RouteParams.EMPTY
+                    : new RouteParams(route, node.paramNames, offsets);
+            return node.factory.create(params, routeParams);
+        } else if (mFallbackFactory != null) {
+            return mFallbackFactory.create(params, RouteParams.EMPTY);
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * Matches the segments of a route, starting at {@code start}, against the subtree at {@code node}
+     *
+     * @param offsets    Receives the start and end offsets of the path parameters that were matched
+     * @param paramIndex The index of the next path parameter
+     * @return The node that holds the factory for the route, or {@code null} if the route does not match
+     */
+    @Nullable
+    private static Node match(@NonNull Node node, @NonNull String route, int start, int[] offsets, int paramIndex) {
+
+        if (start > route.length()) {
+            return node.factory != null ? node : null;
+        }
+
+        final int end = segmentEnd(route, start);
+        final Node literalChild = node.findLiteralChild(route, start, end);
+        if (literalChild != null) {
+            final Node matched = match(literalChild, route, end + 1, offsets, paramIndex);
+            if (matched != null) {
+                return matched;
+            }
+        }
+
+        if (node.paramChild != null && end > start) {
+            offsets[paramIndex * 2] = start;
+            offsets[paramIndex * 2 + 1] = end;
+            return match(node.paramChild, route, end + 1, offsets, paramIndex + 1);
+        }
+        return null;
+    }
+
+    private static int segmentEnd(@NonNull String route, int start) {
+
+        final int end = route.indexOf(SEGMENT_SEPARATOR, start);
+        return end < 0 ? route.length() : end;
+    }
+
+    private static boolean isParamSegment(@NonNull String pattern, int start, int end) {
+        return end - start >= 2 && pattern.charAt(start) == '{' && pattern.charAt(end - 1) == '}';
+    }
+
+    /**
+     * Same as {@link String#hashCode()} for the given region of a string
+     */
+    private static int hashRegion(@NonNull String string, int start, int end) {
+
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + string.charAt(i);
+        }
+        return hash;
+    }
+
+    private static final class Node {
+
+        private static final int INITIAL_CAPACITY = 4;
+
+        /**
+         * Literal children, kept in an open addressed table so that they can be looked up by a region of the
+         * route, without extracting the segment
+         */
+        private String[] mLiteralKeys;
+
+        private Node[] mLiteralChildren;
+
+        private int mLiteralCount;
+
+        @Nullable
+        public Node paramChild;
+
+        @Nullable
+        public ScreenFactory factory;
+
+        public String[] paramNames;
+
+        @Nullable
+        public Node findLiteralChild(@NonNull String route, int start, int end) {
+
+            if (mLiteralCount == 0) {
+                return null;
+            }
+
+            final int length = end - start;
+            final int mask = mLiteralKeys.length - 1;
+            String key;
+            for (int slot = hashRegion(route, start, end) & mask; (key = mLiteralKeys[slot]) != null; slot = (slot + 1) & mask) {
+                if (key.length() == length && route.regionMatches(start, key, 0, length)) {
+                    return mLiteralChildren[slot];
+                }
+            }
+            return null;
+        }
+
+        @NonNull
+        public Node getOrCreateLiteralChild(@NonNull String segment) {
+
+            final Node existing = findLiteralChild(segment, 0, segment.length());
+            if (existing != null) {
+                return existing;
+            }
+
+            if (mLiteralKeys == null) {
+                mLiteralKeys = new String[INITIAL_CAPACITY];
+                mLiteralChildren = new Node[INITIAL_CAPACITY];
+            } else if ((mLiteralCount + 1) * 2 > mLiteralKeys.length) {
+                resize(mLiteralKeys.length * 2);
+            }
+
+            final Node child = new Node();
+            insert(segment, child);
+            mLiteralCount++;
+            return child;
+        }
+
+        @NonNull
+        public Node getOrCreateParamChild() {
+
+            if (paramChild == null) {
+                paramChild = new Node();
+            }
+            return paramChild;
+        }
+
+        private void resize(int capacity) {
+
+            final String[] oldKeys = mLiteralKeys;
+            final Node[] oldChildren = mLiteralChildren;
+            mLiteralKeys = new String[capacity];
+            mLiteralChildren = new Node[capacity];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != null) {
+                    insert(oldKeys[i], oldChildren[i]);
+                }
+            }
+        }
+
+        private void insert(@NonNull String segment, @NonNull Node child) {
+
+            final int mask = mLiteralKeys.length - 1;
+            int slot = segment.hashCode() & mask;
+            while (mLiteralKeys[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            mLiteralKeys[slot] = segment;
+            mLiteralChildren[slot] = child;
+        }
+    }
+}
@@ -1,10 +1,17 @@
 package com.vinaysshenoy.routz;
 
+import android.content.ComponentCallbacks;
+import android.content.ComponentCallbacks2;
+import android.content.res.Configuration;
+import android.os.Build;
 import android.os.Bundle;
 import android.os.Handler;
+import android.os.HandlerThread;
 import android.os.Looper;
+import android.os.MessageQueue;
 import android.os.Parcel;
 import android.os.Parcelable;
+import android.os.Process;
 import android.support.annotation.IntDef;
 import android.support.annotation.MainThread;
 import android.support.annotation.NonNull;
@@ -13,11 +20,20 @@ import android.view.LayoutInflater;
 import android.view.View;
 import android.widget.FrameLayout;
 
+import java.io.IOException;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
-import java.util.Iterator;
-import java.util.LinkedList;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Locale;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 
 /**
@@ -27,6 +43,8 @@ public class Router {
 
     private final String KEY_SAVED_STATE = "com.vinaysshenoy.routz.ROUTER_SAVED_STATE";
 
+    private final String KEY_STATE_STORE_KEY = "com.vinaysshenoy.routz.ROUTER_STATE_STORE_KEY";
+
     @Retention(RetentionPolicy.SOURCE)
     @IntDef({LOAD_MODE_CREATE, LOAD_MODE_CLEAR, LOAD_MODE_REORDER})
     public @interface LoadMode {
@@ -49,28 +67,286 @@ public class Router {
      */
     public static final int LOAD_MODE_REORDER = 2;
 
+    /**
+     * Keep every screen in the stack live, which is the default
+     */
+    public static final int UNLIMITED_LIVE_SCREENS = Integer.MAX_VALUE;
+
+    /**
+     * Applies the view operations of the navigations to the container of the screens
+     */
+    @NonNull
+    private final ViewHost mViewHost;
+
+    /**
+     * The router this is a child router of, or {@code null} for a root router
+     */
+    @Nullable
+    private final Router mParent;
+
+    /**
+     * The root of the hierarchy of routers, which owns the view caches and memory callbacks shared by all of them
+     */
+    @NonNull
+    private final Router mRoot;
+
+    /**
+     * The id of the container in the view of the parent screen, for a child router
+     */
+    private final int mContainerId;
+
     @NonNull
-    private final FrameLayout mContainer;
+    private final ArrayList<Router> mChildRouters;
 
     @NonNull
     private final RouteCreator mRouteCreator;
 
-    private int mScreenIdGenerator;
+    private final AtomicInteger mScreenIdGenerator;
 
     private final Handler mMainHandler;
 
-    private LinkedList<Screen> mScreenStack;
+    private final ScreenStack mScreenStack;
+
+    /**
+     * Plans the queued commands against {@link #mScreenStack}, until the plan is applied
+     */
+    @NonNull
+    private final NavigationEngine mNavigationEngine;
+
+    /**
+     * Held while commands are planned, on the planner thread or the thread of a load, and while a plan is applied on
+     * the main thread, so that the stack does not change under the plan. Guards the engine and the state of the plan
+     */
+    @NonNull
+    private final Object mPlanLock;
+
+    /**
+     * Whether commands were planned since the last plan was applied
+     */
+    private boolean mPlanPending;
+
+    /**
+     * Whether {@link #mPlanRunnable} has been posted to the planner thread, and has not started running yet
+     */
+    @NonNull
+    private final AtomicBoolean mPlanScheduled;
+
+    /**
+     * Plans the queued commands on the planner thread, so that the main thread only applies the plan
+     */
+    @NonNull
+    private final Runnable mPlanRunnable;
+
+    /**
+     * The thread the routers plan their queued commands on ahead of the frame, created when the first command is
+     * queued. Only set on a root router
+     */
+    @Nullable
+    private HandlerThread mPlannerThread;
+
+    @Nullable
+    private Handler mPlannerHandler;
+
+    /**
+     * Whether the planner thread has been quit, along with the root router
+     */
+    private boolean mPlannerQuit;
+
+    /**
+     * Whether the plan is being applied to the stack, during which no commands can be planned
+     */
+    private boolean mApplyingPlan;
+
+    /**
+     * The entries taken off the stack while applying a plan, by their position above its floor
+     */
+    @NonNull
+    private ScreenEntry[] mKeptEntries;
+
+    /**
+     * The entries pushed by the planned commands, by the index they were planned with
+     */
+    @NonNull
+    private final ArrayList<ScreenEntry> mPushedEntries;
+
+    /**
+     * The {@link NavigationEngine#getSource(int) sources} of the screens the planned commands give params to, in the
+     * order they were planned. The params are given when the plan is applied, on the main thread
+     */
+    @NonNull
+    private int[] mParamsSources;
+
+    /**
+     * The params given to the screens in {@link #mParamsSources}
+     */
+    @NonNull
+    private final ArrayList<Bundle> mPlannedParams;
+
+    /**
+     * The timings of the planned navigations, which are applied along with the plan
+     */
+    @NonNull
+    private final ArrayList<NavigationTiming> mPlannedTimings;
+
+    /**
+     * The entries whose views were on display when the batch being applied started, from the top down
+     */
+    @NonNull
+    private final ArrayList<ScreenEntry> mDisplayedEntries;
+
+    @Nullable
+    private RetainedViewCache mRetainedViewCache;
+
+    @Nullable
+    private ScreenViewPool mScreenViewPool;
+
+    @Nullable
+    private TrimMemoryListener mTrimMemoryListener;
+
+    /**
+     * The state the screen on display moves to, following the activity, or the parent screen of a child router
+     */
+    @Screen.State
+    private int mHostState;
+
+    /**
+     * The most screens in the stack that are kept live. The deepest ones beyond it are hibernated into placeholders
+     */
+    private int mMaxLiveScreens;
+
+    /**
+     * Registered with the application for memory pressure callbacks, from API 14
+     */
+    @Nullable
+    private final ComponentCallbacks mMemoryCallbacks;
+
+    @Nullable
+    private volatile ScreenPrefetcher mScreenPrefetcher;
+
+    @Nullable
+    private final StateStore mStateStore;
+
+    @NonNull
+    private final NavigationTracer mNavigationTracer;
+
+    @Nullable
+    private volatile NavigationRecorder mNavigationRecorder;
+
+    @Nullable
+    private volatile NavigationPredictor mNavigationPredictor;
+
+    /**
+     * Warms the screens likely to be loaded next, once the main thread is idle after a screen is shown
+     */
+    @NonNull
+    private final MessageQueue.IdleHandler mWarmingIdleHandler = new MessageQueue.IdleHandler() {
+        @Override
+        public boolean queueIdle() {
+            mWarmingScheduled = false;
+            warmLikelyScreens();
+            return false;
+        }
+    };
+
+    private boolean mWarmingScheduled;
+
+    @NonNull
+    private final NavigationQueue mNavigationQueue;
+
+    /**
+     * The stack as of the last navigation that was applied, for reading from any thread
+     */
+    @NonNull
+    private final AtomicReference<BackstackSnapshot> mBackstackSnapshot;
+
+    /**
+     * The commands taken from the {@link #mNavigationQueue} to be planned, after merging
+     */
+    @NonNull
+    private final ArrayList<NavigationCommand> mDrainedCommands;
+
+    /**
+     * The key the state of this router is written under in the {@link #mStateStore}
+     */
+    @Nullable
+    private String mStateStoreKey;
 
-    private Router(@NonNull FrameLayout container, @NonNull RouteCreator routeCreator, @Nullable Bundle savedInstanceState) {
-        mContainer = container;
+    private Router(@NonNull FrameLayout container, @NonNull RouteCreator routeCreator, @Nullable StateStore stateStore, @Nullable Bundle savedInstanceState) {
         mRouteCreator = routeCreator;
-        mScreenIdGenerator = 0;
+        mStateStore = stateStore;
+        mParent = null;
+        mRoot = this;
+        mContainerId = View.NO_ID;
+        mChildRouters = new ArrayList<>();
+        mNavigationTracer = new NavigationTracer();
+        mScreenIdGenerator = new AtomicInteger(0);
         mMainHandler = new Handler(Looper.getMainLooper());
+        mNavigationQueue = new NavigationQueue(mMainHandler, new Runnable() {
+            @Override
+            public void run() {
+                drainNavigationQueue();
+            }
+        });
+        mDrainedCommands = new ArrayList<>();
+        mViewHost = new ViewHost(container, mNavigationTracer);
+
+        mMaxLiveScreens = UNLIMITED_LIVE_SCREENS;
+        mHostState = Screen.STATE_STOPPED;
+        mScreenStack = new ScreenStack();
+        mNavigationEngine = new NavigationEngine();
+        mPlanLock = new Object();
+        mPlanScheduled = new AtomicBoolean();
+        mPlanRunnable = new PlanRunnable(this);
+        mKeptEntries = new ScreenEntry[0];
+        mPushedEntries = new ArrayList<>();
+        mParamsSources = new int[0];
+        mPlannedParams = new ArrayList<>();
+        mPlannedTimings = new ArrayList<>();
+        mDisplayedEntries = new ArrayList<>();
+        mBackstackSnapshot = new AtomicReference<>(BackstackSnapshot.EMPTY);
+        mMemoryCallbacks = registerMemoryCallbacks(container);
+        if (savedInstanceState != null) {
+            restoreState(savedInstanceState);
+        }
+        mNavigationEngine.begin(mScreenStack);
+    }
 
-        mScreenStack = new LinkedList<>();
-        if (savedInstanceState != null && savedInstanceState.containsKey(KEY_SAVED_STATE)) {
+    /**
+     * Create a child router, that shares the scheduling, screen ids and view caches of its parent
+     */
+    private Router(@NonNull Router parent, @NonNull FrameLayout container, int containerId, @NonNull RouteCreator routeCreator, @Nullable Bundle savedInstanceState) {
+        mRouteCreator = routeCreator;
+        mStateStore = null;
+        mParent = parent;
+        mRoot = parent.mRoot;
+        mContainerId = containerId;
+        mChildRouters = new ArrayList<>();
+        mNavigationTracer = new NavigationTracer();
+        mScreenIdGenerator = parent.mScreenIdGenerator;
+        mMainHandler = parent.mMainHandler;
+        mNavigationQueue = new NavigationQueue(parent.mNavigationQueue);
+        mDrainedCommands = new ArrayList<>();
+        mViewHost = new ViewHost(container, mNavigationTracer);
+
+        mMaxLiveScreens = UNLIMITED_LIVE_SCREENS;
+        mHostState = Screen.STATE_STOPPED;
+        mScreenStack = new ScreenStack();
+        mNavigationEngine = new NavigationEngine();
+        mPlanLock = new Object();
+        mPlanScheduled = new AtomicBoolean();
+        mPlanRunnable = new PlanRunnable(this);
+        mKeptEntries = new ScreenEntry[0];
+        mPushedEntries = new ArrayList<>();
+        mParamsSources = new int[0];
+        mPlannedParams = new ArrayList<>();
+        mPlannedTimings = new ArrayList<>();
+        mDisplayedEntries = new ArrayList<>();
+        mBackstackSnapshot = new AtomicReference<>(BackstackSnapshot.EMPTY);
+        mMemoryCallbacks = null;
+        if (savedInstanceState != null) {
             restoreState(savedInstanceState);
         }
+        mNavigationEngine.begin(mScreenStack);
     }
 
     /**
@@ -84,139 +360,1097 @@ public class Router {
      * @param savedInstanceState The bundle that contains the saved state
      */
     public static Router create(@NonNull FrameLayout container, @NonNull RouteCreator routeCreator, @Nullable Bundle savedInstanceState) {
-        return new Router(container, routeCreator, savedInstanceState);
+        return new Router(container, routeCreator, null, savedInstanceState);
+    }
+
+    /**
+     * Instantiate a Router, along with a FrameLayout, that saves its state to a {@link StateStore}.
+     * <p/>
+     * Only a key is put in the saved instance state {@link Bundle}, and the backstack itself is written to the store.
+     * If writing to the store fails, the state is put in the Bundle instead.
+     *
+     * @param container          The framelayout to serve as the container for all the screens
+     *                           of this router
+     * @param routeCreator       A creator to instantiate the screens for a route
+     * @param stateStore         The store to save the state of this router to
+     * @param savedInstanceState The bundle that contains the saved state
+     */
+    public static Router create(@NonNull FrameLayout container, @NonNull RouteCreator routeCreator, @NonNull StateStore stateStore, @Nullable Bundle savedInstanceState) {
+        throwIfNull(stateStore);
+        return new Router(container, routeCreator, stateStore, savedInstanceState);
+    }
+
+    /**
+     * Enable retaining the views of hidden screens.
+     * <p/>
+     * When set, the views of screens that get hidden by a new screen are detached and kept in the cache
+     * instead of being discarded, so going back to them does not inflate and set up their views again.
+     *
+     * @param retainedViewCache The cache to use, or {@code null} to stop retaining views
+     * @throws IllegalStateException If this is a child router, which uses the cache of its root router
+     */
+    @MainThread
+    public void setRetainedViewCache(@Nullable RetainedViewCache retainedViewCache) {
+
+        throwIfChildRouter();
+        if (mRetainedViewCache != null && mRetainedViewCache != retainedViewCache) {
+            mRetainedViewCache.clear();
+        }
+        mRetainedViewCache = retainedViewCache;
+    }
+
+    /**
+     * Enable recycling the views of popped screens.
+     * <p/>
+     * When set, the views of popped screens that {@link Screen#canRecycleView() can be recycled} are put in the pool,
+     * and new screens with the same pool key reuse them instead of inflating their own.
+     *
+     * @param screenViewPool The pool to use, or {@code null} to stop recycling views
+     * @throws IllegalStateException If this is a child router, which uses the pool of its root router
+     */
+    @MainThread
+    public void setScreenViewPool(@Nullable ScreenViewPool screenViewPool) {
+
+        throwIfChildRouter();
+        if (mScreenViewPool != null && mScreenViewPool != screenViewPool) {
+            mScreenViewPool.clear();
+        }
+        mScreenViewPool = screenViewPool;
+    }
+
+    /**
+     * Set the transition to animate screens with when one replaces another on display.
+     * <p/>
+     * A navigation that is applied while a transition is running fast-forwards it to its end, so that quick
+     * navigations never wait for animations, and never leave more than two screens attached.
+     *
+     * @param screenTransition The transition, or {@code null} to swap screens without animating them
+     */
+    @MainThread
+    public void setScreenTransition(@Nullable ScreenTransition screenTransition) {
+
+        mViewHost.setScreenTransition(screenTransition);
+    }
+
+    /**
+     * Bound the number of screens in the stack that are kept live.
+     * <p/>
+     * Beyond it, the deepest live screens are hibernated after every navigation: their state is saved with
+     * {@link Screen#onSaveState(Bundle)}, and only their id, route, params and serialized state are kept. A hibernated
+     * screen is created again through the {@link RouteCreator} and restored when it is back on top. The screen on top
+     * is always live, so the heap used by the stack stays bounded however deep it gets.
+     *
+     * @param maxLiveScreens At least {@code 1}, or {@link #UNLIMITED_LIVE_SCREENS}
+     */
+    @MainThread
+    public void setMaxLiveScreens(int maxLiveScreens) {
+
+        if (maxLiveScreens < 1) {
+            throw new IllegalArgumentException("At least one screen must be live!");
+        }
+        mMaxLiveScreens = maxLiveScreens;
+        hibernateScreens();
+    }
+
+    public int getMaxLiveScreens() {
+        return mMaxLiveScreens;
+    }
+
+    /**
+     * Get the number of screens in the stack that are live, rather than hibernated or not yet restored
+     */
+    @MainThread
+    public int getLiveScreenCount() {
+
+        int liveScreens = 0;
+        for (int i = 0; i < mScreenStack.size(); i++) {
+            if (!mScreenStack.get(i).isPlaceholder()) {
+                liveScreens++;
+            }
+        }
+        return liveScreens;
+    }
+
+    /**
+     * Set the metrics to report the timings of every navigation to
+     *
+     * @param routerMetrics The metrics, or {@code null} to stop timing navigations
+     * @see HistogramRouterMetrics
+     */
+    public void setRouterMetrics(@Nullable RouterMetrics routerMetrics) {
+        mNavigationTracer.setRouterMetrics(routerMetrics);
+    }
+
+    /**
+     * Set a recorder to log every load and go back made through this router to, so that the navigations can be
+     * replayed later. Navigations made in a {@link NavigationTransaction} are not recorded
+     *
+     * @param navigationRecorder The recorder, or {@code null} to stop recording. It is not closed
+     */
+    public void setNavigationRecorder(@Nullable NavigationRecorder navigationRecorder) {
+        mNavigationRecorder = navigationRecorder;
+    }
+
+    /**
+     * Set a predictor to learn from the loads made through this router, and to warm the screens likely to be loaded
+     * next while the main thread is idle.
+     * <p/>
+     * <b>NOTE: </b> Screens are warmed like {@link #prefetch(String, Bundle)}, on a background thread and with no params, so
+     * the {@link RouteCreator} must be safe to call from any thread.
+     *
+     * @param navigationPredictor The predictor, or {@code null} to stop predicting
+     */
+    public void setNavigationPredictor(@Nullable NavigationPredictor navigationPredictor) {
+        mNavigationPredictor = navigationPredictor;
+    }
+
+    /**
+     * Enable emitting {@link android.os.Trace} sections for each phase of a navigation, so that they show up in systrace.
+     * Has no effect below API 18
+     */
+    public void setTraceSectionsEnabled(boolean traceSectionsEnabled) {
+        mNavigationTracer.setTraceSectionsEnabled(traceSectionsEnabled);
     }
 
     private int getNextScreenId() {
-        return mScreenIdGenerator++;
+        return mScreenIdGenerator.getAndIncrement();
     }
 
     public void saveState(@NonNull Bundle savedInstanceState) {
 
-        savedInstanceState.putParcelable(KEY_SAVED_STATE, SavedState.from(this));
+        final SavedState savedState = SavedState.from(this);
+        if (mStateStore != null) {
+            if (mStateStoreKey == null) {
+                mStateStoreKey = "router-" + UUID.randomUUID().toString();
+            }
+            try {
+                mStateStore.write(mStateStoreKey, savedState.marshall());
+                savedInstanceState.putString(KEY_STATE_STORE_KEY, mStateStoreKey);
+                savedInstanceState.remove(KEY_SAVED_STATE);
+                return;
+            } catch (IOException e) {
+                // Fall back to saving the state in the Bundle
+            } catch (RuntimeException e) {
+                // State holding binders or file descriptors cannot be marshalled, but can still be kept in the Bundle
+            }
+        }
+        savedInstanceState.remove(KEY_STATE_STORE_KEY);
+        savedInstanceState.putParcelable(KEY_SAVED_STATE, savedState);
     }
 
     private void restoreState(@NonNull Bundle savedInstanceState) {
 
-        final SavedState savedState = savedInstanceState.getParcelable(KEY_SAVED_STATE);
+        SavedState savedState = null;
+        if (savedInstanceState.containsKey(KEY_STATE_STORE_KEY)) {
+            savedState = readStateFromStore(savedInstanceState.getString(KEY_STATE_STORE_KEY));
+        } else if (savedInstanceState.containsKey(KEY_SAVED_STATE)) {
+            savedState = savedInstanceState.getParcelable(KEY_SAVED_STATE);
+        }
+
         if (savedState != null) {
-            mScreenIdGenerator = savedState.currentIdNumber;
+            /* Child routers share the screen ids of the root router, which are restored with it */
+            if (mParent == null) {
+                mScreenIdGenerator.set(savedState.currentIdNumber);
+            }
             if (savedState.screenSavedStates.length > 0) {
                 restoreScreenStackFromSavedStates(savedState.screenSavedStates);
             }
         }
     }
 
+    @Nullable
+    private SavedState readStateFromStore(@NonNull String stateStoreKey) {
+
+        if (mStateStore == null) {
+            throw new IllegalStateException("Router state was saved to a StateStore, but none was provided!");
+        }
+
+        /* Keep writing to the same key, so that the state being restored is replaced by the next save */
+        mStateStoreKey = stateStoreKey;
+        try {
+            final byte[] state = mStateStore.read(stateStoreKey);
+            return state == null ? null : SavedState.unmarshall(state);
+        } catch (IOException e) {
+            return null;
+        } catch (RuntimeException e) {
+            /* State written by an older version of the app may no longer unparcel, so it is treated as missing */
+            return null;
+        }
+    }
+
     private void restoreScreenStackFromSavedStates(@NonNull ScreenSavedState[] screenSavedStates) {
 
         /* We need to restore the screens back to front since it's a stack and the screen on
-        * top, i.e, the one that was on top, is the one that was on display
+        * top, i.e, the one that was on top, is the one that was on display.
+        *
+        * Only placeholders are pushed here. Each screen is instantiated when it reaches the top
         **/
 
         ScreenSavedState screenSavedState;
         for (int i = screenSavedStates.length - 1; i >= 0; i--) {
 
             screenSavedState = screenSavedStates[i];
-            //TODO: Save and restore the screen params and screen states
-            final Screen screen = initScreenForRoute(screenSavedState.screenRoute, screenSavedState.screenId, screenSavedState.screenParams);
-            final boolean displayScreen = (i == 0);
+            mScreenStack.push(ScreenEntry.placeholder(
+                    screenSavedState.screenId,
+                    screenSavedState.screenRoute,
+                    screenSavedState.getParams(),
+                    screenSavedState.screenState));
+        }
+        publishBackstackSnapshot();
 
-            runOnMainThread(new Runnable() {
+        runOnMainThread(new Runnable() {
 
-                @Override
-                public void run() {
-                    pushScreen(screen, displayScreen);
-                }
-            });
-        }
+            @Override
+            public void run() {
+                displayVisibleScreens();
+            }
+        });
     }
 
+    /**
+     * Forward {@code onStart()} of the activity, to start the screen on display
+     */
+    @MainThread
     public void onStart() {
+        moveHostToState(Screen.STATE_STARTED);
     }
 
-    public void onStop() {
+    /**
+     * Forward {@code onResume()} of the activity, to resume the screen on display
+     */
+    @MainThread
+    public void onResume() {
+        moveHostToState(Screen.STATE_RESUMED);
     }
 
-    public void onDestroy() {
-
-        hideCurrentTopScreen();
-        mScreenStack.clear();
+    /**
+     * Forward {@code onPause()} of the activity, to pause the screen on display
+     */
+    @MainThread
+    public void onPause() {
+        moveHostToState(Screen.STATE_STARTED);
     }
 
     /**
-     * Method used to go to a particular route
-     *
-     * @param route    The route to go to. Must not be {@code null}
-     * @param params   An optional {@link Bundle} that can be provided to the screen
-     * @param loadMode The way to load the screen. One of {@link #LOAD_MODE_CLEAR}, {@link #LOAD_MODE_CREATE} or {@link #LOAD_MODE_REORDER}
-     * @return The screen id, which can be used later for performing any backstack operations relating the screen
+     * Forward {@code onStop()} of the activity, to stop the screen on display
      */
-    public int load(@NonNull String route, @Nullable Bundle params, @LoadMode int loadMode) {
+    @MainThread
+    public void onStop() {
+        moveHostToState(Screen.STATE_STOPPED);
+    }
 
-        throwIfNull(route);
+    /**
+     * Set the state of the host of this router, which is the activity for a root router and the parent screen for a
+     * child router, and move the screen on display to it
+     */
+    @MainThread
+    /* package */ void moveHostToState(@Screen.State int hostState) {
 
+        /* Screens on top are paused and stopped before the ones under them, and started and resumed after them */
+        final boolean down = hostState < mHostState;
+        mHostState = hostState;
+        final int firstVisiblePosition = findFirstVisiblePosition(false);
+        final int topPosition = mScreenStack.size() - 1;
         Screen screen;
-        switch (loadMode) {
-
-            case LOAD_MODE_REORDER: {
-                screen = findScreenForRoute(route);
-                if (screen != null) {
-                    screen.setParams(params);
-                    moveScreenToTop(screen);
-                } else {
-                    screen = createAndLoadNewScreen(route, params);
+        for (int i = firstVisiblePosition; i <= topPosition; i++) {
+            final int position = down ? topPosition - i + firstVisiblePosition : i;
+            screen = mScreenStack.get(position).getScreen();
+            if (screen != null && screen.getContentView() != null) {
+                screen.moveToState(getVisibleState(position));
+            }
+        }
+    }
+
+    /**
+     * Get the state of a visible screen. The screen on top follows the host, and the screens under overlays are no
+     * more than started
+     */
+    @Screen.State
+    private int getVisibleState(int position) {
+        return position == mScreenStack.size() - 1 ? mHostState : Math.min(mHostState, Screen.STATE_STARTED);
+    }
+
+    /**
+     * Forward {@code onDestroy()} of the activity, when it may be recreated. Any state written to the
+     * {@link StateStore} is kept, to be restored
+     *
+     * @see #onDestroy(boolean)
+     */
+    public void onDestroy() {
+        onDestroy(false);
+    }
+
+    /**
+     * Forward {@code onDestroy()} of the activity
+     *
+     * @param finishing Whether the activity is finishing, from {@code isFinishing()}. The router will not be restored
+     *                  then, so the state it wrote to its {@link StateStore} is deleted
+     */
+    public void onDestroy(boolean finishing) {
+
+        if (finishing && mStateStore != null && mStateStoreKey != null) {
+            mStateStore.delete(mStateStoreKey);
+            mStateStoreKey = null;
+        }
+        if (mMemoryCallbacks != null) {
+            mViewHost.getContainer().getContext().getApplicationContext().unregisterComponentCallbacks(mMemoryCallbacks);
+        }
+        mViewHost.finishTransition();
+        if (mWarmingScheduled) {
+            Looper.myQueue().removeIdleHandler(mWarmingIdleHandler);
+            mWarmingScheduled = false;
+        }
+        for (int i = mScreenStack.size() - 1; i >= findFirstVisiblePosition(false); i--) {
+            hideEntry(mScreenStack.get(i), false);
+        }
+        Screen screen;
+        for (int i = 0; i < mScreenStack.size(); i++) {
+            screen = mScreenStack.get(i).getScreen();
+            if (screen != null) {
+                screen.destroyChildRouters();
+                screen.markDestroyed();
+            }
+        }
+        synchronized (mPlanLock) {
+            mNavigationQueue.clear();
+            discardPlan();
+            mScreenStack.clear();
+            mNavigationEngine.begin(mScreenStack);
+        }
+        publishBackstackSnapshot();
+        if (mParent != null) {
+            mParent.mChildRouters.remove(this);
+        } else {
+            if (mRetainedViewCache != null) {
+                mRetainedViewCache.clear();
+            }
+            if (mScreenViewPool != null) {
+                mScreenViewPool.clear();
+            }
+        }
+        if (mScreenPrefetcher != null) {
+            mScreenPrefetcher.quit();
+            mScreenPrefetcher = null;
+        }
+        if (mParent == null) {
+            quitPlanner();
+        }
+    }
+
+    @Nullable
+    @SuppressWarnings("NewApi")
+    private ComponentCallbacks registerMemoryCallbacks(@NonNull FrameLayout container) {
+
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.ICE_CREAM_SANDWICH) {
+            return null;
+        }
+        final ComponentCallbacks memoryCallbacks = new MemoryCallbacks(this);
+        container.getContext().getApplicationContext().registerComponentCallbacks(memoryCallbacks);
+        return memoryCallbacks;
+    }
+
+    /**
+     * Set a listener to be told what was released whenever memory is trimmed
+     */
+    @MainThread
+    public void setTrimMemoryListener(@Nullable TrimMemoryListener trimMemoryListener) {
+        mTrimMemoryListener = trimMemoryListener;
+    }
+
+    /**
+     * Release resources according to how severe the memory pressure is.
+     * <p/>
+     * This is called automatically from API 14. Below that, forward {@code onLowMemory()} of the activity with
+     * {@code TRIM_MEMORY_COMPLETE}. Two tiers are applied:
+     * <ul>
+     * <li>From {@code TRIM_MEMORY_RUNNING_MODERATE}, the views retained for hidden screens, the views in the
+     * {@link ScreenViewPool} and prefetched screens are released</li>
+     * <li>At {@code TRIM_MEMORY_RUNNING_CRITICAL}, or from {@code TRIM_MEMORY_MODERATE} when in the background, every
+     * screen below the top of the stack is also released. Only its serialized state is kept, and the screen is created
+     * again and restored from it when it is back on top</li>
+     * </ul>
+     *
+     * The caches are shared by the whole hierarchy of routers, so memory is always trimmed from the root router, and
+     * its child routers are trimmed with it.
+     *
+     * @param level One of the {@code TRIM_MEMORY_*} levels of {@link ComponentCallbacks2}
+     * @return What was released
+     */
+    @MainThread
+    @NonNull
+    public TrimMemoryResult trimMemory(int level) {
+
+        if (mRoot != this) {
+            return mRoot.trimMemory(level);
+        }
+
+        final int tier;
+        if (level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL || level >= ComponentCallbacks2.TRIM_MEMORY_MODERATE) {
+            tier = TrimMemoryResult.TIER_CRITICAL;
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE) {
+            tier = TrimMemoryResult.TIER_MODERATE;
+        } else {
+            tier = TrimMemoryResult.TIER_NONE;
+        }
+
+        final ArrayList<Router> routers = new ArrayList<>();
+        collectRouters(routers);
+
+        int viewsReleased = 0;
+        long viewBytesReclaimed = 0L;
+        if (tier >= TrimMemoryResult.TIER_MODERATE) {
+            if (mRetainedViewCache != null) {
+                viewsReleased += mRetainedViewCache.getRetainedViewCount();
+                viewBytesReclaimed += mRetainedViewCache.getEstimatedSizeInBytes();
+                mRetainedViewCache.clear();
+            }
+            if (mScreenViewPool != null) {
+                viewsReleased += mScreenViewPool.getRecycledViewCount();
+                viewBytesReclaimed += mScreenViewPool.getEstimatedSizeInBytes();
+                mScreenViewPool.clear();
+            }
+            ScreenPrefetcher screenPrefetcher;
+            for (int i = 0; i < routers.size(); i++) {
+                screenPrefetcher = routers.get(i).mScreenPrefetcher;
+                if (screenPrefetcher != null) {
+                    viewsReleased += screenPrefetcher.getPrefetchedCount();
+                    viewBytesReclaimed += screenPrefetcher.getEstimatedSizeInBytes();
+                    screenPrefetcher.clear();
                 }
-                break;
             }
+        }
 
-            case LOAD_MODE_CLEAR: {
-                screen = findScreenForRoute(route);
-                if (screen != null) {
-                    screen.setParams(params);
-                    clearStackUpTo(screen);
-                } else {
-                    screen = createAndLoadNewScreen(route, params);
+        int screensReleased = 0;
+        long savedStateBytes = 0L;
+        if (tier == TrimMemoryResult.TIER_CRITICAL) {
+            /* Releasing a screen destroys its child routers, so they must not be released again after it */
+            ScreenStack screenStack;
+            ScreenEntry entry;
+            for (int i = routers.size() - 1; i >= 0; i--) {
+                screenStack = routers.get(i).mScreenStack;
+                for (int j = 0; j < screenStack.size() - 1; j++) {
+                    entry = screenStack.get(j);
+                    if (!entry.isPlaceholder() && !entry.isOnDisplay()) {
+                        savedStateBytes += entry.release();
+                        screensReleased++;
+                    }
                 }
-                break;
+            }
+        }
+
+        final TrimMemoryResult result = new TrimMemoryResult(level, tier, viewsReleased, viewBytesReclaimed, screensReleased, savedStateBytes);
+        if (mTrimMemoryListener != null && tier != TrimMemoryResult.TIER_NONE) {
+            mTrimMemoryListener.onTrimMemory(result);
+        }
+        return result;
+    }
+
+    /**
+     * Method used to prepare a screen for a route ahead of time.
+     * <p/>
+     * The screen is instantiated and its view is inflated on a background thread. A later {@link #load(String, Bundle, int)}
+     * that creates a new screen for the same route with the same params will use the prepared screen, and only attach its view.
+     * <p/>
+     * <b>NOTE: </b> The {@link RouteCreator} and {@link Screen#createView(LayoutInflater, android.view.ViewGroup)} of the
+     * screen will be called on a background thread.
+     *
+     * @param route  The route to prefetch. Must not be {@code null}
+     * @param params An optional {@link Bundle} that will be provided to the screen
+     */
+    public void prefetch(@NonNull String route, @Nullable Bundle params) {
+
+        throwIfNull(route);
+        getScreenPrefetcher().prefetch(route, params);
+    }
+
+    @NonNull
+    private synchronized ScreenPrefetcher getScreenPrefetcher() {
+
+        if (mScreenPrefetcher == null) {
+            mScreenPrefetcher = new ScreenPrefetcher(mRouteCreator, mViewHost.getContainer());
+        }
+        return mScreenPrefetcher;
+    }
+
+    /**
+     * Method used to go to a particular route.
+     * <p/>
+     * Like all navigations, it is applied at the start of the next frame, together with any other navigations
+     * made before then. Use {@link #executePendingNavigations()} to apply it immediately. With
+     * {@link #LOAD_MODE_CLEAR} and {@link #LOAD_MODE_REORDER}, the screen for the route is looked for when the load
+     * is applied, after the navigations made before it, and is only created then if there is none.
+     *
+     * @param route    The route to go to. Must not be {@code null}
+     * @param params   An optional {@link Bundle} that can be provided to the screen
+     * @param loadMode The way to load the screen. One of {@link #LOAD_MODE_CLEAR}, {@link #LOAD_MODE_CREATE} or {@link #LOAD_MODE_REORDER}
+     * @return The screen id, which can be used later for performing any backstack operations relating the screen
+     */
+    public int load(@NonNull String route, @Nullable Bundle params, @LoadMode int loadMode) {
+
+        throwIfNull(route);
+
+        final NavigationTiming timing = mNavigationTracer.begin(NavigationTiming.NAVIGATION_LOAD, route, loadMode);
+        final int screenId;
+        switch (loadMode) {
+
+            case LOAD_MODE_REORDER: {
+                screenId = screenIdForRoute(route);
+                enqueue(mNavigationQueue.obtain().setMoveToTopOrPush(route, screenId).withParams(params).asLoad(), timing);
+                return recordLoad(route, params, loadMode, screenId);
+            }
+
+            case LOAD_MODE_CLEAR: {
+                screenId = screenIdForRoute(route);
+                enqueue(mNavigationQueue.obtain().setPopToOrPush(route, screenId).withParams(params).asLoad(), timing);
+                return recordLoad(route, params, loadMode, screenId);
             }
 
             case LOAD_MODE_CREATE:
             default: {
-                screen = createAndLoadNewScreen(route, params);
-                break;
+                return recordLoad(route, params, loadMode, createAndLoadNewScreen(route, params, timing).getId());
+            }
+        }
+    }
+
+    /**
+     * Records a load, if a recorder is set
+     *
+     * @return The screen id that was loaded
+     */
+    private int recordLoad(@NonNull String route, @Nullable Bundle params, @LoadMode int loadMode, int screenId) {
+
+        final NavigationRecorder navigationRecorder = mNavigationRecorder;
+        if (navigationRecorder != null) {
+            navigationRecorder.recordLoad(route, params, loadMode, screenId);
+        }
+        return screenId;
+    }
+
+    /**
+     * Get the id for a load that finds the screen for its route when it is planned, which is the id of the screen
+     * it is expected to find, or a new id for the screen it pushes if there is none.
+     * <p/>
+     * The queued commands are planned first, so that the screen is looked for in the stack they lead to. A load made
+     * while a plan is being applied, from a callback of the screens in it, looks in the last published snapshot
+     */
+    private int screenIdForRoute(@NonNull String route) {
+
+        int screenId;
+        synchronized (mPlanLock) {
+            if (mApplyingPlan) {
+                screenId = getBackstackSnapshot().topScreenIdOf(route);
+            } else {
+                planQueuedCommands();
+                screenId = mNavigationEngine.getPlannedTopScreenId(route);
             }
         }
+        return screenId != BackstackSnapshot.NO_SCREEN ? screenId : getNextScreenId();
+    }
+
+    @NonNull
+    private Screen createAndLoadNewScreen(@NonNull String route, @Nullable Bundle params, @Nullable NavigationTiming timing) {
+
+        final Screen screen = newScreen(route, params, timing);
+        enqueue(mNavigationQueue.obtain().setPush(screen).asLoad(), timing);
+        return screen;
+    }
+
+    /**
+     * Queue a single command, to be applied on the next frame
+     */
+    private void enqueue(@NonNull NavigationCommand command, @Nullable NavigationTiming timing) {
+
+        command.timing = timing;
+        mNavigationQueue.enqueue(command);
+        schedulePlanning();
+    }
+
+    /**
+     * Creates a new screen for a route, with a new screen id, using a prefetched screen if there is one
+     */
+    @NonNull
+    /* package */ Screen newScreen(@NonNull String route, @Nullable Bundle params, @Nullable NavigationTiming timing) {
+
+        throwIfNull(route);
+        return newScreen(route, getNextScreenId(), params, timing);
+    }
+
+    /**
+     * Creates a screen for a route with an id, using a prefetched screen if there is one
+     */
+    @NonNull
+    private Screen newScreen(@NonNull String route, int screenId, @Nullable Bundle params, @Nullable NavigationTiming timing) {
+
+        final Screen prefetchedScreen = mScreenPrefetcher == null ? null : mScreenPrefetcher.take(route, params);
+        final NavigationPredictor navigationPredictor = mNavigationPredictor;
+        if (navigationPredictor != null) {
+            navigationPredictor.recordCreated(route, prefetchedScreen != null);
+        }
+        if (prefetchedScreen != null) {
+            return initScreen(prefetchedScreen, route, screenId);
+        }
+
+        final long startNanos = mNavigationTracer.beginPhase(NavigationTiming.PHASE_CREATE_SCREEN);
+        final Screen screen = initScreenForRoute(route, screenId, params);
+        mNavigationTracer.endPhase(timing, NavigationTiming.PHASE_CREATE_SCREEN, startNanos);
+        return screen;
+    }
+
+    @Nullable
+    /* package */ NavigationTiming beginTiming(@NavigationTiming.NavigationType int navigationType) {
+        return mNavigationTracer.begin(navigationType, null, NavigationTiming.NO_LOAD_MODE);
+    }
+
+    /**
+     * Start a batch of backstack operations, that will be applied together when the transaction is committed.
+     * <p/>
+     * Use this instead of a sequence of {@link #goBackTo(String)} and {@link #load(String, Bundle)} calls, so that
+     * only the final screen on top is displayed.
+     */
+    public NavigationTransaction beginTransaction() {
+        return new NavigationTransaction(this);
+    }
+
+    /* package */ void commitTransaction(@NonNull List<NavigationCommand> commands, @Nullable NavigationTiming timing) {
+
+        if (commands.isEmpty()) {
+            return;
+        }
+
+        /* Link the commands from the newest to the oldest, the way they are kept in the queue */
+        final int last = commands.size() - 1;
+        for (int i = last; i > 0; i--) {
+            commands.get(i).next = commands.get(i - 1);
+        }
+        commands.get(last).timing = timing;
+        mNavigationQueue.enqueue(commands.get(last), commands.get(0));
+        schedulePlanning();
+    }
 
-        return screen.getId();
+    /**
+     * Plan the queued commands on the planner thread, unless that is already scheduled. Whatever is still queued when
+     * the frame comes is planned on the main thread
+     */
+    private void schedulePlanning() {
+
+        if (mPlanScheduled.compareAndSet(false, true)) {
+            final Handler plannerHandler = mRoot.getPlannerHandler();
+            if (plannerHandler == null || !plannerHandler.post(mPlanRunnable)) {
+                mPlanScheduled.set(false);
+            }
+        }
     }
 
+    /**
+     * Get the handler of the planner thread, starting it if needed, or {@code null} once the root router is destroyed
+     */
     @Nullable
-    private Screen findScreenForRoute(@NonNull String route) {
+    private synchronized Handler getPlannerHandler() {
+
+        if (mPlannerThread == null && !mPlannerQuit) {
+            mPlannerThread = new HandlerThread("routz-planner", Process.THREAD_PRIORITY_BACKGROUND);
+            mPlannerThread.start();
+            mPlannerHandler = new Handler(mPlannerThread.getLooper());
+        }
+        return mPlannerHandler;
+    }
+
+    private synchronized void quitPlanner() {
+
+        mPlannerQuit = true;
+        if (mPlannerThread != null) {
+            mPlannerThread.quit();
+            mPlannerThread = null;
+            mPlannerHandler = null;
+        }
+    }
+
+    /* package */ NavigationCommand obtainCommand() {
+        return mNavigationQueue.obtain();
+    }
+
+    /**
+     * Apply all the navigations that are waiting for the next frame, immediately
+     */
+    @MainThread
+    public void executePendingNavigations() {
+        drainNavigationQueue();
+    }
+
+    /**
+     * Applies the queued commands as a single batch, and then the queued commands of the child routers. Most of them
+     * have already been planned on the planner thread, so the main thread plans what is left and applies the plan
+     * through the {@link ViewHost}
+     */
+    @MainThread
+    private void drainNavigationQueue() {
+
+        synchronized (mPlanLock) {
+            planQueuedCommands();
+            if (mPlanPending) {
+                for (int i = 0; i < mPlannedTimings.size(); i++) {
+                    mNavigationTracer.apply(mPlannedTimings.get(i));
+                }
+                applyPlannedCommands();
+                finishNavigation();
+            }
+        }
+
+        /* Child routers of screens popped above have already been destroyed, and removed themselves */
+        for (int i = 0; i < mChildRouters.size(); i++) {
+            mChildRouters.get(i).drainNavigationQueue();
+        }
+    }
+
+    /**
+     * Plans the queued commands after the ones planned before them, once the ones that cancel out are merged. Only
+     * the engine and the state of the plan change, so this can be called from any thread, holding {@link #mPlanLock}.
+     * <p/>
+     * Each load is counted by the {@link #mNavigationPredictor} as a transition from the route on top of the stack
+     * the commands before it lead to
+     */
+    private void planQueuedCommands() {
+
+        NavigationCommand command = mNavigationQueue.takeAll();
+        if (command == null) {
+            return;
+        }
+        final NavigationPredictor navigationPredictor = mNavigationPredictor;
+        /* The route on top after the commands taken so far, when it is known without planning them */
+        String topRoute = null;
+        boolean topRouteKnown = false;
+        NavigationCommand next;
+        while (command != null) {
+            next = command.next;
+            command.next = null;
+            if (command.timing != null) {
+                mPlannedTimings.add(command.timing);
+            }
+            if (command.isLoad && navigationPredictor != null) {
+                if (!topRouteKnown) {
+                    planDrainedCommands();
+                    topRoute = mNavigationEngine.getPlannedTopRoute();
+                }
+                navigationPredictor.recordTransition(topRoute, command.route);
+                topRoute = command.route;
+                topRouteKnown = true;
+            } else {
+                topRouteKnown = false;
+            }
+            mNavigationQueue.appendMerged(mDrainedCommands, command);
+            command = next;
+        }
+        planDrainedCommands();
+        mPlanPending = true;
+    }
+
+    /**
+     * Plans the commands taken from the queue so far, and recycles them
+     */
+    private void planDrainedCommands() {
+
+        NavigationCommand command;
+        final NavigationEngine engine = mNavigationEngine;
+        for (int i = 0; i < mDrainedCommands.size(); i++) {
+            command = mDrainedCommands.get(i);
+            switch (command.type) {
+
+                case NavigationCommand.TYPE_PUSH: {
+                    engine.push(mPushedEntries.size(), command.screenId, command.route);
+                    mPushedEntries.add(ScreenEntry.forScreen(command.screen));
+                    break;
+                }
+
+                case NavigationCommand.TYPE_POP: {
+                    engine.pop(command.count);
+                    break;
+                }
+
+                case NavigationCommand.TYPE_POP_TO_ID: {
+                    replaceParams(engine.popTo(command.screenId), command);
+                    break;
+                }
+
+                case NavigationCommand.TYPE_POP_TO_ROUTE: {
+                    if (command.screenId == BackstackSnapshot.NO_SCREEN) {
+                        engine.popTo(command.route);
+                    } else {
+                        loadScreen(engine.popToOrPush(command.route, mPushedEntries.size(), command.screenId), command);
+                    }
+                    break;
+                }
+
+                case NavigationCommand.TYPE_MOVE_TO_TOP_ID: {
+                    replaceParams(engine.moveToTop(command.screenId), command);
+                    break;
+                }
+
+                case NavigationCommand.TYPE_MOVE_TO_TOP_ROUTE: {
+                    if (command.screenId == BackstackSnapshot.NO_SCREEN) {
+                        engine.moveToTop(command.route);
+                    } else {
+                        loadScreen(engine.moveToTopOrPush(command.route, mPushedEntries.size(), command.screenId), command);
+                    }
+                    break;
+                }
+
+                case NavigationCommand.TYPE_SET_STACK: {
+                    planStack(command.routeEntries, command.screenId);
+                    break;
+                }
+            }
+            mNavigationQueue.recycle(command);
+        }
+        mDrainedCommands.clear();
+    }
+
+    /**
+     * Applies the planned commands to the stack as a single batch. Screens are pushed and popped as the plan is
+     * applied, but the views are only swapped once, after the final screen on top is known. Called holding
+     * {@link #mPlanLock}, and starts the next plan
+     */
+    @MainThread
+    private void applyPlannedCommands() {
+
+        mViewHost.beginBatch();
+        final ScreenEntry previousTopEntry = mScreenStack.peek();
+        collectDisplayedEntries();
+
+        mApplyingPlan = true;
+        for (int i = 0; i < mPlannedParams.size(); i++) {
+            setParams(mParamsSources[i], mPlannedParams.get(i));
+        }
+        applyPlan();
+        discardPlan();
+        mNavigationEngine.begin(mScreenStack);
+        mApplyingPlan = false;
+
+        /* Publish before swapping the views, so that the screen being shown sees the stack it is on */
+        publishBackstackSnapshot();
+
+        final boolean forward = previousTopEntry != null && mScreenStack.positionOf(previousTopEntry.id) >= 0;
+        final boolean topWasDisplayed = mDisplayedEntries.contains(mScreenStack.peek());
+        displayVisibleScreens();
+        startTransition(forward, topWasDisplayed);
+        hibernateScreens();
+    }
+
+    /**
+     * Drops the state of the plan, once it is applied or the router is destroyed. The engine has to begin again
+     */
+    private void discardPlan() {
+
+        mPushedEntries.clear();
+        mPlannedParams.clear();
+        mPlannedTimings.clear();
+        mPlanPending = false;
+    }
+
+    /**
+     * Remembers the entries on display before a batch is applied, in {@link #mDisplayedEntries}
+     */
+    @MainThread
+    private void collectDisplayedEntries() {
+
+        mDisplayedEntries.clear();
+        for (int i = mScreenStack.size() - 1; i >= findFirstVisiblePosition(false); i--) {
+            if (mScreenStack.get(i).isOnDisplay()) {
+                mDisplayedEntries.add(mScreenStack.get(i));
+            }
+        }
+    }
+
+    /**
+     * Find the lowest visible position of the stack, which is the top, unless overlays are on top of the screens
+     * below it
+     *
+     * @param instantiate {@code true} to instantiate the placeholders that are visible, or {@code false} to stop at
+     *                    the first placeholder
+     */
+    @MainThread
+    private int findFirstVisiblePosition(boolean instantiate) {
+
+        int position = mScreenStack.size() - 1;
+        if (position < 0) {
+            return 0;
+        }
+        Screen screen = instantiate ? obtainScreen(mScreenStack.get(position)) : mScreenStack.get(position).getScreen();
+        while (position > 0 && screen != null && screen.isOverlay()) {
+            position--;
+            screen = instantiate ? obtainScreen(mScreenStack.get(position)) : mScreenStack.get(position).getScreen();
+        }
+        return position;
+    }
+
+    /**
+     * Hibernates the deepest live screens, until no more than {@link #mMaxLiveScreens} are live
+     */
+    @MainThread
+    private void hibernateScreens() {
+
+        int excessScreens = getLiveScreenCount() - mMaxLiveScreens;
+        ScreenEntry entry;
+        for (int i = 0; i < mScreenStack.size() - 1 && excessScreens > 0; i++) {
+            entry = mScreenStack.get(i);
+            /* Screens under an overlay are still on display */
+            if (!entry.isPlaceholder() && !entry.isOnDisplay()) {
+                /* A retained view was set up by the screen being released, so the screen created later cannot use it */
+                if (mRoot.mRetainedViewCache != null) {
+                    mRoot.mRetainedViewCache.take(entry.id);
+                }
+                entry.release();
+                excessScreens--;
+            }
+        }
+    }
+
+    /**
+     * Animates the view that was hidden by the last navigation out, and the view now on display in. The screen an
+     * overlay is popped from does not enter, since it was on display
+     *
+     * @param topWasDisplayed Whether the screen now on top was already on display, under an overlay
+     */
+    @MainThread
+    private void startTransition(boolean forward, boolean topWasDisplayed) {
+
+        final ScreenEntry topEntry = mScreenStack.peek();
+        final View enteringView = topWasDisplayed || topEntry == null || topEntry.getScreen() == null ? null : topEntry.getScreen().getContentView();
+        mViewHost.endBatch(enteringView, forward);
+    }
+
+    /**
+     * Give the screen a command targets the params of the command, if the command replaces them
+     *
+     * @param source The {@link NavigationEngine#getSource(int) source} of the screen the command targets
+     */
+    private void replaceParams(int source, @NonNull NavigationCommand command) {
+
+        if (command.replacesParams && source != NavigationEngine.NOT_FOUND) {
+            planParams(source, command.params);
+        }
+    }
+
+    /**
+     * Completes a load that finds the screen for its route, which was either found, or pushed as a placeholder that is
+     * only instantiated once it is displayed
+     *
+     * @param source The {@link NavigationEngine#getSource(int) source} of the screen for the route
+     */
+    private void loadScreen(int source, @NonNull NavigationCommand command) {
+
+        if (source == ~mPushedEntries.size()) {
+            mPushedEntries.add(ScreenEntry.placeholder(command.screenId, command.route, command.params, null));
+        } else {
+            replaceParams(source, command);
+        }
+    }
+
+    /**
+     * Give a screen params once the plan is applied
+     *
+     * @param source The {@link NavigationEngine#getSource(int) source} of the screen to give the params
+     */
+    private void planParams(int source, @Nullable Bundle params) {
+
+        final int count = mPlannedParams.size();
+        if (mParamsSources.length == count) {
+            mParamsSources = Arrays.copyOf(mParamsSources, Math.max(4, count * 2));
+        }
+        mParamsSources[count] = source;
+        mPlannedParams.add(params);
+    }
+
+    /**
+     * @param source The {@link NavigationEngine#getSource(int) source} of the screen to give the params
+     */
+    @MainThread
+    private void setParams(int source, @Nullable Bundle params) {
+
+        if (source >= 0) {
+            mScreenStack.get(source).setParams(params);
+        } else {
+            mPushedEntries.get(~source).setParams(params);
+        }
+    }
+
+    /**
+     * Plans a new stack with the {@link #mNavigationEngine}. A placeholder is planned for each entry that matches no
+     * screen, so that only the screens that end up on display are instantiated, and the screens that are kept are given
+     * the params of their entry, if it has any
+     *
+     * @param firstScreenId The id of the screen created for the first entry, if it matches none, which is followed by
+     *                      one id for each entry
+     */
+    private void planStack(@NonNull RouteEntry[] routeEntries, int firstScreenId) {
+
+        final int firstPushIndex = mPushedEntries.size();
+        final int[] screenIds = new int[routeEntries.length];
+        final String[] routes = new String[routeEntries.length];
+        for (int i = 0; i < routeEntries.length; i++) {
+            screenIds[i] = routeEntries[i].getScreenId();
+            routes[i] = routeEntries[i].getRoute();
+            mPushedEntries.add(null);
+        }
 
-        final Iterator<Screen> iterator = mScreenStack.iterator();
-        Screen screen = null;
-        while (iterator.hasNext()) {
-            screen = iterator.next();
-            if (route.equals(screen.getRoute())) {
-                break;
+        final NavigationEngine engine = mNavigationEngine;
+        engine.setStack(firstPushIndex, screenIds, routes, firstScreenId);
+        RouteEntry routeEntry;
+        int source;
+        for (int position = 0; position < routeEntries.length; position++) {
+            routeEntry = routeEntries[position];
+            source = position < engine.getFloor() ? position : engine.getSource(position);
+            if (source < 0 && ~source >= firstPushIndex) {
+                mPushedEntries.set(~source, ScreenEntry.placeholder(firstScreenId + position, routeEntry.getRoute(), routeEntry.getParams(), null));
+            } else if (routeEntry.getParams() != null) {
+                planParams(source, routeEntry.getParams());
             }
         }
-        return screen;
     }
 
-    @NonNull
-    private Screen createAndLoadNewScreen(@NonNull String route, @Nullable Bundle params) {
-
-        final Screen screen = initScreenForRoute(route, getNextScreenId(), params);
+    /**
+     * Applies the plan made by the {@link #mNavigationEngine} to the stack.
+     * <p/>
+     * The screens above the floor of the plan are taken off the stack, and the ones the plan does not keep are popped.
+     * The planned screens are then put back. Kept screens that are still in the same order go back as they were, while
+     * the screens that were moved are pushed again
+     */
+    @MainThread
+    private void applyPlan() {
+
+        final NavigationEngine engine = mNavigationEngine;
+        final int floor = engine.getFloor();
+        final boolean[] kept = engine.findKept();
+        final int count = mScreenStack.size() - floor;
+        if (mKeptEntries.length < count) {
+            mKeptEntries = new ScreenEntry[Math.max(count, mKeptEntries.length * 2)];
+        }
 
-        runOnMainThread(new Runnable() {
-            @Override
-            public void run() {
-                pushScreen(screen, true);
+        for (int i = count - 1; i >= 0; i--) {
+            if (kept[i]) {
+                mKeptEntries[i] = mScreenStack.pop();
+            } else {
+                popScreen();
             }
-        });
+        }
 
-        return screen;
+        int lastPosition = floor - 1;
+        int source;
+        ScreenEntry entry;
+        for (int position = floor; position < engine.getPlannedSize(); position++) {
+            source = engine.getSource(position);
+            if (source < 0) {
+                pushEntry(mPushedEntries.get(~source));
+            } else {
+                entry = mKeptEntries[source - floor];
+                mKeptEntries[source - floor] = null;
+                if (!engine.isMoved(position) && source > lastPosition) {
+                    lastPosition = source;
+                    mScreenStack.push(entry);
+                } else {
+                    pushEntry(entry);
+                }
+            }
+        }
     }
 
     /**
@@ -251,73 +1485,65 @@ public class Router {
         return load(route, null, LOAD_MODE_CREATE);
     }
 
+    /**
+     * Method used to go to a particular route, with typed args instead of params.
+     * <p/>
+     * The args are encoded right away, and the screen reads them with {@link Screen#getArgs(ScreenArgs.Decoder)}. Its
+     * params hold the encoded args, and are saved without being parcelled as a {@link Bundle}.
+     *
+     * @param route    The route to go to. Must not be {@code null}
+     * @param args     The args to give the screen. Must not be {@code null}
+     * @param loadMode The way to load the screen. One of {@link #LOAD_MODE_CLEAR}, {@link #LOAD_MODE_CREATE} or {@link #LOAD_MODE_REORDER}
+     * @return The screen id, which can be used later for performing any backstack operations relating the screen
+     */
+    public int loadWithArgs(@NonNull String route, @NonNull ScreenArgs args, @LoadMode int loadMode) {
+        return load(route, ScreenArgsBundles.toBundle(args), loadMode);
+    }
+
+    /**
+     * Method used to go to a particular route, with typed args instead of params
+     *
+     * @see #loadWithArgs(String, ScreenArgs, int)
+     */
+    public int loadWithArgs(@NonNull String route, @NonNull ScreenArgs args) {
+        return loadWithArgs(route, args, LOAD_MODE_CREATE);
+    }
+
     /**
      * Method used to go back to the previous route
      */
     public void goBack() {
 
-        runOnMainThread(new Runnable() {
-            @Override
-            public void run() {
-                popScreen(true);
-            }
-        });
-
+        enqueue(mNavigationQueue.obtain().setPop(1), beginTiming(NavigationTiming.NAVIGATION_GO_BACK));
+        final NavigationRecorder navigationRecorder = mNavigationRecorder;
+        if (navigationRecorder != null) {
+            navigationRecorder.recordGoBack();
+        }
     }
 
     /**
-     * Get the number of screens in the backstack
+     * Get the number of screens in the backstack, not counting navigations that have not been applied yet.
+     * Can be called from any thread
      */
     public int getBackstackCount() {
 
-        return mScreenStack.size();
+        return getBackstackSnapshot().getDepth();
     }
 
-    private void clearStackUpTo(@NonNull final Screen screenToShow) {
-
-        runOnMainThread(new Runnable() {
-            @Override
-            public void run() {
-
-                int numPops = 0;
-                for (Screen screen : mScreenStack) {
-                    if (screenToShow.getId() == screen.getId()) {
-                        break;
-                    } else {
-                        numPops++;
-                    }
-                }
-
-                for (int i = 0; i < numPops; i++) {
-                    if (i == (numPops - 1)) {
-                        popScreen(true);
-                    } else {
-                        popScreen(false);
-                    }
-                }
-            }
-        });
-
+    /**
+     * Get an immutable snapshot of the backstack, as of the last navigation that was applied. Can be called from any thread
+     */
+    @NonNull
+    public BackstackSnapshot getBackstackSnapshot() {
+        return mBackstackSnapshot.get();
     }
 
-    private void moveScreenToTop(@NonNull final Screen screenToShow) {
-
-        runOnMainThread(new Runnable() {
-            @Override
-            public void run() {
-
-                int screenLocation;
-                for (screenLocation = 0; screenLocation < mScreenStack.size(); screenLocation++) {
-                    if (screenToShow.getId() == mScreenStack.get(screenLocation).getId()) {
-                        break;
-                    }
-                }
-                if (screenLocation < mScreenStack.size()) {
-                    mScreenStack.remove(screenLocation);
-                    pushScreen(screenToShow, true);
-                }
-            }
-        });
+    /**
+     * Publish the current state of the stack to other threads. Called once the stack is consistent again
+     */
+    @MainThread
+    private void publishBackstackSnapshot() {
+        mBackstackSnapshot.set(mScreenStack.snapshot());
     }
 
     /**
@@ -326,31 +1552,14 @@ public class Router {
      * <p/>
      * <b>NOTE: </b> If the screen route is not present in the backstack, all screens will be popped.
      */
-    public void goBackTo(@NonNull final String route) {
+    public void goBackTo(@NonNull String route) {
 
         throwIfNull(route);
-        runOnMainThread(new Runnable() {
-            @Override
-            public void run() {
-
-                int numPops = 0;
-                for (Screen screen : mScreenStack) {
-                    if (screen.getRoute().equals(route)) {
-                        break;
-                    } else {
-                        numPops++;
-                    }
-                }
-
-                for (int i = 0; i < numPops; i++) {
-                    if (i == numPops - 1) {
-                        popScreen(true);
-                    } else {
-                        popScreen(false);
-                    }
-                }
-            }
-        });
+        enqueue(mNavigationQueue.obtain().setPopTo(route), beginTiming(NavigationTiming.NAVIGATION_GO_BACK_TO));
+        final NavigationRecorder navigationRecorder = mNavigationRecorder;
+        if (navigationRecorder != null) {
+            navigationRecorder.recordGoBackTo(route);
+        }
     }
 
     /**
@@ -358,30 +1567,38 @@ public class Router {
      * <p/>
      * <b>NOTE: </b> If the screen id is not present in the backstack, all screens will be popped.
      */
-    public void goBackTo(final int screenId) {
+    public void goBackTo(int screenId) {
 
-        runOnMainThread(new Runnable() {
-            @Override
-            public void run() {
+        enqueue(mNavigationQueue.obtain().setPopTo(screenId), beginTiming(NavigationTiming.NAVIGATION_GO_BACK_TO));
+        final NavigationRecorder navigationRecorder = mNavigationRecorder;
+        if (navigationRecorder != null) {
+            navigationRecorder.recordGoBackTo(screenId);
+        }
+    }
 
-                int numPops = 0;
-                for (Screen screen : mScreenStack) {
-                    if (screen.getId() == screenId) {
-                        break;
-                    } else {
-                        numPops++;
-                    }
-                }
+    /**
+     * Method used to replace the backstack with another one, for example to open a deep link, or to go from logging
+     * out to logging in.
+     * <p/>
+     * The new stack is compared to the backstack as it is when the navigation is applied, after the navigations made
+     * before it. The screens the two have in common are kept along with their state and views, in the order of the
+     * new stack. A screen is only created for each entry that matches none, and the screens below the top are only
+     * instantiated once they are displayed. The views are only swapped if the screen on top changes.
+     *
+     * @param entries The screens of the new stack, from the bottom up. Must not be {@code null}. An empty list pops
+     *                every screen
+     * @see RouteEntry
+     */
+    public void setStack(@NonNull List<RouteEntry> entries) {
 
-                for (int i = 0; i < numPops; i++) {
-                    if (i == numPops - 1) {
-                        popScreen(true);
-                    } else {
-                        popScreen(false);
-                    }
-                }
-            }
-        });
+        throwIfNull(entries);
+        final RouteEntry[] routeEntries = entries.toArray(new RouteEntry[entries.size()]);
+        for (int i = 0; i < routeEntries.length; i++) {
+            throwIfNull(routeEntries[i]);
+        }
+        /* The ids of the screens it creates are taken now, so that the loads after it find them by the same ids */
+        final int firstScreenId = mScreenIdGenerator.getAndAdd(routeEntries.length);
+        enqueue(mNavigationQueue.obtain().setStack(routeEntries, firstScreenId), beginTiming(NavigationTiming.NAVIGATION_SET_STACK));
     }
 
     private Screen initScreenForRoute(@NonNull String route, int screenId, @Nullable Bundle params) {
@@ -390,6 +1607,11 @@ public class Router {
         if (screen == null) {
             throw new IllegalArgumentException(String.format(Locale.US, "No screen defined for route: {%s}", route));
         }
+        return initScreen(screen, route, screenId);
+    }
+
+    private Screen initScreen(@NonNull Screen screen, @NonNull String route, int screenId) {
+
         screen.setRouter(this);
         screen.setId(screenId);
         screen.setRoute(route);
@@ -397,72 +1619,290 @@ public class Router {
     }
 
     /**
-     * Pops the current top of the stack
-     *
-     * @param display {@code true} to display the next screen on the stack
+     * Pops the current top of the stack. The screen below it is not displayed
      */
     @MainThread
-    private void popScreen(boolean display) {
+    private void popScreen() {
 
         if (!mScreenStack.isEmpty()) {
-            final Screen screen = mScreenStack.peek();
-
-            hideCurrentTopScreen();
-            screen.onPopped();
-            mScreenStack.pop();
-            if (display) {
-                displayCurrentTopScreen();
+            final ScreenEntry entry = mScreenStack.peek();
+            final Screen screen = entry.getScreen();
+
+            /* The view of the screen is either attached, if it is on display, or retained, if it was hidden */
+            View view = screen == null ? null : screen.getContentView();
+            hideCurrentTopScreen(false);
+            final RetainedViewCache retainedViewCache = mRoot.mRetainedViewCache;
+            if (retainedViewCache != null) {
+                final View retainedView = retainedViewCache.take(entry.id);
+                if (view == null) {
+                    view = retainedView;
+                }
+            }
+            if (screen != null) {
+                screen.destroyChildRouters();
+                screen.dispatchPopped();
+                final ScreenViewPool screenViewPool = mRoot.mScreenViewPool;
+                if (view != null && screenViewPool != null && screen.canRecycleView()) {
+                    screenViewPool.put(screen.getViewPoolKey(), view);
+                }
             }
+            mScreenStack.pop();
         }
     }
 
 
     /**
-     * Pushes a screen into the stack and then displays it on screen
+     * Pushes a screen entry into the stack. The screen is not displayed
      *
-     * @param screen  The Screen to push on the stack
-     * @param display {@code true} to display the screen after pushing on the stack
+     * @param entry The entry to push on the stack
      */
     @MainThread
-    private void pushScreen(@NonNull Screen screen, boolean display) {
+    private void pushEntry(@NonNull ScreenEntry entry) {
 
-        if (display) {
-            hideCurrentTopScreen();
-        }
-        mScreenStack.push(screen);
-        screen.onPushed();
-        if (display) {
-            displayCurrentTopScreen();
+        mScreenStack.push(entry);
+        if (!entry.isPlaceholder()) {
+            entry.getScreen().dispatchPushed();
         }
     }
 
+    /**
+     * Hides the screen on top of the stack
+     *
+     * @param retainView {@code true} to keep the view of the screen in the {@link RetainedViewCache}, if one is set
+     */
     @MainThread
-    private void hideCurrentTopScreen() {
+    private void hideCurrentTopScreen(boolean retainView) {
 
         if (!mScreenStack.isEmpty()) {
-            final Screen screen = mScreenStack.peek();
+            hideEntry(mScreenStack.peek(), retainView);
+        }
+    }
 
-            final View contentView = screen.getContentView();
-            if (contentView != null) {
-                screen.onHidden();
-                screen.clearView();
-                mContainer.removeView(contentView);
+    @MainThread
+    private void hideEntry(@NonNull ScreenEntry entry, boolean retainView) {
+
+        final Screen screen = entry.getScreen();
+        final View contentView = screen == null ? null : screen.getContentView();
+        if (contentView != null) {
+            final NavigationPredictor navigationPredictor = mNavigationPredictor;
+            if (navigationPredictor != null && contentView.getWidth() > 0 && contentView.getHeight() > 0) {
+                navigationPredictor.recordViewSize(entry.route, RetainedViewCache.estimateSizeInBytes(contentView));
+            }
+            screen.moveToState(Screen.STATE_STOPPED);
+            screen.onHidden();
+            screen.clearView();
+            mViewHost.detach(contentView);
+            if (retainView && mRoot.mRetainedViewCache != null) {
+                mRoot.mRetainedViewCache.put(screen.getId(), contentView);
             }
         }
     }
 
+    /**
+     * Displays the screen on top of the stack, and the screens below it that are covered by overlays, and hides the
+     * screens that were on display before the batch being applied and no longer are
+     */
     @MainThread
-    private void displayCurrentTopScreen() {
+    private void displayVisibleScreens() {
+
+        final int firstVisiblePosition = findFirstVisiblePosition(true);
+        ScreenEntry entry;
+        int position;
+        for (int i = 0; i < mDisplayedEntries.size(); i++) {
+            entry = mDisplayedEntries.get(i);
+            position = mScreenStack.positionOf(entry.id);
+            /* Popped screens were hidden as they were popped */
+            if (position >= 0 && position < firstVisiblePosition) {
+                hideEntry(entry, true);
+            }
+        }
+        mDisplayedEntries.clear();
 
-        if (!mScreenStack.isEmpty()) {
-            final Screen screen = mScreenStack.peek();
+        /* The views are kept in the order of the stack, so that each screen is drawn over the ones below it */
+        final int topPosition = mScreenStack.size() - 1;
+        int lastIndex = -1;
+        Screen screen;
+        for (position = firstVisiblePosition; position <= topPosition; position++) {
+            screen = mScreenStack.get(position).getScreen();
             if (screen.getContentView() == null) {
-                screen.setContentView(screen.createView(LayoutInflater.from(mContainer.getContext()), mContainer));
-                mContainer.addView(screen.getContentView());
-                screen.onShown();
+                mViewHost.attach(screen, mRoot.mRetainedViewCache, mRoot.mScreenViewPool);
+                if (position == topPosition) {
+                    prefetchNextLikelyRoute(screen.getRoute());
+                    scheduleWarming();
+                }
+            }
+            lastIndex = mViewHost.placeAbove(screen.getContentView(), lastIndex);
+            screen.moveToState(getVisibleState(position));
+        }
+    }
+
+    /**
+     * Gets the live screen for an entry, instantiating it if the entry is a placeholder
+     */
+    @MainThread
+    @NonNull
+    private Screen obtainScreen(@NonNull ScreenEntry entry) {
+
+        Screen screen = entry.getScreen();
+        if (screen == null) {
+            screen = newScreen(entry.route, entry.id, entry.getParams(), mNavigationTracer.getCurrentTiming());
+            entry.setScreen(screen);
+            screen.dispatchPushed();
+        }
+        return screen;
+    }
+
+    @MainThread
+    private void scheduleWarming() {
+
+        if (mNavigationPredictor != null && !mWarmingScheduled) {
+            mWarmingScheduled = true;
+            Looper.myQueue().addIdleHandler(mWarmingIdleHandler);
+        }
+    }
+
+    /**
+     * Prefetches the routes the {@link #mNavigationPredictor} expects after the screen on top, within its budget
+     */
+    @MainThread
+    private void warmLikelyScreens() {
+
+        final NavigationPredictor navigationPredictor = mNavigationPredictor;
+        final ScreenEntry topEntry = mScreenStack.peek();
+        if (navigationPredictor == null || topEntry == null) {
+            return;
+        }
+
+        /* The prefetcher is only started once there is something to warm */
+        final long usedBytes = mScreenPrefetcher == null ? 0L : mScreenPrefetcher.getEstimatedSizeInBytes();
+        final Set<String> warmRoutes = mScreenPrefetcher == null
+                ? Collections.<String>emptySet()
+                : mScreenPrefetcher.getPrefetchedRoutes();
+        final List<String> routes = navigationPredictor.selectWarmRoutes(topEntry.route, usedBytes,
+                RetainedViewCache.estimateSizeInBytes(mViewHost.getContainer()), warmRoutes);
+        if (routes.isEmpty()) {
+            return;
+        }
+        final ScreenPrefetcher screenPrefetcher = getScreenPrefetcher();
+        String route;
+        for (int i = 0; i < routes.size(); i++) {
+            route = routes.get(i);
+            if (!screenPrefetcher.isPrefetched(route)) {
+                screenPrefetcher.prefetch(route, null);
+            }
+            navigationPredictor.recordWarmed(route);
+        }
+    }
+
+    @MainThread
+    private void prefetchNextLikelyRoute(@NonNull String route) {
+
+        if (mRouteCreator instanceof PrefetchingRouteCreator) {
+            final String nextRoute = ((PrefetchingRouteCreator) mRouteCreator).getRouteToPrefetchAfter(route);
+            if (nextRoute != null && (mScreenPrefetcher == null || !mScreenPrefetcher.isPrefetched(nextRoute))) {
+                prefetch(nextRoute, null);
+            }
+        }
+    }
+
+    /**
+     * Finishes timing the navigation currently being applied
+     */
+    @MainThread
+    private void finishNavigation() {
+
+        final ScreenEntry topEntry = mScreenStack.peek();
+        mNavigationTracer.finish(topEntry == null ? null : topEntry.route);
+    }
+
+    /**
+     * Go back in the deepest router that can, starting with the child routers of the screen on top of this one.
+     * Call this from {@code onBackPressed()} of the activity
+     *
+     * @return {@code true} if a router went back, or {@code false} if every router is at its first screen, and the
+     * activity should handle the back press itself
+     */
+    @MainThread
+    public boolean handleBack() {
+
+        executePendingNavigations();
+        final ScreenEntry topEntry = mScreenStack.peek();
+        final Screen screen = topEntry == null ? null : topEntry.getScreen();
+        if (screen != null && screen.handleBackInChildRouters()) {
+            return true;
+        }
+        if (mScreenStack.size() > 1) {
+            goBack();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Get the router this is a child router of, or {@code null} if this is a root router
+     */
+    @Nullable
+    public Router getParentRouter() {
+        return mParent;
+    }
+
+    @NonNull
+    /* package */ RouteCreator getRouteCreator() {
+        return mRouteCreator;
+    }
+
+    /* package */ int getContainerId() {
+        return mContainerId;
+    }
+
+    /**
+     * Create a child router for a container in the view of one of the screens of this router
+     */
+    @MainThread
+    @NonNull
+    /* package */ Router createChildRouter(@NonNull FrameLayout container, int containerId, @NonNull RouteCreator routeCreator, @Nullable Bundle savedInstanceState) {
+
+        final Router childRouter = new Router(this, container, containerId, routeCreator, savedInstanceState);
+        mChildRouters.add(childRouter);
+        return childRouter;
+    }
+
+    /**
+     * Move the screens on display to a new container, when the view of the parent screen of a child router has been
+     * created again
+     */
+    @MainThread
+    /* package */ void attachContainer(@NonNull FrameLayout container) {
+
+        if (container == mViewHost.getContainer()) {
+            return;
+        }
+        mViewHost.finishTransition();
+        Screen screen;
+        for (int i = findFirstVisiblePosition(false); i < mScreenStack.size(); i++) {
+            screen = mScreenStack.get(i).getScreen();
+            if (screen != null && screen.getContentView() != null) {
+                mViewHost.moveView(screen.getContentView(), container);
             }
         }
+        mViewHost.setContainer(container);
+    }
+
+    /**
+     * Adds this router and all its descendants to a list, parents before their children
+     */
+    private void collectRouters(@NonNull List<Router> routers) {
+
+        routers.add(this);
+        for (int i = 0; i < mChildRouters.size(); i++) {
+            mChildRouters.get(i).collectRouters(routers);
+        }
+    }
 
+    private void throwIfChildRouter() {
+        if (mParent != null) {
+            throw new IllegalStateException("Child routers share the view caches of their root router!");
+        }
     }
 
     /**
@@ -487,22 +1927,102 @@ public class Router {
         }
     }
 
+    /**
+     * Plans the queued commands of a router, holding it weakly so that a plan posted to the planner thread does not
+     * keep a destroyed router alive
+     */
+    private static final class PlanRunnable implements Runnable {
+
+        @NonNull
+        private final WeakReference<Router> mRouter;
+
+        private PlanRunnable(@NonNull Router router) {
+            mRouter = new WeakReference<>(router);
+        }
+
+        @Override
+        public void run() {
+
+            final Router router = mRouter.get();
+            if (router == null) {
+                return;
+            }
+            router.mPlanScheduled.set(false);
+            synchronized (router.mPlanLock) {
+                router.planQueuedCommands();
+            }
+        }
+    }
+
+    /**
+     * Forwards memory pressure to a router, without keeping it from being garbage collected if it is never destroyed
+     */
+    @SuppressWarnings("NewApi")
+    private static final class MemoryCallbacks implements ComponentCallbacks2 {
+
+        @NonNull
+        private final WeakReference<Router> mRouter;
+
+        private MemoryCallbacks(@NonNull Router router) {
+            mRouter = new WeakReference<>(router);
+        }
+
+        @Override
+        public void onTrimMemory(int level) {
+
+            final Router router = mRouter.get();
+            if (router != null) {
+                router.trimMemory(level);
+            }
+        }
+
+        @Override
+        public void onLowMemory() {
+            onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_COMPLETE);
+        }
+
+        @Override
+        public void onConfigurationChanged(Configuration newConfig) {
+        }
+    }
+
     private static final class ScreenSavedState implements Parcelable {
 
         public final int screenId;
 
         public final String screenRoute;
 
+        /**
+         * The params of the screen, unless they only hold encoded {@link ScreenArgs}
+         */
         public final Bundle screenParams;
 
-        private ScreenSavedState(int screenId, String screenRoute, Bundle screenParams) {
+        /**
+         * The encoded args of the screen, if its params only hold those. They are saved as they are, without a Bundle
+         */
+        public final byte[] screenArgs;
+
+        /**
+         * The state saved by the screen, already serialized so that unchanged states are not parcelled again
+         */
+        public final ScreenState screenState;
+
+        private ScreenSavedState(int screenId, String screenRoute, Bundle screenParams, byte[] screenArgs, ScreenState screenState) {
             this.screenId = screenId;
             this.screenRoute = screenRoute;
             this.screenParams = screenParams;
+            this.screenArgs = screenArgs;
+            this.screenState = screenState;
         }
 
-        public static ScreenSavedState fromScreen(@NonNull Screen screen) {
-            return new ScreenSavedState(screen.getId(), screen.getRoute(), screen.getParams());
+        public static ScreenSavedState fromEntry(@NonNull ScreenEntry entry) {
+
+            final Bundle params = entry.getParams();
+            final byte[] args = ScreenArgsBundles.unwrap(params);
+            if (args != null && params.size() == 1) {
+                return new ScreenSavedState(entry.id, entry.route, null, args, entry.saveState());
+            }
+            return new ScreenSavedState(entry.id, entry.route, params, null, entry.saveState());
         }
 
         public static ScreenSavedState fromParcel(Parcel in) {
@@ -510,7 +2030,17 @@ public class Router {
             final int screenId = in.readInt();
             final String screenRoute = in.readString();
             final Bundle params = in.readBundle(ScreenSavedState.class.getClassLoader());
-            return new ScreenSavedState(screenId, screenRoute, params);
+            final byte[] args = in.createByteArray();
+            final ScreenState screenState = in.readInt() != 0 ? ScreenState.readFromParcel(in) : null;
+            return new ScreenSavedState(screenId, screenRoute, params, args, screenState);
+        }
+
+        /**
+         * Get the params to restore the screen with
+         */
+        @Nullable
+        public Bundle getParams() {
+            return screenArgs != null ? ScreenArgsBundles.wrap(screenArgs) : screenParams;
         }
 
         public static final Creator<ScreenSavedState> CREATOR = new Creator<ScreenSavedState>() {
@@ -535,6 +2065,13 @@ public class Router {
             dest.writeInt(screenId);
             dest.writeString(screenRoute);
             dest.writeBundle(screenParams);
+            dest.writeByteArray(screenArgs);
+            if (screenState != null) {
+                dest.writeInt(1);
+                screenState.writeToParcel(dest);
+            } else {
+                dest.writeInt(0);
+            }
         }
     }
 
@@ -551,14 +2088,29 @@ public class Router {
 
         private static SavedState from(@NonNull Router router) {
 
-            final int currentIdNumber = router.mScreenIdGenerator;
-            final ScreenSavedState[] screenSavedStates = new ScreenSavedState[router.mScreenStack.size()];
-            for (int i = 0; i < router.mScreenStack.size(); i++) {
-                screenSavedStates[i] = ScreenSavedState.fromScreen(router.mScreenStack.get(i));
+            final int currentIdNumber = router.mScreenIdGenerator.get();
+            final int stackSize = router.mScreenStack.size();
+
+            /* Saved states are ordered from the top of the stack to the bottom */
+            final ScreenSavedState[] screenSavedStates = new ScreenSavedState[stackSize];
+            for (int i = 0; i < stackSize; i++) {
+                screenSavedStates[i] = ScreenSavedState.fromEntry(router.mScreenStack.get(stackSize - 1 - i));
             }
             return new SavedState(currentIdNumber, screenSavedStates);
         }
 
+        private static SavedState unmarshall(@NonNull byte[] state) {
+
+            final Parcel parcel = Parcel.obtain();
+            try {
+                parcel.unmarshall(state, 0, state.length);
+                parcel.setDataPosition(0);
+                return SavedState.from(parcel);
+            } finally {
+                parcel.recycle();
+            }
+        }
+
         private static SavedState from(Parcel in) {
 
             return new SavedState(
@@ -589,6 +2141,18 @@ public class Router {
             dest.writeInt(currentIdNumber);
             dest.writeTypedArray(screenSavedStates, flags);
         }
+
+        @NonNull
+        private byte[] marshall() {
+
+            final Parcel parcel = Parcel.obtain();
+            try {
+                writeToParcel(parcel, 0);
+                return parcel.marshall();
+            } finally {
+                parcel.recycle();
+            }
+        }
     }
 
 
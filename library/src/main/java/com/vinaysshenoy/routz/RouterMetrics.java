@@ -0,0 +1,21 @@
+package com.vinaysshenoy.routz;
+
+import android.support.annotation.MainThread;
+import android.support.annotation.NonNull;
+
+/**
+ * Receives the timings of every navigation of a {@link Router}.
+ *
+ * @see Router#setRouterMetrics(RouterMetrics)
+ * @see HistogramRouterMetrics
+ */
+public interface RouterMetrics {
+
+    /**
+     * Called on the main thread once a navigation has been applied
+     *
+     * @param timing The timing of the navigation
+     */
+    @MainThread
+    void onNavigationTimed(@NonNull NavigationTiming timing);
+}
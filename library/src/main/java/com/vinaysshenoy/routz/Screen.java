@@ -1,20 +1,71 @@
 package com.vinaysshenoy.routz;
 
 import android.os.Bundle;
+import android.support.annotation.IdRes;
+import android.support.annotation.IntDef;
+import android.support.annotation.MainThread;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
+import android.widget.FrameLayout;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.ArrayList;
 
 /**
- * //TODO: Add a state variable that indicates the current state of the Screen
+ * A screen moves through the states {@link #STATE_INITIALIZED}, {@link #STATE_STOPPED}, {@link #STATE_STARTED},
+ * {@link #STATE_RESUMED} and finally {@link #STATE_DESTROYED}. It is only started while it is on display and the
+ * activity of its {@link Router} is started, and only resumed while the activity is resumed, so work like polling,
+ * animations and sensors should run between {@link #onStart()} and {@link #onStop()}, or {@link #onResume()} and
+ * {@link #onPause()}.
+ * <p/>
  * Created by vinaysshenoy on 21/12/15.
  */
 public abstract class Screen {
 
+    @Retention(RetentionPolicy.SOURCE)
+    @IntDef({STATE_INITIALIZED, STATE_STOPPED, STATE_STARTED, STATE_RESUMED, STATE_DESTROYED})
+    public @interface State {
+    }
+
+    /**
+     * The screen has been created, but not pushed on a stack yet
+     */
+    public static final int STATE_INITIALIZED = 0;
+
+    /**
+     * The screen is in the stack, but not on display, or the activity is stopped
+     */
+    public static final int STATE_STOPPED = 1;
+
+    /**
+     * The screen is on display, and the activity is started
+     */
+    public static final int STATE_STARTED = 2;
+
+    /**
+     * The screen is on display, and the activity is resumed
+     */
+    public static final int STATE_RESUMED = 3;
+
+    /**
+     * The screen has been popped, released to save memory, or its router destroyed
+     */
+    public static final int STATE_DESTROYED = 4;
+
+    /**
+     * The key the states of the child routers are saved under, in the state of the screen
+     */
+    private static final String KEY_CHILD_ROUTERS = "routz:child_routers";
+
     private View mContentView;
 
+    @Nullable
+    private View mPrefetchedView;
+
     private int mId;
 
     private Router mRouter;
@@ -22,10 +73,45 @@ public abstract class Screen {
     @Nullable
     private Bundle mParams;
 
+    /**
+     * The args decoded from {@link #mParams}, and the decoder they were decoded with
+     */
+    @Nullable
+    private ScreenArgs mArgs;
+
+    @Nullable
+    private ScreenArgs.Decoder<?> mArgsDecoder;
+
     private String mRoute;
 
+    @State
+    private int mState;
+
+    private boolean mStateTrackingEnabled;
+
+    private boolean mStateChanged;
+
+    /**
+     * The state of this screen, as of the last time it was saved or restored, if state tracking is enabled
+     */
+    @Nullable
+    private ScreenState mSavedState;
+
+    @Nullable
+    private ArrayList<Router> mChildRouters;
+
+    /**
+     * The saved states of the child routers that have not been created again since this screen was restored, by
+     * container id
+     */
+    @Nullable
+    private Bundle mChildRouterStates;
+
     public Screen(@Nullable Bundle params) {
         this.mParams = params;
+        this.mState = STATE_INITIALIZED;
+        this.mStateTrackingEnabled = false;
+        this.mStateChanged = true;
     }
 
     /* package */ void setRouter(@NonNull Router router) {
@@ -47,6 +133,49 @@ public abstract class Screen {
 
     }
 
+    /**
+     * Whether the view of this screen can be given to another screen once this one is popped, when the
+     * {@link Router} has a {@link ScreenViewPool} set. Screens that return {@code true} here should also
+     * override {@link #rebindView(View)}, since they will be given views used by other screens.
+     *
+     * @return {@code false} by default
+     */
+    public boolean canRecycleView() {
+        return false;
+    }
+
+    /**
+     * Whether this screen only covers part of the screen below it, like a dialog or a bottom sheet. The {@link Router}
+     * keeps the view of the screen below an overlay attached and started, so that it does not have to be created again
+     * when the overlay is popped.
+     *
+     * @return {@code false} by default
+     */
+    public boolean isOverlay() {
+        return false;
+    }
+
+    /**
+     * The key that the view of this screen is recycled under in a {@link ScreenViewPool}. Screens with the same key
+     * must create interchangeable views.
+     *
+     * @return The route of this screen by default
+     */
+    public String getViewPoolKey() {
+        return getRoute();
+    }
+
+    /**
+     * Called instead of {@link #createView(LayoutInflater, ViewGroup)} with a view recycled from a popped screen with
+     * the same {@link #getViewPoolKey() pool key}. Reset anything the previous screen left in the view that
+     * {@link #setupView()} does not set again.
+     * <p/>
+     * {@link #setupView()} is called after this, as it is for a newly created view.
+     */
+    public void rebindView(@NonNull View contentView) {
+
+    }
+
     /* package */ void setContentView(View contentView) {
         if (contentView == null) {
             throw new IllegalArgumentException("Content View cannot be null");
@@ -55,6 +184,27 @@ public abstract class Screen {
         setupView();
     }
 
+    /**
+     * Sets a view that was previously set up for this screen, without running {@link #setupView()} again
+     */
+    /* package */ void restoreContentView(@NonNull View contentView) {
+        mContentView = contentView;
+    }
+
+    /* package */ void setPrefetchedView(@NonNull View prefetchedView) {
+        mPrefetchedView = prefetchedView;
+    }
+
+    /**
+     * Takes the view that was inflated ahead of time for this screen, if any
+     */
+    @Nullable
+    /* package */ View takePrefetchedView() {
+        final View prefetchedView = mPrefetchedView;
+        mPrefetchedView = null;
+        return prefetchedView;
+    }
+
     /* package */ void clearView() {
         mContentView = null;
     }
@@ -65,6 +215,8 @@ public abstract class Screen {
 
     /* package */ void setParams(@Nullable Bundle params) {
         mParams = params;
+        mArgs = null;
+        mArgsDecoder = null;
     }
 
     public String getRoute() {
@@ -79,14 +231,192 @@ public abstract class Screen {
         return mRouter;
     }
 
+    /**
+     * Get a router for a container in the view of this screen, creating it the first time. Call this from
+     * {@link #setupView()}.
+     * <p/>
+     * A child router uses the {@link RouteCreator} of its parent. It shares the frame callback that applies the
+     * navigations of its parent, and the view caches of its root router, and it is saved, restored and destroyed
+     * along with this screen. When this screen's view is created again, the screen the child router has on display
+     * is moved to the container in the new view.
+     *
+     * @param containerId The id of a {@link FrameLayout} in the view of this screen
+     */
+    @MainThread
+    @NonNull
+    public Router getChildRouter(@IdRes int containerId) {
+        return getChildRouter(containerId, mRouter.getRouteCreator());
+    }
+
+    /**
+     * Get a router for a container in the view of this screen, creating it the first time with its own
+     * {@link RouteCreator}
+     *
+     * @see #getChildRouter(int)
+     */
+    @MainThread
+    @NonNull
+    public Router getChildRouter(@IdRes int containerId, @NonNull RouteCreator routeCreator) {
+
+        if (mContentView == null) {
+            throw new IllegalStateException("Child routers can only be created once the view is set up!");
+        }
+        final View container = mContentView.findViewById(containerId);
+        if (!(container instanceof FrameLayout)) {
+            throw new IllegalArgumentException("No FrameLayout with the container id in the view of the screen!");
+        }
+
+        if (mChildRouters == null) {
+            mChildRouters = new ArrayList<>(1);
+        }
+        Router childRouter;
+        for (int i = 0; i < mChildRouters.size(); i++) {
+            childRouter = mChildRouters.get(i);
+            if (childRouter.getContainerId() == containerId) {
+                childRouter.attachContainer((FrameLayout) container);
+                return childRouter;
+            }
+        }
+
+        final String key = String.valueOf(containerId);
+        final Bundle savedState = mChildRouterStates == null ? null : mChildRouterStates.getBundle(key);
+        if (savedState != null) {
+            mChildRouterStates.remove(key);
+        }
+        childRouter = mRouter.createChildRouter((FrameLayout) container, containerId, routeCreator, savedState);
+        childRouter.moveHostToState(mState == STATE_STARTED || mState == STATE_RESUMED ? mState : STATE_STOPPED);
+        mChildRouters.add(childRouter);
+        return childRouter;
+    }
+
+    /**
+     * Go back in the child routers of this screen, starting with the one created last
+     *
+     * @return {@code true} if a child router went back
+     */
+    @MainThread
+    /* package */ boolean handleBackInChildRouters() {
+
+        if (mChildRouters != null) {
+            for (int i = mChildRouters.size() - 1; i >= 0; i--) {
+                if (mChildRouters.get(i).handleBack()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    @MainThread
+    /* package */ void destroyChildRouters() {
+
+        if (mChildRouters != null) {
+            for (int i = 0; i < mChildRouters.size(); i++) {
+                mChildRouters.get(i).onDestroy();
+            }
+            mChildRouters = null;
+        }
+    }
+
+    /**
+     * Save the state of this screen. This is called whenever the {@link Router} saves its state, unless state
+     * tracking is enabled and the state has not changed since it was last saved.
+     * <p/>
+     * Save plain data only. The state may be written out by a {@link StateStore} and read back by a later version
+     * of the app, so it should not hold binders, file descriptors or custom Parcelables whose format may change.
+     * A state holding binders or file descriptors is still kept, but only in the saved instance state of the activity
+     *
+     * @see #setStateTrackingEnabled(boolean)
+     */
     public void onSaveState(@NonNull Bundle savedInstanceState) {
 
     }
 
+    /**
+     * Restore the state saved by {@link #onSaveState(Bundle)}. This is called before {@link #onPushed()}, when
+     * a screen is recreated from a saved backstack
+     */
     public void restoreState(@NonNull Bundle savedInstanceState) {
 
     }
 
+    /**
+     * Enable tracking changes to the state of this screen.
+     * <p/>
+     * When enabled, the state saved by {@link #onSaveState(Bundle)} is kept in its serialized form, and reused
+     * every time the {@link Router} saves its state until {@link #notifyStateChanged()} is called. Screens with
+     * large states that rarely change should enable this.
+     */
+    public void setStateTrackingEnabled(boolean stateTrackingEnabled) {
+        mStateTrackingEnabled = stateTrackingEnabled;
+        if (!stateTrackingEnabled) {
+            mSavedState = null;
+            mStateChanged = true;
+        }
+    }
+
+    public boolean isStateTrackingEnabled() {
+        return mStateTrackingEnabled;
+    }
+
+    /**
+     * Mark the state of this screen as changed, so that {@link #onSaveState(Bundle)} is called the next time
+     * the {@link Router} saves its state. Only needed if state tracking is enabled
+     */
+    public void notifyStateChanged() {
+        mStateChanged = true;
+    }
+
+    /**
+     * Gets the state of this screen, calling {@link #onSaveState(Bundle)} only if needed. The states of
+     * child routers change on their own, so a screen with child routers is always saved again
+     *
+     * @return The state, or {@code null} if the screen has nothing to save
+     */
+    @Nullable
+    /* package */ ScreenState saveState() {
+
+        final boolean hasChildRouters = mChildRouters != null && !mChildRouters.isEmpty();
+        if (mStateTrackingEnabled && !mStateChanged && !hasChildRouters) {
+            return mSavedState;
+        }
+
+        final Bundle savedInstanceState = new Bundle();
+        onSaveState(savedInstanceState);
+        if (hasChildRouters) {
+            final Bundle childRouterStates = new Bundle();
+            Router childRouter;
+            Bundle childRouterState;
+            for (int i = 0; i < mChildRouters.size(); i++) {
+                childRouter = mChildRouters.get(i);
+                childRouterState = new Bundle();
+                childRouter.saveState(childRouterState);
+                childRouterStates.putBundle(String.valueOf(childRouter.getContainerId()), childRouterState);
+            }
+            savedInstanceState.putBundle(KEY_CHILD_ROUTERS, childRouterStates);
+        }
+        final ScreenState savedState = savedInstanceState.isEmpty() ? null : ScreenState.from(savedInstanceState);
+        if (mStateTrackingEnabled) {
+            mSavedState = savedState;
+            mStateChanged = false;
+        }
+        return savedState;
+    }
+
+    /* package */ void restoreState(@NonNull ScreenState savedState) {
+
+        final Bundle savedInstanceState = savedState.toBundle(getClass().getClassLoader());
+        if (savedInstanceState != null) {
+            mChildRouterStates = savedInstanceState.getBundle(KEY_CHILD_ROUTERS);
+            savedInstanceState.remove(KEY_CHILD_ROUTERS);
+            restoreState(savedInstanceState);
+            if (mStateTrackingEnabled) {
+                mSavedState = savedState;
+                mStateChanged = false;
+            }
+        }
+    }
+
     public void onPushed() {
 
     }
@@ -95,6 +425,137 @@ public abstract class Screen {
 
     }
 
+    /**
+     * Called when this screen is released to save memory while it is still in the stack, after its state is saved.
+     * The screen is then destroyed, and a new screen is created for its place in the stack, and restored from the
+     * saved state, when it is displayed again. Undo the work of {@link #onPushed()} here
+     */
+    public void onReleased() {
+
+    }
+
+    /**
+     * Called when this screen is on display and the activity is started, after {@link #onShown()}
+     */
+    public void onStart() {
+
+    }
+
+    /**
+     * Called when this screen is started and the activity is resumed, and no overlay is on top of it
+     */
+    public void onResume() {
+
+    }
+
+    /**
+     * Called when the activity is paused, when an overlay is shown on top of this screen, or before it is hidden
+     */
+    public void onPause() {
+
+    }
+
+    /**
+     * Called when the activity is stopped, or before this screen is hidden. Stop any work that only matters while the
+     * screen is visible here
+     */
+    public void onStop() {
+
+    }
+
+    /**
+     * Get the current state of this screen. One of {@link #STATE_INITIALIZED}, {@link #STATE_STOPPED},
+     * {@link #STATE_STARTED}, {@link #STATE_RESUMED} or {@link #STATE_DESTROYED}
+     */
+    @State
+    public int getState() {
+        return mState;
+    }
+
+    /**
+     * Calls {@link #onPushed()}, moving a new screen to {@link #STATE_STOPPED}. A screen that is pushed again after
+     * being moved keeps its state
+     */
+    /* package */ void dispatchPushed() {
+
+        if (mState == STATE_INITIALIZED) {
+            mState = STATE_STOPPED;
+        }
+        onPushed();
+    }
+
+    /**
+     * Stops the screen if needed, and calls {@link #onPopped()}, moving it to {@link #STATE_DESTROYED}
+     */
+    /* package */ void dispatchPopped() {
+
+        moveToState(STATE_STOPPED);
+        onPopped();
+        mState = STATE_DESTROYED;
+    }
+
+    /**
+     * Stops the screen if needed, and calls {@link #onReleased()}, moving it to {@link #STATE_DESTROYED}
+     */
+    /* package */ void dispatchReleased() {
+
+        moveToState(STATE_STOPPED);
+        onReleased();
+        mState = STATE_DESTROYED;
+    }
+
+    /**
+     * Moves the screen to a state, by calling the callbacks of every state in between. The child routers of the
+     * screen follow it, starting after it and stopping before it
+     *
+     * @param state One of {@link #STATE_STOPPED}, {@link #STATE_STARTED} or {@link #STATE_RESUMED}
+     */
+    /* package */ void moveToState(@State int state) {
+
+        if (mState == STATE_INITIALIZED || mState == STATE_DESTROYED || mState == state) {
+            return;
+        }
+
+        if (state < mState) {
+            moveChildRoutersToState(state);
+        }
+        while (mState < state) {
+            mState++;
+            if (mState == STATE_STARTED) {
+                onStart();
+            } else {
+                onResume();
+            }
+        }
+        while (mState > state) {
+            mState--;
+            if (mState == STATE_STARTED) {
+                onPause();
+            } else {
+                onStop();
+            }
+        }
+        if (state > STATE_STOPPED) {
+            moveChildRoutersToState(state);
+        }
+    }
+
+    /**
+     * Marks the screen as destroyed along with its router, without calling {@link #onPopped()}
+     */
+    /* package */ void markDestroyed() {
+        mState = STATE_DESTROYED;
+    }
+
+    private void moveChildRoutersToState(@State int state) {
+
+        if (mChildRouters != null) {
+            for (int i = 0; i < mChildRouters.size(); i++) {
+                mChildRouters.get(i).moveHostToState(state);
+            }
+        }
+    }
+
     public void onShown() {
 
     }
@@ -103,11 +564,33 @@ public abstract class Screen {
 
     }
 
+    /**
+     * Get the params of this screen. For a screen loaded with {@link ScreenArgs}, these hold the encoded args
+     *
+     * @see ScreenArgsBundles
+     */
     @Nullable
     public Bundle getParams() {
         return mParams;
     }
 
+    /**
+     * Get the args this screen was loaded with. They are decoded the first time, and kept for later calls with the
+     * same decoder
+     *
+     * @return The args, or {@code null} if the screen was not loaded with any
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public <T extends ScreenArgs> T getArgs(@NonNull ScreenArgs.Decoder<T> decoder) {
+
+        if (mArgsDecoder != decoder) {
+            mArgs = ScreenArgsBundles.fromBundle(mParams, decoder);
+            mArgsDecoder = decoder;
+        }
+        return (T) mArgs;
+    }
+
     public int getId() {
         return mId;
     }
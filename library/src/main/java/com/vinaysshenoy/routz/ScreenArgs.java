@@ -0,0 +1,48 @@
+package com.vinaysshenoy.routz;
+
+import android.support.annotation.NonNull;
+
+/**
+ * Typed arguments for a screen, as an alternative to params in a {@link android.os.Bundle}.
+ * <p/>
+ * Args are written once, to a flat binary form, when the screen is loaded with
+ * {@link Router#loadWithArgs(String, ScreenArgs)}. The router keeps and saves only those bytes, and the screen reads
+ * them back with {@link Screen#getArgs(Decoder)}. Fields must be read in the order they were written:
+ * <pre>
+ * public final class ProductArgs implements ScreenArgs {
+ *
+ *     public static final Decoder&lt;ProductArgs&gt; DECODER = new Decoder&lt;ProductArgs&gt;() {
+ *         public ProductArgs readFrom(ArgsReader reader) {
+ *             return new ProductArgs(reader.readLong(), reader.readString());
+ *         }
+ *     };
+ *
+ *     public final long productId;
+ *
+ *     public final String title;
+ *
+ *     public void writeTo(ArgsWriter writer) {
+ *         writer.writeLong(productId);
+ *         writer.writeString(title);
+ *     }
+ * }
+ * </pre>
+ *
+ * @see ScreenArgsBundles
+ */
+public interface ScreenArgs {
+
+    /**
+     * Write the fields of these args, in the order the {@link Decoder} reads them
+     */
+    void writeTo(@NonNull ArgsWriter writer);
+
+    /**
+     * Reads one type of args back from the bytes written by {@link ScreenArgs#writeTo(ArgsWriter)}
+     */
+    interface Decoder<T extends ScreenArgs> {
+
+        @NonNull
+        T readFrom(@NonNull ArgsReader reader);
+    }
+}
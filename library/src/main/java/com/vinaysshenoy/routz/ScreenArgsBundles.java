@@ -0,0 +1,55 @@
+package com.vinaysshenoy.routz;
+
+import android.os.Bundle;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+/**
+ * Moves {@link ScreenArgs} in and out of {@link Bundle} params, for code that has not moved to args yet.
+ * <p/>
+ * A screen loaded with args is also given params, with the encoded args as their only entry. The args can be read
+ * from those params with {@link #fromBundle(Bundle, ScreenArgs.Decoder)}, in the constructor of the screen, or by a
+ * {@link RouteCreator}. In the other direction, args put in a Bundle with {@link #toBundle(ScreenArgs)} can be passed
+ * as params anywhere, and read by {@link Screen#getArgs(ScreenArgs.Decoder)}.
+ */
+public final class ScreenArgsBundles {
+
+    /**
+     * The key the encoded args are kept under, in the params
+     */
+    public static final String KEY_ARGS = "routz:args";
+
+    private ScreenArgsBundles() {
+
+    }
+
+    @NonNull
+    public static Bundle toBundle(@NonNull ScreenArgs args) {
+        return wrap(ArgsWriter.encode(args));
+    }
+
+    /**
+     * Read args from params, if they were put there
+     *
+     * @return The args, or {@code null} if there are none in the params
+     */
+    @Nullable
+    public static <T extends ScreenArgs> T fromBundle(@Nullable Bundle params, @NonNull ScreenArgs.Decoder<T> decoder) {
+
+        final byte[] encoded = unwrap(params);
+        return encoded == null ? null : ArgsReader.decode(encoded, decoder);
+    }
+
+    @NonNull
+    /* package */ static Bundle wrap(@NonNull byte[] encoded) {
+
+        final Bundle params = new Bundle(1);
+        params.putByteArray(KEY_ARGS, encoded);
+        return params;
+    }
+
+    @Nullable
+    /* package */ static byte[] unwrap(@Nullable Bundle params) {
+        return params == null ? null : params.getByteArray(KEY_ARGS);
+    }
+}
@@ -0,0 +1,119 @@
+package com.vinaysshenoy.routz;
+
+import android.os.Bundle;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+/**
+ * An entry in the backstack of a {@link Router}.
+ * <p/>
+ * An entry either holds a live {@link Screen}, or is a placeholder that only knows the id, route and params of
+ * its screen. A placeholder is turned into a live screen through the {@link RouteCreator} when it reaches the
+ * top of the stack, so that restoring a deep backstack does not instantiate every screen in it. Live entries below
+ * the top can be released back into placeholders when memory is low.
+ */
+/* package */ final class ScreenEntry {
+
+    /* package */ final int id;
+
+    @NonNull
+    /* package */ final String route;
+
+    @Nullable
+    private Bundle mParams;
+
+    @Nullable
+    private Screen mScreen;
+
+    /**
+     * The saved state of a placeholder's screen, to be restored when it is instantiated
+     */
+    @Nullable
+    private ScreenState mSavedState;
+
+    private ScreenEntry(int id, @NonNull String route, @Nullable Bundle params, @Nullable Screen screen, @Nullable ScreenState savedState) {
+        this.id = id;
+        this.route = route;
+        mParams = params;
+        mScreen = screen;
+        mSavedState = savedState;
+    }
+
+    /* package */ static ScreenEntry forScreen(@NonNull Screen screen) {
+        return new ScreenEntry(screen.getId(), screen.getRoute(), screen.getParams(), screen, null);
+    }
+
+    /* package */ static ScreenEntry placeholder(int id, @NonNull String route, @Nullable Bundle params, @Nullable ScreenState savedState) {
+        return new ScreenEntry(id, route, params, null, savedState);
+    }
+
+    /**
+     * Get the live screen of this entry, or {@code null} if it is a placeholder
+     */
+    @Nullable
+    /* package */ Screen getScreen() {
+        return mScreen;
+    }
+
+    /**
+     * Sets the live screen for a placeholder, restoring its saved state if there is any
+     */
+    /* package */ void setScreen(@NonNull Screen screen) {
+        mScreen = screen;
+        if (mSavedState != null) {
+            screen.restoreState(mSavedState);
+            mSavedState = null;
+        }
+    }
+
+    /* package */ boolean isPlaceholder() {
+        return mScreen == null;
+    }
+
+    /**
+     * Whether the view of the screen is attached to the container of the router
+     */
+    /* package */ boolean isOnDisplay() {
+        return mScreen != null && mScreen.getContentView() != null;
+    }
+
+    @Nullable
+    /* package */ Bundle getParams() {
+        return mScreen != null ? mScreen.getParams() : mParams;
+    }
+
+    /**
+     * Get the saved state of the screen, saving the state of a live screen if needed
+     */
+    @Nullable
+    /* package */ ScreenState saveState() {
+        return mScreen != null ? mScreen.saveState() : mSavedState;
+    }
+
+    /**
+     * Release the live screen of this entry, turning it back into a placeholder that keeps the saved state of
+     * the screen, so that it can be created again later. The child routers of the screen are saved with it, and
+     * destroyed, and then the screen is released. The screen must not be on display
+     *
+     * @return The size of the serialized state kept for the screen
+     */
+    /* package */ int release() {
+
+        if (mScreen == null) {
+            return 0;
+        }
+        mSavedState = mScreen.saveState();
+        mScreen.destroyChildRouters();
+        mScreen.dispatchReleased();
+        mParams = mScreen.getParams();
+        mScreen = null;
+        return mSavedState == null ? 0 : mSavedState.size();
+    }
+
+    /* package */ void setParams(@Nullable Bundle params) {
+        mParams = params;
+        if (mScreen != null) {
+            mScreen.setParams(params);
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package com.vinaysshenoy.routz;
+
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Process;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Set;
+
+/**
+ * Instantiates screens and inflates their views on a background thread, ahead of them being loaded.
+ * <p/>
+ * Prefetching is best effort. If the screen cannot be created or its view cannot be inflated off the
+ * main thread, nothing is kept and the screen is created as usual when it is loaded.
+ */
+/* package */ final class ScreenPrefetcher {
+
+    /**
+     * The maximum number of prefetched screens kept around at any time
+     */
+    private static final int MAX_PREFETCHED_SCREENS = 3;
+
+    @NonNull
+    private final RouteCreator mRouteCreator;
+
+    @NonNull
+    private final ViewGroup mContainer;
+
+    @NonNull
+    private final HandlerThread mInflaterThread;
+
+    @NonNull
+    private final Handler mInflaterHandler;
+
+    /**
+     * Prefetched screens, keyed by route, in the order they were prefetched
+     */
+    private final LinkedHashMap<String, PrefetchedScreen> mPrefetchedScreens;
+
+    /**
+     * The routes posted to the inflater thread that have not been prefetched yet
+     */
+    private final HashSet<String> mPendingRoutes;
+
+    /**
+     * Bumped whenever the prefetched screens are dropped, so that prefetches already running are not kept
+     */
+    private int mGeneration;
+
+    private boolean mQuit;
+
+    /* package */ ScreenPrefetcher(@NonNull RouteCreator routeCreator, @NonNull ViewGroup container) {
+        mRouteCreator = routeCreator;
+        mContainer = container;
+        mPrefetchedScreens = new LinkedHashMap<>();
+        mPendingRoutes = new HashSet<>();
+        mInflaterThread = new HandlerThread("routz-inflater", Process.THREAD_PRIORITY_BACKGROUND);
+        mInflaterThread.start();
+        mInflaterHandler = new Handler(mInflaterThread.getLooper());
+    }
+
+    /**
+     * Prefetch a route, unless it is already being prefetched, or was prefetched with the same params
+     */
+    /* package */ void prefetch(@NonNull final String route, @Nullable final Bundle params) {
+
+        final int generation;
+        synchronized (this) {
+            final PrefetchedScreen prefetchedScreen = mPrefetchedScreens.get(route);
+            if (mQuit || mPendingRoutes.contains(route) || (prefetchedScreen != null && isSameParams(prefetchedScreen.params, params))) {
+                return;
+            }
+            mPendingRoutes.add(route);
+            generation = mGeneration;
+        }
+        mInflaterHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                final PrefetchedScreen prefetchedScreen = createPrefetchedScreen(route, params);
+                store(route, generation, prefetchedScreen);
+            }
+        });
+    }
+
+    @Nullable
+    private PrefetchedScreen createPrefetchedScreen(@NonNull String route, @Nullable Bundle params) {
+
+        try {
+            final Screen screen = mRouteCreator.instantiateScreenForRoute(route, params);
+            if (screen == null) {
+                return null;
+            }
+            final View view = screen.createView(LayoutInflater.from(mContainer.getContext()), mContainer);
+            if (view == null) {
+                return null;
+            }
+            return new PrefetchedScreen(params, screen, view);
+        } catch (RuntimeException e) {
+            // Not every screen can be built off the main thread. It will be created when it is loaded
+            return null;
+        }
+    }
+
+    /**
+     * Keeps a prefetched screen, unless the prefetched screens were dropped since it was posted
+     */
+    private synchronized void store(@NonNull String route, int generation, @Nullable PrefetchedScreen prefetchedScreen) {
+
+        if (mQuit || generation != mGeneration) {
+            return;
+        }
+        mPendingRoutes.remove(route);
+        if (prefetchedScreen == null) {
+            return;
+        }
+        mPrefetchedScreens.remove(route);
+        mPrefetchedScreens.put(route, prefetchedScreen);
+        if (mPrefetchedScreens.size() > MAX_PREFETCHED_SCREENS) {
+            final Iterator<String> iterator = mPrefetchedScreens.keySet().iterator();
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Whether a route is prefetched, or is being prefetched
+     */
+    /* package */ synchronized boolean isPrefetched(@NonNull String route) {
+        return mPrefetchedScreens.containsKey(route) || mPendingRoutes.contains(route);
+    }
+
+    /**
+     * Takes the prefetched screen for a route, if one was prefetched with the same params
+     *
+     * @return The prefetched screen, with its view set as the prefetched view, or {@code null}
+     */
+    @Nullable
+    /* package */ synchronized Screen take(@NonNull String route, @Nullable Bundle params) {
+
+        final PrefetchedScreen prefetchedScreen = mPrefetchedScreens.get(route);
+        if (prefetchedScreen == null || !isSameParams(prefetchedScreen.params, params)) {
+            return null;
+        }
+        mPrefetchedScreens.remove(route);
+        prefetchedScreen.screen.setPrefetchedView(prefetchedScreen.view);
+        return prefetchedScreen.screen;
+    }
+
+    /* package */ synchronized int getPrefetchedCount() {
+        return mPrefetchedScreens.size();
+    }
+
+    /**
+     * Get the routes that are prefetched, or are being prefetched
+     */
+    @NonNull
+    /* package */ synchronized Set<String> getPrefetchedRoutes() {
+
+        final HashSet<String> routes = new HashSet<>(mPrefetchedScreens.keySet());
+        routes.addAll(mPendingRoutes);
+        return routes;
+    }
+
+    /**
+     * Get the estimated size of the views of all the prefetched screens, and of the ones being prefetched. Views that
+     * were not laid out yet are taken to fill the container
+     */
+    /* package */ synchronized long getEstimatedSizeInBytes() {
+
+        final long containerSizeInBytes = RetainedViewCache.estimateSizeInBytes(mContainer);
+        long sizeInBytes = mPendingRoutes.size() * containerSizeInBytes;
+        View view;
+        for (PrefetchedScreen prefetchedScreen : mPrefetchedScreens.values()) {
+            view = prefetchedScreen.view;
+            sizeInBytes += view.getWidth() > 0 && view.getHeight() > 0
+                    ? RetainedViewCache.estimateSizeInBytes(view)
+                    : containerSizeInBytes;
+        }
+        return sizeInBytes;
+    }
+
+    /* package */ synchronized void clear() {
+        mGeneration++;
+        mPendingRoutes.clear();
+        mPrefetchedScreens.clear();
+    }
+
+    /* package */ void quit() {
+
+        synchronized (this) {
+            mQuit = true;
+        }
+        mInflaterHandler.removeCallbacksAndMessages(null);
+        mInflaterThread.quit();
+        clear();
+    }
+
+    private static boolean isSameParams(@Nullable Bundle first, @Nullable Bundle second) {
+
+        if (first == second) {
+            return true;
+        }
+
+        final boolean firstEmpty = first == null || first.isEmpty();
+        final boolean secondEmpty = second == null || second.isEmpty();
+        if (firstEmpty || secondEmpty) {
+            return firstEmpty && secondEmpty;
+        }
+
+        if (first.size() != second.size()) {
+            return false;
+        }
+        for (String key : first.keySet()) {
+            if (!second.containsKey(key) || !isSameValue(first.get(key), second.get(key))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Compares params values, arrays and nested bundles by their contents
+     */
+    private static boolean isSameValue(@Nullable Object first, @Nullable Object second) {
+
+        if (first == second) {
+            return true;
+        }
+        if (first == null || second == null) {
+            return false;
+        }
+        if (first instanceof Bundle && second instanceof Bundle) {
+            return isSameParams((Bundle) first, (Bundle) second);
+        }
+        if (first.getClass().isArray() && second.getClass().isArray()) {
+            return Arrays.deepEquals(new Object[]{first}, new Object[]{second});
+        }
+        return first.equals(second);
+    }
+
+    private static final class PrefetchedScreen {
+
+        @Nullable
+        public final Bundle params;
+
+        @NonNull
+        public final Screen screen;
+
+        @NonNull
+        public final View view;
+
+        private PrefetchedScreen(@Nullable Bundle params, @NonNull Screen screen, @NonNull View view) {
+            this.params = params;
+            this.screen = screen;
+            this.view = view;
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package com.vinaysshenoy.routz;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The backstack of a {@link Router}.
+ * <p/>
+ * Screen entries are kept in an array, from the bottom of the stack at position {@code 0} to the top at
+ * position {@code size() - 1}, along with indexes to find the position of a screen by its id or by its
+ * route in constant time. Pushing and popping keep the indexes up to date in constant time.
+ * <p/>
+ * The {@link BackstackSnapshot} for each position is kept too, so that a snapshot of the stack can be taken
+ * without copying it.
+ */
+/* package */ final class ScreenStack implements NavigationEngine.Backstack {
+
+    private static final int INITIAL_CAPACITY = 8;
+
+    private static final int NO_POSITION = -1;
+
+    @NonNull
+    private ScreenEntry[] mEntries;
+
+    /**
+     * For the screen at each position, the position of the next screen below it with the same route
+     */
+    @NonNull
+    private int[] mBelowWithSameRoute;
+
+    /**
+     * For each position, the snapshot of the stack from that position down to the bottom
+     */
+    @NonNull
+    private BackstackSnapshot[] mSnapshots;
+
+    private int mSize;
+
+    @NonNull
+    private final IntIntMap mPositionsById;
+
+    @NonNull
+    private final HashMap<String, RouteIndex> mRouteIndexes;
+
+    /* package */ ScreenStack() {
+        mEntries = new ScreenEntry[INITIAL_CAPACITY];
+        mBelowWithSameRoute = new int[INITIAL_CAPACITY];
+        mSnapshots = new BackstackSnapshot[INITIAL_CAPACITY];
+        mSize = 0;
+        mPositionsById = new IntIntMap();
+        mRouteIndexes = new HashMap<>();
+    }
+
+    @Override
+    public int size() {
+        return mSize;
+    }
+
+    /* package */ boolean isEmpty() {
+        return mSize == 0;
+    }
+
+    /**
+     * Get the entry at a position, where {@code 0} is the bottom of the stack
+     */
+    @NonNull
+    /* package */ ScreenEntry get(int position) {
+
+        if (position < 0 || position >= mSize) {
+            throw new IndexOutOfBoundsException("Position: " + position + ", Size: " + mSize);
+        }
+        return mEntries[position];
+    }
+
+    /**
+     * Get the entry on top of the stack, or {@code null} if the stack is empty
+     */
+    @Nullable
+    /* package */ ScreenEntry peek() {
+        return mSize == 0 ? null : mEntries[mSize - 1];
+    }
+
+    @Override
+    public int getScreenId(int position) {
+        return get(position).id;
+    }
+
+    @NonNull
+    @Override
+    public String getRoute(int position) {
+        return get(position).route;
+    }
+
+    /**
+     * Get the position of the screen with the given id, or {@code -1} if it is not in the stack
+     */
+    @Override
+    public int positionOf(int screenId) {
+        return mPositionsById.get(screenId, NO_POSITION);
+    }
+
+    /**
+     * Get the position of the topmost screen with the given route, or {@code -1} if there is none
+     */
+    @Override
+    public int topPositionOf(@NonNull String route) {
+
+        final RouteIndex routeIndex = mRouteIndexes.get(route);
+        return routeIndex == null ? NO_POSITION : routeIndex.topPosition;
+    }
+
+    @Override
+    public int positionBelowWithSameRoute(int position) {
+
+        if (position < 0 || position >= mSize) {
+            throw new IndexOutOfBoundsException("Position: " + position + ", Size: " + mSize);
+        }
+        return mBelowWithSameRoute[position];
+    }
+
+    /**
+     * Get a snapshot of the stack as it is now, indexed by route for the lookups of other threads
+     */
+    @NonNull
+    /* package */ BackstackSnapshot snapshot() {
+
+        final BackstackSnapshot snapshot = topSnapshot();
+        if (mSize > 0 && !snapshot.isIndexed()) {
+            final HashMap<String, BackstackSnapshot> topByRoute = new HashMap<>(mRouteIndexes.size() * 2);
+            for (Map.Entry<String, RouteIndex> routeIndex : mRouteIndexes.entrySet()) {
+                topByRoute.put(routeIndex.getKey(), mSnapshots[routeIndex.getValue().topPosition]);
+            }
+            snapshot.setTopByRoute(topByRoute);
+        }
+        return snapshot;
+    }
+
+    @NonNull
+    private BackstackSnapshot topSnapshot() {
+        return mSize == 0 ? BackstackSnapshot.EMPTY : mSnapshots[mSize - 1];
+    }
+
+    /* package */ void push(@NonNull ScreenEntry entry) {
+
+        if (mSize == mEntries.length) {
+            grow();
+        }
+        mEntries[mSize] = entry;
+        index(mSize);
+        mSnapshots[mSize] = new BackstackSnapshot(entry.id, entry.route, topSnapshot());
+        mSize++;
+    }
+
+    /**
+     * Remove the entry on top of the stack
+     *
+     * @return The entry that was removed, or {@code null} if the stack is empty
+     */
+    @Nullable
+    /* package */ ScreenEntry pop() {
+
+        if (mSize == 0) {
+            return null;
+        }
+
+        final int position = mSize - 1;
+        final ScreenEntry entry = mEntries[position];
+        mPositionsById.remove(entry.id);
+        final RouteIndex routeIndex = mRouteIndexes.get(entry.route);
+        routeIndex.topPosition = mBelowWithSameRoute[position];
+        if (--routeIndex.count == 0) {
+            mRouteIndexes.remove(entry.route);
+        }
+        mEntries[position] = null;
+        mSnapshots[position] = null;
+        mSize--;
+        return entry;
+    }
+
+    /* package */ void clear() {
+
+        for (int i = 0; i < mSize; i++) {
+            mEntries[i] = null;
+            mSnapshots[i] = null;
+        }
+        mSize = 0;
+        mPositionsById.clear();
+        mRouteIndexes.clear();
+    }
+
+    private void grow() {
+
+        final int capacity = mEntries.length * 2;
+        final ScreenEntry[] entries = new ScreenEntry[capacity];
+        System.arraycopy(mEntries, 0, entries, 0, mSize);
+        final int[] belowWithSameRoute = new int[capacity];
+        System.arraycopy(mBelowWithSameRoute, 0, belowWithSameRoute, 0, mSize);
+        final BackstackSnapshot[] snapshots = new BackstackSnapshot[capacity];
+        System.arraycopy(mSnapshots, 0, snapshots, 0, mSize);
+        mEntries = entries;
+        mBelowWithSameRoute = belowWithSameRoute;
+        mSnapshots = snapshots;
+    }
+
+    private void index(int position) {
+
+        final ScreenEntry entry = mEntries[position];
+        mPositionsById.put(entry.id, position);
+        RouteIndex routeIndex = mRouteIndexes.get(entry.route);
+        if (routeIndex == null) {
+            routeIndex = new RouteIndex();
+            mRouteIndexes.put(entry.route, routeIndex);
+        }
+        mBelowWithSameRoute[position] = routeIndex.topPosition;
+        routeIndex.topPosition = position;
+        routeIndex.count++;
+    }
+
+    private static final class RouteIndex {
+
+        public int topPosition = NO_POSITION;
+
+        public int count = 0;
+    }
+}
@@ -0,0 +1,67 @@
+package com.vinaysshenoy.routz;
+
+import android.os.Bundle;
+import android.os.Parcel;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+/**
+ * The state saved by a {@link Screen}.
+ * <p/>
+ * The state is kept serialized, so that an unchanged state is not parcelled again. A state that cannot be
+ * serialized, because it holds binders or file descriptors, is kept in its Bundle instead. The router can then only
+ * save it in the saved instance state of the activity, and not in a {@link StateStore}.
+ */
+/* package */ final class ScreenState {
+
+    @Nullable
+    private final byte[] mBytes;
+
+    @Nullable
+    private final Bundle mBundle;
+
+    private ScreenState(@Nullable byte[] bytes, @Nullable Bundle bundle) {
+        mBytes = bytes;
+        mBundle = bundle;
+    }
+
+    @NonNull
+    /* package */ static ScreenState from(@NonNull Bundle savedInstanceState) {
+
+        try {
+            return new ScreenState(Parcels.marshall(savedInstanceState), null);
+        } catch (RuntimeException e) {
+            return new ScreenState(null, savedInstanceState);
+        }
+    }
+
+    @Nullable
+    /* package */ Bundle toBundle(@Nullable ClassLoader classLoader) {
+
+        if (mBytes != null) {
+            return Parcels.unmarshallBundle(mBytes, classLoader);
+        }
+        mBundle.setClassLoader(classLoader);
+        return mBundle;
+    }
+
+    /**
+     * Get the size of the serialized state, or {@code 0} if it could not be serialized
+     */
+    /* package */ int size() {
+        return mBytes == null ? 0 : mBytes.length;
+    }
+
+    /* package */ void writeToParcel(@NonNull Parcel dest) {
+        dest.writeByteArray(mBytes);
+        dest.writeBundle(mBundle);
+    }
+
+    @NonNull
+    /* package */ static ScreenState readFromParcel(@NonNull Parcel in) {
+
+        final byte[] bytes = in.createByteArray();
+        final Bundle bundle = in.readBundle(ScreenState.class.getClassLoader());
+        return new ScreenState(bytes, bundle);
+    }
+}
@@ -0,0 +1,131 @@
+package com.vinaysshenoy.routz;
+
+import android.support.annotation.NonNull;
+import android.support.v4.view.ViewCompat;
+import android.support.v4.view.ViewPropertyAnimatorCompat;
+import android.view.View;
+import android.view.ViewGroup;
+
+/**
+ * Animates the views of two screens when one replaces the other on display, set with
+ * {@link Router#setScreenTransition(ScreenTransition)}.
+ * <p/>
+ * Transitions only describe the animations. The router runs them with hardware layers on the views, and owns the
+ * animators, so that a navigation that arrives while a transition is running fast-forwards it to its end instead of
+ * waiting for it. The view that exits is detached as soon as its animation ends or is fast-forwarded.
+ * <p/>
+ * Every property a transition animates must be put back to its resting value by {@link #resetView(View)}, since
+ * views are reused when they are retained or recycled.
+ */
+public abstract class ScreenTransition {
+
+    public static final long DEFAULT_DURATION = 250L;
+
+    private final long mDuration;
+
+    protected ScreenTransition(long duration) {
+        if (duration < 0L) {
+            throw new IllegalArgumentException("Cannot be negative!");
+        }
+        mDuration = duration;
+    }
+
+    public long getDuration() {
+        return mDuration;
+    }
+
+    /**
+     * Set the properties of the entering view to where its animation starts. The view is attached, but has not been
+     * drawn yet
+     *
+     * @param forward {@code true} if the entering screen was pushed or moved on top, {@code false} if the screens
+     *                above it were popped
+     */
+    public abstract void setupEnter(@NonNull View enteringView, @NonNull ViewGroup container, boolean forward);
+
+    /**
+     * Animate the entering view to its resting state
+     */
+    public abstract void animateEnter(@NonNull ViewPropertyAnimatorCompat animator, @NonNull ViewGroup container, boolean forward);
+
+    /**
+     * Animate the exiting view out
+     */
+    public abstract void animateExit(@NonNull ViewPropertyAnimatorCompat animator, @NonNull ViewGroup container, boolean forward);
+
+    /**
+     * Put every property this transition animates back to its resting value
+     */
+    public abstract void resetView(@NonNull View view);
+
+    /**
+     * A transition that cross-fades the screens
+     */
+    public static ScreenTransition fade(long duration) {
+        return new FadeTransition(duration);
+    }
+
+    /**
+     * A transition that slides new screens in from the end, and slides popped screens back out
+     */
+    public static ScreenTransition slide(long duration) {
+        return new SlideTransition(duration);
+    }
+
+    private static final class FadeTransition extends ScreenTransition {
+
+        private FadeTransition(long duration) {
+            super(duration);
+        }
+
+        @Override
+        public void setupEnter(@NonNull View enteringView, @NonNull ViewGroup container, boolean forward) {
+            ViewCompat.setAlpha(enteringView, 0f);
+        }
+
+        @Override
+        public void animateEnter(@NonNull ViewPropertyAnimatorCompat animator, @NonNull ViewGroup container, boolean forward) {
+            animator.alpha(1f);
+        }
+
+        @Override
+        public void animateExit(@NonNull ViewPropertyAnimatorCompat animator, @NonNull ViewGroup container, boolean forward) {
+            animator.alpha(0f);
+        }
+
+        @Override
+        public void resetView(@NonNull View view) {
+            ViewCompat.setAlpha(view, 1f);
+        }
+    }
+
+    private static final class SlideTransition extends ScreenTransition {
+
+        private SlideTransition(long duration) {
+            super(duration);
+        }
+
+        @Override
+        public void setupEnter(@NonNull View enteringView, @NonNull ViewGroup container, boolean forward) {
+            /* Going back, the entering screen stays in place while the exiting one slides off it */
+            ViewCompat.setTranslationX(enteringView, forward ? container.getWidth() : 0f);
+        }
+
+        @Override
+        public void animateEnter(@NonNull ViewPropertyAnimatorCompat animator, @NonNull ViewGroup container, boolean forward) {
+            animator.translationX(0f);
+        }
+
+        @Override
+        public void animateExit(@NonNull ViewPropertyAnimatorCompat animator, @NonNull ViewGroup container, boolean forward) {
+            if (!forward) {
+                animator.translationX(container.getWidth());
+            }
+        }
+
+        @Override
+        public void resetView(@NonNull View view) {
+            ViewCompat.setTranslationX(view, 0f);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.vinaysshenoy.routz;
+
+import android.support.annotation.MainThread;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.view.View;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * A pool of the views of popped screens, that new screens with the same pool key can reuse instead of inflating
+ * their own, like the recycled view pool of a RecyclerView.
+ * <p/>
+ * When a {@link Router} has one of these set, popping a screen that {@link Screen#canRecycleView() can recycle its view}
+ * puts the detached view in the pool, under the {@link Screen#getViewPoolKey() pool key} of the screen. The next screen
+ * with the same key gets that view through {@link Screen#rebindView(View)} instead of
+ * {@link Screen#createView(android.view.LayoutInflater, android.view.ViewGroup)}, followed by {@link Screen#setupView()}
+ * as usual.
+ * <p/>
+ * Each key keeps at most {@link #DEFAULT_MAX_RECYCLED_VIEWS} views, unless set otherwise with
+ * {@link #setMaxRecycledViews(String, int)}. Views that do not fit are dropped.
+ */
+@MainThread
+public final class ScreenViewPool {
+
+    public static final int DEFAULT_MAX_RECYCLED_VIEWS = 3;
+
+    @NonNull
+    private final HashMap<String, ScrapHeap> mScrapHeaps;
+
+    public ScreenViewPool() {
+        mScrapHeaps = new HashMap<>();
+    }
+
+    /**
+     * Set the number of views to keep for a pool key
+     *
+     * @param key   The pool key, which is the route of the screens unless they override {@link Screen#getViewPoolKey()}
+     * @param count The number of views to keep. Pass {@code 0} to never recycle views for the key
+     */
+    public void setMaxRecycledViews(@NonNull String key, int count) {
+
+        if (key == null) {
+            throw new IllegalArgumentException("Cannot be null!");
+        }
+        if (count < 0) {
+            throw new IllegalArgumentException("Cannot be negative!");
+        }
+
+        final ScrapHeap scrapHeap = getScrapHeap(key);
+        scrapHeap.maxCount = count;
+        while (scrapHeap.views.size() > count) {
+            scrapHeap.views.remove(scrapHeap.views.size() - 1);
+        }
+    }
+
+    /**
+     * Get the number of views in the pool for a key
+     */
+    public int getRecycledViewCount(@NonNull String key) {
+
+        final ScrapHeap scrapHeap = mScrapHeaps.get(key);
+        return scrapHeap == null ? 0 : scrapHeap.views.size();
+    }
+
+    /**
+     * Get the number of views in the pool, for all keys
+     */
+    /* package */ int getRecycledViewCount() {
+
+        int count = 0;
+        for (ScrapHeap scrapHeap : mScrapHeaps.values()) {
+            count += scrapHeap.views.size();
+        }
+        return count;
+    }
+
+    /**
+     * Get the estimated size of all the views in the pool
+     */
+    /* package */ long getEstimatedSizeInBytes() {
+
+        long sizeInBytes = 0L;
+        for (ScrapHeap scrapHeap : mScrapHeaps.values()) {
+            for (int i = 0; i < scrapHeap.views.size(); i++) {
+                sizeInBytes += RetainedViewCache.estimateSizeInBytes(scrapHeap.views.get(i));
+            }
+        }
+        return sizeInBytes;
+    }
+
+    /**
+     * Remove all the views in the pool
+     */
+    public void clear() {
+
+        for (ScrapHeap scrapHeap : mScrapHeaps.values()) {
+            scrapHeap.views.clear();
+        }
+    }
+
+    /**
+     * Put a detached view in the pool
+     *
+     * @return {@code true} if the view was kept, {@code false} if the pool for the key is full
+     */
+    /* package */ boolean put(@NonNull String key, @NonNull View view) {
+
+        final ScrapHeap scrapHeap = getScrapHeap(key);
+        if (scrapHeap.views.size() >= scrapHeap.maxCount) {
+            return false;
+        }
+        scrapHeap.views.add(view);
+        return true;
+    }
+
+    /**
+     * Take a view out of the pool
+     *
+     * @return A view that was put under the key, or {@code null} if there is none
+     */
+    @Nullable
+    /* package */ View take(@NonNull String key) {
+
+        final ScrapHeap scrapHeap = mScrapHeaps.get(key);
+        if (scrapHeap == null || scrapHeap.views.isEmpty()) {
+            return null;
+        }
+        return scrapHeap.views.remove(scrapHeap.views.size() - 1);
+    }
+
+    @NonNull
+    private ScrapHeap getScrapHeap(@NonNull String key) {
+
+        ScrapHeap scrapHeap = mScrapHeaps.get(key);
+        if (scrapHeap == null) {
+            scrapHeap = new ScrapHeap();
+            mScrapHeaps.put(key, scrapHeap);
+        }
+        return scrapHeap;
+    }
+
+    private static final class ScrapHeap {
+
+        public final ArrayList<View> views = new ArrayList<>();
+
+        public int maxCount = DEFAULT_MAX_RECYCLED_VIEWS;
+    }
+}
@@ -0,0 +1,34 @@
+package com.vinaysshenoy.routz;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.io.IOException;
+
+/**
+ * Storage for the saved state of a {@link Router}, outside of the instance state {@link android.os.Bundle}.
+ * <p/>
+ * When a router is created with a state store, {@link Router#saveState(android.os.Bundle)} writes the backstack
+ * to the store, and only puts a small key in the Bundle. This keeps deep backstacks from running into the size
+ * limit of the Bundle.
+ */
+public interface StateStore {
+
+    /**
+     * Write the state for a key, replacing any state previously written for it
+     */
+    void write(@NonNull String key, @NonNull byte[] state) throws IOException;
+
+    /**
+     * Read the state for a key
+     *
+     * @return The state last written for the key, or {@code null} if there is none
+     */
+    @Nullable
+    byte[] read(@NonNull String key) throws IOException;
+
+    /**
+     * Delete the state for a key, if there is any
+     */
+    void delete(@NonNull String key);
+}
@@ -0,0 +1,145 @@
+package com.vinaysshenoy.routz;
+
+import android.support.annotation.MainThread;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.v4.view.ViewCompat;
+import android.support.v4.view.ViewPropertyAnimatorCompat;
+import android.support.v4.view.ViewPropertyAnimatorListener;
+import android.view.View;
+import android.view.ViewGroup;
+
+/**
+ * Runs the {@link ScreenTransition} between the screens of a {@link Router}, one at a time.
+ * <p/>
+ * Both views are animated with hardware layers. The exiting view is detached from the container as soon as its
+ * animation ends, and a running transition can be fast-forwarded to its end state at any time, so that there are
+ * never more than the two screens of the latest transition attached, besides the screens under overlays.
+ */
+@MainThread
+/* package */ final class TransitionRunner implements ViewPropertyAnimatorListener {
+
+    @Nullable
+    private ViewGroup mContainer;
+
+    @Nullable
+    private ScreenTransition mTransition;
+
+    @Nullable
+    private View mEnteringView;
+
+    @Nullable
+    private View mExitingView;
+
+    @Nullable
+    private ViewPropertyAnimatorCompat mEnterAnimator;
+
+    @Nullable
+    private ViewPropertyAnimatorCompat mExitAnimator;
+
+    /**
+     * Start a transition. Any transition that is still running is fast-forwarded first
+     *
+     * @param container    The container both views are attached to
+     * @param enteringView The attached view of the screen now on top, or {@code null} if the stack is empty
+     * @param exitingView  The view of the screen that was on display, still attached, or {@code null} if an overlay
+     *                     was shown over it
+     */
+    /* package */ void start(@NonNull ScreenTransition transition, @NonNull ViewGroup container, @Nullable View enteringView, @Nullable View exitingView, boolean forward) {
+
+        finish();
+
+        mContainer = container;
+        mTransition = transition;
+        mEnteringView = enteringView;
+        mExitingView = exitingView;
+
+        if (enteringView != null) {
+            transition.setupEnter(enteringView, container, forward);
+            mEnterAnimator = ViewCompat.animate(enteringView)
+                    .setDuration(transition.getDuration())
+                    .withLayer()
+                    .setListener(this);
+            transition.animateEnter(mEnterAnimator, container, forward);
+        }
+
+        if (exitingView != null) {
+            mExitAnimator = ViewCompat.animate(exitingView)
+                    .setDuration(transition.getDuration())
+                    .withLayer()
+                    .setListener(this);
+            transition.animateExit(mExitAnimator, container, forward);
+        }
+
+        if (mEnterAnimator != null) {
+            mEnterAnimator.start();
+        }
+        if (mExitAnimator != null) {
+            mExitAnimator.start();
+        }
+    }
+
+    /* package */ boolean isRunning() {
+        return mTransition != null;
+    }
+
+    /**
+     * Fast-forward the running transition, if there is one, to its end state
+     */
+    /* package */ void finish() {
+
+        if (mEnterAnimator != null) {
+            final ViewPropertyAnimatorCompat enterAnimator = mEnterAnimator;
+            mEnterAnimator = null;
+            enterAnimator.setListener(null);
+            enterAnimator.cancel();
+        }
+        if (mEnteringView != null) {
+            mTransition.resetView(mEnteringView);
+            mEnteringView = null;
+        }
+        finishExit();
+        mTransition = null;
+        mContainer = null;
+    }
+
+    private void finishExit() {
+
+        if (mExitAnimator != null) {
+            final ViewPropertyAnimatorCompat exitAnimator = mExitAnimator;
+            mExitAnimator = null;
+            exitAnimator.setListener(null);
+            exitAnimator.cancel();
+        }
+        if (mExitingView != null) {
+            mContainer.removeView(mExitingView);
+            mTransition.resetView(mExitingView);
+            mExitingView = null;
+        }
+    }
+
+    @Override
+    public void onAnimationStart(View view) {
+    }
+
+    @Override
+    public void onAnimationEnd(View view) {
+
+        if (view == mExitingView) {
+            /* Release the exiting view right away, even if the entering animation is still running */
+            finishExit();
+        } else if (view == mEnteringView) {
+            mEnterAnimator = null;
+            mTransition.resetView(mEnteringView);
+            mEnteringView = null;
+        }
+        if (mEnteringView == null && mExitingView == null) {
+            mTransition = null;
+            mContainer = null;
+        }
+    }
+
+    @Override
+    public void onAnimationCancel(View view) {
+    }
+}
@@ -0,0 +1,13 @@
+package com.vinaysshenoy.routz;
+
+import android.support.annotation.MainThread;
+import android.support.annotation.NonNull;
+
+/**
+ * Notified on the main thread when a {@link Router} releases resources in response to memory pressure
+ */
+public interface TrimMemoryListener {
+
+    @MainThread
+    void onTrimMemory(@NonNull TrimMemoryResult result);
+}
@@ -0,0 +1,107 @@
+package com.vinaysshenoy.routz;
+
+import android.support.annotation.IntDef;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+/**
+ * What a {@link Router} released in response to memory pressure, reported to its {@link TrimMemoryListener}.
+ * <p/>
+ * The sizes of views are estimates, made the same way as for a {@link RetainedViewCache} with a byte budget.
+ */
+public final class TrimMemoryResult {
+
+    @Retention(RetentionPolicy.SOURCE)
+    @IntDef({TIER_NONE, TIER_MODERATE, TIER_CRITICAL})
+    public @interface Tier {
+    }
+
+    /**
+     * Nothing was released
+     */
+    public static final int TIER_NONE = 0;
+
+    /**
+     * The views of hidden screens, recycled views and prefetched screens were released
+     */
+    public static final int TIER_MODERATE = 1;
+
+    /**
+     * Everything in {@link #TIER_MODERATE} was released, and every screen below the top of the stack was released,
+     * keeping only its serialized state. Those screens are created again when they are back on top
+     */
+    public static final int TIER_CRITICAL = 2;
+
+    private final int mLevel;
+
+    @Tier
+    private final int mTier;
+
+    private final int mViewsReleased;
+
+    private final long mViewBytesReclaimed;
+
+    private final int mScreensReleased;
+
+    private final long mSavedStateBytes;
+
+    /* package */ TrimMemoryResult(int level, @Tier int tier, int viewsReleased, long viewBytesReclaimed, int screensReleased, long savedStateBytes) {
+        mLevel = level;
+        mTier = tier;
+        mViewsReleased = viewsReleased;
+        mViewBytesReclaimed = viewBytesReclaimed;
+        mScreensReleased = screensReleased;
+        mSavedStateBytes = savedStateBytes;
+    }
+
+    /**
+     * Get the trim level reported by the system, one of the {@code TRIM_MEMORY_*} levels of
+     * {@link android.content.ComponentCallbacks2}
+     */
+    public int getLevel() {
+        return mLevel;
+    }
+
+    @Tier
+    public int getTier() {
+        return mTier;
+    }
+
+    public int getViewsReleased() {
+        return mViewsReleased;
+    }
+
+    /**
+     * Get the estimated size of the views that were released
+     */
+    public long getViewBytesReclaimed() {
+        return mViewBytesReclaimed;
+    }
+
+    /**
+     * Get the number of screens below the top of the stack that were released
+     */
+    public int getScreensReleased() {
+        return mScreensReleased;
+    }
+
+    /**
+     * Get the size of the serialized states kept in place of the screens that were released
+     */
+    public long getSavedStateBytes() {
+        return mSavedStateBytes;
+    }
+
+    @Override
+    public String toString() {
+        return "TrimMemoryResult{" +
+                "level=" + mLevel +
+                ", tier=" + mTier +
+                ", viewsReleased=" + mViewsReleased +
+                ", viewBytesReclaimed=" + mViewBytesReclaimed +
+                ", screensReleased=" + mScreensReleased +
+                ", savedStateBytes=" + mSavedStateBytes +
+                '}';
+    }
+}
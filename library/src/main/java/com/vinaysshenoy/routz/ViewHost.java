@@ -0,0 +1,183 @@
+package com.vinaysshenoy.routz;
+
+import android.support.annotation.MainThread;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.widget.FrameLayout;
+
+/**
+ * Applies the view operations of a {@link Router} to its container, on the main thread.
+ * <p/>
+ * The router plans the navigations and runs the lifecycle of the screens, and then tells the host which views to attach
+ * and detach. The host finds the views in the caches or creates them, keeps them in the order of the stack, and runs
+ * the transition between the view that was on top and the one that is now.
+ */
+@MainThread
+/* package */ final class ViewHost {
+
+    @NonNull
+    private final NavigationTracer mNavigationTracer;
+
+    @NonNull
+    private final TransitionRunner mTransitionRunner;
+
+    /**
+     * The container of the screens. Only changes for a child router, when the view of its screen is created again
+     */
+    @NonNull
+    private FrameLayout mContainer;
+
+    @Nullable
+    private ScreenTransition mScreenTransition;
+
+    /**
+     * Whether the view of the screen on display is kept attached when it is detached, to run the exit animation
+     */
+    private boolean mDeferViewRemoval;
+
+    /**
+     * The view that was detached while removal was deferred, still attached to the container
+     */
+    @Nullable
+    private View mExitingView;
+
+    /* package */ ViewHost(@NonNull FrameLayout container, @NonNull NavigationTracer navigationTracer) {
+        mContainer = container;
+        mNavigationTracer = navigationTracer;
+        mTransitionRunner = new TransitionRunner();
+    }
+
+    @NonNull
+    /* package */ FrameLayout getContainer() {
+        return mContainer;
+    }
+
+    /* package */ void setScreenTransition(@Nullable ScreenTransition screenTransition) {
+
+        mTransitionRunner.finish();
+        mScreenTransition = screenTransition;
+    }
+
+    /**
+     * Fast-forward the running transition, if there is one, to its end
+     */
+    /* package */ void finishTransition() {
+        mTransitionRunner.finish();
+    }
+
+    /**
+     * Start applying a batch of view operations. The first view detached in the batch stays attached until
+     * {@link #endBatch(View, boolean)}, to animate out
+     */
+    /* package */ void beginBatch() {
+
+        mTransitionRunner.finish();
+        mDeferViewRemoval = mScreenTransition != null;
+    }
+
+    /**
+     * Gives a screen its view, from the first of the caches that has one or by creating it, and attaches it on top
+     */
+    /* package */ void attach(@NonNull Screen screen, @Nullable RetainedViewCache retainedViewCache, @Nullable ScreenViewPool screenViewPool) {
+
+        final View retainedView = retainedViewCache == null ? null : retainedViewCache.take(screen.getId());
+        if (retainedView != null) {
+            screen.restoreContentView(retainedView);
+        } else {
+            View contentView = screen.takePrefetchedView();
+            if (contentView == null) {
+                final long createViewStartNanos = mNavigationTracer.beginPhase(NavigationTiming.PHASE_CREATE_VIEW);
+                contentView = screenViewPool == null ? null : screenViewPool.take(screen.getViewPoolKey());
+                if (contentView != null) {
+                    screen.rebindView(contentView);
+                } else {
+                    contentView = screen.createView(LayoutInflater.from(mContainer.getContext()), mContainer);
+                }
+                mNavigationTracer.endPhase(NavigationTiming.PHASE_CREATE_VIEW, createViewStartNanos);
+            }
+            final long setupViewStartNanos = mNavigationTracer.beginPhase(NavigationTiming.PHASE_SETUP_VIEW);
+            screen.setContentView(contentView);
+            mNavigationTracer.endPhase(NavigationTiming.PHASE_SETUP_VIEW, setupViewStartNanos);
+        }
+
+        if (screen.getContentView() == mExitingView) {
+            /* The view was recycled from the screen that is exiting, so it cannot animate out */
+            mContainer.removeView(mExitingView);
+            mExitingView = null;
+        }
+        final long attachViewStartNanos = mNavigationTracer.beginPhase(NavigationTiming.PHASE_ATTACH_VIEW);
+        mContainer.addView(screen.getContentView());
+        screen.onShown();
+        mNavigationTracer.endPhase(NavigationTiming.PHASE_ATTACH_VIEW, attachViewStartNanos);
+    }
+
+    /**
+     * Detaches the view of a screen that was hidden, unless it is kept attached to animate out
+     */
+    /* package */ void detach(@NonNull View contentView) {
+
+        if (mDeferViewRemoval && mExitingView == null) {
+            mExitingView = contentView;
+        } else {
+            mContainer.removeView(contentView);
+        }
+    }
+
+    /**
+     * Keeps an attached view above the views before it in the stack
+     *
+     * @param index The index of the view of the screen below it, or {@code -1}
+     * @return The index of the view
+     */
+    /* package */ int placeAbove(@NonNull View view, int index) {
+
+        if (mContainer.indexOfChild(view) < index) {
+            mContainer.bringChildToFront(view);
+        }
+        return mContainer.indexOfChild(view);
+    }
+
+    /**
+     * Finishes a batch, animating the view that was detached in it out, and the view now on display in. An overlay
+     * enters without a view exiting
+     *
+     * @param enteringView The view of the screen now on top, or {@code null} if it was already on display
+     */
+    /* package */ void endBatch(@Nullable View enteringView, boolean forward) {
+
+        mDeferViewRemoval = false;
+        final View exitingView = mExitingView;
+        mExitingView = null;
+        if (exitingView == null && (enteringView == null || !forward)) {
+            return;
+        }
+        if (mScreenTransition == null) {
+            if (exitingView != null) {
+                mContainer.removeView(exitingView);
+            }
+            return;
+        }
+
+        if (!forward && exitingView != null) {
+            /* Going back, the popped screen leaves from above the one it reveals */
+            mContainer.bringChildToFront(exitingView);
+        }
+        mTransitionRunner.start(mScreenTransition, mContainer, enteringView, exitingView, forward);
+    }
+
+    /**
+     * Move views to a new container, when the view of the parent screen of a child router has been created again.
+     * Call {@link #setContainer(FrameLayout)} once they are all moved
+     */
+    /* package */ void moveView(@NonNull View view, @NonNull FrameLayout container) {
+
+        mContainer.removeView(view);
+        container.addView(view);
+    }
+
+    /* package */ void setContainer(@NonNull FrameLayout container) {
+        mContainer = container;
+    }
+}
@@ -0,0 +1,94 @@
+package com.vinaysshenoy.routz;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class BackstackSnapshotTest {
+
+    private static BackstackSnapshot snapshotOf(String... routes) {
+
+        BackstackSnapshot snapshot = BackstackSnapshot.EMPTY;
+        for (int i = 0; i < routes.length; i++) {
+            snapshot = new BackstackSnapshot(i, routes[i], snapshot);
+        }
+        return snapshot;
+    }
+
+    @Test
+    public void empty_hasNoScreens() throws Exception {
+
+        assertTrue(BackstackSnapshot.EMPTY.isEmpty());
+        assertEquals(BackstackSnapshot.NO_SCREEN, BackstackSnapshot.EMPTY.getTopScreenId());
+        assertNull(BackstackSnapshot.EMPTY.getTopRoute());
+        assertSame(BackstackSnapshot.EMPTY, BackstackSnapshot.EMPTY.below());
+    }
+
+    @Test
+    public void positions_areCountedFromTheBottom() throws Exception {
+
+        final BackstackSnapshot snapshot = snapshotOf("a", "b", "a", "c");
+
+        assertEquals(4, snapshot.getDepth());
+        assertEquals("c", snapshot.getTopRoute());
+        assertEquals("b", snapshot.getRoute(1));
+        assertEquals(2, snapshot.topPositionOf("a"));
+        assertEquals(2, snapshot.topScreenIdOf("a"));
+        assertEquals(1, snapshot.positionOf(1));
+        assertEquals(BackstackSnapshot.NO_SCREEN, snapshot.topPositionOf("d"));
+        assertArrayEquals(new int[]{0, 1, 2, 3}, snapshot.getScreenIds());
+        assertEquals(Arrays.asList("a", "b", "a", "c"), snapshot.getRoutes());
+    }
+
+    @Test
+    public void below_sharesTheRestOfTheStack() throws Exception {
+
+        final BackstackSnapshot below = snapshotOf("a", "b");
+        final BackstackSnapshot snapshot = new BackstackSnapshot(7, "c", below);
+
+        assertSame(below, snapshot.below());
+        assertEquals(2, below.getDepth());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void getRoute_rejectsPositionsOutsideTheStack() throws Exception {
+        snapshotOf("a").getRoute(1);
+    }
+
+    @Test
+    public void publishedSnapshots_indexTheTopmostScreenOfEachRoute() throws Exception {
+
+        final ScreenStack stack = new ScreenStack();
+        final String[] routes = {"a", "b", "a", "c"};
+        for (int i = 0; i < routes.length; i++) {
+            stack.push(ScreenEntry.placeholder(10 + i, routes[i], null, null));
+        }
+
+        final BackstackSnapshot snapshot = stack.snapshot();
+        assertTrue(snapshot.isIndexed());
+        assertEquals(12, snapshot.topScreenIdOf("a"));
+        assertEquals(2, snapshot.topPositionOf("a"));
+        assertEquals(11, snapshot.topScreenIdOf("b"));
+        assertEquals(3, snapshot.topPositionOf("c"));
+        assertEquals(BackstackSnapshot.NO_SCREEN, snapshot.topScreenIdOf("d"));
+        assertEquals(BackstackSnapshot.NO_SCREEN, snapshot.topPositionOf("d"));
+
+        /* Snapshots that were never on top fall back to walking the stack */
+        assertFalse(snapshot.below().isIndexed());
+        assertEquals(12, snapshot.below().topScreenIdOf("a"));
+
+        stack.pop();
+        stack.pop();
+        final BackstackSnapshot popped = stack.snapshot();
+        assertTrue(popped.isIndexed());
+        assertEquals(10, popped.topScreenIdOf("a"));
+        assertEquals(BackstackSnapshot.NO_SCREEN, popped.topScreenIdOf("c"));
+    }
+}
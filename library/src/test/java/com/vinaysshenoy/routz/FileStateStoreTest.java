@@ -0,0 +1,74 @@
+package com.vinaysshenoy.routz;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class FileStateStoreTest {
+
+    @Rule
+    public TemporaryFolder mTemporaryFolder = new TemporaryFolder();
+
+    private File mDirectory;
+
+    private FileStateStore mStateStore;
+
+    @Before
+    public void setUp() throws Exception {
+        mDirectory = new File(mTemporaryFolder.getRoot(), "states");
+        mStateStore = new FileStateStore(mDirectory);
+    }
+
+    @Test
+    public void read_returnsNullForUnknownKey() throws Exception {
+        assertNull(mStateStore.read("router-1"));
+    }
+
+    @Test
+    public void read_returnsLastWrittenState() throws Exception {
+        mStateStore.write("router-1", new byte[]{1, 2, 3});
+        mStateStore.write("router-1", new byte[]{4, 5});
+        mStateStore.write("router-2", new byte[]{6});
+
+        assertArrayEquals(new byte[]{4, 5}, mStateStore.read("router-1"));
+        assertArrayEquals(new byte[]{6}, mStateStore.read("router-2"));
+    }
+
+    @Test
+    public void read_returnsEmptyState() throws Exception {
+        mStateStore.write("router-1", new byte[0]);
+
+        assertArrayEquals(new byte[0], mStateStore.read("router-1"));
+    }
+
+    @Test
+    public void delete_removesState() throws Exception {
+        mStateStore.write("router-1", new byte[]{1});
+        mStateStore.delete("router-1");
+
+        assertNull(mStateStore.read("router-1"));
+    }
+
+    @Test
+    public void deleteOlderThan_onlyRemovesOlderStates() throws Exception {
+        mStateStore.write("router-1", new byte[]{1});
+        mStateStore.write("router-2", new byte[]{2});
+        new File(mDirectory, "router-1.state").setLastModified(1000L);
+
+        assertEquals(1, mStateStore.deleteOlderThan(2000L));
+        assertNull(mStateStore.read("router-1"));
+        assertArrayEquals(new byte[]{2}, mStateStore.read("router-2"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void write_rejectsKeysThatAreNotFileNames() throws Exception {
+        mStateStore.write("../router-1", new byte[]{1});
+    }
+}
@@ -0,0 +1,58 @@
+package com.vinaysshenoy.routz;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LatencyHistogramTest {
+
+    private static final long NANOS_PER_MILLI = 1000000L;
+
+    @Test
+    public void emptyHistogram_reportsZero() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+
+        assertEquals(0, histogram.getTotalCount());
+        assertEquals(0, histogram.getNanosAtPercentile(99));
+        assertEquals(0, histogram.getMeanNanos());
+    }
+
+    @Test
+    public void percentiles_areWithinRelativeError() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 100; i++) {
+            histogram.recordNanos(i * NANOS_PER_MILLI);
+        }
+
+        assertEquals(100, histogram.getTotalCount());
+        assertWithinError(50 * NANOS_PER_MILLI, histogram.getNanosAtPercentile(50));
+        assertWithinError(90 * NANOS_PER_MILLI, histogram.getNanosAtPercentile(90));
+        assertEquals(100 * NANOS_PER_MILLI, histogram.getNanosAtPercentile(100));
+        assertEquals(100 * NANOS_PER_MILLI, histogram.getMaxNanos());
+    }
+
+    @Test
+    public void largeValues_areClamped() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        histogram.recordNanos(Long.MAX_VALUE);
+
+        assertEquals(1, histogram.getTotalCount());
+        assertTrue(histogram.getMaxNanos() > 0);
+        assertEquals(histogram.getMaxNanos(), histogram.getNanosAtPercentile(100));
+    }
+
+    @Test
+    public void reset_clearsValues() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        histogram.recordNanos(NANOS_PER_MILLI);
+        histogram.reset();
+
+        assertEquals(0, histogram.getTotalCount());
+        assertEquals(0, histogram.getMaxNanos());
+    }
+
+    private static void assertWithinError(long expected, long actual) {
+        assertTrue("Expected " + expected + ", was " + actual, Math.abs(actual - expected) <= expected * 0.07);
+    }
+}
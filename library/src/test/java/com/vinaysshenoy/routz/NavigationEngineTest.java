@@ -0,0 +1,406 @@
+package com.vinaysshenoy.routz;
+
+import android.support.annotation.NonNull;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class NavigationEngineTest {
+
+    private static final String[] ROUTES = {"a", "b", "c", "d"};
+
+    private static final int NO_SCREEN = BackstackSnapshot.NO_SCREEN;
+
+    /**
+     * A backstack kept in lists, that finds screens by scanning them
+     */
+    private static final class ListBackstack implements NavigationEngine.Backstack {
+
+        private final List<Integer> mScreenIds = new ArrayList<>();
+
+        private final List<String> mRoutes = new ArrayList<>();
+
+        private ListBackstack add(int screenId, String route) {
+            mScreenIds.add(screenId);
+            mRoutes.add(route);
+            return this;
+        }
+
+        @Override
+        public int size() {
+            return mScreenIds.size();
+        }
+
+        @Override
+        public int getScreenId(int position) {
+            return mScreenIds.get(position);
+        }
+
+        @NonNull
+        @Override
+        public String getRoute(int position) {
+            return mRoutes.get(position);
+        }
+
+        @Override
+        public int positionOf(int screenId) {
+            return mScreenIds.indexOf(screenId);
+        }
+
+        @Override
+        public int topPositionOf(@NonNull String route) {
+            return mRoutes.lastIndexOf(route);
+        }
+
+        @Override
+        public int positionBelowWithSameRoute(int position) {
+            return mRoutes.subList(0, position).lastIndexOf(mRoutes.get(position));
+        }
+    }
+
+    private static ListBackstack backstackOf(String... routes) {
+
+        final ListBackstack backstack = new ListBackstack();
+        for (int i = 0; i < routes.length; i++) {
+            backstack.add(i, routes[i]);
+        }
+        return backstack;
+    }
+
+    /**
+     * The ids of the planned stack, with pushes given the ids they were planned with
+     */
+    private static int[] plannedIds(NavigationEngine engine, ListBackstack backstack, List<Integer> pushedIds) {
+
+        final int[] screenIds = new int[engine.getPlannedSize()];
+        for (int i = 0; i < screenIds.length; i++) {
+            if (i < engine.getFloor()) {
+                screenIds[i] = backstack.getScreenId(i);
+            } else {
+                final int source = engine.getSource(i);
+                screenIds[i] = source >= 0 ? backstack.getScreenId(source) : pushedIds.get(~source);
+            }
+        }
+        return screenIds;
+    }
+
+    @Test
+    public void popTo_keepsTheScreensBelowUnchanged() throws Exception {
+
+        final ListBackstack backstack = backstackOf("a", "b", "c", "d");
+        final NavigationEngine engine = new NavigationEngine();
+        engine.begin(backstack);
+
+        assertEquals(1, engine.popTo("b"));
+        assertEquals(2, engine.getFloor());
+        assertEquals(2, engine.getPlannedSize());
+    }
+
+    @Test
+    public void pushThenPop_isNotPlanned() throws Exception {
+
+        final ListBackstack backstack = backstackOf("a", "b");
+        final NavigationEngine engine = new NavigationEngine();
+        engine.begin(backstack);
+        engine.push(0, 10, "c");
+        engine.push(1, 11, "d");
+        engine.pop(2);
+
+        assertEquals(2, engine.getFloor());
+        assertEquals(2, engine.getPlannedSize());
+    }
+
+    @Test
+    public void moveToTop_liftsTheScreensAboveIt() throws Exception {
+
+        final ListBackstack backstack = backstackOf("a", "b", "c", "d");
+        final NavigationEngine engine = new NavigationEngine();
+        engine.begin(backstack);
+
+        assertEquals(1, engine.moveToTop(1));
+        assertEquals(1, engine.getFloor());
+        assertArrayEquals(new int[]{0, 2, 3, 1}, plannedIds(engine, backstack, new ArrayList<Integer>()));
+
+        final boolean[] kept = engine.findKept();
+        assertTrue(kept[0] && kept[1] && kept[2]);
+    }
+
+    @Test
+    public void missingTargets_popEverythingOrNothing() throws Exception {
+
+        final ListBackstack backstack = backstackOf("a", "b");
+        final NavigationEngine engine = new NavigationEngine();
+
+        engine.begin(backstack);
+        assertEquals(NavigationEngine.NOT_FOUND, engine.moveToTop("z"));
+        assertEquals(2, engine.getPlannedSize());
+
+        engine.begin(backstack);
+        assertEquals(NavigationEngine.NOT_FOUND, engine.popTo(42));
+        assertEquals(0, engine.getPlannedSize());
+        assertFalse(engine.findKept()[0]);
+    }
+
+    @Test
+    public void missingRouteOfALoad_isPushedWithoutPopping() throws Exception {
+
+        final ListBackstack backstack = backstackOf("a", "b");
+        final NavigationEngine engine = new NavigationEngine();
+
+        engine.begin(backstack);
+        engine.pop(1);
+        assertEquals(~0, engine.popToOrPush("b", 0, 1));
+        assertArrayEquals(new int[]{0, 1}, plannedIds(engine, backstack, Arrays.asList(1)));
+
+        engine.begin(backstack);
+        engine.pop(1);
+        assertEquals(~0, engine.moveToTopOrPush("b", 0, 1));
+        assertEquals(0, engine.moveToTopOrPush("a", 1, 10));
+        assertArrayEquals(new int[]{1, 0}, plannedIds(engine, backstack, Arrays.asList(1, 10)));
+    }
+
+    @Test
+    public void setStack_keepsTheCommonScreensAndPushesTheRest() throws Exception {
+
+        final ListBackstack backstack = backstackOf("a", "b", "c", "d");
+        final NavigationEngine engine = new NavigationEngine();
+        engine.begin(backstack);
+        engine.setStack(0, new int[]{NO_SCREEN, NO_SCREEN, 3, NO_SCREEN}, new String[]{"a", "e", "d", "c"}, 10);
+
+        assertEquals(1, engine.getFloor());
+        assertEquals(4, engine.getPlannedSize());
+        assertEquals(~1, engine.getSource(1));
+        assertEquals(3, engine.getSource(2));
+        assertEquals(~3, engine.getSource(3));
+        assertFalse(engine.isMoved(2));
+
+        final boolean[] kept = engine.findKept();
+        assertFalse(kept[0] || kept[1]);
+        assertTrue(kept[2]);
+    }
+
+    @Test
+    public void setStack_withTheSameStack_changesNothing() throws Exception {
+
+        final ListBackstack backstack = backstackOf("a", "b", "a");
+        final NavigationEngine engine = new NavigationEngine();
+        engine.begin(backstack);
+        engine.setStack(0, new int[]{NO_SCREEN, 1, NO_SCREEN}, new String[]{"a", "b", "a"}, 10);
+
+        assertEquals(3, engine.getFloor());
+        assertEquals(3, engine.getPlannedSize());
+    }
+
+    @Test
+    public void randomStacks_keepTheLongestCommonSubsequence() throws Exception {
+
+        final Random random = new Random(11);
+        final NavigationEngine engine = new NavigationEngine();
+        for (int run = 0; run < 2000; run++) {
+
+            final ListBackstack backstack = new ListBackstack();
+            final int depth = random.nextInt(10);
+            for (int i = 0; i < depth; i++) {
+                backstack.add(i, ROUTES[random.nextInt(ROUTES.length)]);
+            }
+            final int targetCount = random.nextInt(10);
+            final int[] screenIds = new int[targetCount];
+            final String[] routes = new String[targetCount];
+            for (int i = 0; i < targetCount; i++) {
+                final boolean byId = depth > 0 && random.nextInt(3) == 0;
+                screenIds[i] = byId ? random.nextInt(depth) : NO_SCREEN;
+                routes[i] = byId ? backstack.getRoute(screenIds[i]) : ROUTES[random.nextInt(ROUTES.length)];
+            }
+
+            engine.begin(backstack);
+            engine.setStack(0, screenIds, routes, 100);
+            assertEquals(targetCount, engine.getPlannedSize());
+
+            int keptCount = 0;
+            int lastSource = -1;
+            for (int i = 0; i < targetCount; i++) {
+                final int source = i < engine.getFloor() ? i : engine.getSource(i);
+                if (source >= 0) {
+                    assertTrue("Run " + run, source > lastSource);
+                    assertEquals(routes[i], backstack.getRoute(source));
+                    assertTrue(screenIds[i] == NO_SCREEN || screenIds[i] == backstack.getScreenId(source));
+                    lastSource = source;
+                    keptCount++;
+                } else {
+                    assertEquals(~i, source);
+                }
+            }
+            assertEquals("Run " + run, commonSubsequenceLength(backstack, screenIds, routes), keptCount);
+        }
+    }
+
+    private static int commonSubsequenceLength(ListBackstack backstack, int[] screenIds, String[] routes) {
+
+        final int[][] lengths = new int[backstack.size() + 1][routes.length + 1];
+        for (int i = 1; i <= backstack.size(); i++) {
+            for (int j = 1; j <= routes.length; j++) {
+                if (routes[j - 1].equals(backstack.getRoute(i - 1))
+                        && (screenIds[j - 1] == NO_SCREEN || screenIds[j - 1] == backstack.getScreenId(i - 1))) {
+                    lengths[i][j] = lengths[i - 1][j - 1] + 1;
+                } else {
+                    lengths[i][j] = Math.max(lengths[i - 1][j], lengths[i][j - 1]);
+                }
+            }
+        }
+        return lengths[backstack.size()][routes.length];
+    }
+
+    @Test
+    public void randomBatches_matchApplyingEachCommandInTurn() throws Exception {
+
+        final Random random = new Random(7);
+        final NavigationEngine engine = new NavigationEngine();
+        for (int run = 0; run < 2000; run++) {
+
+            final ListBackstack backstack = new ListBackstack();
+            final int depth = random.nextInt(12);
+            for (int i = 0; i < depth; i++) {
+                backstack.add(i, ROUTES[random.nextInt(ROUTES.length)]);
+            }
+
+            final List<Integer> expectedIds = new ArrayList<>(backstack.mScreenIds);
+            final List<String> expectedRoutes = new ArrayList<>(backstack.mRoutes);
+            final List<Integer> pushedIds = new ArrayList<>();
+            engine.begin(backstack);
+
+            final int commands = 1 + random.nextInt(6);
+            for (int i = 0; i < commands; i++) {
+                final String route = ROUTES[random.nextInt(ROUTES.length)];
+                final int screenId = random.nextBoolean() && !expectedIds.isEmpty()
+                        ? expectedIds.get(random.nextInt(expectedIds.size()))
+                        : random.nextInt(depth + 2);
+                int position;
+                switch (random.nextInt(9)) {
+                    case 0: {
+                        final int pushedId = 100 + pushedIds.size();
+                        engine.push(pushedIds.size(), pushedId, route);
+                        pushedIds.add(pushedId);
+                        expectedIds.add(pushedId);
+                        expectedRoutes.add(route);
+                        break;
+                    }
+                    case 1: {
+                        final int count = random.nextInt(3);
+                        engine.pop(count);
+                        for (int j = 0; j < count && !expectedIds.isEmpty(); j++) {
+                            expectedIds.remove(expectedIds.size() - 1);
+                            expectedRoutes.remove(expectedRoutes.size() - 1);
+                        }
+                        break;
+                    }
+                    case 2:
+                    case 3: {
+                        final boolean byRoute = random.nextBoolean();
+                        if (byRoute) {
+                            engine.popTo(route);
+                            position = expectedRoutes.lastIndexOf(route);
+                        } else {
+                            engine.popTo(screenId);
+                            position = expectedIds.indexOf(screenId);
+                        }
+                        while (expectedIds.size() > position + 1) {
+                            expectedIds.remove(expectedIds.size() - 1);
+                            expectedRoutes.remove(expectedRoutes.size() - 1);
+                        }
+                        break;
+                    }
+                    case 8: {
+                        /* Keeps some of the planned screens by id, in order, between new screens with new routes */
+                        final List<Integer> targetIds = new ArrayList<>();
+                        final List<String> targetRoutes = new ArrayList<>();
+                        for (int j = 0; j <= expectedIds.size(); j++) {
+                            if (random.nextInt(3) == 0) {
+                                targetIds.add(NO_SCREEN);
+                                targetRoutes.add("new" + pushedIds.size() + "-" + j);
+                            }
+                            if (j < expectedIds.size() && random.nextBoolean()) {
+                                targetIds.add(expectedIds.get(j));
+                                targetRoutes.add(expectedRoutes.get(j));
+                            }
+                        }
+                        final int[] ids = new int[targetIds.size()];
+                        for (int j = 0; j < ids.length; j++) {
+                            ids[j] = targetIds.get(j);
+                        }
+                        final int firstPushIndex = pushedIds.size();
+                        engine.setStack(firstPushIndex, ids, targetRoutes.toArray(new String[ids.length]), 100 + firstPushIndex);
+
+                        expectedIds.clear();
+                        expectedRoutes.clear();
+                        for (int j = 0; j < ids.length; j++) {
+                            pushedIds.add(100 + firstPushIndex + j);
+                            expectedIds.add(ids[j] == NO_SCREEN ? 100 + firstPushIndex + j : ids[j]);
+                            expectedRoutes.add(targetRoutes.get(j));
+                        }
+                        break;
+                    }
+                    case 6:
+                    case 7: {
+                        final int pushedId = 100 + pushedIds.size();
+                        final int pushIndex = pushedIds.size();
+                        pushedIds.add(pushedId);
+                        position = expectedRoutes.lastIndexOf(route);
+                        if (position < 0) {
+                            expectedIds.add(pushedId);
+                            expectedRoutes.add(route);
+                        } else if (random.nextBoolean()) {
+                            while (expectedIds.size() > position + 1) {
+                                expectedIds.remove(expectedIds.size() - 1);
+                                expectedRoutes.remove(expectedRoutes.size() - 1);
+                            }
+                            engine.popToOrPush(route, pushIndex, pushedId);
+                            break;
+                        } else {
+                            expectedIds.add(expectedIds.remove(position));
+                            expectedRoutes.add(expectedRoutes.remove(position));
+                            engine.moveToTopOrPush(route, pushIndex, pushedId);
+                            break;
+                        }
+                        if (random.nextBoolean()) {
+                            engine.popToOrPush(route, pushIndex, pushedId);
+                        } else {
+                            engine.moveToTopOrPush(route, pushIndex, pushedId);
+                        }
+                        break;
+                    }
+                    default: {
+                        final boolean byRoute = random.nextBoolean();
+                        if (byRoute) {
+                            engine.moveToTop(route);
+                            position = expectedRoutes.lastIndexOf(route);
+                        } else {
+                            engine.moveToTop(screenId);
+                            position = expectedIds.indexOf(screenId);
+                        }
+                        if (position >= 0) {
+                            expectedIds.add(expectedIds.remove(position));
+                            expectedRoutes.add(expectedRoutes.remove(position));
+                        }
+                        break;
+                    }
+                }
+            }
+
+            final int[] expected = new int[expectedIds.size()];
+            for (int i = 0; i < expected.length; i++) {
+                expected[i] = expectedIds.get(i);
+            }
+            final int[] planned = plannedIds(engine, backstack, pushedIds);
+            assertArrayEquals("Run " + run + ": " + Arrays.toString(planned), expected, planned);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.vinaysshenoy.routz;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import static org.junit.Assert.assertEquals;
+
+public class NavigationPredictorTest {
+
+    private static void load(NavigationPredictor predictor, String fromRoute, String toRoute, int times) {
+        for (int i = 0; i < times; i++) {
+            predictor.recordTransition(fromRoute, toRoute);
+        }
+    }
+
+    @Test
+    public void predictNext_ordersRoutesByFrequency() throws Exception {
+
+        final NavigationPredictor predictor = new NavigationPredictor(2, NavigationPredictor.DEFAULT_MAX_WARM_BYTES);
+        load(predictor, "home", "search", 3);
+        load(predictor, "home", "cart", 5);
+        load(predictor, "home", "profile", 4);
+
+        assertEquals(Arrays.asList("cart", "profile"), predictor.predictNext("home"));
+        assertEquals(Collections.<String>emptyList(), predictor.predictNext("cart"));
+    }
+
+    @Test
+    public void predictNext_skipsUnlikelyRoutes() throws Exception {
+
+        final NavigationPredictor predictor = new NavigationPredictor(3, NavigationPredictor.DEFAULT_MAX_WARM_BYTES);
+        load(predictor, "home", "search", 95);
+        load(predictor, "home", "settings", 5);
+
+        assertEquals(Collections.singletonList("search"), predictor.predictNext("home"));
+    }
+
+    @Test
+    public void marshall_keepsTheTable() throws Exception {
+
+        final NavigationPredictor predictor = new NavigationPredictor();
+        load(predictor, "home", "search", 2);
+        load(predictor, "home", "cart", 7);
+        load(predictor, "search", "product", 4);
+
+        final NavigationPredictor restored = new NavigationPredictor();
+        restored.unmarshall(predictor.marshall());
+
+        assertEquals(Arrays.asList("cart", "search"), restored.predictNext("home"));
+        assertEquals(Collections.singletonList("product"), restored.predictNext("search"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unmarshall_rejectsTruncatedTables() throws Exception {
+
+        final NavigationPredictor predictor = new NavigationPredictor();
+        load(predictor, "home", "search", 2);
+        final byte[] bytes = predictor.marshall();
+
+        new NavigationPredictor().unmarshall(Arrays.copyOf(bytes, bytes.length - 1));
+    }
+
+    @Test
+    public void createdScreens_countAsHitsOrMissesOnlyAfterWarming() throws Exception {
+
+        final NavigationPredictor predictor = new NavigationPredictor();
+        predictor.recordCreated("search", false);
+
+        predictor.recordWarmed("search");
+        predictor.recordCreated("search", true);
+        predictor.recordWarmed("search");
+        predictor.recordCreated("cart", false);
+        predictor.recordCreated("cart", false);
+
+        assertEquals(1, predictor.getHitCount());
+        assertEquals(1, predictor.getMissCount());
+    }
+
+    @Test
+    public void selectWarmRoutes_stopsAtTheByteBudget() throws Exception {
+
+        final NavigationPredictor predictor = new NavigationPredictor(3, 1000L);
+        load(predictor, "home", "cart", 5);
+        load(predictor, "home", "profile", 4);
+        load(predictor, "home", "search", 3);
+        final HashSet<String> warmRoutes = new HashSet<>();
+
+        /* Views that were never hidden are taken to fill the container */
+        assertEquals(Arrays.asList("cart", "profile"), predictor.selectWarmRoutes("home", 0L, 400L, warmRoutes));
+        assertEquals(Collections.singletonList("cart"), predictor.selectWarmRoutes("home", 500L, 400L, warmRoutes));
+        assertEquals(Collections.<String>emptyList(), predictor.selectWarmRoutes("home", 700L, 400L, warmRoutes));
+
+        /* Learned sizes replace the estimate, and stop warming before a large view */
+        predictor.recordViewSize("cart", 100);
+        predictor.recordViewSize("profile", 950);
+        assertEquals(Collections.singletonList("cart"), predictor.selectWarmRoutes("home", 0L, 400L, warmRoutes));
+
+        /* Routes that are already warm are chosen again, without counting them again */
+        warmRoutes.add("profile");
+        assertEquals(Arrays.asList("cart", "profile", "search"), predictor.selectWarmRoutes("home", 800L, 100L, warmRoutes));
+    }
+}
@@ -0,0 +1,103 @@
+package com.vinaysshenoy.routz;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class NavigationRecorderTest {
+
+    private static NavigationRecording readBack(ByteArrayOutputStream outputStream) throws IOException {
+        return NavigationRecording.read(new ByteArrayInputStream(outputStream.toByteArray()));
+    }
+
+    @Test
+    public void recording_isReadBackInOrder() throws Exception {
+
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        final NavigationRecorder recorder = new NavigationRecorder(outputStream);
+        recorder.recordLoad("products", null, Router.LOAD_MODE_CREATE, 0);
+        recorder.recordLoad("products/detail", null, Router.LOAD_MODE_REORDER, 1);
+        recorder.recordGoBackTo("products");
+        recorder.recordGoBack();
+        recorder.recordGoBackTo(1);
+        recorder.close();
+
+        final NavigationRecording recording = readBack(outputStream);
+        assertEquals(5, recording.size());
+
+        assertEquals(NavigationRecording.TYPE_LOAD, recording.getType(1));
+        assertEquals("products/detail", recording.getRoute(1));
+        assertEquals(Router.LOAD_MODE_REORDER, recording.getLoadMode(1));
+        assertEquals(0, recording.getParamsSize(1));
+        assertEquals(1, recording.getScreenId(1));
+
+        assertEquals(NavigationRecording.TYPE_GO_BACK_TO_ROUTE, recording.getType(2));
+        assertEquals("products", recording.getRoute(2));
+        assertEquals(NavigationRecording.TYPE_GO_BACK, recording.getType(3));
+        assertNull(recording.getRoute(3));
+        assertEquals(NavigationRecording.TYPE_GO_BACK_TO_ID, recording.getType(4));
+        assertEquals(1, recording.getScreenId(4));
+
+        assertEquals(0L, recording.getTimeMicros(0));
+        for (int i = 1; i < recording.size(); i++) {
+            assertTrue(recording.getTimeMicros(i) >= recording.getTimeMicros(i - 1));
+        }
+    }
+
+    @Test
+    public void repeatedRoutes_areWrittenOnce() throws Exception {
+
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        final NavigationRecorder recorder = new NavigationRecorder(outputStream);
+        for (int i = 0; i < 100; i++) {
+            recorder.recordLoad("a/route/that/is/long/enough", null, Router.LOAD_MODE_CLEAR, i);
+        }
+        recorder.close();
+
+        assertTrue(outputStream.size() < 100 * 8);
+        final NavigationRecording recording = readBack(outputStream);
+        assertEquals(100, recording.size());
+        assertEquals("a/route/that/is/long/enough", recording.getRoute(99));
+        assertEquals(99, recording.getScreenId(99));
+    }
+
+    @Test
+    public void writeFailure_isThrownFromClose() throws Exception {
+
+        final NavigationRecorder recorder = new NavigationRecorder(new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Disk full");
+            }
+        });
+        recorder.recordGoBack();
+
+        try {
+            recorder.close();
+            fail();
+        } catch (IOException e) {
+            assertEquals("Disk full", e.getMessage());
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void read_rejectsTruncatedRecordings() throws Exception {
+
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        final NavigationRecorder recorder = new NavigationRecorder(outputStream);
+        recorder.recordLoad("products", null, Router.LOAD_MODE_CREATE, 0);
+        recorder.close();
+
+        final byte[] bytes = outputStream.toByteArray();
+        NavigationRecording.read(new ByteArrayInputStream(Arrays.copyOf(bytes, bytes.length - 1)));
+    }
+}
@@ -0,0 +1,158 @@
+package com.vinaysshenoy.routz;
+
+import android.os.Bundle;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class RouteRegistryTest {
+
+    /**
+     * A factory that remembers the pattern it was registered for and the params it was given, instead of creating a
+     * screen
+     */
+    private static final class RecordingFactory implements RouteRegistry.ScreenFactory {
+
+        private final String mPattern;
+
+        private String mMatchedPattern;
+
+        private RouteParams mRouteParams;
+
+        private RecordingFactory(String pattern) {
+            mPattern = pattern;
+        }
+
+        @Override
+        public Screen create(@Nullable Bundle params, @NonNull RouteParams routeParams) {
+            mMatchedPattern = mPattern;
+            mRouteParams = routeParams;
+            return null;
+        }
+    }
+
+    private static RecordingFactory register(RouteRegistry registry, String pattern) {
+
+        final RecordingFactory factory = new RecordingFactory(pattern);
+        registry.register(pattern, factory);
+        return factory;
+    }
+
+    private static RouteParams paramsOf(String pattern, String route) {
+
+        final RouteRegistry registry = new RouteRegistry();
+        final RecordingFactory factory = register(registry, pattern);
+        registry.instantiateScreenForRoute(route, null);
+        return factory.mRouteParams;
+    }
+
+    @Test
+    public void literalSegment_winsOverParamSegment() throws Exception {
+
+        final RouteRegistry registry = new RouteRegistry();
+        final RecordingFactory param = register(registry, "product/{id}");
+        final RecordingFactory literal = register(registry, "product/new");
+
+        registry.instantiateScreenForRoute("product/new", null);
+        assertEquals("product/new", literal.mMatchedPattern);
+        assertNull(param.mMatchedPattern);
+
+        registry.instantiateScreenForRoute("product/42", null);
+        assertEquals("42", param.mRouteParams.getString("id"));
+    }
+
+    @Test
+    public void failedLiteralBranch_backtracksToParamSegment() throws Exception {
+
+        final RouteRegistry registry = new RouteRegistry();
+        final RecordingFactory literal = register(registry, "product/new/draft");
+        final RecordingFactory param = register(registry, "product/{id}/reviews");
+
+        registry.instantiateScreenForRoute("product/new/reviews", null);
+        assertNull(literal.mMatchedPattern);
+        assertEquals("product/{id}/reviews", param.mMatchedPattern);
+        assertEquals("new", param.mRouteParams.getString("id"));
+
+        assertTrue(registry.canResolve("product/new/draft"));
+        assertFalse(registry.canResolve("product/new/other"));
+    }
+
+    @Test
+    public void backtracking_dropsTheParamsOfTheFailedBranch() throws Exception {
+
+        final RouteRegistry registry = new RouteRegistry();
+        register(registry, "shop/{shop}/item/{item}/edit");
+        final RecordingFactory factory = register(registry, "shop/{shop}/{section}/{page}/view");
+
+        registry.instantiateScreenForRoute("shop/7/item/3/view", null);
+        assertEquals(3, factory.mRouteParams.getCount());
+        assertEquals("7", factory.mRouteParams.getString("shop"));
+        assertEquals("item", factory.mRouteParams.getString("section"));
+        assertEquals("3", factory.mRouteParams.getString("page"));
+    }
+
+    @Test
+    public void trailingSlash_isAnEmptySegment() throws Exception {
+
+        final RouteRegistry registry = new RouteRegistry();
+        register(registry, "settings");
+        register(registry, "product/{id}");
+
+        assertTrue(registry.canResolve("settings"));
+        assertFalse(registry.canResolve("settings/"));
+        assertFalse(registry.canResolve("product/"));
+
+        register(registry, "settings/");
+        assertTrue(registry.canResolve("settings/"));
+    }
+
+    @Test
+    public void emptySegments_neverMatchParams() throws Exception {
+
+        final RouteRegistry registry = new RouteRegistry();
+        register(registry, "a/{x}/b");
+
+        assertTrue(registry.canResolve("a/1/b"));
+        assertFalse(registry.canResolve("a//b"));
+        assertFalse(registry.canResolve("/a/1/b"));
+        assertFalse(registry.canResolve(""));
+    }
+
+    @Test
+    public void numericParams_parseTheFullRange() throws Exception {
+
+        assertEquals(Long.MAX_VALUE, paramsOf("n/{v}", "n/9223372036854775807").getLong("v"));
+        assertEquals(Long.MIN_VALUE, paramsOf("n/{v}", "n/-9223372036854775808").getLong("v"));
+        assertEquals(Integer.MIN_VALUE, paramsOf("n/{v}", "n/-2147483648").getInt("v"));
+        assertEquals(7, paramsOf("n/{v}", "n/007").getInt("v"));
+    }
+
+    @Test
+    public void numericParams_thatOverflowOrAreMalformed_throw() throws Exception {
+
+        final String[] longValues = {"9223372036854775808", "-9223372036854775809", "99999999999999999999", "-", "12a", "+5", " 5", "1.5"};
+        for (String value : longValues) {
+            try {
+                paramsOf("n/{v}", "n/" + value).getLong("v");
+                fail();
+            } catch (NumberFormatException expected) {
+            }
+        }
+
+        final String[] intValues = {"2147483648", "-2147483649"};
+        for (String value : intValues) {
+            try {
+                paramsOf("n/{v}", "n/" + value).getInt("v");
+                fail();
+            } catch (NumberFormatException expected) {
+            }
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.vinaysshenoy.routz;
+
+import android.support.annotation.NonNull;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class ScreenArgsTest {
+
+    private static final class AllFields implements ScreenArgs {
+
+        private static final Decoder<AllFields> DECODER = new Decoder<AllFields>() {
+            @NonNull
+            @Override
+            public AllFields readFrom(@NonNull ArgsReader reader) {
+                return new AllFields(reader.readBoolean(), reader.readInt(), reader.readLong(), reader.readFloat(),
+                        reader.readDouble(), reader.readString(), reader.readByteArray());
+            }
+        };
+
+        private final boolean mFlag;
+
+        private final int mInt;
+
+        private final long mLong;
+
+        private final float mFloat;
+
+        private final double mDouble;
+
+        private final String mString;
+
+        private final byte[] mBytes;
+
+        private AllFields(boolean flag, int i, long l, float f, double d, String string, byte[] bytes) {
+            mFlag = flag;
+            mInt = i;
+            mLong = l;
+            mFloat = f;
+            mDouble = d;
+            mString = string;
+            mBytes = bytes;
+        }
+
+        @Override
+        public void writeTo(@NonNull ArgsWriter writer) {
+            writer.writeBoolean(mFlag);
+            writer.writeInt(mInt);
+            writer.writeLong(mLong);
+            writer.writeFloat(mFloat);
+            writer.writeDouble(mDouble);
+            writer.writeString(mString);
+            writer.writeByteArray(mBytes);
+        }
+    }
+
+    private static AllFields roundTrip(AllFields args) {
+        return ArgsReader.decode(ArgsWriter.encode(args), AllFields.DECODER);
+    }
+
+    @Test
+    public void roundTrip_keepsEveryField() throws Exception {
+
+        final AllFields decoded = roundTrip(new AllFields(true, -42, 1234567890123L, 1.5f, -0.25, "h\u00e9llo",
+                new byte[]{1, 2, 3}));
+
+        assertEquals(true, decoded.mFlag);
+        assertEquals(-42, decoded.mInt);
+        assertEquals(1234567890123L, decoded.mLong);
+        assertEquals(1.5f, decoded.mFloat, 0f);
+        assertEquals(-0.25, decoded.mDouble, 0.0);
+        assertEquals("h\u00e9llo", decoded.mString);
+        assertArrayEquals(new byte[]{1, 2, 3}, decoded.mBytes);
+    }
+
+    @Test
+    public void roundTrip_keepsExtremesAndNulls() throws Exception {
+
+        AllFields decoded = roundTrip(new AllFields(false, Integer.MIN_VALUE, Long.MIN_VALUE, Float.NaN,
+                Double.MAX_VALUE, null, null));
+        assertEquals(Integer.MIN_VALUE, decoded.mInt);
+        assertEquals(Long.MIN_VALUE, decoded.mLong);
+        assertEquals(Float.NaN, decoded.mFloat, 0f);
+        assertNull(decoded.mString);
+        assertNull(decoded.mBytes);
+
+        decoded = roundTrip(new AllFields(false, Integer.MAX_VALUE, Long.MAX_VALUE, 0f, 0.0, "", new byte[0]));
+        assertEquals(Integer.MAX_VALUE, decoded.mInt);
+        assertEquals(Long.MAX_VALUE, decoded.mLong);
+        assertEquals("", decoded.mString);
+        assertArrayEquals(new byte[0], decoded.mBytes);
+    }
+
+    @Test
+    public void encode_writesSmallValuesInFewBytes() throws Exception {
+
+        final byte[] encoded = ArgsWriter.encode(new AllFields(true, 1, -1, 0f, 0.0, "a", null));
+
+        // flag + int + long + float + double + string length and byte + null array
+        assertEquals(1 + 1 + 1 + 4 + 8 + 2 + 1, encoded.length);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void decode_rejectsTruncatedArgs() throws Exception {
+
+        final byte[] encoded = ArgsWriter.encode(new AllFields(true, 1, 1, 1f, 1.0, "truncated", null));
+        ArgsReader.decode(Arrays.copyOf(encoded, encoded.length - 4), AllFields.DECODER);
+    }
+}
@@ -0,0 +1,159 @@
+package com.vinaysshenoy.routz.compiler;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * A minimal perfect hash of a set of distinct {@code int} keys, found at compile time with hash and displace.
+ * <p/>
+ * Keys are first hashed into buckets of a few keys each. Each bucket gets a displacement, which is mixed into its keys
+ * before they are hashed again into the slots, and the displacements are chosen from the largest bucket down so that
+ * no two keys share a slot. Looking up a key is then two multiplications, a table read and no probing:
+ * <pre>
+ * slot = ((key ^ displacements[(key * bucketSeed) >>> bucketShift]) * slotSeed) >>> slotShift
+ * </pre>
+ */
+/* package */ final class PerfectHash {
+
+    /**
+     * Keep at most 4 keys for every 5 slots, so that the last buckets still find free slots quickly
+     */
+    private static final int MAX_LOAD_NUMERATOR = 4;
+
+    private static final int MAX_LOAD_DENOMINATOR = 5;
+
+    private static final int MAX_SEED_TRIES = 32;
+
+    private static final int MAX_DISPLACEMENT_TRIES = 1 << 16;
+
+    /**
+     * Spreads the consecutive displacements that are tried over all the bits
+     */
+    private static final int DISPLACEMENT_STEP = 0x9E3779B9;
+
+    /* package */ final int bucketSeed;
+
+    /* package */ final int bucketShift;
+
+    /* package */ final int slotSeed;
+
+    /* package */ final int slotShift;
+
+    /* package */ final int[] displacements;
+
+    private PerfectHash(int bucketSeed, int bucketShift, int slotSeed, int slotShift, int[] displacements) {
+        this.bucketSeed = bucketSeed;
+        this.bucketShift = bucketShift;
+        this.slotSeed = slotSeed;
+        this.slotShift = slotShift;
+        this.displacements = displacements;
+    }
+
+    /**
+     * Find a perfect hash for a set of keys. The same keys always give the same hash
+     *
+     * @param keys The keys, which must be distinct
+     */
+    /* package */ static PerfectHash create(int[] keys) {
+
+        int slotBits = Math.max(1, 32 - Integer.numberOfLeadingZeros(keys.length - 1));
+        if ((long) keys.length * MAX_LOAD_DENOMINATOR > (1L << slotBits) * MAX_LOAD_NUMERATOR) {
+            slotBits++;
+        }
+
+        final Random random = new Random(keys.length);
+        PerfectHash perfectHash;
+        while (true) {
+            final int bucketBits = Math.max(1, slotBits - 2);
+            for (int i = 0; i < MAX_SEED_TRIES; i++) {
+                perfectHash = tryCreate(keys, random.nextInt() | 1, bucketBits, random.nextInt() | 1, slotBits);
+                if (perfectHash != null) {
+                    return perfectHash;
+                }
+            }
+            if (slotBits == 30) {
+                throw new IllegalArgumentException("Keys are not distinct!");
+            }
+            slotBits++;
+        }
+    }
+
+    private static PerfectHash tryCreate(int[] keys, int bucketSeed, int bucketBits, int slotSeed, int slotBits) {
+
+        final int bucketShift = 32 - bucketBits;
+        final int slotShift = 32 - slotBits;
+
+        final List<List<Integer>> buckets = new ArrayList<>(1 << bucketBits);
+        for (int i = 0; i < 1 << bucketBits; i++) {
+            buckets.add(new ArrayList<Integer>());
+        }
+        for (int key : keys) {
+            buckets.get((key * bucketSeed) >>> bucketShift).add(key);
+        }
+
+        final Integer[] order = new Integer[buckets.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer lhs, Integer rhs) {
+                final int bySize = buckets.get(rhs).size() - buckets.get(lhs).size();
+                return bySize != 0 ? bySize : lhs - rhs;
+            }
+        });
+
+        final int[] displacements = new int[buckets.size()];
+        final boolean[] taken = new boolean[1 << slotBits];
+        final int[] slots = new int[keys.length];
+        for (Integer bucketIndex : order) {
+            final List<Integer> bucket = buckets.get(bucketIndex);
+            if (bucket.isEmpty()) {
+                break;
+            }
+            boolean placed = false;
+            int displacement = 0;
+            for (int i = 0; i < MAX_DISPLACEMENT_TRIES && !placed; i++) {
+                displacement = i * DISPLACEMENT_STEP;
+                placed = fits(bucket, displacement, slotSeed, slotShift, taken, slots);
+            }
+            if (!placed) {
+                return null;
+            }
+            for (int i = 0; i < bucket.size(); i++) {
+                taken[slots[i]] = true;
+            }
+            displacements[bucketIndex] = displacement;
+        }
+        return new PerfectHash(bucketSeed, bucketShift, slotSeed, slotShift, displacements);
+    }
+
+    private static boolean fits(List<Integer> bucket, int displacement, int slotSeed, int slotShift, boolean[] taken, int[] slots) {
+
+        int slot;
+        for (int i = 0; i < bucket.size(); i++) {
+            slot = ((bucket.get(i) ^ displacement) * slotSeed) >>> slotShift;
+            if (taken[slot]) {
+                return false;
+            }
+            for (int j = 0; j < i; j++) {
+                if (slots[j] == slot) {
+                    return false;
+                }
+            }
+            slots[i] = slot;
+        }
+        return true;
+    }
+
+    /* package */ int slotOf(int key) {
+        return ((key ^ displacements[(key * bucketSeed) >>> bucketShift]) * slotSeed) >>> slotShift;
+    }
+
+    /* package */ int getSlotCount() {
+        return 1 << (32 - slotShift);
+    }
+}
@@ -0,0 +1,304 @@
+package com.vinaysshenoy.routz.compiler;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedOptions;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+/**
+ * Generates a {@code RoutzRouteCreator} and a {@code RoutzRoutes} class from the screens annotated with
+ * {@code @Route} in a module.
+ * <p/>
+ * The classes are generated in the package given by the {@code routz.package} option, or the package that all the
+ * annotated screens share if it is not set.
+ */
+@SupportedAnnotationTypes(RouteProcessor.ROUTE_ANNOTATION)
+@SupportedOptions(RouteProcessor.OPTION_PACKAGE)
+public final class RouteProcessor extends AbstractProcessor {
+
+    /* package */ static final String ROUTE_ANNOTATION = "com.vinaysshenoy.routz.Route";
+
+    /* package */ static final String OPTION_PACKAGE = "routz.package";
+
+    private static final String SCREEN_CLASS = "com.vinaysshenoy.routz.Screen";
+
+    private static final String BUNDLE_CLASS = "android.os.Bundle";
+
+    private Elements mElements;
+
+    private Types mTypes;
+
+    private Messager mMessager;
+
+    private Filer mFiler;
+
+    private boolean mGenerated;
+
+    @Override
+    public synchronized void init(ProcessingEnvironment processingEnv) {
+        super.init(processingEnv);
+        mElements = processingEnv.getElementUtils();
+        mTypes = processingEnv.getTypeUtils();
+        mMessager = processingEnv.getMessager();
+        mFiler = processingEnv.getFiler();
+        mGenerated = false;
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+
+        final TypeElement routeAnnotation = mElements.getTypeElement(ROUTE_ANNOTATION);
+        if (routeAnnotation == null || annotations.isEmpty()) {
+            return false;
+        }
+
+        final Set<? extends Element> elements = roundEnv.getElementsAnnotatedWith(routeAnnotation);
+        if (elements.isEmpty()) {
+            return false;
+        }
+        if (mGenerated) {
+            /* The generated classes have no routes, so this only happens if another processor generates screens */
+            error(elements.iterator().next(), "@Route screens must all be compiled in the same round");
+            return true;
+        }
+        mGenerated = true;
+
+        final List<RouteSourceWriter.RouteScreen> screens = new ArrayList<>(elements.size());
+        final Map<String, TypeElement> screensByRoute = new HashMap<>();
+        boolean valid = true;
+        for (Element element : elements) {
+            final TypeElement screenElement = (TypeElement) element;
+            final String route = getRoute(screenElement, routeAnnotation);
+            if (!isValidRoute(screenElement, route) || !isValidScreen(screenElement)) {
+                valid = false;
+                continue;
+            }
+
+            final TypeElement existing = screensByRoute.put(route, screenElement);
+            if (existing != null) {
+                error(screenElement, "Route \"%s\" is already used by %s", route, existing.getQualifiedName());
+                valid = false;
+                continue;
+            }
+            screens.add(new RouteSourceWriter.RouteScreen(route, screenElement.getQualifiedName().toString(), hasBundleConstructor(screenElement)));
+        }
+
+        final String packageName = getGeneratedPackage(screensByRoute.values());
+        if (!valid || !checkAccessible(screensByRoute.values(), packageName)) {
+            return true;
+        }
+
+        final RouteSourceWriter sourceWriter;
+        try {
+            sourceWriter = new RouteSourceWriter(packageName, screens);
+        } catch (IllegalArgumentException e) {
+            mMessager.printMessage(Diagnostic.Kind.ERROR, e.getMessage());
+            return true;
+        }
+
+        final Element[] originatingElements = screensByRoute.values().toArray(new Element[screensByRoute.size()]);
+        write(qualify(packageName, RouteSourceWriter.ROUTE_CREATOR_CLASS), sourceWriter.writeRouteCreator(), originatingElements);
+        write(qualify(packageName, RouteSourceWriter.ROUTES_CLASS), sourceWriter.writeRoutes(), originatingElements);
+        return true;
+    }
+
+    private String getRoute(TypeElement screenElement, TypeElement routeAnnotation) {
+
+        for (AnnotationMirror annotationMirror : screenElement.getAnnotationMirrors()) {
+            if (mTypes.isSameType(annotationMirror.getAnnotationType(), routeAnnotation.asType())) {
+                for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : annotationMirror.getElementValues().entrySet()) {
+                    if (entry.getKey().getSimpleName().contentEquals("value")) {
+                        return String.valueOf(entry.getValue().getValue());
+                    }
+                }
+            }
+        }
+        return "";
+    }
+
+    private boolean isValidRoute(TypeElement screenElement, String route) {
+
+        if (route.isEmpty()) {
+            error(screenElement, "@Route must not be empty");
+            return false;
+        }
+        if (route.indexOf('{') >= 0) {
+            error(screenElement, "@Route \"%s\" has path parameters, which only a RouteRegistry can resolve", route);
+            return false;
+        }
+        return true;
+    }
+
+    private boolean isValidScreen(TypeElement screenElement) {
+
+        if (screenElement.getKind() != ElementKind.CLASS) {
+            error(screenElement, "@Route can only be used on classes");
+            return false;
+        }
+        if (screenElement.getModifiers().contains(Modifier.ABSTRACT)) {
+            error(screenElement, "@Route screens must not be abstract");
+            return false;
+        }
+        final TypeElement screenClass = mElements.getTypeElement(SCREEN_CLASS);
+        if (screenClass != null && !mTypes.isSubtype(screenElement.asType(), mTypes.erasure(screenClass.asType()))) {
+            error(screenElement, "@Route screens must extend %s", SCREEN_CLASS);
+            return false;
+        }
+        Element outer;
+        for (Element enclosing = screenElement; enclosing.getKind() != ElementKind.PACKAGE; enclosing = outer) {
+            if (enclosing.getModifiers().contains(Modifier.PRIVATE)) {
+                error(screenElement, "@Route screens must not be private");
+                return false;
+            }
+            outer = enclosing.getEnclosingElement();
+            if (outer.getKind() != ElementKind.PACKAGE) {
+                if (!outer.getKind().isClass() && !outer.getKind().isInterface()) {
+                    error(screenElement, "@Route screens must not be local classes");
+                    return false;
+                }
+                if (!enclosing.getModifiers().contains(Modifier.STATIC)) {
+                    error(screenElement, "@Route screens that are nested must be static");
+                    return false;
+                }
+            }
+        }
+        if (getConstructor(screenElement) == null) {
+            error(screenElement, "@Route screens must have a constructor that takes a %s, or no arguments", BUNDLE_CLASS);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Get the constructor the generated creator calls, preferring the one that takes the params
+     */
+    private ExecutableElement getConstructor(TypeElement screenElement) {
+
+        ExecutableElement noArgConstructor = null;
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(screenElement.getEnclosedElements())) {
+            if (constructor.getModifiers().contains(Modifier.PRIVATE)) {
+                continue;
+            }
+            if (constructor.getParameters().size() == 1) {
+                final TypeMirror parameterType = constructor.getParameters().get(0).asType();
+                if (mTypes.erasure(parameterType).toString().equals(BUNDLE_CLASS)) {
+                    return constructor;
+                }
+            } else if (constructor.getParameters().isEmpty()) {
+                noArgConstructor = constructor;
+            }
+        }
+        return noArgConstructor;
+    }
+
+    private boolean hasBundleConstructor(TypeElement screenElement) {
+        return !getConstructor(screenElement).getParameters().isEmpty();
+    }
+
+    /**
+     * Screens in other packages than the generated classes must be public, and so must their constructors
+     */
+    private boolean checkAccessible(Iterable<TypeElement> screenElements, String packageName) {
+
+        boolean accessible = true;
+        for (TypeElement screenElement : screenElements) {
+            if (getPackageName(screenElement).equals(packageName)) {
+                continue;
+            }
+            for (Element enclosing = screenElement; enclosing.getKind() != ElementKind.PACKAGE; enclosing = enclosing.getEnclosingElement()) {
+                if (!enclosing.getModifiers().contains(Modifier.PUBLIC)) {
+                    error(screenElement, "@Route screens outside of package %s must be public", packageName);
+                    accessible = false;
+                    break;
+                }
+            }
+            if (accessible && !getConstructor(screenElement).getModifiers().contains(Modifier.PUBLIC)) {
+                error(screenElement, "@Route screens outside of package %s must have a public constructor", packageName);
+                accessible = false;
+            }
+        }
+        return accessible;
+    }
+
+    private String getGeneratedPackage(Iterable<TypeElement> screenElements) {
+
+        final String packageOption = processingEnv.getOptions().get(OPTION_PACKAGE);
+        if (packageOption != null) {
+            return packageOption;
+        }
+
+        String commonPackage = null;
+        for (TypeElement screenElement : screenElements) {
+            final String packageName = getPackageName(screenElement);
+            if (commonPackage == null) {
+                commonPackage = packageName;
+            } else {
+                while (!commonPackage.isEmpty() && !packageName.equals(commonPackage) && !packageName.startsWith(commonPackage + ".")) {
+                    final int lastDot = commonPackage.lastIndexOf('.');
+                    commonPackage = lastDot < 0 ? "" : commonPackage.substring(0, lastDot);
+                }
+            }
+        }
+        return commonPackage == null ? "" : commonPackage;
+    }
+
+    private String getPackageName(TypeElement screenElement) {
+
+        final PackageElement packageElement = mElements.getPackageOf(screenElement);
+        return packageElement.isUnnamed() ? "" : packageElement.getQualifiedName().toString();
+    }
+
+    private static String qualify(String packageName, String className) {
+        return packageName.isEmpty() ? className : packageName + "." + className;
+    }
+
+    private void write(String className, String source, Element[] originatingElements) {
+
+        try {
+            final JavaFileObject sourceFile = mFiler.createSourceFile(className, originatingElements);
+            final Writer writer = sourceFile.openWriter();
+            try {
+                writer.write(source);
+            } finally {
+                writer.close();
+            }
+        } catch (IOException e) {
+            mMessager.printMessage(Diagnostic.Kind.ERROR, "Unable to write " + className + ": " + e.getMessage());
+        }
+    }
+
+    private void error(Element element, String format, Object... args) {
+        mMessager.printMessage(Diagnostic.Kind.ERROR, String.format(format, args), element);
+    }
+}
@@ -0,0 +1,267 @@
+package com.vinaysshenoy.routz.compiler;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Writes the sources of the classes generated for a set of routes
+ */
+/* package */ final class RouteSourceWriter {
+
+    /* package */ static final String ROUTE_CREATOR_CLASS = "RoutzRouteCreator";
+
+    /* package */ static final String ROUTES_CLASS = "RoutzRoutes";
+
+    private static final String INDENT = "    ";
+
+    private final String mPackageName;
+
+    /**
+     * The screens, sorted by route
+     */
+    private final List<RouteScreen> mScreens;
+
+    /**
+     * The name of the constant for each route, in the order of {@link #mScreens}
+     */
+    private final Map<String, String> mConstantNames;
+
+    private final PerfectHash mPerfectHash;
+
+    /**
+     * @throws IllegalArgumentException If two routes would get constants with the same name
+     */
+    /* package */ RouteSourceWriter(String packageName, List<RouteScreen> screens) {
+
+        mPackageName = packageName;
+        mScreens = new ArrayList<>(screens);
+        Collections.sort(mScreens, new Comparator<RouteScreen>() {
+            @Override
+            public int compare(RouteScreen lhs, RouteScreen rhs) {
+                return lhs.route.compareTo(rhs.route);
+            }
+        });
+
+        mConstantNames = new LinkedHashMap<>();
+        final Map<String, String> routesByConstantName = new HashMap<>();
+        for (RouteScreen screen : mScreens) {
+            final String constantName = toConstantName(screen.route);
+            final String existing = routesByConstantName.put(constantName, screen.route);
+            if (existing != null) {
+                throw new IllegalArgumentException(String.format(Locale.US,
+                        "Routes \"%s\" and \"%s\" would both be named %s in %s", existing, screen.route, constantName, ROUTES_CLASS));
+            }
+            mConstantNames.put(screen.route, constantName);
+        }
+
+        /* Routes whose hash codes collide share a slot, and are told apart by the equals check */
+        final Set<Integer> hashes = new LinkedHashSet<>();
+        for (RouteScreen screen : mScreens) {
+            hashes.add(screen.route.hashCode());
+        }
+        final int[] keys = new int[hashes.size()];
+        int i = 0;
+        for (Integer hash : hashes) {
+            keys[i++] = hash;
+        }
+        mPerfectHash = PerfectHash.create(keys);
+    }
+
+    /* package */ String writeRouteCreator() {
+
+        final Map<Integer, List<RouteScreen>> screensBySlot = new TreeMap<>();
+        for (RouteScreen screen : mScreens) {
+            final int slot = mPerfectHash.slotOf(screen.route.hashCode());
+            List<RouteScreen> slotScreens = screensBySlot.get(slot);
+            if (slotScreens == null) {
+                slotScreens = new ArrayList<>(1);
+                screensBySlot.put(slot, slotScreens);
+            }
+            slotScreens.add(screen);
+        }
+
+        final StringBuilder source = new StringBuilder();
+        writeHeader(source);
+        source.append("import android.os.Bundle;\n")
+                .append("\n")
+                .append("import com.vinaysshenoy.routz.RouteCreator;\n")
+                .append("import com.vinaysshenoy.routz.Screen;\n")
+                .append("\n")
+                .append("/**\n")
+                .append(" * Generated by the routz compiler from the {@code @Route} screens of this module. Do not edit.\n")
+                .append(" * <p/>\n")
+                .append(" * A route is found with a perfect hash of its {@link String#hashCode()}, computed at compile time, so each\n")
+                .append(" * lookup is a switch on its slot and a single {@link String#equals(Object)}, and no screen class is loaded\n")
+                .append(" * until its route is instantiated. Returns {@code null} for any other route.\n")
+                .append(" */\n")
+                .append("public final class ").append(ROUTE_CREATOR_CLASS).append(" implements RouteCreator {\n")
+                .append("\n");
+        appendConstant(source, "BUCKET_SEED", hex(mPerfectHash.bucketSeed));
+        appendConstant(source, "BUCKET_SHIFT", String.valueOf(mPerfectHash.bucketShift));
+        appendConstant(source, "SLOT_SEED", hex(mPerfectHash.slotSeed));
+        appendConstant(source, "SLOT_SHIFT", String.valueOf(mPerfectHash.slotShift));
+
+        source.append(INDENT).append("private static final int[] DISPLACEMENTS = {");
+        for (int i = 0; i < mPerfectHash.displacements.length; i++) {
+            source.append(i % 8 == 0 ? "\n" + INDENT + INDENT : " ").append(hex(mPerfectHash.displacements[i])).append(',');
+        }
+        source.append("\n").append(INDENT).append("};\n")
+                .append("\n")
+                .append(INDENT).append("@Override\n")
+                .append(INDENT).append("public Screen instantiateScreenForRoute(String route, Bundle params) {\n")
+                .append("\n")
+                .append(INDENT).append(INDENT).append("final int hash = route.hashCode();\n")
+                .append(INDENT).append(INDENT).append("switch (((hash ^ DISPLACEMENTS[(hash * BUCKET_SEED) >>> BUCKET_SHIFT]) * SLOT_SEED) >>> SLOT_SHIFT) {\n");
+        for (Map.Entry<Integer, List<RouteScreen>> entry : screensBySlot.entrySet()) {
+            source.append(INDENT).append(INDENT).append(INDENT).append("case ").append(entry.getKey()).append(":\n");
+            for (RouteScreen screen : entry.getValue()) {
+                source.append(INDENT).append(INDENT).append(INDENT).append(INDENT)
+                        .append("if (").append(quote(screen.route)).append(".equals(route)) {\n")
+                        .append(INDENT).append(INDENT).append(INDENT).append(INDENT).append(INDENT)
+                        .append("return new ").append(screen.className).append(screen.takesParams ? "(params);\n" : "();\n")
+                        .append(INDENT).append(INDENT).append(INDENT).append(INDENT).append("}\n");
+            }
+            source.append(INDENT).append(INDENT).append(INDENT).append(INDENT).append("break;\n");
+        }
+        source.append(INDENT).append(INDENT).append("}\n")
+                .append(INDENT).append(INDENT).append("return null;\n")
+                .append(INDENT).append("}\n")
+                .append("}\n");
+        return source.toString();
+    }
+
+    /* package */ String writeRoutes() {
+
+        final StringBuilder source = new StringBuilder();
+        writeHeader(source);
+        source.append("/**\n")
+                .append(" * Generated by the routz compiler from the {@code @Route} screens of this module. Do not edit.\n")
+                .append(" */\n")
+                .append("public final class ").append(ROUTES_CLASS).append(" {\n");
+        for (RouteScreen screen : mScreens) {
+            source.append("\n")
+                    .append(INDENT).append("/**\n")
+                    .append(INDENT).append(" * {@link ").append(screen.className).append("}\n")
+                    .append(INDENT).append(" */\n");
+            appendStringConstant(source, mConstantNames.get(screen.route), screen.route);
+        }
+        source.append("\n")
+                .append(INDENT).append("private ").append(ROUTES_CLASS).append("() {\n")
+                .append(INDENT).append("}\n")
+                .append("}\n");
+        return source.toString();
+    }
+
+    private void writeHeader(StringBuilder source) {
+
+        if (!mPackageName.isEmpty()) {
+            source.append("package ").append(mPackageName).append(";\n\n");
+        }
+    }
+
+    private static void appendConstant(StringBuilder source, String name, String value) {
+        source.append(INDENT).append("private static final int ").append(name).append(" = ").append(value).append(";\n\n");
+    }
+
+    private static void appendStringConstant(StringBuilder source, String name, String value) {
+        source.append(INDENT).append("public static final String ").append(name).append(" = ").append(quote(value)).append(";\n");
+    }
+
+    private static String hex(int value) {
+        return "0x" + Integer.toHexString(value);
+    }
+
+    /**
+     * Turn a route into the name of a constant, like {@code SCREENS_SCREEN_1} for {@code "screens/SCREEN_1"}
+     */
+    /* package */ static String toConstantName(String route) {
+
+        final StringBuilder name = new StringBuilder(route.length() + 6);
+        char c;
+        boolean separated = true;
+        for (int i = 0; i < route.length(); i++) {
+            c = route.charAt(i);
+            if (Character.isLetterOrDigit(c) && c < 128) {
+                /* A lower case letter followed by an upper case one starts a new word, as in camel case */
+                if (Character.isUpperCase(c) && i > 0 && Character.isLowerCase(route.charAt(i - 1)) && !separated) {
+                    name.append('_');
+                }
+                name.append(Character.toUpperCase(c));
+                separated = false;
+            } else if (!separated) {
+                name.append('_');
+                separated = true;
+            }
+        }
+        if (name.length() > 0 && name.charAt(name.length() - 1) == '_') {
+            name.setLength(name.length() - 1);
+        }
+        if (name.length() == 0 || Character.isDigit(name.charAt(0))) {
+            name.insert(0, name.length() == 0 ? "ROUTE" : "ROUTE_");
+        }
+        return name.toString();
+    }
+
+    private static String quote(String value) {
+
+        final StringBuilder quoted = new StringBuilder(value.length() + 2).append('"');
+        char c;
+        for (int i = 0; i < value.length(); i++) {
+            c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    quoted.append("\\\"");
+                    break;
+                case '\\':
+                    quoted.append("\\\\");
+                    break;
+                case '\n':
+                    quoted.append("\\n");
+                    break;
+                case '\r':
+                    quoted.append("\\r");
+                    break;
+                case '\t':
+                    quoted.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20 || c > 0x7e) {
+                        quoted.append(String.format(Locale.US, "\\u%04x", (int) c));
+                    } else {
+                        quoted.append(c);
+                    }
+            }
+        }
+        return quoted.append('"').toString();
+    }
+
+    /**
+     * A screen annotated with a route
+     */
+    /* package */ static final class RouteScreen {
+
+        /* package */ final String route;
+
+        /* package */ final String className;
+
+        /**
+         * Whether the screen's constructor takes the params
+         */
+        /* package */ final boolean takesParams;
+
+        /* package */ RouteScreen(String route, String className, boolean takesParams) {
+            this.route = route;
+            this.className = className;
+            this.takesParams = takesParams;
+        }
+    }
+}
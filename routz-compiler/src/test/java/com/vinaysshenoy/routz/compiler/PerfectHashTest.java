@@ -0,0 +1,55 @@
+package com.vinaysshenoy.routz.compiler;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PerfectHashTest {
+
+    private static int[] routeHashes(int count) {
+
+        final int[] hashes = new int[count];
+        for (int i = 0; i < count; i++) {
+            hashes[i] = ("screens/depth/" + i).hashCode();
+        }
+        return hashes;
+    }
+
+    @Test
+    public void everyKey_getsItsOwnSlot() throws Exception {
+
+        for (int count : new int[]{1, 2, 3, 10, 100, 1000, 5000}) {
+            final int[] keys = routeHashes(count);
+            final PerfectHash perfectHash = PerfectHash.create(keys);
+            final boolean[] taken = new boolean[perfectHash.getSlotCount()];
+            for (int key : keys) {
+                final int slot = perfectHash.slotOf(key);
+                assertFalse("Slot taken twice for " + count + " keys", taken[slot]);
+                taken[slot] = true;
+            }
+            assertTrue("Too many slots for " + count + " keys", perfectHash.getSlotCount() <= Math.max(2, count * 4));
+        }
+    }
+
+    @Test
+    public void sameKeys_giveTheSameHash() throws Exception {
+
+        final PerfectHash first = PerfectHash.create(routeHashes(50));
+        final PerfectHash second = PerfectHash.create(routeHashes(50));
+
+        assertEquals(first.bucketSeed, second.bucketSeed);
+        assertEquals(first.slotSeed, second.slotSeed);
+        assertArrayEquals(first.displacements, second.displacements);
+    }
+
+    @Test
+    public void constantNames_followTheRoute() throws Exception {
+
+        assertEquals("SCREENS_SCREEN_1", RouteSourceWriter.toConstantName("screens/SCREEN_1"));
+        assertEquals("SETTINGS_USER_PROFILE", RouteSourceWriter.toConstantName("settings/userProfile"));
+        assertEquals("ROUTE_404", RouteSourceWriter.toConstantName("/404/"));
+    }
+}